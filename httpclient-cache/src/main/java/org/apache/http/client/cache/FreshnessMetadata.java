@@ -0,0 +1,211 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.cache;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.client.utils.DateUtils;
+
+/**
+ * Freshness related metadata of a {@link HttpCacheEntry} parsed once from
+ * the {@code Date}, {@code Expires}, {@code Last-Modified}, {@code Age} and
+ * {@code Cache-Control} response headers when the entry is created, so that
+ * freshness computation on cache hits does not need to re-parse them.
+ *
+ * @since 5.0
+ */
+@Immutable
+public final class FreshnessMetadata {
+
+    /**
+     * Value of absent or malformed date headers.
+     */
+    public static final long UNDEFINED = Long.MIN_VALUE;
+
+    /**
+     * Age assumed for malformed {@code Age} headers.
+     */
+    public static final long MAX_AGE = 2147483648L;
+
+    private final long date;
+    private final long expires;
+    private final long lastModified;
+    private final long ageValue;
+    private final long maxAge;
+    private final long staleWhileRevalidate;
+    private final long staleIfError;
+    private final Set<String> directives;
+
+    FreshnessMetadata(final HttpCacheEntry entry) {
+        super();
+        final Date dateValue = entry.getDate();
+        this.date = dateValue != null ? dateValue.getTime() : UNDEFINED;
+        this.expires = parseDate(entry.getFirstHeader(HeaderConstants.EXPIRES));
+        this.lastModified = parseDate(entry.getFirstHeader(HeaderConstants.LAST_MODIFIED));
+
+        long age = 0;
+        for (final Header hdr : entry.getHeaders(HeaderConstants.AGE)) {
+            long hdrAge;
+            try {
+                hdrAge = Long.parseLong(hdr.getValue());
+                if (hdrAge < 0) {
+                    hdrAge = MAX_AGE;
+                }
+            } catch (final NumberFormatException nfe) {
+                hdrAge = MAX_AGE;
+            }
+            age = (hdrAge > age) ? hdrAge : age;
+        }
+        this.ageValue = age;
+
+        long maxage = -1;
+        long swr = -1;
+        long sie = -1;
+        Set<String> names = null;
+        for (final Header hdr : entry.getHeaders(HeaderConstants.CACHE_CONTROL)) {
+            for (final HeaderElement elt : hdr.getElements()) {
+                final String name = elt.getName();
+                if (names == null) {
+                    names = new HashSet<>();
+                }
+                names.add(name.toLowerCase(Locale.ROOT));
+                if (HeaderConstants.CACHE_CONTROL_MAX_AGE.equals(name) || "s-maxage".equals(name)) {
+                    try {
+                        final long currMaxAge = Long.parseLong(elt.getValue());
+                        if (maxage == -1 || currMaxAge < maxage) {
+                            maxage = currMaxAge;
+                        }
+                    } catch (final NumberFormatException nfe) {
+                        // be conservative if can't parse
+                        maxage = 0;
+                    }
+                } else if (HeaderConstants.STALE_WHILE_REVALIDATE.equalsIgnoreCase(name)) {
+                    swr = Math.max(swr, parseSeconds(elt.getValue()));
+                } else if (HeaderConstants.STALE_IF_ERROR.equals(name)) {
+                    sie = Math.max(sie, parseSeconds(elt.getValue()));
+                }
+            }
+        }
+        this.maxAge = maxage;
+        this.staleWhileRevalidate = swr;
+        this.staleIfError = sie;
+        this.directives = names != null ? Collections.unmodifiableSet(names) : Collections.<String>emptySet();
+    }
+
+    private static long parseDate(final Header header) {
+        if (header == null) {
+            return UNDEFINED;
+        }
+        final Date d = DateUtils.parseDate(header.getValue());
+        return d != null ? d.getTime() : UNDEFINED;
+    }
+
+    private static long parseSeconds(final String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (final NumberFormatException nfe) {
+            // skip malformed directive
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the value of the {@code Date} header in milliseconds since the epoch
+     * or {@link #UNDEFINED}.
+     */
+    public long getDate() {
+        return this.date;
+    }
+
+    /**
+     * Returns the value of the {@code Expires} header in milliseconds since the epoch
+     * or {@link #UNDEFINED}.
+     */
+    public long getExpires() {
+        return this.expires;
+    }
+
+    /**
+     * Returns the value of the {@code Last-Modified} header in milliseconds since
+     * the epoch or {@link #UNDEFINED}.
+     */
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    /**
+     * Returns the largest {@code Age} header value in seconds, {@code 0} if absent.
+     */
+    public long getAgeValue() {
+        return this.ageValue;
+    }
+
+    /**
+     * Returns the smallest of the {@code max-age} and {@code s-maxage} directives
+     * in seconds or {@code -1} if neither is present.
+     */
+    public long getMaxAge() {
+        return this.maxAge;
+    }
+
+    /**
+     * Returns the largest {@code stale-while-revalidate} directive in seconds
+     * or {@code -1} if not present.
+     */
+    public long getStaleWhileRevalidate() {
+        return this.staleWhileRevalidate;
+    }
+
+    /**
+     * Returns the largest {@code stale-if-error} directive in seconds
+     * or {@code -1} if not present.
+     */
+    public long getStaleIfError() {
+        return this.staleIfError;
+    }
+
+    /**
+     * Returns {@code true} if the {@code Cache-Control} headers include the given
+     * directive, ignoring case.
+     */
+    public boolean hasCacheControlDirective(final String directive) {
+        return this.directives.contains(directive.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return "[max-age=" + this.maxAge + "; age=" + this.ageValue + "; directives=" + this.directives + "]";
+    }
+
+}
@@ -26,6 +26,8 @@
  */
 package org.apache.http.client.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Date;
@@ -64,6 +66,7 @@ public class HttpCacheEntry implements Serializable {
     private final Resource resource;
     private final Map<String,String> variantMap;
     private final Date date;
+    private transient FreshnessMetadata freshnessMetadata;
 
     /**
      * Create a new {@link HttpCacheEntry} with variants.
@@ -107,6 +110,7 @@ public class HttpCacheEntry implements Serializable {
             ? new HashMap<>(variantMap)
             : null;
         this.date = parseDate();
+        this.freshnessMetadata = new FreshnessMetadata(this);
     }
 
     /**
@@ -289,6 +293,15 @@ public class HttpCacheEntry implements Serializable {
         return date;
     }
 
+    /**
+     * Returns freshness metadata parsed from the response headers.
+     *
+     * @since 5.0
+     */
+    public FreshnessMetadata getFreshnessMetadata() {
+        return freshnessMetadata;
+    }
+
     /**
      * Returns the {@link Resource} containing the origin response body.
      */
@@ -334,6 +347,11 @@ public class HttpCacheEntry implements Serializable {
         return HeaderConstants.GET_METHOD;
     }
 
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.freshnessMetadata = new FreshnessMetadata(this);
+    }
+
     /**
      * Provides a string representation of this instance suitable for
      * human consumption.
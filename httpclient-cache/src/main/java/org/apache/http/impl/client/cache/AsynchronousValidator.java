@@ -40,6 +40,7 @@ import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.PooledHttpContext;
 
 /**
  * Class used for asynchronous revalidations to be used when the "stale-
@@ -100,6 +101,8 @@ class AsynchronousValidator implements Closeable {
         final String uri = cacheKeyGenerator.getVariantURI(context.getTargetHost(), request, entry);
 
         if (!queued.contains(uri)) {
+            // The context is used by the revalidation after request execution
+            PooledHttpContext.retain(context);
             final int consecutiveFailedAttempts = failureCache.getErrorCount(uri);
             final AsynchronousValidationRequest revalidationRequest =
                 new AsynchronousValidationRequest(
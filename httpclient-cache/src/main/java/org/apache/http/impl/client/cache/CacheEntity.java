@@ -26,20 +26,27 @@
  */
 package org.apache.http.impl.client.cache;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.Header;
-import org.apache.http.HttpEntity;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.client.entity.ContentTransfer;
+import org.apache.http.client.entity.TransferableEntity;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
 
 @Immutable
-class CacheEntity implements HttpEntity, Serializable {
+class CacheEntity implements TransferableEntity, Serializable {
 
     private static final long serialVersionUID = -3467082284120936233L;
 
@@ -88,6 +95,44 @@ class CacheEntity implements HttpEntity, Serializable {
         }
     }
 
+    /**
+     * Writes heap resources to the channel without copying and transfers
+     * file resources using {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+     */
+    @Override
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        Args.notNull(channel, "Channel");
+        final Resource resource = this.cacheEntry.getResource();
+        if (resource instanceof HeapResource) {
+            final byte[] b = ((HeapResource) resource).getByteArray();
+            ContentTransfer.writeFully(channel, ByteBuffer.wrap(b));
+            return b.length;
+        }
+        if (resource instanceof FileResource) {
+            try (FileInputStream instream = new FileInputStream(((FileResource) resource).getFile())) {
+                final FileChannel fileChannel = instream.getChannel();
+                final long size = fileChannel.size();
+                long pos = 0;
+                while (pos < size) {
+                    pos += fileChannel.transferTo(pos, size - pos, channel);
+                }
+                return pos;
+            }
+        }
+        try (InputStream instream = resource.getInputStream()) {
+            return ContentTransfer.copy(instream, channel, resource.length());
+        }
+    }
+
+    @Override
+    public ReadableByteChannel getContentChannel() throws IOException {
+        final Resource resource = this.cacheEntry.getResource();
+        if (resource instanceof FileResource) {
+            return new FileInputStream(((FileResource) resource).getFile()).getChannel();
+        }
+        return ContentTransfer.newChannel(resource.getInputStream());
+    }
+
     @Override
     public boolean isStreaming() {
         return false;
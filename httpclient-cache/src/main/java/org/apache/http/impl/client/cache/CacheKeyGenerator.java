@@ -43,6 +43,7 @@ import org.apache.http.HttpRequest;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.client.utils.URIUtils;
 
 /**
@@ -62,6 +63,10 @@ class CacheKeyGenerator {
      * @return String the extracted URI
      */
     public String getURI(final HttpHost host, final HttpRequest req) {
+        final String normalizedUri = getNormalizedURI(host, RequestTarget.get(req));
+        if (normalizedUri != null) {
+            return normalizedUri;
+        }
         if (isRelativeRequest(req)) {
             return canonicalizeUri(String.format("%s%s", host.toString(), req.getRequestLine().getUri()));
         }
@@ -87,6 +92,61 @@ class CacheKeyGenerator {
         }
     }
 
+    /**
+     * Builds the canonical URI directly from the pre-parsed request target
+     * if its path is already in normal form. The result is the same as that
+     * of {@link #canonicalizeUri(String)}.
+     *
+     * @return the canonical URI or {@code null} if the request target
+     *   needs to be normalized.
+     */
+    private static String getNormalizedURI(final HttpHost host, final RequestTarget target) {
+        if (target == null || !target.isNormalized()) {
+            return null;
+        }
+        final URI uri = target.getURI();
+        final HttpHost targetHost;
+        if (uri.isAbsolute()) {
+            targetHost = uri.getHost() != null ? target.getHost() : null;
+        } else {
+            targetHost = uri.getRawAuthority() == null ? host : null;
+        }
+        if (targetHost == null || !isPlainHostName(targetHost.getHostName())) {
+            return null;
+        }
+        final String scheme = targetHost.getSchemeName();
+        final int port;
+        if ("http".equals(scheme)) {
+            port = targetHost.getPort() >= 0 ? targetHost.getPort() : 80;
+        } else if ("https".equals(scheme)) {
+            port = targetHost.getPort() >= 0 ? targetHost.getPort() : 443;
+        } else {
+            return null;
+        }
+        final String rawPath = target.getRawPath();
+        final String rawQuery = target.getRawQuery();
+        final StringBuilder buffer = new StringBuilder(target.getRequestUri().length() + 32);
+        buffer.append(scheme).append("://").append(targetHost.getHostName()).append(':').append(port);
+        buffer.append(!rawPath.isEmpty() ? rawPath : "/");
+        if (rawQuery != null) {
+            buffer.append('?').append(rawQuery);
+        }
+        return buffer.toString();
+    }
+
+    private static boolean isPlainHostName(final String hostName) {
+        if (hostName.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < hostName.length(); i++) {
+            final char ch = hostName.charAt(i);
+            if (!((ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') || ch == '.' || ch == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private int canonicalizePort(final int port, final String protocol) {
         if (port == -1 && "http".equalsIgnoreCase(protocol)) {
             return 80;
@@ -32,9 +32,9 @@ import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.HttpRequest;
 import org.apache.http.annotation.Immutable;
+import org.apache.http.client.cache.FreshnessMetadata;
 import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheEntry;
-import org.apache.http.client.utils.DateUtils;
 import org.apache.http.protocol.HTTP;
 
 /**
@@ -43,7 +43,7 @@ import org.apache.http.protocol.HTTP;
 @Immutable
 class CacheValidityPolicy {
 
-    public static final long MAX_AGE = 2147483648L;
+    public static final long MAX_AGE = FreshnessMetadata.MAX_AGE;
 
     CacheValidityPolicy() {
         super();
@@ -59,16 +59,15 @@ class CacheValidityPolicy {
             return maxage;
         }
 
-        final Date dateValue = entry.getDate();
-        if (dateValue == null) {
+        final FreshnessMetadata metadata = entry.getFreshnessMetadata();
+        if (metadata.getDate() == FreshnessMetadata.UNDEFINED) {
             return 0L;
         }
 
-        final Date expiry = getExpirationDate(entry);
-        if (expiry == null) {
+        if (metadata.getExpires() == FreshnessMetadata.UNDEFINED) {
             return 0;
         }
-        final long diff = expiry.getTime() - dateValue.getTime();
+        final long diff = metadata.getExpires() - metadata.getDate();
         return (diff / 1000);
     }
 
@@ -96,11 +95,11 @@ class CacheValidityPolicy {
 
     public long getHeuristicFreshnessLifetimeSecs(final HttpCacheEntry entry,
             final float coefficient, final long defaultLifetime) {
-        final Date dateValue = entry.getDate();
-        final Date lastModifiedValue = getLastModifiedValue(entry);
+        final FreshnessMetadata metadata = entry.getFreshnessMetadata();
 
-        if (dateValue != null && lastModifiedValue != null) {
-            final long diff = dateValue.getTime() - lastModifiedValue.getTime();
+        if (metadata.getDate() != FreshnessMetadata.UNDEFINED
+                && metadata.getLastModified() != FreshnessMetadata.UNDEFINED) {
+            final long diff = metadata.getDate() - metadata.getLastModified();
             if (diff < 0) {
                 return 0;
             }
@@ -124,22 +123,8 @@ class CacheValidityPolicy {
     }
 
     public boolean mayReturnStaleWhileRevalidating(final HttpCacheEntry entry, final Date now) {
-        for (final Header h : entry.getHeaders(HeaderConstants.CACHE_CONTROL)) {
-            for(final HeaderElement elt : h.getElements()) {
-                if (HeaderConstants.STALE_WHILE_REVALIDATE.equalsIgnoreCase(elt.getName())) {
-                    try {
-                        final int allowedStalenessLifetime = Integer.parseInt(elt.getValue());
-                        if (getStalenessSecs(entry, now) <= allowedStalenessLifetime) {
-                            return true;
-                        }
-                    } catch (final NumberFormatException nfe) {
-                        // skip malformed directive
-                    }
-                }
-            }
-        }
-
-        return false;
+        final long allowedStalenessLifetime = entry.getFreshnessMetadata().getStaleWhileRevalidate();
+        return allowedStalenessLifetime >= 0 && getStalenessSecs(entry, now) <= allowedStalenessLifetime;
     }
 
     public boolean mayReturnStaleIfError(final HttpRequest request,
@@ -147,8 +132,7 @@ class CacheValidityPolicy {
         final long stalenessSecs = getStalenessSecs(entry, now);
         return mayReturnStaleIfError(request.getHeaders(HeaderConstants.CACHE_CONTROL),
                                      stalenessSecs)
-                || mayReturnStaleIfError(entry.getHeaders(HeaderConstants.CACHE_CONTROL),
-                                         stalenessSecs);
+                || stalenessSecs <= entry.getFreshnessMetadata().getStaleIfError();
     }
 
     private boolean mayReturnStaleIfError(final Header[] headers, final long stalenessSecs) {
@@ -172,11 +156,8 @@ class CacheValidityPolicy {
     }
 
     protected Date getLastModifiedValue(final HttpCacheEntry entry) {
-        final Header dateHdr = entry.getFirstHeader(HeaderConstants.LAST_MODIFIED);
-        if (dateHdr == null) {
-            return null;
-        }
-        return DateUtils.parseDate(dateHdr.getValue());
+        final long lastModified = entry.getFreshnessMetadata().getLastModified();
+        return lastModified != FreshnessMetadata.UNDEFINED ? new Date(lastModified) : null;
     }
 
     protected long getContentLengthValue(final HttpCacheEntry entry) {
@@ -209,11 +190,11 @@ class CacheValidityPolicy {
     }
 
     protected long getApparentAgeSecs(final HttpCacheEntry entry) {
-        final Date dateValue = entry.getDate();
-        if (dateValue == null) {
+        final long dateValue = entry.getFreshnessMetadata().getDate();
+        if (dateValue == FreshnessMetadata.UNDEFINED) {
             return MAX_AGE;
         }
-        final long diff = entry.getResponseDate().getTime() - dateValue.getTime();
+        final long diff = entry.getResponseDate().getTime() - dateValue;
         if (diff < 0L) {
             return 0;
         }
@@ -221,20 +202,7 @@ class CacheValidityPolicy {
     }
 
     protected long getAgeValue(final HttpCacheEntry entry) {
-        long ageValue = 0;
-        for (final Header hdr : entry.getHeaders(HeaderConstants.AGE)) {
-            long hdrAge;
-            try {
-                hdrAge = Long.parseLong(hdr.getValue());
-                if (hdrAge < 0) {
-                    hdrAge = MAX_AGE;
-                }
-            } catch (final NumberFormatException nfe) {
-                hdrAge = MAX_AGE;
-            }
-            ageValue = (hdrAge > ageValue) ? hdrAge : ageValue;
-        }
-        return ageValue;
+        return entry.getFreshnessMetadata().getAgeValue();
     }
 
     protected long getCorrectedReceivedAgeSecs(final HttpCacheEntry entry) {
@@ -258,44 +226,17 @@ class CacheValidityPolicy {
     }
 
     protected long getMaxAge(final HttpCacheEntry entry) {
-        long maxage = -1;
-        for (final Header hdr : entry.getHeaders(HeaderConstants.CACHE_CONTROL)) {
-            for (final HeaderElement elt : hdr.getElements()) {
-                if (HeaderConstants.CACHE_CONTROL_MAX_AGE.equals(elt.getName())
-                        || "s-maxage".equals(elt.getName())) {
-                    try {
-                        final long currMaxAge = Long.parseLong(elt.getValue());
-                        if (maxage == -1 || currMaxAge < maxage) {
-                            maxage = currMaxAge;
-                        }
-                    } catch (final NumberFormatException nfe) {
-                        // be conservative if can't parse
-                        maxage = 0;
-                    }
-                }
-            }
-        }
-        return maxage;
+        return entry.getFreshnessMetadata().getMaxAge();
     }
 
     protected Date getExpirationDate(final HttpCacheEntry entry) {
-        final Header expiresHeader = entry.getFirstHeader(HeaderConstants.EXPIRES);
-        if (expiresHeader == null) {
-            return null;
-        }
-        return DateUtils.parseDate(expiresHeader.getValue());
+        final long expires = entry.getFreshnessMetadata().getExpires();
+        return expires != FreshnessMetadata.UNDEFINED ? new Date(expires) : null;
     }
 
     public boolean hasCacheControlDirective(final HttpCacheEntry entry,
             final String directive) {
-        for (final Header h : entry.getHeaders(HeaderConstants.CACHE_CONTROL)) {
-            for(final HeaderElement elt : h.getElements()) {
-                if (directive.equalsIgnoreCase(elt.getName())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return entry.getFreshnessMetadata().hasCacheControlDirective(directive);
     }
 
     public long getStalenessSecs(final HttpCacheEntry entry, final Date now) {
@@ -36,6 +36,7 @@ import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpStatus;
 import org.apache.http.annotation.Immutable;
+import org.apache.http.client.cache.FreshnessMetadata;
 import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.utils.DateUtils;
@@ -337,19 +338,15 @@ class CachedResponseSuitabilityChecker {
      * @return  boolean Does the last modified header match
      */
     private boolean lastModifiedValidatorMatches(final HttpRequest request, final HttpCacheEntry entry, final Date now) {
-        final Header lastModifiedHeader = entry.getFirstHeader(HeaderConstants.LAST_MODIFIED);
-        Date lastModified = null;
-        if (lastModifiedHeader != null) {
-            lastModified = DateUtils.parseDate(lastModifiedHeader.getValue());
-        }
-        if (lastModified == null) {
+        final long lastModified = entry.getFreshnessMetadata().getLastModified();
+        if (lastModified == FreshnessMetadata.UNDEFINED) {
             return false;
         }
 
         for (final Header h : request.getHeaders(HeaderConstants.IF_MODIFIED_SINCE)) {
             final Date ifModifiedSince = DateUtils.parseDate(h.getValue());
             if (ifModifiedSince != null) {
-                if (ifModifiedSince.after(now) || lastModified.after(ifModifiedSince)) {
+                if (ifModifiedSince.after(now) || lastModified > ifModifiedSince.getTime()) {
                     return false;
                 }
             }
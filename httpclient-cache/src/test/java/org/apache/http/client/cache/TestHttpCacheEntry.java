@@ -35,6 +35,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -350,4 +354,44 @@ public class TestHttpCacheEntry {
         entry = makeEntry(headers);
         assertEquals(HeaderConstants.GET_METHOD, entry.getRequestMethod());
     }
+
+    @Test
+    public void testFreshnessMetadataIsParsedFromHeaders() {
+        final Date date = new Date(now.getTime() / 1000 * 1000);
+        final Header[] headers = {
+                new BasicHeader("Date", DateUtils.formatDate(date)),
+                new BasicHeader("Expires", DateUtils.formatDate(new Date(date.getTime() + 60000L))),
+                new BasicHeader("Last-Modified", "garbage"),
+                new BasicHeader("Age", "5"),
+                new BasicHeader("Age", "7"),
+                new BasicHeader("Cache-Control", "max-age=30, Must-Revalidate"),
+                new BasicHeader("Cache-Control", "s-maxage=20, stale-while-revalidate=15, stale-if-error=x")
+        };
+        entry = makeEntry(headers);
+        final FreshnessMetadata metadata = entry.getFreshnessMetadata();
+        assertEquals(date.getTime(), metadata.getDate());
+        assertEquals(date.getTime() + 60000L, metadata.getExpires());
+        assertEquals(FreshnessMetadata.UNDEFINED, metadata.getLastModified());
+        assertEquals(7, metadata.getAgeValue());
+        assertEquals(20, metadata.getMaxAge());
+        assertEquals(15, metadata.getStaleWhileRevalidate());
+        assertEquals(-1, metadata.getStaleIfError());
+        assertTrue(metadata.hasCacheControlDirective("must-revalidate"));
+        assertFalse(metadata.hasCacheControlDirective("no-cache"));
+    }
+
+    @Test
+    public void testFreshnessMetadataIsRestoredOnDeserialization() throws Exception {
+        final Header[] headers = { new BasicHeader("Cache-Control", "max-age=30") };
+        entry = new HttpCacheEntry(elevenSecondsAgo, nineSecondsAgo,
+                statusLine, headers, null, HeaderConstants.GET_METHOD);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(buf);
+        out.writeObject(entry);
+        out.close();
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        final HttpCacheEntry copy = (HttpCacheEntry) in.readObject();
+        assertNotNull(copy.getFreshnessMetadata());
+        assertEquals(30, copy.getFreshnessMetadata().getMaxAge());
+    }
 }
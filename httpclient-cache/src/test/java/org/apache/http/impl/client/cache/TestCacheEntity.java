@@ -0,0 +1,84 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Date;
+
+import org.apache.http.Header;
+import org.apache.http.client.cache.HeaderConstants;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.entity.ContentTransfer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCacheEntity {
+
+    @Test
+    public void testTransferHeapResource() throws Exception {
+        final byte[] b = HttpTestUtils.getRandomBytes(1000);
+        final CacheEntity entity = new CacheEntity(HttpTestUtils.makeCacheEntry(b));
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        Assert.assertEquals(b.length, ContentTransfer.transferTo(entity, Channels.newChannel(outstream)));
+        Assert.assertArrayEquals(b, outstream.toByteArray());
+    }
+
+    @Test
+    public void testTransferFileResource() throws Exception {
+        final byte[] b = HttpTestUtils.getRandomBytes(100000);
+        final File file = File.createTempFile("httpclient", ".tmp");
+        try {
+            try (FileOutputStream outstream = new FileOutputStream(file)) {
+                outstream.write(b);
+            }
+            final Date now = new Date();
+            final HttpCacheEntry cacheEntry = new HttpCacheEntry(now, now, HttpTestUtils.makeStatusLine(),
+                    new Header[] {}, new FileResource(file), null, HeaderConstants.GET_METHOD);
+            final CacheEntity entity = new CacheEntity(cacheEntry);
+
+            final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+            Assert.assertEquals(b.length, ContentTransfer.transferTo(entity, Channels.newChannel(outstream)));
+            Assert.assertArrayEquals(b, outstream.toByteArray());
+
+            final ByteBuffer buffer = ByteBuffer.allocate(b.length + 1);
+            try (ReadableByteChannel channel = entity.getContentChannel()) {
+                while (channel.read(buffer) != -1) {
+                }
+            }
+            buffer.flip();
+            Assert.assertEquals(ByteBuffer.wrap(b), buffer);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
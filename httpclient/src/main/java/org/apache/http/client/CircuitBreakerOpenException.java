@@ -0,0 +1,63 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client;
+
+import java.net.ConnectException;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * Signals that a request has been rejected without an attempt to execute it
+ * because the circuit breaker of its route is open.
+ * <p>
+ * The exception is a {@link ConnectException}, so the default retry handler
+ * does not retry the request. {@link org.apache.http.impl.execchain.BackoffStrategyExec}
+ * does not treat it as a reason to back off, as the route has not been used.
+ * </p>
+ *
+ * @see org.apache.http.impl.execchain.CircuitBreakerExec
+ *
+ * @since 5.0
+ */
+@Immutable
+public class CircuitBreakerOpenException extends ConnectException {
+
+    private static final long serialVersionUID = 6271538270924432875L;
+
+    private final HttpRoute route;
+
+    public CircuitBreakerOpenException(final HttpRoute route) {
+        super("Circuit breaker open for route " + route);
+        this.route = route;
+    }
+
+    public HttpRoute getRoute() {
+        return this.route;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * {@link BackoffManager} that also takes into account the round trip
+ * time of message exchanges when adjusting the size of the connection pool.
+ *
+ * @since 5.0
+ */
+public interface LatencyAwareBackoffManager extends BackoffManager {
+
+    /**
+     * Called instead of {@link #probe(HttpRoute)} when we have determined
+     * that the result of using a connection has succeeded and the round trip
+     * time of the message exchange is known.
+     *
+     * @param route the connection route.
+     * @param rtt the round trip time of the message exchange.
+     * @param tunit time unit of the round trip time.
+     */
+    void probe(HttpRoute route, long rtt, TimeUnit tunit);
+
+}
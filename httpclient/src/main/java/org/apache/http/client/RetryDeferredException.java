@@ -0,0 +1,66 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client;
+
+import java.io.IOException;
+
+import org.apache.http.annotation.Immutable;
+
+/**
+ * Signals that the request needs to be re-executed after the given delay
+ * and that the caller asked for the retry to be deferred rather than for
+ * the executing thread to be blocked until the delay expires.
+ *
+ * @see org.apache.http.client.protocol.HttpClientContext#RETRY_DEFERRAL
+ *
+ * @since 5.0
+ */
+@Immutable
+public class RetryDeferredException extends IOException {
+
+    private static final long serialVersionUID = -2434937524397283137L;
+
+    private final long delay;
+
+    /**
+     * Creates a new RetryDeferredException.
+     *
+     * @param delay the delay in milliseconds after which the request is to be re-executed.
+     */
+    public RetryDeferredException(final long delay) {
+        super("Retry deferred by " + delay + " ms");
+        this.delay = delay;
+    }
+
+    /**
+     * Returns the delay in milliseconds after which the request is to be re-executed.
+     */
+    public long getDelay() {
+        return this.delay;
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.config;
+
+import org.apache.http.annotation.Immutable;
+
+/**
+ * Immutable class encapsulating circuit breaker configuration items.
+ *
+ * @see org.apache.http.impl.execchain.CircuitBreakerExec
+ *
+ * @since 5.0
+ */
+@Immutable
+public class CircuitBreakerConfig implements Cloneable {
+
+    public static final CircuitBreakerConfig DEFAULT = new Builder().build();
+
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallDurationThreshold;
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final long waitDurationInOpenState;
+    private final int permittedNumberOfCallsInHalfOpenState;
+
+    CircuitBreakerConfig(
+            final float failureRateThreshold,
+            final float slowCallRateThreshold,
+            final long slowCallDurationThreshold,
+            final int slidingWindowSize,
+            final int minimumNumberOfCalls,
+            final long waitDurationInOpenState,
+            final int permittedNumberOfCallsInHalfOpenState) {
+        super();
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDurationThreshold = slowCallDurationThreshold;
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+        this.waitDurationInOpenState = waitDurationInOpenState;
+        this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+    }
+
+    /**
+     * Returns the percentage of failed calls at which the circuit opens.
+     * Requests that fail with an I/O or a protocol error as well as requests
+     * that receive a {@code 5xx} response are considered failed.
+     * <p>
+     * Default: {@code 50}
+     * </p>
+     */
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Returns the percentage of slow calls at which the circuit opens.
+     * <p>
+     * Default: {@code 100}
+     * </p>
+     */
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Returns the duration in milliseconds after which a call is considered slow.
+     * <p>
+     * Default: {@code 60000} (1 minute)
+     * </p>
+     */
+    public long getSlowCallDurationThreshold() {
+        return slowCallDurationThreshold;
+    }
+
+    /**
+     * Returns the number of most recent calls failure and slow call rates are
+     * calculated over.
+     * <p>
+     * Default: {@code 100}
+     * </p>
+     */
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    /**
+     * Returns the minimum number of calls required before failure and slow
+     * call rates are evaluated.
+     * <p>
+     * Default: {@code 10}
+     * </p>
+     */
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    /**
+     * Returns the time in milliseconds the circuit stays open before it
+     * becomes half-open.
+     * <p>
+     * Default: {@code 30000} (30 seconds)
+     * </p>
+     */
+    public long getWaitDurationInOpenState() {
+        return waitDurationInOpenState;
+    }
+
+    /**
+     * Returns the number of probe calls let through while the circuit is
+     * half-open. The circuit closes again if the failure and slow call rates
+     * of the probe calls are below their thresholds and opens otherwise.
+     * <p>
+     * Default: {@code 5}
+     * </p>
+     */
+    public int getPermittedNumberOfCallsInHalfOpenState() {
+        return permittedNumberOfCallsInHalfOpenState;
+    }
+
+    @Override
+    protected CircuitBreakerConfig clone() throws CloneNotSupportedException {
+        return (CircuitBreakerConfig) super.clone();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("[");
+        builder.append("failureRateThreshold=").append(failureRateThreshold);
+        builder.append(", slowCallRateThreshold=").append(slowCallRateThreshold);
+        builder.append(", slowCallDurationThreshold=").append(slowCallDurationThreshold);
+        builder.append(", slidingWindowSize=").append(slidingWindowSize);
+        builder.append(", minimumNumberOfCalls=").append(minimumNumberOfCalls);
+        builder.append(", waitDurationInOpenState=").append(waitDurationInOpenState);
+        builder.append(", permittedNumberOfCallsInHalfOpenState=").append(permittedNumberOfCallsInHalfOpenState);
+        builder.append("]");
+        return builder.toString();
+    }
+
+    public static CircuitBreakerConfig.Builder custom() {
+        return new Builder();
+    }
+
+    public static CircuitBreakerConfig.Builder copy(final CircuitBreakerConfig config) {
+        return new Builder()
+            .setFailureRateThreshold(config.getFailureRateThreshold())
+            .setSlowCallRateThreshold(config.getSlowCallRateThreshold())
+            .setSlowCallDurationThreshold(config.getSlowCallDurationThreshold())
+            .setSlidingWindowSize(config.getSlidingWindowSize())
+            .setMinimumNumberOfCalls(config.getMinimumNumberOfCalls())
+            .setWaitDurationInOpenState(config.getWaitDurationInOpenState())
+            .setPermittedNumberOfCallsInHalfOpenState(config.getPermittedNumberOfCallsInHalfOpenState());
+    }
+
+    public static class Builder {
+
+        private float failureRateThreshold;
+        private float slowCallRateThreshold;
+        private long slowCallDurationThreshold;
+        private int slidingWindowSize;
+        private int minimumNumberOfCalls;
+        private long waitDurationInOpenState;
+        private int permittedNumberOfCallsInHalfOpenState;
+
+        Builder() {
+            super();
+            this.failureRateThreshold = 50;
+            this.slowCallRateThreshold = 100;
+            this.slowCallDurationThreshold = 60000;
+            this.slidingWindowSize = 100;
+            this.minimumNumberOfCalls = 10;
+            this.waitDurationInOpenState = 30000;
+            this.permittedNumberOfCallsInHalfOpenState = 5;
+        }
+
+        public Builder setFailureRateThreshold(final float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public Builder setSlowCallRateThreshold(final float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        public Builder setSlowCallDurationThreshold(final long slowCallDurationThreshold) {
+            this.slowCallDurationThreshold = slowCallDurationThreshold;
+            return this;
+        }
+
+        public Builder setSlidingWindowSize(final int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+            return this;
+        }
+
+        public Builder setMinimumNumberOfCalls(final int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            return this;
+        }
+
+        public Builder setWaitDurationInOpenState(final long waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+            return this;
+        }
+
+        public Builder setPermittedNumberOfCallsInHalfOpenState(final int permittedNumberOfCallsInHalfOpenState) {
+            this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            return new CircuitBreakerConfig(
+                    failureRateThreshold,
+                    slowCallRateThreshold,
+                    slowCallDurationThreshold,
+                    slidingWindowSize,
+                    minimumNumberOfCalls,
+                    waitDurationInOpenState,
+                    permittedNumberOfCallsInHalfOpenState);
+        }
+
+    }
+
+}
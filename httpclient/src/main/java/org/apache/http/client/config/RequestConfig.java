@@ -56,13 +56,14 @@ public class RequestConfig implements Cloneable {
     private final int connectionRequestTimeout;
     private final int connectTimeout;
     private final int socketTimeout;
+    private final int handshakeTimeout;
     private final boolean contentCompressionEnabled;
 
     /**
      * Intended for CDI compatibility
     */
     protected RequestConfig() {
-        this(false, null, null, false, null, false, false, false, 0, false, null, null, 0, 0, 0, false);
+        this(false, null, null, false, null, false, false, false, 0, false, null, null, 0, 0, 0, 0, false);
     }
 
     RequestConfig(
@@ -81,6 +82,7 @@ public class RequestConfig implements Cloneable {
             final int connectionRequestTimeout,
             final int connectTimeout,
             final int socketTimeout,
+            final int handshakeTimeout,
             final boolean contentCompressionEnabled) {
         super();
         this.expectContinueEnabled = expectContinueEnabled;
@@ -96,6 +98,7 @@ public class RequestConfig implements Cloneable {
         this.connectionRequestTimeout = connectionRequestTimeout;
         this.connectTimeout = connectTimeout;
         this.socketTimeout = socketTimeout;
+        this.handshakeTimeout = handshakeTimeout;
         this.contentCompressionEnabled = contentCompressionEnabled;
     }
 
@@ -273,6 +276,25 @@ public class RequestConfig implements Cloneable {
         return socketTimeout;
     }
 
+    /**
+     * Determines the timeout in milliseconds until a TLS handshake is complete.
+     * Unlike the socket timeout, which bounds the period of inactivity between
+     * two consecutive data packets, the handshake timeout bounds the duration
+     * of the handshake as a whole.
+     * <p>
+     * A timeout value of zero is interpreted as an infinite timeout.
+     * A negative value is interpreted as undefined (the socket timeout applies).
+     * </p>
+     * <p>
+     * Default: {@code -1}
+     * </p>
+     *
+     * @since 5.0
+     */
+    public int getHandshakeTimeout() {
+        return handshakeTimeout;
+    }
+
     /**
      * Determines whether the target server is requested to compress content.
      * <p>
@@ -307,6 +329,7 @@ public class RequestConfig implements Cloneable {
         builder.append(", connectionRequestTimeout=").append(connectionRequestTimeout);
         builder.append(", connectTimeout=").append(connectTimeout);
         builder.append(", socketTimeout=").append(socketTimeout);
+        builder.append(", handshakeTimeout=").append(handshakeTimeout);
         builder.append(", contentCompressionEnabled=").append(contentCompressionEnabled);
         builder.append("]");
         return builder.toString();
@@ -331,6 +354,7 @@ public class RequestConfig implements Cloneable {
             .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
             .setConnectTimeout(config.getConnectTimeout())
             .setSocketTimeout(config.getSocketTimeout())
+            .setHandshakeTimeout(config.getHandshakeTimeout())
             .setContentCompressionEnabled(config.isContentCompressionEnabled());
     }
 
@@ -351,6 +375,7 @@ public class RequestConfig implements Cloneable {
         private int connectionRequestTimeout;
         private int connectTimeout;
         private int socketTimeout;
+        private int handshakeTimeout;
         private boolean contentCompressionEnabled;
 
         Builder() {
@@ -363,6 +388,7 @@ public class RequestConfig implements Cloneable {
             this.connectionRequestTimeout = -1;
             this.connectTimeout = -1;
             this.socketTimeout = -1;
+            this.handshakeTimeout = -1;
             this.contentCompressionEnabled = true;
         }
 
@@ -436,6 +462,14 @@ public class RequestConfig implements Cloneable {
             return this;
         }
 
+        /**
+         * @since 5.0
+         */
+        public Builder setHandshakeTimeout(final int handshakeTimeout) {
+            this.handshakeTimeout = handshakeTimeout;
+            return this;
+        }
+
         public Builder setContentCompressionEnabled(final boolean contentCompressionEnabled) {
             this.contentCompressionEnabled = contentCompressionEnabled;
             return this;
@@ -458,6 +492,7 @@ public class RequestConfig implements Cloneable {
                     connectionRequestTimeout,
                     connectTimeout,
                     socketTimeout,
+                    handshakeTimeout,
                     contentCompressionEnabled);
         }
 
@@ -0,0 +1,79 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+
+/**
+ * Common base class for wrapping entities that compress content when
+ * {@link #writeTo(java.io.OutputStream) writing}. Compressed entities are
+ * always chunk coded, their content length being unknown in advance.
+ *
+ * @since 5.0
+ */
+public abstract class CompressingEntity extends HttpEntityWrapper {
+
+    private final String contentCoding;
+
+    /**
+     * @param wrapped the non-null {@link HttpEntity} to be wrapped.
+     * @param contentCoding the content coding token applied by this entity.
+     */
+    protected CompressingEntity(final HttpEntity wrapped, final String contentCoding) {
+        super(wrapped);
+        this.contentCoding = contentCoding;
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        return new BasicHeader(HTTP.CONTENT_ENCODING, this.contentCoding);
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        // force content chunking
+        return true;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+}
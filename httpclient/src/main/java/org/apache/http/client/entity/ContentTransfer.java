@@ -0,0 +1,213 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.util.Args;
+
+/**
+ * Static helpers for transferring entity content to NIO channels and
+ * buffers.
+ * <p>
+ * Content of entities implementing {@link TransferableEntity} is transferred
+ * by the entity itself, which lets response entities read the message body
+ * straight into the transfer buffer and cache entities backed by a file
+ * use {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}.
+ * Content of other entities is copied from their content stream, which is
+ * closed afterwards.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Immutable
+public final class ContentTransfer {
+
+    static final int MIN_BUFFER_SIZE = 1024;
+    static final int MAX_BUFFER_SIZE = 32 * 1024;
+
+    private ContentTransfer() {
+    }
+
+    /**
+     * Transfers the entire content of the given entity to the channel.
+     * Upon completion the content stream is closed, releasing the underlying
+     * connection like {@link org.apache.http.util.EntityUtils#consume(HttpEntity)}.
+     *
+     * @return the number of bytes transferred.
+     */
+    public static long transferTo(final HttpEntity entity, final WritableByteChannel channel) throws IOException {
+        Args.notNull(entity, "Entity");
+        Args.notNull(channel, "Channel");
+        if (entity instanceof TransferableEntity) {
+            return ((TransferableEntity) entity).transferTo(channel);
+        }
+        final InputStream instream = entity.getContent();
+        if (instream == null) {
+            return 0;
+        }
+        try {
+            return copy(instream, channel, entity.getContentLength());
+        } finally {
+            instream.close();
+        }
+    }
+
+    /**
+     * Transfers the entire content of the response entity, if any, to the
+     * channel.
+     *
+     * @return the number of bytes transferred.
+     *
+     * @see #transferTo(HttpEntity, WritableByteChannel)
+     */
+    public static long transferTo(final HttpResponse response, final WritableByteChannel channel) throws IOException {
+        Args.notNull(response, "HTTP response");
+        final HttpEntity entity = response.getEntity();
+        return entity != null ? transferTo(entity, channel) : 0;
+    }
+
+    /**
+     * Returns a channel the content of the given entity can be read from.
+     *
+     * @return the content channel or {@code null} if the entity has no content.
+     */
+    public static ReadableByteChannel getContentChannel(final HttpEntity entity) throws IOException {
+        Args.notNull(entity, "Entity");
+        if (entity instanceof TransferableEntity) {
+            return ((TransferableEntity) entity).getContentChannel();
+        }
+        final InputStream instream = entity.getContent();
+        return instream != null ? newChannel(instream) : null;
+    }
+
+    /**
+     * Creates a channel that reads from the given stream. Unlike
+     * {@link java.nio.channels.Channels#newChannel(InputStream)} the channel
+     * reads directly into the backing array of heap buffers.
+     */
+    public static ReadableByteChannel newChannel(final InputStream instream) {
+        Args.notNull(instream, "Input stream");
+        return new InputStreamChannel(instream);
+    }
+
+    /**
+     * Copies the stream to the channel using a transfer buffer sized after
+     * the expected content length. The stream is not closed.
+     */
+    public static long copy(
+            final InputStream instream,
+            final WritableByteChannel channel,
+            final long contentLength) throws IOException {
+        Args.notNull(instream, "Input stream");
+        Args.notNull(channel, "Channel");
+        final int bufferSize = contentLength >= 0
+                ? (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, contentLength))
+                : MAX_BUFFER_SIZE;
+        final byte[] tmp = new byte[bufferSize];
+        final ByteBuffer buffer = ByteBuffer.wrap(tmp);
+        long total = 0;
+        int l;
+        while ((l = instream.read(tmp)) != -1) {
+            buffer.clear().limit(l);
+            writeFully(channel, buffer);
+            total += l;
+        }
+        return total;
+    }
+
+    /**
+     * Writes all remaining bytes of the buffer to the channel.
+     */
+    public static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static class InputStreamChannel implements ReadableByteChannel {
+
+        private final InputStream instream;
+        private byte[] tmp;
+        private volatile boolean open;
+
+        InputStreamChannel(final InputStream instream) {
+            super();
+            this.instream = instream;
+            this.open = true;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            if (!this.open) {
+                throw new ClosedChannelException();
+            }
+            final int len = dst.remaining();
+            if (len == 0) {
+                return 0;
+            }
+            if (dst.hasArray()) {
+                final int l = this.instream.read(dst.array(), dst.arrayOffset() + dst.position(), len);
+                if (l > 0) {
+                    dst.position(dst.position() + l);
+                }
+                return l;
+            }
+            if (this.tmp == null) {
+                this.tmp = new byte[Math.min(len, MAX_BUFFER_SIZE)];
+            }
+            final int l = this.instream.read(this.tmp, 0, Math.min(len, this.tmp.length));
+            if (l > 0) {
+                dst.put(this.tmp, 0, l);
+            }
+            return l;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.open) {
+                this.open = false;
+                this.instream.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.util.Args;
+
+/**
+ * Wrapping entity that compresses content in the zlib format (the
+ * {@code deflate} content coding) when {@link #writeTo writing}.
+ * {@link Deflater}s are borrowed from a {@link DeflaterPool} for the duration
+ * of {@link #writeTo(OutputStream)}.
+ *
+ * @since 5.0
+ */
+public class DeflateCompressingEntity extends CompressingEntity {
+
+    private static final String DEFLATE_CODEC = "deflate";
+
+    private final int level;
+    private final int strategy;
+    private final int bufferSize;
+    private final DeflaterPool pool;
+
+    /**
+     * @param entity the non-null {@link HttpEntity} to be wrapped.
+     * @param level the compression level (0-9) or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param strategy the compression strategy, see {@link Deflater#setStrategy(int)}.
+     * @param bufferSize size of the output buffer.
+     * @param pool the deflater pool; if {@code null} {@link DeflaterPool#getDefault()}
+     *   is used.
+     */
+    public DeflateCompressingEntity(
+            final HttpEntity entity,
+            final int level,
+            final int strategy,
+            final int bufferSize,
+            final DeflaterPool pool) {
+        super(entity, DEFLATE_CODEC);
+        Args.check(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+                "Invalid compression level: %d", level);
+        this.level = level;
+        this.strategy = strategy;
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.pool = pool != null ? pool : DeflaterPool.getDefault();
+    }
+
+    public DeflateCompressingEntity(final HttpEntity entity, final int level, final int strategy) {
+        this(entity, level, strategy, GzipCompressingEntity.DEFAULT_BUFFER_SIZE, null);
+    }
+
+    public DeflateCompressingEntity(final HttpEntity entity) {
+        this(entity, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        final Deflater deflater = this.pool.acquireDeflater(this.level, this.strategy, false);
+        try {
+            final DeflaterOutputStream deflate = new DeflaterOutputStream(outstream, deflater, this.bufferSize);
+            wrappedEntity.writeTo(deflate);
+            // Only close output stream if the wrapped entity has been
+            // successfully written out
+            deflate.close();
+        } finally {
+            this.pool.releaseDeflater(deflater, false);
+        }
+    }
+
+}
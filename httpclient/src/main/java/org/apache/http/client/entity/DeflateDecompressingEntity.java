@@ -61,7 +61,7 @@ public class DeflateDecompressingEntity extends DecompressingEntity {
 
             @Override
             public InputStream create(final InputStream instream) throws IOException {
-                return new DeflateInputStream(instream);
+                return new DeflateInputStream(instream, InflaterPool.getDefault());
             }
 
         });
@@ -42,6 +42,20 @@ public class DeflateInputStream extends InputStream {
     private InputStream sourceStream;
 
     public DeflateInputStream(final InputStream wrapped) throws IOException {
+        this(wrapped, null);
+    }
+
+    /**
+     * Creates a deflate input stream that borrows its {@link Inflater} from
+     * the given pool and returns it once closed.
+     *
+     * @param wrapped the compressed stream.
+     * @param pool the inflater pool; if {@code null} a new inflater is
+     *   allocated and released on close.
+     *
+     * @since 5.0
+     */
+    public DeflateInputStream(final InputStream wrapped, final InflaterPool pool) throws IOException {
 
         final PushbackInputStream pushback = new PushbackInputStream(wrapped, 2);
         final int i1 = pushback.read();
@@ -61,7 +75,11 @@ public class DeflateInputStream extends InputStream {
         if (compressionMethod == 8 && compressionInfo <= 7 && ((b1 << 8) | b2) % 31 == 0) {
             nowrap = false;
         }
-        sourceStream = new DeflateStream(pushback, new Inflater(nowrap));
+        if (pool != null) {
+            sourceStream = new DeflateStream(pushback, pool.acquireInflater(nowrap), pool, nowrap);
+        } else {
+            sourceStream = new DeflateStream(pushback, new Inflater(nowrap));
+        }
     }
 
     /**
@@ -138,10 +156,19 @@ public class DeflateInputStream extends InputStream {
 
     static class DeflateStream extends InflaterInputStream {
 
+        private final InflaterPool pool;
+        private final boolean nowrap;
         private boolean closed = false;
 
         public DeflateStream(final InputStream in, final Inflater inflater) {
+            this(in, inflater, null, false);
+        }
+
+        DeflateStream(final InputStream in, final Inflater inflater,
+                final InflaterPool pool, final boolean nowrap) {
             super(in, inflater);
+            this.pool = pool;
+            this.nowrap = nowrap;
         }
 
         @Override
@@ -150,7 +177,11 @@ public class DeflateInputStream extends InputStream {
                 return;
             }
             closed = true;
-            inf.end();
+            if (pool != null) {
+                pool.releaseInflater(inf, nowrap);
+            } else {
+                inf.end();
+            }
             super.close();
         }
 
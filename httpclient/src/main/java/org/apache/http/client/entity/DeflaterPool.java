@@ -0,0 +1,130 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Bounded pool of {@link Deflater}s used by compressing entities. Pooled
+ * deflaters are reset and reconfigured with the requested compression level
+ * and strategy when acquired. Deflaters in excess of the pool capacity are
+ * discarded when returned and their native memory released immediately.
+ *
+ * @see InflaterPool
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class DeflaterPool {
+
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    private static final DeflaterPool DEFAULT = new DeflaterPool(DEFAULT_MAX_IDLE);
+
+    /**
+     * Returns the pool shared by default compressing entities.
+     */
+    public static DeflaterPool getDefault() {
+        return DEFAULT;
+    }
+
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Deflater> nowrapDeflaters;
+
+    /**
+     * @param maxIdle maximum number of idle deflaters of each kind kept in the pool.
+     */
+    public DeflaterPool(final int maxIdle) {
+        super();
+        Args.positive(maxIdle, "Max idle");
+        this.deflaters = new ArrayBlockingQueue<>(maxIdle);
+        this.nowrapDeflaters = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns a deflater from the pool or a new one if the pool has none.
+     *
+     * @param level the compression level (0-9) or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param strategy the compression strategy, one of {@link Deflater#DEFAULT_STRATEGY},
+     *   {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+     * @param nowrap {@code true} for a deflater producing raw deflate data (as used by
+     *   the GZIP format), {@code false} for one producing data in the zlib format.
+     */
+    public Deflater acquireDeflater(final int level, final int strategy, final boolean nowrap) {
+        final Deflater deflater = (nowrap ? this.nowrapDeflaters : this.deflaters).poll();
+        if (deflater == null) {
+            final Deflater newDeflater = new Deflater(level, nowrap);
+            newDeflater.setStrategy(strategy);
+            return newDeflater;
+        }
+        deflater.setLevel(level);
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+
+    /**
+     * Returns the deflater to the pool.
+     *
+     * @param deflater the deflater obtained by {@link #acquireDeflater(int, int, boolean)}.
+     * @param nowrap the value it has been acquired with.
+     */
+    public void releaseDeflater(final Deflater deflater, final boolean nowrap) {
+        if (deflater == null) {
+            return;
+        }
+        deflater.reset();
+        if (!(nowrap ? this.nowrapDeflaters : this.deflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of idle deflaters held by the pool.
+     */
+    public int getIdleDeflaterCount() {
+        return this.deflaters.size() + this.nowrapDeflaters.size();
+    }
+
+    /**
+     * Releases native resources of all idle deflaters.
+     */
+    public void clear() {
+        Deflater deflater;
+        while ((deflater = this.deflaters.poll()) != null) {
+            deflater.end();
+        }
+        while ((deflater = this.nowrapDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+}
@@ -32,6 +32,7 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
@@ -76,6 +77,11 @@ public class EntityBuilder {
     private String contentEncoding;
     private boolean chunked;
     private boolean gzipCompress;
+    private boolean deflateCompress;
+    private boolean zstdCompress;
+    private ZstdDictionary zstdDictionary;
+    private Integer compressionLevel;
+    private int compressionStrategy = Deflater.DEFAULT_STRATEGY;
 
     EntityBuilder() {
         super();
@@ -299,10 +305,112 @@ public class EntityBuilder {
      * Makes entity GZIP compressed.
      */
     public EntityBuilder gzipCompress() {
+        clearCompression();
         this.gzipCompress = true;
         return this;
     }
 
+    private void clearCompression() {
+        this.gzipCompress = false;
+        this.deflateCompress = false;
+        this.zstdCompress = false;
+        this.zstdDictionary = null;
+    }
+
+    /**
+     * Returns {@code true} if entity is to be deflate compressed, {@code false} otherwise.
+     *
+     * @since 5.0
+     */
+    public boolean isDeflateCompress() {
+        return deflateCompress;
+    }
+
+    /**
+     * Makes entity deflate (zlib) compressed. This method is mutually exclusive with
+     * {@link #gzipCompress()} and {@link #zstdCompress(ZstdDictionary)}.
+     *
+     * @since 5.0
+     */
+    public EntityBuilder deflateCompress() {
+        clearCompression();
+        this.deflateCompress = true;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if entity is to be Zstandard compressed, {@code false} otherwise.
+     *
+     * @since 5.0
+     */
+    public boolean isZstdCompress() {
+        return zstdCompress;
+    }
+
+    /**
+     * Makes entity Zstandard compressed using the given dictionary. This method is
+     * mutually exclusive with {@link #gzipCompress()} and {@link #deflateCompress()}.
+     *
+     * @param dictionary the compression dictionary; may be {@code null}.
+     *
+     * @see ZstdCompressingEntity#isAvailable()
+     *
+     * @since 5.0
+     */
+    public EntityBuilder zstdCompress(final ZstdDictionary dictionary) {
+        clearCompression();
+        this.zstdCompress = true;
+        this.zstdDictionary = dictionary;
+        return this;
+    }
+
+    /**
+     * Makes entity Zstandard compressed.
+     *
+     * @since 5.0
+     */
+    public EntityBuilder zstdCompress() {
+        return zstdCompress(null);
+    }
+
+    /**
+     * Returns the compression level or {@code null} if the codec default is to be used.
+     *
+     * @since 5.0
+     */
+    public Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the compression level applied by the selected compression codec.
+     *
+     * @since 5.0
+     */
+    public EntityBuilder setCompressionLevel(final int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Returns the gzip and deflate compression strategy.
+     *
+     * @since 5.0
+     */
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    /**
+     * Sets the gzip and deflate compression strategy, see {@link Deflater#setStrategy(int)}.
+     *
+     * @since 5.0
+     */
+    public EntityBuilder setCompressionStrategy(final int compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+        return this;
+    }
+
     private ContentType getContentOrDefault(final ContentType def) {
         return this.contentType != null ? this.contentType : def;
     }
@@ -335,7 +443,16 @@ public class EntityBuilder {
         e.setContentEncoding(this.contentEncoding);
         e.setChunked(this.chunked);
         if (this.gzipCompress) {
-            return new GzipCompressingEntity(e);
+            return new GzipCompressingEntity(e, this.compressionLevel != null ? this.compressionLevel.intValue()
+                    : Deflater.DEFAULT_COMPRESSION, this.compressionStrategy);
+        }
+        if (this.deflateCompress) {
+            return new DeflateCompressingEntity(e, this.compressionLevel != null ? this.compressionLevel.intValue()
+                    : Deflater.DEFAULT_COMPRESSION, this.compressionStrategy);
+        }
+        if (this.zstdCompress) {
+            return new ZstdCompressingEntity(e, this.compressionLevel != null ? this.compressionLevel.intValue()
+                    : ZstdCompressingEntity.DEFAULT_LEVEL, this.zstdDictionary);
         }
         return e;
     }
@@ -54,60 +54,127 @@ package org.apache.http.client.entity;
  */
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
-import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.entity.HttpEntityWrapper;
-import org.apache.http.message.BasicHeader;
-import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
 
 /**
  * Wrapping entity that compresses content when {@link #writeTo writing}.
- *
+ * <p>
+ * The compression level and strategy can be configured. {@link Deflater}s
+ * are borrowed from a {@link DeflaterPool} for the duration of
+ * {@link #writeTo(OutputStream)}.
+ * </p>
  *
  * @since 4.0
  */
-public class GzipCompressingEntity extends HttpEntityWrapper {
+public class GzipCompressingEntity extends CompressingEntity {
 
     private static final String GZIP_CODEC = "gzip";
 
-    public GzipCompressingEntity(final HttpEntity entity) {
-        super(entity);
-    }
+    static final int DEFAULT_BUFFER_SIZE = 8192;
 
-    @Override
-    public Header getContentEncoding() {
-        return new BasicHeader(HTTP.CONTENT_ENCODING, GZIP_CODEC);
-    }
+    private final int level;
+    private final int strategy;
+    private final int bufferSize;
+    private final DeflaterPool pool;
 
-    @Override
-    public long getContentLength() {
-        return -1;
+    /**
+     * @param entity the non-null {@link HttpEntity} to be wrapped.
+     * @param level the compression level (0-9) or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param strategy the compression strategy, see {@link Deflater#setStrategy(int)}.
+     * @param bufferSize size of the output buffer.
+     * @param pool the deflater pool; if {@code null} {@link DeflaterPool#getDefault()}
+     *   is used.
+     *
+     * @since 5.0
+     */
+    public GzipCompressingEntity(
+            final HttpEntity entity,
+            final int level,
+            final int strategy,
+            final int bufferSize,
+            final DeflaterPool pool) {
+        super(entity, GZIP_CODEC);
+        Args.check(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+                "Invalid compression level: %d", level);
+        this.level = level;
+        this.strategy = strategy;
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.pool = pool != null ? pool : DeflaterPool.getDefault();
     }
 
-    @Override
-    public boolean isChunked() {
-        // force content chunking
-        return true;
+    /**
+     * @since 5.0
+     */
+    public GzipCompressingEntity(final HttpEntity entity, final int level, final int strategy) {
+        this(entity, level, strategy, DEFAULT_BUFFER_SIZE, null);
     }
 
-    @Override
-    public InputStream getContent() throws IOException {
-        throw new UnsupportedOperationException();
+    public GzipCompressingEntity(final HttpEntity entity) {
+        this(entity, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
     }
 
     @Override
     public void writeTo(final OutputStream outstream) throws IOException {
         Args.notNull(outstream, "Output stream");
-        final GZIPOutputStream gzip = new GZIPOutputStream(outstream);
-        wrappedEntity.writeTo(gzip);
-        // Only close output stream if the wrapped entity has been
-        // successfully written out
-        gzip.close();
+        final Deflater deflater = this.pool.acquireDeflater(this.level, this.strategy, true);
+        try {
+            final GzipOutputStream gzip = new GzipOutputStream(outstream, deflater, this.bufferSize);
+            wrappedEntity.writeTo(gzip);
+            // Only close output stream if the wrapped entity has been
+            // successfully written out
+            gzip.close();
+        } finally {
+            this.pool.releaseDeflater(deflater, true);
+        }
+    }
+
+    /**
+     * GZIP output stream writing through an externally managed {@link Deflater}.
+     */
+    static class GzipOutputStream extends DeflaterOutputStream {
+
+        private static final byte[] HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+        };
+
+        private final CRC32 crc;
+
+        GzipOutputStream(final OutputStream out, final Deflater deflater, final int size) throws IOException {
+            super(out, deflater, size);
+            this.crc = new CRC32();
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            super.write(b, off, len);
+            this.crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!def.finished()) {
+                super.finish();
+                final byte[] trailer = new byte[8];
+                writeInt((int) this.crc.getValue(), trailer, 0);
+                writeInt((int) def.getBytesRead(), trailer, 4);
+                out.write(trailer);
+            }
+        }
+
+        private static void writeInt(final int i, final byte[] b, final int offset) {
+            b[offset] = (byte) i;
+            b[offset + 1] = (byte) (i >> 8);
+            b[offset + 2] = (byte) (i >> 16);
+            b[offset + 3] = (byte) (i >> 24);
+        }
+
     }
 
 }
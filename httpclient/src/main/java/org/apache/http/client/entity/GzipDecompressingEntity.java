@@ -28,7 +28,6 @@ package org.apache.http.client.entity;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.http.HttpEntity;
 
@@ -52,7 +51,7 @@ public class GzipDecompressingEntity extends DecompressingEntity {
 
             @Override
             public InputStream create(final InputStream instream) throws IOException {
-                return new GZIPInputStream(instream);
+                return new PooledGzipInputStream(instream, InflaterPool.getDefault());
             }
 
         });
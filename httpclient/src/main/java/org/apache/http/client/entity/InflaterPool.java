@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Bounded pool of {@link Inflater}s and input buffers used by decompressing
+ * input streams. {@link Inflater}s hold native memory that is otherwise released
+ * only upon finalization, which makes allocating a new one for each compressed
+ * response costly. Inflaters and buffers in excess of the pool capacity are
+ * discarded when returned, native memory of discarded inflaters is released
+ * immediately.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class InflaterPool {
+
+    public static final int DEFAULT_MAX_IDLE = 32;
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final InflaterPool DEFAULT = new InflaterPool(DEFAULT_MAX_IDLE, DEFAULT_BUFFER_SIZE);
+
+    /**
+     * Returns the pool shared by default content decoders.
+     */
+    public static InflaterPool getDefault() {
+        return DEFAULT;
+    }
+
+    private final BlockingQueue<Inflater> inflaters;
+    private final BlockingQueue<Inflater> nowrapInflaters;
+    private final BlockingQueue<byte[]> buffers;
+    private final int bufferSize;
+
+    /**
+     * @param maxIdle maximum number of idle inflaters of each kind and buffers
+     *   kept in the pool.
+     * @param bufferSize size of input buffers.
+     */
+    public InflaterPool(final int maxIdle, final int bufferSize) {
+        super();
+        Args.positive(maxIdle, "Max idle");
+        this.bufferSize = Args.positive(bufferSize, "Buffer size");
+        this.inflaters = new ArrayBlockingQueue<>(maxIdle);
+        this.nowrapInflaters = new ArrayBlockingQueue<>(maxIdle);
+        this.buffers = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns an inflater from the pool or a new one if the pool has none.
+     *
+     * @param nowrap {@code true} for an inflater of raw deflate data,
+     *   {@code false} for one of data in the zlib format.
+     */
+    public Inflater acquireInflater(final boolean nowrap) {
+        final Inflater inflater = (nowrap ? this.nowrapInflaters : this.inflaters).poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Returns the inflater to the pool.
+     *
+     * @param inflater the inflater obtained by {@link #acquireInflater(boolean)}.
+     * @param nowrap the value it has been acquired with.
+     */
+    public void releaseInflater(final Inflater inflater, final boolean nowrap) {
+        if (inflater == null) {
+            return;
+        }
+        inflater.reset();
+        if (!(nowrap ? this.nowrapInflaters : this.inflaters).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    public byte[] acquireBuffer() {
+        final byte[] buffer = this.buffers.poll();
+        return buffer != null ? buffer : new byte[this.bufferSize];
+    }
+
+    public void releaseBuffer(final byte[] buffer) {
+        if (buffer != null && buffer.length == this.bufferSize) {
+            this.buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of idle inflaters held by the pool.
+     */
+    public int getIdleInflaterCount() {
+        return this.inflaters.size() + this.nowrapInflaters.size();
+    }
+
+    /**
+     * Releases native resources of all idle inflaters.
+     */
+    public void clear() {
+        Inflater inflater;
+        while ((inflater = this.inflaters.poll()) != null) {
+            inflater.end();
+        }
+        while ((inflater = this.nowrapInflaters.poll()) != null) {
+            inflater.end();
+        }
+        this.buffers.clear();
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.apache.http.util.Args;
+
+/**
+ * GZIP input stream equivalent to {@link java.util.zip.GZIPInputStream} that draws
+ * its {@link java.util.zip.Inflater} and input buffer from an {@link InflaterPool}
+ * and returns them to the pool once closed. Concatenated GZIP members are decoded
+ * as a single stream.
+ *
+ * @since 5.0
+ */
+public class PooledGzipInputStream extends InflaterInputStream {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final InflaterPool pool;
+    private final CRC32 crc;
+    private final byte[] tmpbuf;
+
+    private boolean eos;
+    private boolean closed;
+
+    public PooledGzipInputStream(final InputStream in, final InflaterPool pool) throws IOException {
+        super(in, Args.notNull(pool, "Inflater pool").acquireInflater(true), 1);
+        this.pool = pool;
+        this.buf = pool.acquireBuffer();
+        this.crc = new CRC32();
+        this.tmpbuf = new byte[128];
+        try {
+            readHeader(in);
+        } catch (final IOException ex) {
+            release();
+            throw ex;
+        }
+    }
+
+    public PooledGzipInputStream(final InputStream in) throws IOException {
+        this(in, InflaterPool.getDefault());
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.eos) {
+            return -1;
+        }
+        final int n = super.read(b, off, len);
+        if (n == -1) {
+            if (readTrailer()) {
+                this.eos = true;
+                return -1;
+            }
+            return read(b, off, len);
+        }
+        this.crc.update(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        return this.eos ? 0 : super.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            try {
+                this.in.close();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    private void release() {
+        this.pool.releaseInflater(this.inf, true);
+        this.pool.releaseBuffer(this.buf);
+        this.inf = null;
+        this.buf = null;
+    }
+
+    private int readHeader(final InputStream input) throws IOException {
+        final CheckedInputStream checked = new CheckedInputStream(input, this.crc);
+        this.crc.reset();
+        if (readUShort(checked) != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUByte(checked) != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flags = readUByte(checked);
+        // Skip modification time, extra flags and OS
+        skipBytes(checked, 6);
+        int n = 10;
+        if ((flags & FEXTRA) == FEXTRA) {
+            final int m = readUShort(checked);
+            skipBytes(checked, m);
+            n += m + 2;
+        }
+        if ((flags & FNAME) == FNAME) {
+            do {
+                n++;
+            } while (readUByte(checked) != 0);
+        }
+        if ((flags & FCOMMENT) == FCOMMENT) {
+            do {
+                n++;
+            } while (readUByte(checked) != 0);
+        }
+        if ((flags & FHCRC) == FHCRC) {
+            final int v = (int) this.crc.getValue() & 0xffff;
+            if (readUShort(checked) != v) {
+                throw new ZipException("Corrupt GZIP header");
+            }
+            n += 2;
+        }
+        this.crc.reset();
+        return n;
+    }
+
+    /**
+     * Reads the member trailer and the header of the next member if any.
+     *
+     * @return {@code true} if the end of stream has been reached.
+     */
+    private boolean readTrailer() throws IOException {
+        InputStream input = this.in;
+        final int n = this.inf.getRemaining();
+        if (n > 0) {
+            input = new SequenceInputStream(
+                    new ByteArrayInputStream(this.buf, this.len - n, n),
+                    new FilterInputStream(input) {
+
+                        @Override
+                        public void close() throws IOException {
+                        }
+
+                    });
+        }
+        if (readUInt(input) != this.crc.getValue()
+                || readUInt(input) != (this.inf.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+        if (this.in.available() > 0 || n > 26) {
+            int m = 8;
+            try {
+                m += readHeader(input);
+            } catch (final IOException ex) {
+                // Ignore trailing garbage
+                return true;
+            }
+            this.inf.reset();
+            if (n > m) {
+                this.inf.setInput(this.buf, this.len - n + m, n - m);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static long readUInt(final InputStream input) throws IOException {
+        final long s = readUShort(input);
+        return ((long) readUShort(input) << 16) | s;
+    }
+
+    private static int readUShort(final InputStream input) throws IOException {
+        final int b = readUByte(input);
+        return (readUByte(input) << 8) | b;
+    }
+
+    private static int readUByte(final InputStream input) throws IOException {
+        final int b = input.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private void skipBytes(final InputStream input, final int count) throws IOException {
+        int n = count;
+        while (n > 0) {
+            final int len = input.read(this.tmpbuf, 0, n < this.tmpbuf.length ? n : this.tmpbuf.length);
+            if (len == -1) {
+                throw new EOFException();
+            }
+            n -= len;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.util.Args;
+
+/**
+ * {@link InputStreamFactory} backed by a decoder class resolved at runtime,
+ * which allows optional decoding libraries such as Brotli or Zstandard to be
+ * used whenever they are present on the classpath. The decoder class must be
+ * an {@link InputStream} with a public constructor taking the compressed
+ * {@link InputStream} as its only argument.
+ *
+ * @since 5.0
+ */
+@Immutable
+public final class ReflectiveInputStreamFactory implements InputStreamFactory {
+
+    /**
+     * Returns a factory for the given decoder class or {@code null} if the class
+     * is not available or does not have a suitable constructor.
+     */
+    public static ReflectiveInputStreamFactory create(final String className) {
+        Args.notNull(className, "Class name");
+        try {
+            final ClassLoader classLoader = ReflectiveInputStreamFactory.class.getClassLoader();
+            final Class<?> clazz = Class.forName(className, true, classLoader);
+            if (!InputStream.class.isAssignableFrom(clazz)) {
+                return null;
+            }
+            final Constructor<?> constructor = clazz.getConstructor(InputStream.class);
+            return new ReflectiveInputStreamFactory(constructor);
+        } catch (final ClassNotFoundException | NoSuchMethodException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    private final Constructor<?> constructor;
+
+    private ReflectiveInputStreamFactory(final Constructor<?> constructor) {
+        super();
+        this.constructor = constructor;
+    }
+
+    @Override
+    public InputStream create(final InputStream instream) throws IOException {
+        try {
+            return (InputStream) this.constructor.newInstance(instream);
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (final InstantiationException | IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.constructor.getDeclaringClass().getName();
+    }
+
+}
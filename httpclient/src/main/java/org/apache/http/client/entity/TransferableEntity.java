@@ -0,0 +1,67 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.http.HttpEntity;
+
+/**
+ * {@link HttpEntity} capable of transferring its content to NIO channels
+ * without an intermediate {@link java.io.OutputStream}.
+ *
+ * @see ContentTransfer
+ *
+ * @since 5.0
+ */
+public interface TransferableEntity extends HttpEntity {
+
+    /**
+     * Transfers the entire content of the entity to the given channel.
+     * <p>
+     * Streamed entities are fully consumed by this method. Response entities
+     * release the underlying connection back to the connection manager upon
+     * completion, the same way {@link org.apache.http.util.EntityUtils#consume(HttpEntity)}
+     * does, or abort it if the transfer fails.
+     * </p>
+     *
+     * @param channel the channel to transfer the content to.
+     * @return the number of bytes transferred.
+     */
+    long transferTo(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Returns a channel the content of the entity can be read from into
+     * a caller-supplied {@link java.nio.ByteBuffer}. Reading the channel to
+     * the end or closing it has the same effect as reading to the end or
+     * closing the stream returned by {@link #getContent()}.
+     */
+    ReadableByteChannel getContentChannel() throws IOException;
+
+}
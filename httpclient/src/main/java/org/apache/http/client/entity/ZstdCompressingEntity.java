@@ -0,0 +1,266 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.util.Args;
+
+/**
+ * Wrapping entity that compresses content with Zstandard (the {@code zstd}
+ * content coding) when {@link #writeTo writing}, optionally using a pre-trained
+ * {@link ZstdDictionary}.
+ * <p>
+ * This entity relies on {@code com.github.luben:zstd-jni}, which is resolved
+ * at runtime. {@link #isAvailable()} can be used to find out whether it is
+ * present on the classpath.
+ * </p>
+ * <p>
+ * Compression contexts are borrowed from a {@link ZstdCompressorPool} for the
+ * duration of {@link #writeTo(OutputStream)}, provided the zstd-jni version
+ * supports them (see {@link ZstdCompressorPool#isSupported()}).
+ * </p>
+ *
+ * @since 5.0
+ */
+public class ZstdCompressingEntity extends CompressingEntity {
+
+    private static final String ZSTD_CODEC = "zstd";
+
+    public static final int DEFAULT_LEVEL = 3;
+
+    static final Constructor<?> STREAM_CONSTRUCTOR;
+    static final Method SET_DICT;
+    static final Constructor<?> DICT_CONSTRUCTOR;
+
+    static {
+        Constructor<?> streamConstructor = null;
+        Method setDict = null;
+        Constructor<?> dictConstructor = null;
+        try {
+            final ClassLoader classLoader = ZstdCompressingEntity.class.getClassLoader();
+            final Class<?> streamClass = Class.forName("com.github.luben.zstd.ZstdOutputStream", true, classLoader);
+            final Class<?> dictClass = Class.forName("com.github.luben.zstd.ZstdDictCompress", true, classLoader);
+            streamConstructor = streamClass.getConstructor(OutputStream.class, int.class);
+            setDict = streamClass.getMethod("setDict", dictClass);
+            dictConstructor = dictClass.getConstructor(byte[].class, int.class);
+        } catch (final ClassNotFoundException | NoSuchMethodException | LinkageError ex) {
+            streamConstructor = null;
+        }
+        STREAM_CONSTRUCTOR = streamConstructor;
+        SET_DICT = setDict;
+        DICT_CONSTRUCTOR = dictConstructor;
+    }
+
+    /**
+     * Returns {@code true} if Zstandard compression is available.
+     */
+    public static boolean isAvailable() {
+        return STREAM_CONSTRUCTOR != null;
+    }
+
+    private final int level;
+    private final ZstdDictionary dictionary;
+    private final ZstdCompressorPool pool;
+
+    /**
+     * @param entity the non-null {@link HttpEntity} to be wrapped.
+     * @param level the compression level.
+     * @param dictionary the compression dictionary; may be {@code null}.
+     * @param pool the compressor pool; if {@code null}
+     *   {@link ZstdCompressorPool#getDefault()} is used.
+     * @throws IllegalStateException if Zstandard compression is not available.
+     */
+    public ZstdCompressingEntity(
+            final HttpEntity entity,
+            final int level,
+            final ZstdDictionary dictionary,
+            final ZstdCompressorPool pool) {
+        super(entity, ZSTD_CODEC);
+        if (!isAvailable()) {
+            throw new IllegalStateException("Zstandard compression is not available");
+        }
+        this.level = level;
+        this.dictionary = dictionary;
+        this.pool = pool != null ? pool : ZstdCompressorPool.getDefault();
+    }
+
+    /**
+     * @param entity the non-null {@link HttpEntity} to be wrapped.
+     * @param level the compression level.
+     * @param dictionary the compression dictionary; may be {@code null}.
+     * @throws IllegalStateException if Zstandard compression is not available.
+     */
+    public ZstdCompressingEntity(final HttpEntity entity, final int level, final ZstdDictionary dictionary) {
+        this(entity, level, dictionary, null);
+    }
+
+    public ZstdCompressingEntity(final HttpEntity entity) {
+        this(entity, DEFAULT_LEVEL, null);
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        if (ZstdCompressorPool.isSupported()) {
+            final ZstdCompressorPool.Compressor compressor = this.pool.acquire(this.level, this.dictionary);
+            try {
+                final ZstdOutputStream zstd = new ZstdOutputStream(outstream, compressor);
+                wrappedEntity.writeTo(zstd);
+                // Only close output stream if the wrapped entity has been
+                // successfully written out
+                zstd.close();
+            } finally {
+                this.pool.release(compressor);
+            }
+            return;
+        }
+        final OutputStream zstd = (OutputStream) invoke(STREAM_CONSTRUCTOR, null, outstream, Integer.valueOf(this.level));
+        if (this.dictionary != null) {
+            invoke(SET_DICT, zstd, this.dictionary.getCompressionDictionary(this.level));
+        }
+        wrappedEntity.writeTo(zstd);
+        // Only close output stream if the wrapped entity has been
+        // successfully written out
+        zstd.close();
+    }
+
+    /**
+     * Zstandard output stream writing through an externally managed compression context.
+     */
+    static class ZstdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final ZstdCompressorPool.Compressor compressor;
+        private boolean closed;
+
+        ZstdOutputStream(final OutputStream out, final ZstdCompressorPool.Compressor compressor) {
+            super();
+            this.out = out;
+            this.compressor = compressor;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            ensureOpen();
+            if (!this.compressor.src.hasRemaining()) {
+                compress(ZstdCompressorPool.CONTINUE);
+            }
+            this.compressor.src.put((byte) b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            ensureOpen();
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (!this.compressor.src.hasRemaining()) {
+                    compress(ZstdCompressorPool.CONTINUE);
+                }
+                final int chunk = Math.min(remaining, this.compressor.src.remaining());
+                this.compressor.src.put(b, offset, chunk);
+                offset += chunk;
+                remaining -= chunk;
+            }
+        }
+
+        /**
+         * Compresses the buffered input, writing out compressed data as it is produced.
+         * Continuing compression consumes all input, while flushing and ending the
+         * frame also drain the compression context.
+         */
+        private void compress(final Object directive) throws IOException {
+            final ByteBuffer src = this.compressor.src;
+            final ByteBuffer dst = this.compressor.dst;
+            final byte[] buffer = this.compressor.buffer;
+            src.flip();
+            boolean done;
+            do {
+                done = this.compressor.compress(directive);
+                dst.flip();
+                final int n = dst.remaining();
+                if (n > 0) {
+                    dst.get(buffer, 0, n);
+                    this.out.write(buffer, 0, n);
+                }
+                dst.clear();
+            } while (directive == ZstdCompressorPool.CONTINUE ? src.hasRemaining() : !done);
+            src.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            compress(ZstdCompressorPool.FLUSH);
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.closed) {
+                compress(ZstdCompressorPool.END);
+                this.closed = true;
+                this.out.close();
+            }
+        }
+
+    }
+
+    static Object invoke(final Object target, final Object obj, final Object... args) throws IOException {
+        try {
+            if (target instanceof Constructor<?>) {
+                return ((Constructor<?>) target).newInstance(args);
+            }
+            return ((Method) target).invoke(obj, args);
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (final InstantiationException | IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Bounded pool of Zstandard compression contexts used by
+ * {@link ZstdCompressingEntity}s. A pooled context owns its native compression
+ * state along with the direct buffers data is passed through, all of which are
+ * expensive to create. Contexts are reset when returned, and those in excess of
+ * the pool capacity are closed and their native memory released immediately.
+ * <p>
+ * Reusable compression contexts require {@code com.github.luben:zstd-jni} 1.5.1
+ * or newer; {@link #isSupported()} can be used to find out whether they are
+ * available. Otherwise compressing entities fall back to creating a new
+ * compressor per entity.
+ * </p>
+ *
+ * @see DeflaterPool
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class ZstdCompressorPool {
+
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    static final int BUFFER_SIZE = 32 * 1024;
+
+    private static final Constructor<?> CTX_CONSTRUCTOR;
+    private static final Method CTX_SET_LEVEL;
+    private static final Method CTX_LOAD_DICT;
+    private static final Method CTX_RESET;
+    private static final Method CTX_COMPRESS;
+    private static final Method CTX_CLOSE;
+    static final Object CONTINUE;
+    static final Object FLUSH;
+    static final Object END;
+
+    static {
+        Constructor<?> ctxConstructor = null;
+        Method setLevel = null;
+        Method loadDict = null;
+        Method reset = null;
+        Method compress = null;
+        Method close = null;
+        Object continueDirective = null;
+        Object flushDirective = null;
+        Object endDirective = null;
+        try {
+            final ClassLoader classLoader = ZstdCompressorPool.class.getClassLoader();
+            final Class<?> ctxClass = Class.forName("com.github.luben.zstd.ZstdCompressCtx", true, classLoader);
+            final Class<?> dictClass = Class.forName("com.github.luben.zstd.ZstdDictCompress", true, classLoader);
+            final Class<?> directiveClass = Class.forName("com.github.luben.zstd.EndDirective", true, classLoader);
+            setLevel = ctxClass.getMethod("setLevel", int.class);
+            loadDict = ctxClass.getMethod("loadDict", dictClass);
+            reset = ctxClass.getMethod("reset");
+            compress = ctxClass.getMethod("compressDirectByteBufferStream",
+                    ByteBuffer.class, ByteBuffer.class, directiveClass);
+            close = ctxClass.getMethod("close");
+            continueDirective = directiveClass.getField("CONTINUE").get(null);
+            flushDirective = directiveClass.getField("FLUSH").get(null);
+            endDirective = directiveClass.getField("END").get(null);
+            ctxConstructor = ctxClass.getConstructor();
+        } catch (final ClassNotFoundException | NoSuchMethodException | NoSuchFieldException
+                | IllegalAccessException | LinkageError ex) {
+            ctxConstructor = null;
+        }
+        CTX_CONSTRUCTOR = ctxConstructor;
+        CTX_SET_LEVEL = setLevel;
+        CTX_LOAD_DICT = loadDict;
+        CTX_RESET = reset;
+        CTX_COMPRESS = compress;
+        CTX_CLOSE = close;
+        CONTINUE = continueDirective;
+        FLUSH = flushDirective;
+        END = endDirective;
+    }
+
+    /**
+     * Returns {@code true} if reusable Zstandard compression contexts are available.
+     */
+    public static boolean isSupported() {
+        return CTX_CONSTRUCTOR != null;
+    }
+
+    private static final ZstdCompressorPool DEFAULT = new ZstdCompressorPool(DEFAULT_MAX_IDLE);
+
+    /**
+     * Returns the pool shared by default compressing entities.
+     */
+    public static ZstdCompressorPool getDefault() {
+        return DEFAULT;
+    }
+
+    private final BlockingQueue<Compressor> compressors;
+
+    /**
+     * @param maxIdle maximum number of idle compression contexts kept in the pool.
+     */
+    public ZstdCompressorPool(final int maxIdle) {
+        super();
+        Args.positive(maxIdle, "Max idle");
+        this.compressors = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns a compressor from the pool or a new one if the pool has none,
+     * configured with the given compression level and dictionary.
+     */
+    Compressor acquire(final int level, final ZstdDictionary dictionary) throws IOException {
+        Compressor compressor = this.compressors.poll();
+        if (compressor == null) {
+            compressor = new Compressor(ZstdCompressingEntity.invoke(CTX_CONSTRUCTOR, null));
+        }
+        try {
+            ZstdCompressingEntity.invoke(CTX_SET_LEVEL, compressor.ctx, Integer.valueOf(level));
+            if (dictionary != null) {
+                ZstdCompressingEntity.invoke(CTX_LOAD_DICT, compressor.ctx,
+                        dictionary.getCompressionDictionary(level));
+            }
+        } catch (final IOException | RuntimeException ex) {
+            release(compressor);
+            throw ex;
+        }
+        return compressor;
+    }
+
+    /**
+     * Resets the compressor and returns it to the pool.
+     */
+    void release(final Compressor compressor) {
+        if (compressor == null) {
+            return;
+        }
+        try {
+            ZstdCompressingEntity.invoke(CTX_RESET, compressor.ctx);
+        } catch (final IOException | RuntimeException ex) {
+            compressor.close();
+            return;
+        }
+        compressor.src.clear();
+        compressor.dst.clear();
+        if (!this.compressors.offer(compressor)) {
+            compressor.close();
+        }
+    }
+
+    /**
+     * Returns the number of idle compressors held by the pool.
+     */
+    public int getIdleCompressorCount() {
+        return this.compressors.size();
+    }
+
+    /**
+     * Releases native resources of all idle compressors.
+     */
+    public void clear() {
+        Compressor compressor;
+        while ((compressor = this.compressors.poll()) != null) {
+            compressor.close();
+        }
+    }
+
+    /**
+     * Compression context with its input and output buffers.
+     */
+    static final class Compressor {
+
+        private final Object ctx;
+
+        final ByteBuffer src;
+        final ByteBuffer dst;
+        final byte[] buffer;
+
+        Compressor(final Object ctx) {
+            this.ctx = ctx;
+            this.src = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.dst = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+
+        /**
+         * Compresses data between position and limit of the input buffer into
+         * the output buffer, advancing the positions of both.
+         *
+         * @return {@code true} if a flush or the end of the frame has been completed.
+         */
+        boolean compress(final Object directive) throws IOException {
+            return ((Boolean) ZstdCompressingEntity.invoke(CTX_COMPRESS, this.ctx,
+                    this.dst, this.src, directive)).booleanValue();
+        }
+
+        void close() {
+            try {
+                ZstdCompressingEntity.invoke(CTX_CLOSE, this.ctx);
+            } catch (final IOException | RuntimeException ignore) {
+            }
+        }
+
+    }
+
+}
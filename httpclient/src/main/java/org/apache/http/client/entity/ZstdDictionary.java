@@ -0,0 +1,76 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Pre-trained Zstandard compression dictionary. Digesting a dictionary is
+ * expensive, therefore the digested form is created once per compression level
+ * and retained by this object. Instances are meant to be shared by all
+ * {@link ZstdCompressingEntity}s sent to the same route, for instance by keeping
+ * them in a map keyed by target host.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public final class ZstdDictionary {
+
+    private final byte[] content;
+    private final ConcurrentMap<Integer, Object> digested;
+
+    public ZstdDictionary(final byte[] content) {
+        super();
+        Args.notNull(content, "Dictionary content");
+        this.content = content.clone();
+        this.digested = new ConcurrentHashMap<>();
+    }
+
+    public int getSize() {
+        return this.content.length;
+    }
+
+    Object getCompressionDictionary(final int level) throws IOException {
+        final Integer key = Integer.valueOf(level);
+        Object dict = this.digested.get(key);
+        if (dict == null) {
+            final Object newDict = ZstdCompressingEntity.invoke(
+                    ZstdCompressingEntity.DICT_CONSTRUCTOR, null, this.content, key);
+            dict = this.digested.putIfAbsent(key, newDict);
+            if (dict == null) {
+                dict = newDict;
+            }
+        }
+        return dict;
+    }
+
+}
@@ -33,6 +33,7 @@ import org.apache.http.ProtocolVersion;
 import org.apache.http.RequestLine;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.message.BasicRequestLine;
 import org.apache.http.params.HttpProtocolParams;
 
@@ -47,6 +48,7 @@ public abstract class HttpRequestBase extends AbstractExecutionAwareRequest
 
     private ProtocolVersion version;
     private URI uri;
+    private RequestTarget requestTarget;
     private RequestConfig config;
 
     @Override
@@ -75,18 +77,33 @@ public abstract class HttpRequestBase extends AbstractExecutionAwareRequest
         return this.uri;
     }
 
+    /**
+     * Returns the pre-parsed request URI. The URI is parsed on first access
+     * and re-parsed only if it has been changed since.
+     *
+     * @return the request target or {@code null} if the URI is not set.
+     *
+     * @since 5.0
+     */
+    public RequestTarget getRequestTarget() {
+        final URI uriCopy = getURI(); // avoids possible window where URI could be changed
+        if (uriCopy == null) {
+            return null;
+        }
+        RequestTarget target = this.requestTarget;
+        if (target == null || target.getURI() != uriCopy) {
+            target = RequestTarget.create(uriCopy);
+            this.requestTarget = target;
+        }
+        return target;
+    }
+
     @Override
     public RequestLine getRequestLine() {
         final String method = getMethod();
         final ProtocolVersion ver = getProtocolVersion();
-        final URI uriCopy = getURI(); // avoids possible window where URI could be changed
-        String uritext = null;
-        if (uriCopy != null) {
-            uritext = uriCopy.toASCIIString();
-        }
-        if (uritext == null || uritext.isEmpty()) {
-            uritext = "/";
-        }
+        final RequestTarget target = getRequestTarget();
+        final String uritext = target != null ? target.getRequestUri() : "/";
         return new BasicRequestLine(method, uritext, ver);
     }
 
@@ -37,6 +37,7 @@ import org.apache.http.HttpRequest;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.RequestLine;
 import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.message.AbstractHttpMessage;
 import org.apache.http.message.BasicRequestLine;
 import org.apache.http.protocol.HTTP;
@@ -57,6 +58,7 @@ public class HttpRequestWrapper extends AbstractHttpMessage implements HttpUriRe
     private RequestLine requestLine;
     private ProtocolVersion version;
     private URI uri;
+    private RequestTarget requestTarget;
 
     private HttpRequestWrapper(final HttpRequest request, final HttpHost target) {
         super();
@@ -88,8 +90,34 @@ public class HttpRequestWrapper extends AbstractHttpMessage implements HttpUriRe
     }
 
     public void setURI(final URI uri) {
-        this.uri = uri;
-        this.requestLine = null;
+        if (uri != this.uri) {
+            this.uri = uri;
+            this.requestTarget = null;
+            this.requestLine = null;
+        }
+    }
+
+    /**
+     * Returns the pre-parsed request URI. If the URI is that of the original
+     * request the original request target is re-used.
+     *
+     * @return the request target or {@code null} if the URI is not set.
+     *
+     * @since 5.0
+     */
+    public RequestTarget getRequestTarget() {
+        if (this.requestTarget == null && this.uri != null) {
+            if (this.original instanceof HttpRequestBase) {
+                final RequestTarget originalTarget = ((HttpRequestBase) this.original).getRequestTarget();
+                if (originalTarget != null && originalTarget.getURI() == this.uri) {
+                    this.requestTarget = originalTarget;
+                }
+            }
+            if (this.requestTarget == null) {
+                this.requestTarget = RequestTarget.create(this.uri);
+            }
+        }
+        return this.requestTarget;
     }
 
     @Override
@@ -112,12 +140,12 @@ public class HttpRequestWrapper extends AbstractHttpMessage implements HttpUriRe
         if (this.requestLine == null) {
             String requestUri;
             if (this.uri != null) {
-                requestUri = this.uri.toASCIIString();
+                requestUri = getRequestTarget().getRequestUri();
             } else {
                 requestUri = this.original.getRequestLine().getUri();
-            }
-            if (requestUri == null || requestUri.isEmpty()) {
-                requestUri = "/";
+                if (requestUri == null || requestUri.isEmpty()) {
+                    requestUri = "/";
+                }
             }
             this.requestLine = new BasicRequestLine(this.method, requestUri, getProtocolVersion());
         }
@@ -109,6 +109,14 @@ public class HttpClientContext extends HttpCoreContext {
      */
     public static final String AUTH_CACHE            = "http.auth.auth-cache";
 
+    /**
+     * Attribute name of a {@link org.apache.http.impl.auth.DigestSessionCache} object
+     * that represents the digest authentication session cache.
+     *
+     * @since 5.0
+     */
+    public static final String DIGEST_SESSION_CACHE  = "http.auth.digest-session-cache";
+
     /**
      * Attribute name of a map containing actual {@link AuthExchange}s keyed by their respective
      * {@link org.apache.http.HttpHost}.
@@ -133,6 +141,42 @@ public class HttpClientContext extends HttpCoreContext {
      */
     public static final String REQUEST_CONFIG = "http.request-config";
 
+    /**
+     * Attribute name of a {@link java.lang.Long} object that represents the time in
+     * nanoseconds it took to execute the most recent request message exchange, from
+     * the request being written out to the response head being received.
+     *
+     * @since 5.0
+     */
+    public static final String EXCHANGE_DURATION = "http.exchange-duration";
+
+    /**
+     * Attribute name of a {@link java.lang.Long} object that represents the time in
+     * nanoseconds it took to lease a connection from the connection manager for
+     * the most recent request execution.
+     *
+     * @since 5.0
+     */
+    public static final String CONNECTION_LEASE_DURATION = "http.connection-lease-duration";
+
+    /**
+     * Attribute name of a {@link java.lang.Boolean} object that indicates whether
+     * delayed re-execution of requests can be deferred to the caller by throwing
+     * {@link org.apache.http.client.RetryDeferredException} instead of blocking the
+     * executing thread until the retry delay expires.
+     *
+     * @since 5.0
+     */
+    public static final String RETRY_DEFERRAL = "http.retry-deferral";
+
+    /**
+     * Attribute name of an {@link java.lang.Integer} object that represents the number
+     * of times a request has been executed before its re-execution was deferred.
+     *
+     * @since 5.0
+     */
+    public static final String DEFERRED_EXECUTION_COUNT = "http.service-unavailable.execution-count";
+
     public static HttpClientContext adapt(final HttpContext context) {
         if (context instanceof HttpClientContext) {
             return (HttpClientContext) context;
@@ -280,4 +324,26 @@ public class HttpClientContext extends HttpCoreContext {
         setAttribute(REQUEST_CONFIG, config);
     }
 
+    /**
+     * Returns the duration of the most recent message exchange in nanoseconds
+     * or {@code -1} if not known.
+     *
+     * @since 5.0
+     */
+    public long getExchangeDuration() {
+        final Long duration = getAttribute(EXCHANGE_DURATION, Long.class);
+        return duration != null ? duration.longValue() : -1;
+    }
+
+    /**
+     * Returns the time in nanoseconds it took to lease a connection for the most
+     * recent request execution or {@code -1} if not known.
+     *
+     * @since 5.0
+     */
+    public long getConnectionLeaseDuration() {
+        final Long duration = getAttribute(CONNECTION_LEASE_DURATION, Long.class);
+        return duration != null ? duration.longValue() : -1;
+    }
+
 }
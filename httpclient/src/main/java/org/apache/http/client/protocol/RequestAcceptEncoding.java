@@ -48,6 +48,19 @@ import org.apache.http.protocol.HttpContext;
 @Immutable
 public class RequestAcceptEncoding implements HttpRequestInterceptor {
 
+    private static final String DEFAULT_ACCEPT_ENCODING;
+
+    static {
+        final StringBuilder buf = new StringBuilder("gzip,deflate");
+        if (ResponseContentEncoding.BROTLI != null) {
+            buf.append(",br");
+        }
+        if (ResponseContentEncoding.ZSTD != null) {
+            buf.append(",zstd");
+        }
+        DEFAULT_ACCEPT_ENCODING = buf.toString();
+    }
+
     private final String acceptEncoding;
 
     /**
@@ -64,7 +77,7 @@ public class RequestAcceptEncoding implements HttpRequestInterceptor {
             }
             this.acceptEncoding = buf.toString();
         } else {
-            this.acceptEncoding = "gzip,deflate";
+            this.acceptEncoding = DEFAULT_ACCEPT_ENCODING;
         }
     }
 
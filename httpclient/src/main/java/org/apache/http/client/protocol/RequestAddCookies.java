@@ -46,6 +46,7 @@ import org.apache.http.client.CookieStore;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.config.Lookup;
 import org.apache.http.conn.routing.RouteInfo;
 import org.apache.http.cookie.Cookie;
@@ -122,16 +123,16 @@ public class RequestAddCookies implements HttpRequestInterceptor {
             this.log.debug("CookieSpec selected: " + policy);
         }
 
-        URI requestURI = null;
+        String path = null;
         if (request instanceof HttpUriRequest) {
-            requestURI = ((HttpUriRequest) request).getURI();
+            final RequestTarget requestTarget = RequestTarget.get(request);
+            path = requestTarget != null ? requestTarget.getPath() : null;
         } else {
             try {
-                requestURI = new URI(request.getRequestLine().getUri());
+                path = new URI(request.getRequestLine().getUri()).getPath();
             } catch (final URISyntaxException ignore) {
             }
         }
-        final String path = requestURI != null ? requestURI.getPath() : null;
         final String hostName = targetHost.getHostName();
         int port = targetHost.getPort();
         if (port < 0) {
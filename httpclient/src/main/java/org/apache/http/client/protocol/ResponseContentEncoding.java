@@ -29,7 +29,6 @@ package org.apache.http.client.protocol;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
@@ -41,7 +40,10 @@ import org.apache.http.annotation.Immutable;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.DecompressingEntity;
 import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.InflaterPool;
 import org.apache.http.client.entity.InputStreamFactory;
+import org.apache.http.client.entity.PooledGzipInputStream;
+import org.apache.http.client.entity.ReflectiveInputStreamFactory;
 import org.apache.http.config.Lookup;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.protocol.HttpContext;
@@ -64,7 +66,7 @@ public class ResponseContentEncoding implements HttpResponseInterceptor {
 
         @Override
         public InputStream create(final InputStream instream) throws IOException {
-            return new GZIPInputStream(instream);
+            return new PooledGzipInputStream(instream, InflaterPool.getDefault());
         }
     };
 
@@ -72,11 +74,23 @@ public class ResponseContentEncoding implements HttpResponseInterceptor {
 
         @Override
         public InputStream create(final InputStream instream) throws IOException {
-            return new DeflateInputStream(instream);
+            return new DeflateInputStream(instream, InflaterPool.getDefault());
         }
 
     };
 
+    /**
+     * Brotli decoder, {@code null} if org.brotli:dec is not on the classpath.
+     */
+    final static InputStreamFactory BROTLI = ReflectiveInputStreamFactory.create(
+            "org.brotli.dec.BrotliInputStream");
+
+    /**
+     * Zstandard decoder, {@code null} if com.github.luben:zstd-jni is not on the classpath.
+     */
+    final static InputStreamFactory ZSTD = ReflectiveInputStreamFactory.create(
+            "com.github.luben.zstd.ZstdInputStream");
+
     private final Lookup<InputStreamFactory> decoderRegistry;
     private final boolean ignoreUnknown;
 
@@ -84,12 +98,21 @@ public class ResponseContentEncoding implements HttpResponseInterceptor {
      * @since 4.5
      */
     public ResponseContentEncoding(final Lookup<InputStreamFactory> decoderRegistry, final boolean ignoreUnknown) {
-        this.decoderRegistry = decoderRegistry != null ? decoderRegistry :
-            RegistryBuilder.<InputStreamFactory>create()
+        if (decoderRegistry != null) {
+            this.decoderRegistry = decoderRegistry;
+        } else {
+            final RegistryBuilder<InputStreamFactory> builder = RegistryBuilder.<InputStreamFactory>create()
                     .register("gzip", GZIP)
                     .register("x-gzip", GZIP)
-                    .register("deflate", DEFLATE)
-                    .build();
+                    .register("deflate", DEFLATE);
+            if (BROTLI != null) {
+                builder.register("br", BROTLI);
+            }
+            if (ZSTD != null) {
+                builder.register("zstd", ZSTD);
+            }
+            this.decoderRegistry = builder.build();
+        }
         this.ignoreUnknown = ignoreUnknown;
     }
 
@@ -111,9 +134,13 @@ public class ResponseContentEncoding implements HttpResponseInterceptor {
      * Handles {@code gzip} and {@code deflate} compressed entities by using the following
      * decoders:
      * <ul>
-     * <li>gzip - see {@link GZIPInputStream}</li>
+     * <li>gzip - see {@link PooledGzipInputStream}</li>
      * <li>deflate - see {@link DeflateInputStream}</li>
+     * <li>br - if {@code org.brotli.dec.BrotliInputStream} is available</li>
+     * <li>zstd - if {@code com.github.luben.zstd.ZstdInputStream} is available</li>
      * </ul>
+     * Inflaters of the gzip and deflate decoders are pooled by
+     * {@link InflaterPool#getDefault()}.
      */
     public ResponseContentEncoding() {
         this(null);
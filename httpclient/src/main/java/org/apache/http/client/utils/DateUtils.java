@@ -134,11 +134,19 @@ public final class DateUtils {
             v = v.substring (1, v.length() - 1);
         }
 
+        if (localDateFormats.length > 0 && PATTERN_RFC1123.equals(localDateFormats[0])) {
+            final long time = parseRfc1123(v);
+            if (time != Long.MIN_VALUE) {
+                return new Date(time);
+            }
+        }
         for (final String dateFormat : localDateFormats) {
             final SimpleDateFormat dateParser = DateFormatHolder.formatFor(dateFormat);
             dateParser.set2DigitYearStart(localStartDate);
             final ParsePosition pos = new ParsePosition(0);
             final Date result = dateParser.parse(v, pos);
+            // Parsing a zone other than GMT changes the zone of the shared formatter
+            dateParser.setTimeZone(GMT);
             if (pos.getIndex() != 0) {
                 return result;
             }
@@ -155,7 +163,9 @@ public final class DateUtils {
      * @see #PATTERN_RFC1123
      */
     public static String formatDate(final Date date) {
-        return formatDate(date, PATTERN_RFC1123);
+        Args.notNull(date, "Date");
+        final String s = formatRfc1123(date.getTime());
+        return s != null ? s : formatDate(date, PATTERN_RFC1123);
     }
 
     /**
@@ -187,6 +197,141 @@ public final class DateUtils {
         DateFormatHolder.clearThreadLocal();
     }
 
+    private static final String[] DAYS = { "Thu", "Fri", "Sat", "Sun", "Mon", "Tue", "Wed" };
+
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    // Range within which the proleptic Gregorian calendar of the fast path
+    // agrees with the Julian / Gregorian calendar of SimpleDateFormat
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 9999;
+
+    /**
+     * Parses a date in the canonical RFC 1123 format, e.g.
+     * {@code Sun, 06 Nov 1994 08:49:37 GMT}, without going through
+     * {@link SimpleDateFormat}.
+     *
+     * @return the number of milliseconds since the epoch or {@link Long#MIN_VALUE}
+     *   if the value is not a canonical RFC 1123 date, in which case it needs to
+     *   be parsed by the generic method.
+     */
+    static long parseRfc1123(final String s) {
+        if (s.length() != 29
+                || s.charAt(3) != ',' || s.charAt(4) != ' ' || s.charAt(7) != ' '
+                || s.charAt(11) != ' ' || s.charAt(16) != ' ' || s.charAt(19) != ':'
+                || s.charAt(22) != ':' || s.charAt(25) != ' '
+                || !s.regionMatches(26, "GMT", 0, 3)) {
+            return Long.MIN_VALUE;
+        }
+        if (indexOf(DAYS, s, 0) < 0) {
+            return Long.MIN_VALUE;
+        }
+        final int month = indexOf(MONTHS, s, 8);
+        final int day = parseDigits(s, 5, 2);
+        final int year = parseDigits(s, 12, 4);
+        final int hour = parseDigits(s, 17, 2);
+        final int minute = parseDigits(s, 20, 2);
+        final int second = parseDigits(s, 23, 2);
+        if (month < 0 || day < 1 || day > 31 || year < MIN_YEAR
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        final long days = daysFromCivil(year, month + 1, day);
+        return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    /**
+     * Formats the given time in the RFC 1123 format without going through
+     * {@link SimpleDateFormat}.
+     *
+     * @return the formatted date or {@code null} if the year is outside the range
+     *   supported by the fast path.
+     */
+    static String formatRfc1123(final long time) {
+        final long days = floorDiv(time, MILLIS_PER_DAY);
+        final int millisOfDay = (int) (time - days * MILLIS_PER_DAY);
+        // Civil from days
+        final long z = days + 719468;
+        final long era = floorDiv(z, 146097);
+        final int doe = (int) (z - era * 146097);
+        final int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final int mp = (5 * doy + 2) / 153;
+        final int day = doy - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return null;
+        }
+        final int secondOfDay = millisOfDay / 1000;
+        final char[] buf = new char[29];
+        DAYS[(int) (days - floorDiv(days, 7) * 7)].getChars(0, 3, buf, 0);
+        buf[3] = ',';
+        buf[4] = ' ';
+        formatDigits(day, buf, 5, 2);
+        buf[7] = ' ';
+        MONTHS[month - 1].getChars(0, 3, buf, 8);
+        buf[11] = ' ';
+        formatDigits((int) year, buf, 12, 4);
+        buf[16] = ' ';
+        formatDigits(secondOfDay / 3600, buf, 17, 2);
+        buf[19] = ':';
+        formatDigits(secondOfDay / 60 % 60, buf, 20, 2);
+        buf[22] = ':';
+        formatDigits(secondOfDay % 60, buf, 23, 2);
+        buf[25] = ' ';
+        "GMT".getChars(0, 3, buf, 26);
+        return new String(buf);
+    }
+
+    private static long floorDiv(final long x, final long y) {
+        final long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+
+    private static long daysFromCivil(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = y / 400;
+        final int yoe = y - era * 400;
+        final int mp = month > 2 ? month - 3 : month + 9;
+        final int doy = (153 * mp + 2) / 5 + day - 1;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    private static int indexOf(final String[] names, final String s, final int offset) {
+        for (int i = 0; i < names.length; i++) {
+            if (s.regionMatches(true, offset, names[i], 0, 3)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseDigits(final String s, final int offset, final int len) {
+        int n = 0;
+        for (int i = offset; i < offset + len; i++) {
+            final char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+
+    private static void formatDigits(final int n, final char[] buf, final int offset, final int len) {
+        int v = n;
+        for (int i = offset + len - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+    }
+
     /** This class should not be instantiated. */
     private DateUtils() {
     }
@@ -0,0 +1,286 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.utils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.util.Args;
+
+/**
+ * Pre-parsed representation of a request URI. {@link HttpRequestBase} and
+ * {@link HttpRequestWrapper} parse their request URI once and keep the result
+ * until the URI changes, so that the execution chain can determine the target
+ * host, re-write the request URI for a particular route, derive the cookie
+ * origin or generate a cache key without re-parsing the URI or rebuilding it
+ * with {@link URIBuilder}.
+ *
+ * @since 5.0
+ */
+@Immutable
+public final class RequestTarget {
+
+    private final URI uri;
+    private final HttpHost host;
+    private final String path;
+    private final String rawPath;
+    private final String rawQuery;
+    private final String requestUri;
+    private final boolean normalized;
+
+    private RequestTarget(final URI uri) {
+        super();
+        this.uri = uri;
+        this.host = URIUtils.extractHost(uri);
+        this.path = uri.getPath();
+        this.rawPath = uri.getRawPath();
+        this.rawQuery = uri.getRawQuery();
+        final String s = uri.toASCIIString();
+        this.requestUri = !s.isEmpty() ? s : "/";
+        this.normalized = !uri.isOpaque() && isNormalPath(this.rawPath) && isAscii(this.rawQuery);
+    }
+
+    /**
+     * Parses the given URI.
+     */
+    public static RequestTarget create(final URI uri) {
+        Args.notNull(uri, "URI");
+        return new RequestTarget(uri);
+    }
+
+    /**
+     * Returns the pre-parsed request URI of the given request or {@code null}
+     * if the request does not have a request URI.
+     */
+    public static RequestTarget get(final HttpRequest request) {
+        if (request instanceof HttpRequestWrapper) {
+            return ((HttpRequestWrapper) request).getRequestTarget();
+        } else if (request instanceof HttpRequestBase) {
+            return ((HttpRequestBase) request).getRequestTarget();
+        } else if (request instanceof HttpUriRequest) {
+            final URI uri = ((HttpUriRequest) request).getURI();
+            return uri != null ? new RequestTarget(uri) : null;
+        } else {
+            return null;
+        }
+    }
+
+    public URI getURI() {
+        return this.uri;
+    }
+
+    public boolean isAbsolute() {
+        return this.uri.isAbsolute();
+    }
+
+    /**
+     * Returns the target host as extracted by {@link URIUtils#extractHost(URI)}.
+     *
+     * @return the target host or {@code null} if the URI is relative or does not
+     *   contain a valid host name.
+     */
+    public HttpHost getHost() {
+        return this.host;
+    }
+
+    /**
+     * Returns the decoded path of the URI, or {@code null} if undefined.
+     */
+    public String getPath() {
+        return this.path;
+    }
+
+    public String getRawPath() {
+        return this.rawPath;
+    }
+
+    public String getRawQuery() {
+        return this.rawQuery;
+    }
+
+    /**
+     * Returns the US-ASCII representation of the URI as used in the request line.
+     */
+    public String getRequestUri() {
+        return this.requestUri;
+    }
+
+    /**
+     * Returns {@code true} if the URI is hierarchical, its query consists of
+     * US-ASCII characters only and its path is in normal form as defined by
+     * RFC 3986, section 6.2.2, that is it contains no dot segments, no empty
+     * segments and no characters that would be percent-encoded in a path
+     * or decoded on normalization.
+     */
+    public boolean isNormalized() {
+        return this.normalized;
+    }
+
+    /**
+     * Re-writes the URI for the given route. This method produces the same
+     * result as {@link URIUtils#rewriteURIForRoute(URI, RouteInfo)} but returns
+     * the original URI or builds the origin form directly whenever possible.
+     */
+    public URI rewriteForRoute(final RouteInfo route) throws URISyntaxException {
+        Args.notNull(route, "Route");
+        if (route.getProxyHost() != null && !route.isTunnelled()) {
+            if (isAbsoluteForm()) {
+                return this.uri;
+            }
+            return URIUtils.rewriteURIForRoute(this.uri, route);
+        }
+        return toRelativeURI();
+    }
+
+    /**
+     * Returns the URI relative to the target host, without fragment and with
+     * an empty path replaced by "/". The result is the same as that of
+     * {@link URIUtils#rewriteURI(URI, HttpHost, boolean)} with a {@code null}
+     * target for absolute URIs and {@link URIUtils#rewriteURI(URI)} for
+     * relative ones.
+     */
+    public URI toRelativeURI() throws URISyntaxException {
+        if (this.uri.isOpaque()) {
+            return this.uri;
+        }
+        if (!this.uri.isAbsolute()) {
+            if (this.uri.getRawAuthority() == null && this.uri.getRawFragment() == null
+                    && !this.rawPath.isEmpty()) {
+                return this.uri;
+            }
+            return URIUtils.rewriteURI(this.uri);
+        }
+        final StringBuilder buffer = new StringBuilder(this.requestUri.length());
+        if (this.rawPath.isEmpty()) {
+            buffer.append('/');
+        } else {
+            int n = 0;
+            while (n < this.rawPath.length() - 1 && this.rawPath.charAt(n + 1) == '/') {
+                n++;
+            }
+            buffer.append(this.rawPath, n, this.rawPath.length());
+        }
+        if (this.rawQuery != null) {
+            buffer.append('?').append(this.rawQuery);
+        }
+        return new URI(buffer.toString());
+    }
+
+    /**
+     * Determines whether the URI is absolute and would be left unchanged by
+     * {@link URIUtils#rewriteURI(URI)}.
+     */
+    private boolean isAbsoluteForm() {
+        if (!this.uri.isAbsolute() || this.uri.isOpaque()) {
+            return false;
+        }
+        final String hostName = this.uri.getHost();
+        if (hostName == null
+                || this.uri.getRawUserInfo() != null
+                || this.uri.getRawFragment() != null
+                || this.rawPath.isEmpty()
+                || this.rawPath.startsWith("//")
+                || !hostName.equals(hostName.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        final String authority = this.uri.getRawAuthority();
+        final int port = this.uri.getPort();
+        return port < 0 ? authority.equals(hostName) : authority.equals(hostName + ':' + port);
+    }
+
+    private static boolean isNormalPath(final String s) {
+        if (s == null) {
+            return false;
+        }
+        if (s.isEmpty()) {
+            return true;
+        }
+        if (s.charAt(0) != '/') {
+            return false;
+        }
+        int segmentStart = 1;
+        for (int i = 1; i <= s.length(); i++) {
+            if (i == s.length() || s.charAt(i) == '/') {
+                final int len = i - segmentStart;
+                if (len == 0) {
+                    // Only the last segment may be empty
+                    if (i < s.length()) {
+                        return false;
+                    }
+                } else if (s.charAt(segmentStart) == '.'
+                        && (len == 1 || (len == 2 && s.charAt(segmentStart + 1) == '.'))) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            } else if (!isPathSafe(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPathSafe(final char ch) {
+        if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')) {
+            return true;
+        }
+        switch (ch) {
+            case '-': case '.': case '_': case '~': case '!': case '*': case '\'':
+            case '(': case ')': case ',': case ';': case ':': case '$': case '&':
+            case '+': case '=': case '@':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isAscii(final String s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (ch <= 0x20 || ch >= 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.uri.toString();
+    }
+
+}
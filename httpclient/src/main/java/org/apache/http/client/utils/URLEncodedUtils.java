@@ -211,14 +211,63 @@ public class URLEncodedUtils {
      */
     public static List<NameValuePair> parse(
             final CharArrayBuffer buf, final Charset charset, final char... separators) {
+        final List<NameValuePair> list = new ArrayList<>();
+        parse(buf, charset, new ParameterVisitor() {
+
+            @Override
+            public void visit(final String name, final String value) {
+                list.add(new BasicNameValuePair(name, value));
+            }
+
+        }, separators);
+        return list;
+    }
+
+    /**
+     * Parses the given string using the given character encoding and passes
+     * the decoded parameters to the visitor in the order of their appearance,
+     * without building a list.
+     *
+     * @param s text to parse.
+     * @param charset Encoding to use when decoding the parameters.
+     * @param visitor the visitor of the parameters.
+     * @param separators element separators.
+     *
+     * @since 5.0
+     */
+    public static void parse(
+            final String s, final Charset charset, final ParameterVisitor visitor, final char... separators) {
+        if (s == null) {
+            return;
+        }
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        parse(buffer, charset, visitor, separators);
+    }
+
+    /**
+     * Parses the given buffer using the given character encoding and passes
+     * the decoded parameters to the visitor in the order of their appearance,
+     * without building a list.
+     *
+     * @param buf text to parse.
+     * @param charset Encoding to use when decoding the parameters.
+     * @param visitor the visitor of the parameters.
+     * @param separators element separators.
+     *
+     * @since 5.0
+     */
+    public static void parse(
+            final CharArrayBuffer buf, final Charset charset,
+            final ParameterVisitor visitor, final char... separators) {
         Args.notNull(buf, "Char array buffer");
+        Args.notNull(visitor, "Parameter visitor");
         final TokenParser tokenParser = TokenParser.INSTANCE;
         final BitSet delimSet = new BitSet();
         for (char separator: separators) {
             delimSet.set(separator);
         }
         final ParserCursor cursor = new ParserCursor(0, buf.length());
-        final List<NameValuePair> list = new ArrayList<>();
         while (!cursor.atEnd()) {
             delimSet.set('=');
             final String name = tokenParser.parseToken(buf, cursor, delimSet);
@@ -235,12 +284,11 @@ public class URLEncodedUtils {
                 }
             }
             if (!name.isEmpty()) {
-                list.add(new BasicNameValuePair(
+                visitor.visit(
                         decodeFormFields(name, charset),
-                        decodeFormFields(value, charset)));
+                        decodeFormFields(value, charset));
             }
         }
-        return list;
     }
 
     /**
@@ -272,20 +320,7 @@ public class URLEncodedUtils {
             final List <? extends NameValuePair> parameters,
             final char parameterSeparator,
             final String charset) {
-        final StringBuilder result = new StringBuilder();
-        for (final NameValuePair parameter : parameters) {
-            final String encodedName = encodeFormFields(parameter.getName(), charset);
-            final String encodedValue = encodeFormFields(parameter.getValue(), charset);
-            if (result.length() > 0) {
-                result.append(parameterSeparator);
-            }
-            result.append(encodedName);
-            if (encodedValue != null) {
-                result.append(NAME_VALUE_SEPARATOR);
-                result.append(encodedValue);
-            }
-        }
-        return result.toString();
+        return format(parameters, parameterSeparator, charset != null ? Charset.forName(charset) : null);
     }
 
     /**
@@ -320,19 +355,74 @@ public class URLEncodedUtils {
             final char parameterSeparator,
             final Charset charset) {
         final StringBuilder result = new StringBuilder();
+        try {
+            format(parameters, parameterSeparator, charset, result);
+        } catch (final IOException ex) {
+            // Cannot happen with StringBuilder
+            throw new IllegalStateException(ex);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends the given parameters as {@code application/x-www-form-urlencoded}
+     * content to the given buffer without creating intermediate strings.
+     *
+     * @param parameters  The parameters to include.
+     * @param parameterSeparator The parameter separator, by convention, {@code '&'} or {@code ';'}.
+     * @param charset The encoding to use.
+     * @param dst The buffer to append to.
+     *
+     * @since 5.0
+     */
+    public static void format(
+            final Iterable<? extends NameValuePair> parameters,
+            final char parameterSeparator,
+            final Charset charset,
+            final CharArrayBuffer dst) {
+        Args.notNull(dst, "Char array buffer");
+        try {
+            format(parameters, parameterSeparator, charset, new CharArrayBufferAppendable(dst));
+        } catch (final IOException ex) {
+            // Cannot happen with CharArrayBuffer
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Appends the given parameters as {@code application/x-www-form-urlencoded}
+     * content to the given {@link Appendable} without creating intermediate strings.
+     *
+     * @param parameters  The parameters to include.
+     * @param parameterSeparator The parameter separator, by convention, {@code '&'} or {@code ';'}.
+     * @param charset The encoding to use.
+     * @param dst The destination to append to.
+     * @throws IOException in case of an I/O error raised by the destination.
+     *
+     * @since 5.0
+     */
+    public static void format(
+            final Iterable<? extends NameValuePair> parameters,
+            final char parameterSeparator,
+            final Charset charset,
+            final Appendable dst) throws IOException {
+        Args.notNull(parameters, "Parameters");
+        Args.notNull(dst, "Appendable");
+        final Charset localCharset = charset != null ? charset : Consts.UTF_8;
+        boolean empty = true;
         for (final NameValuePair parameter : parameters) {
-            final String encodedName = encodeFormFields(parameter.getName(), charset);
-            final String encodedValue = encodeFormFields(parameter.getValue(), charset);
-            if (result.length() > 0) {
-                result.append(parameterSeparator);
+            final String name = parameter.getName();
+            final String value = parameter.getValue();
+            if (!empty) {
+                dst.append(parameterSeparator);
             }
-            result.append(encodedName);
-            if (encodedValue != null) {
-                result.append(NAME_VALUE_SEPARATOR);
-                result.append(encodedValue);
+            urlEncode(name, localCharset, URLENCODER, true, dst);
+            if (value != null) {
+                dst.append(NAME_VALUE_SEPARATOR);
+                urlEncode(value, localCharset, URLENCODER, true, dst);
             }
+            empty = empty && name.isEmpty() && value == null;
         }
-        return result.toString();
     }
 
     /**
@@ -341,22 +431,22 @@ public class URLEncodedUtils {
      *  This list is the same as the {@code unreserved} list in
      *  <a href="http://www.ietf.org/rfc/rfc2396.txt">RFC 2396</a>
      */
-    private static final BitSet UNRESERVED   = new BitSet(256);
+    private static final boolean[] UNRESERVED   = new boolean[256];
     /**
      * Punctuation characters: , ; : $ & + =
      * <p>
      * These are the additional characters allowed by userinfo.
      */
-    private static final BitSet PUNCT        = new BitSet(256);
+    private static final boolean[] PUNCT        = new boolean[256];
     /** Characters which are safe to use in userinfo,
      * i.e. {@link #UNRESERVED} plus {@link #PUNCT}uation */
-    private static final BitSet USERINFO     = new BitSet(256);
+    private static final boolean[] USERINFO     = new boolean[256];
     /** Characters which are safe to use in a path,
      * i.e. {@link #UNRESERVED} plus {@link #PUNCT}uation plus / @ */
-    private static final BitSet PATHSAFE     = new BitSet(256);
+    private static final boolean[] PATHSAFE     = new boolean[256];
     /** Characters which are safe to use in a query or a fragment,
      * i.e. {@link #RESERVED} plus {@link #UNRESERVED} */
-    private static final BitSet URIC     = new BitSet(256);
+    private static final boolean[] URIC     = new boolean[256];
 
     /**
      * Reserved characters, i.e. {@code ;/?:@&=+$,[]}
@@ -366,108 +456,156 @@ public class URLEncodedUtils {
      *  as augmented by
      *  <a href="http://www.ietf.org/rfc/rfc2732.txt">RFC 2732</a>
      */
-    private static final BitSet RESERVED     = new BitSet(256);
+    private static final boolean[] RESERVED     = new boolean[256];
 
 
     /**
      * Safe characters for x-www-form-urlencoded data, as per java.net.URLEncoder and browser behaviour,
      * i.e. alphanumeric plus {@code "-", "_", ".", "*"}
      */
-    private static final BitSet URLENCODER   = new BitSet(256);
+    private static final boolean[] URLENCODER   = new boolean[256];
+
+    private static void or(final boolean[] dst, final boolean[] src) {
+        for (int i = 0; i < src.length; i++) {
+            dst[i] |= src[i];
+        }
+    }
 
     static {
         // unreserved chars
         // alpha characters
         for (int i = 'a'; i <= 'z'; i++) {
-            UNRESERVED.set(i);
+            UNRESERVED[i] = true;
         }
         for (int i = 'A'; i <= 'Z'; i++) {
-            UNRESERVED.set(i);
+            UNRESERVED[i] = true;
         }
         // numeric characters
         for (int i = '0'; i <= '9'; i++) {
-            UNRESERVED.set(i);
-        }
-        UNRESERVED.set('_'); // these are the charactes of the "mark" list
-        UNRESERVED.set('-');
-        UNRESERVED.set('.');
-        UNRESERVED.set('*');
-        URLENCODER.or(UNRESERVED); // skip remaining unreserved characters
-        UNRESERVED.set('!');
-        UNRESERVED.set('~');
-        UNRESERVED.set('\'');
-        UNRESERVED.set('(');
-        UNRESERVED.set(')');
+            UNRESERVED[i] = true;
+        }
+        UNRESERVED['_'] = true; // these are the charactes of the "mark" list
+        UNRESERVED['-'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['*'] = true;
+        or(URLENCODER, UNRESERVED); // skip remaining unreserved characters
+        UNRESERVED['!'] = true;
+        UNRESERVED['~'] = true;
+        UNRESERVED['\''] = true;
+        UNRESERVED['('] = true;
+        UNRESERVED[')'] = true;
         // punct chars
-        PUNCT.set(',');
-        PUNCT.set(';');
-        PUNCT.set(':');
-        PUNCT.set('$');
-        PUNCT.set('&');
-        PUNCT.set('+');
-        PUNCT.set('=');
+        PUNCT[','] = true;
+        PUNCT[';'] = true;
+        PUNCT[':'] = true;
+        PUNCT['$'] = true;
+        PUNCT['&'] = true;
+        PUNCT['+'] = true;
+        PUNCT['='] = true;
         // Safe for userinfo
-        USERINFO.or(UNRESERVED);
-        USERINFO.or(PUNCT);
+        or(USERINFO, UNRESERVED);
+        or(USERINFO, PUNCT);
 
         // URL path safe
-        PATHSAFE.or(UNRESERVED);
-        PATHSAFE.set('/'); // segment separator
-        PATHSAFE.set(';'); // param separator
-        PATHSAFE.set(':'); // rest as per list in 2396, i.e. : @ & = + $ ,
-        PATHSAFE.set('@');
-        PATHSAFE.set('&');
-        PATHSAFE.set('=');
-        PATHSAFE.set('+');
-        PATHSAFE.set('$');
-        PATHSAFE.set(',');
-
-        RESERVED.set(';');
-        RESERVED.set('/');
-        RESERVED.set('?');
-        RESERVED.set(':');
-        RESERVED.set('@');
-        RESERVED.set('&');
-        RESERVED.set('=');
-        RESERVED.set('+');
-        RESERVED.set('$');
-        RESERVED.set(',');
-        RESERVED.set('['); // added by RFC 2732
-        RESERVED.set(']'); // added by RFC 2732
-
-        URIC.or(RESERVED);
-        URIC.or(UNRESERVED);
+        or(PATHSAFE, UNRESERVED);
+        PATHSAFE['/'] = true; // segment separator
+        PATHSAFE[';'] = true; // param separator
+        PATHSAFE[':'] = true; // rest as per list in 2396, i.e. : @ & = + $ ,
+        PATHSAFE['@'] = true;
+        PATHSAFE['&'] = true;
+        PATHSAFE['='] = true;
+        PATHSAFE['+'] = true;
+        PATHSAFE['$'] = true;
+        PATHSAFE[','] = true;
+
+        RESERVED[';'] = true;
+        RESERVED['/'] = true;
+        RESERVED['?'] = true;
+        RESERVED[':'] = true;
+        RESERVED['@'] = true;
+        RESERVED['&'] = true;
+        RESERVED['='] = true;
+        RESERVED['+'] = true;
+        RESERVED['$'] = true;
+        RESERVED[','] = true;
+        RESERVED['['] = true; // added by RFC 2732
+        RESERVED[']'] = true; // added by RFC 2732
+
+        or(URIC, RESERVED);
+        or(URIC, UNRESERVED);
     }
 
-    private static final int RADIX = 16;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Returns {@code true} if characters below 0x80 are encoded as a single
+     * byte of the same value by the given charset.
+     */
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return charset.equals(Consts.UTF_8) || charset.equals(Consts.ISO_8859_1) || charset.equals(Consts.ASCII);
+    }
 
     private static String urlEncode(
             final String content,
             final Charset charset,
-            final BitSet safechars,
+            final boolean[] safechars,
             final boolean blankAsPlus) {
         if (content == null) {
             return null;
         }
-        final StringBuilder buf = new StringBuilder();
-        final ByteBuffer bb = charset.encode(content);
-        while (bb.hasRemaining()) {
-            final int b = bb.get() & 0xff;
-            if (safechars.get(b)) {
-                buf.append((char) b);
-            } else if (blankAsPlus && b == ' ') {
-                buf.append('+');
-            } else {
-                buf.append("%");
-                final char hex1 = Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, RADIX));
-                final char hex2 = Character.toUpperCase(Character.forDigit(b & 0xF, RADIX));
-                buf.append(hex1);
-                buf.append(hex2);
-            }
+        final StringBuilder buf = new StringBuilder(content.length());
+        try {
+            urlEncode(content, charset, safechars, blankAsPlus, buf);
+        } catch (final IOException ex) {
+            // Cannot happen with StringBuilder
+            throw new IllegalStateException(ex);
         }
         return buf.toString();
     }
 
+    private static void urlEncode(
+            final String content,
+            final Charset charset,
+            final boolean[] safechars,
+            final boolean blankAsPlus,
+            final Appendable dst) throws IOException {
+        int i = 0;
+        if (isAsciiCompatible(charset)) {
+            // Encode ASCII characters directly, without going through the charset encoder
+            final int len = content.length();
+            for (; i < len; i++) {
+                final char ch = content.charAt(i);
+                if (ch >= 0x80) {
+                    break;
+                }
+                appendEncoded(ch, safechars, blankAsPlus, dst);
+            }
+            if (i == len) {
+                return;
+            }
+        }
+        final ByteBuffer bb = charset.encode(i > 0 ? content.substring(i) : content);
+        while (bb.hasRemaining()) {
+            appendEncoded(bb.get() & 0xff, safechars, blankAsPlus, dst);
+        }
+    }
+
+    private static void appendEncoded(
+            final int b,
+            final boolean[] safechars,
+            final boolean blankAsPlus,
+            final Appendable dst) throws IOException {
+        if (safechars[b]) {
+            dst.append((char) b);
+        } else if (blankAsPlus && b == ' ') {
+            dst.append('+');
+        } else {
+            dst.append('%');
+            dst.append(HEX_DIGITS[(b >> 4) & 0xF]);
+            dst.append(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
     /**
      * Decode/unescape a portion of a URL, to use with the query part ensure {@code plusAsBlank} is true.
      *
@@ -483,6 +621,9 @@ public class URLEncodedUtils {
         if (content == null) {
             return null;
         }
+        if (isAsciiCompatible(charset) && !needsDecoding(content, plusAsBlank)) {
+            return content;
+        }
         final ByteBuffer bb = ByteBuffer.allocate(content.length());
         final CharBuffer cb = CharBuffer.wrap(content);
         while (cb.hasRemaining()) {
@@ -509,6 +650,20 @@ public class URLEncodedUtils {
         return charset.decode(bb).toString();
     }
 
+    /**
+     * Returns {@code false} if the content consists of ASCII characters only
+     * and contains no escape sequences.
+     */
+    private static boolean needsDecoding(final String content, final boolean plusAsBlank) {
+        for (int i = 0; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            if (c == '%' || c >= 0x80 || (plusAsBlank && c == '+')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Decode/unescape www-url-form-encoded content.
      *
@@ -537,42 +692,6 @@ public class URLEncodedUtils {
         return urlDecode(content, charset != null ? charset : Consts.UTF_8, true);
     }
 
-    /**
-     * Encode/escape www-url-form-encoded content.
-     * <p>
-     * Uses the {@link #URLENCODER} set of characters, rather than
-     * the {@link #UNRESERVED} set; this is for compatibilty with previous
-     * releases, URLEncoder.encode() and most browsers.
-     *
-     * @param content the content to encode, will convert space to '+'
-     * @param charset the charset to use
-     * @return encoded string
-     */
-    private static String encodeFormFields(final String content, final String charset) {
-        if (content == null) {
-            return null;
-        }
-        return urlEncode(content, charset != null ? Charset.forName(charset) : Consts.UTF_8, URLENCODER, true);
-    }
-
-    /**
-     * Encode/escape www-url-form-encoded content.
-     * <p>
-     * Uses the {@link #URLENCODER} set of characters, rather than
-     * the {@link #UNRESERVED} set; this is for compatibilty with previous
-     * releases, URLEncoder.encode() and most browsers.
-     *
-     * @param content the content to encode, will convert space to '+'
-     * @param charset the charset to use
-     * @return encoded string
-     */
-    private static String encodeFormFields (final String content, final Charset charset) {
-        if (content == null) {
-            return null;
-        }
-        return urlEncode(content, charset != null ? charset : Consts.UTF_8, URLENCODER, true);
-    }
-
     /**
      * Encode a String using the {@link #USERINFO} set of characters.
      * <p>
@@ -612,4 +731,36 @@ public class URLEncodedUtils {
         return urlEncode(content, charset, PATHSAFE, false);
     }
 
+    /**
+     * Adapts {@link CharArrayBuffer} to {@link Appendable}.
+     */
+    static class CharArrayBufferAppendable implements Appendable {
+
+        private final CharArrayBuffer buffer;
+
+        CharArrayBufferAppendable(final CharArrayBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public Appendable append(final CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(final CharSequence csq, final int start, final int end) {
+            for (int i = start; i < end; i++) {
+                this.buffer.append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(final char c) {
+            this.buffer.append(c);
+            return this;
+        }
+
+    }
+
 }
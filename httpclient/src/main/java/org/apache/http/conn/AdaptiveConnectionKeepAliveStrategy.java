@@ -0,0 +1,53 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.conn;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * {@link ConnectionKeepAliveStrategy} that also learns from persistent
+ * connections found to have been closed by the opposite endpoint when
+ * attempting to reuse them.
+ *
+ * @since 5.0
+ */
+public interface AdaptiveConnectionKeepAliveStrategy extends ConnectionKeepAliveStrategy {
+
+    /**
+     * Called when a message exchange over the given connection has failed
+     * because the connection was found closed or reset by the opposite endpoint
+     * before a response could be received.
+     *
+     * @param conn the connection the message exchange has failed over.
+     * @param route the connection route.
+     * @param context the context in which the connection has been used.
+     */
+    void connectionReset(HttpClientConnection conn, HttpRoute route, HttpContext context);
+
+}
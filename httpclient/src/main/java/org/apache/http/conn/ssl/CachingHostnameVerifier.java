@@ -0,0 +1,238 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.conn.ssl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * {@link javax.net.ssl.HostnameVerifier} decorator that remembers successful
+ * verifications of a host name against a particular peer certificate. Repeated
+ * connections to the same host presenting the same certificate are accepted
+ * without re-running the verification logic of the decorated verifier, which
+ * involves parsing of subject alternative names and public suffix matching.
+ * <p>
+ * Entries are keyed by the host name and the SHA-256 fingerprint of the peer
+ * certificate. They expire after the configured time to live or once
+ * the certificate itself expires, whichever comes first. Failed verifications
+ * are never cached.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class CachingHostnameVerifier implements HostnameVerifier {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.HOURS.toMillis(1);
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HostnameVerifier hostnameVerifier;
+    private final long timeToLive;
+    private final Map<Key, Long> map;
+
+    /**
+     * @param hostnameVerifier the verifier whose results are to be cached.
+     * @param maxEntries maximum number of verifications to be cached. Least
+     *   recently used entries are discarded first.
+     * @param timeToLive maximum time a verification is to be cached for.
+     * @param tunit time unit of the time to live.
+     */
+    public CachingHostnameVerifier(
+            final HostnameVerifier hostnameVerifier,
+            final int maxEntries,
+            final long timeToLive,
+            final TimeUnit tunit) {
+        super();
+        this.hostnameVerifier = Args.notNull(hostnameVerifier, "Hostname verifier");
+        Args.positive(maxEntries, "Max entries");
+        Args.positive(timeToLive, "Time to live");
+        Args.notNull(tunit, "Time unit");
+        this.timeToLive = tunit.toMillis(timeToLive);
+        this.map = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Long> eldest) {
+                return size() > maxEntries;
+            }
+
+        };
+    }
+
+    public CachingHostnameVerifier(final HostnameVerifier hostnameVerifier) {
+        this(hostnameVerifier, DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean verify(final String host, final SSLSession session) {
+        final X509Certificate cert;
+        final Key key;
+        try {
+            final Certificate[] certs = session.getPeerCertificates();
+            if (certs == null || certs.length == 0 || !(certs[0] instanceof X509Certificate)) {
+                return this.hostnameVerifier.verify(host, session);
+            }
+            cert = (X509Certificate) certs[0];
+            key = new Key(host.toLowerCase(Locale.ROOT), fingerprint(cert));
+        } catch (final SSLPeerUnverifiedException | CertificateEncodingException ex) {
+            if (this.log.isDebugEnabled()) {
+                this.log.debug(ex.getMessage(), ex);
+            }
+            return this.hostnameVerifier.verify(host, session);
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (this.map) {
+            final Long expiry = this.map.get(key);
+            if (expiry != null) {
+                if (expiry.longValue() > now) {
+                    return true;
+                }
+                this.map.remove(key);
+            }
+        }
+        if (!this.hostnameVerifier.verify(host, session)) {
+            return false;
+        }
+        final long expiry = Math.min(now + this.timeToLive, cert.getNotAfter().getTime());
+        if (expiry > now) {
+            synchronized (this.map) {
+                this.map.put(key, Long.valueOf(expiry));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Discards all cached verifications of the given host.
+     */
+    public void invalidate(final String host) {
+        Args.notNull(host, "Host");
+        final String normalizedHost = host.toLowerCase(Locale.ROOT);
+        synchronized (this.map) {
+            for (final Iterator<Key> it = this.map.keySet().iterator(); it.hasNext(); ) {
+                if (it.next().host.equals(normalizedHost)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards cached verifications that have expired.
+     */
+    public void closeExpired() {
+        final long now = System.currentTimeMillis();
+        synchronized (this.map) {
+            for (final Iterator<Long> it = this.map.values().iterator(); it.hasNext(); ) {
+                if (it.next().longValue() <= now) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all cached verifications.
+     */
+    public void clear() {
+        synchronized (this.map) {
+            this.map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.map) {
+            return this.map.size();
+        }
+    }
+
+    private static byte[] fingerprint(final X509Certificate cert) throws CertificateEncodingException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(cert.getEncoded());
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 digest not supported", ex);
+        }
+    }
+
+    static final class Key {
+
+        private final String host;
+        private final byte[] fingerprint;
+        private final int hash;
+
+        Key(final String host, final byte[] fingerprint) {
+            this.host = host;
+            this.fingerprint = fingerprint;
+            this.hash = 31 * host.hashCode() + Arrays.hashCode(fingerprint);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                final Key that = (Key) obj;
+                return this.host.equals(that.host) && Arrays.equals(this.fingerprint, that.fingerprint);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public String toString() {
+            return this.host;
+        }
+
+    }
+
+}
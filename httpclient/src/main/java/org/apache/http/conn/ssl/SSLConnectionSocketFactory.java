@@ -29,14 +29,22 @@ package org.apache.http.conn.ssl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.net.SocketFactory;
 import javax.net.ssl.HostnameVerifier;
@@ -51,6 +59,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpHost;
 import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.conn.util.PublicSuffixMatcherLoader;
 import org.apache.http.protocol.HttpContext;
@@ -186,6 +195,8 @@ public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactor
     private final HostnameVerifier hostnameVerifier;
     private final String[] supportedProtocols;
     private final String[] supportedCipherSuites;
+    private final SSLSessionCache sessionCache;
+    private final ExecutorService handshakeExecutor;
 
     public SSLConnectionSocketFactory(final SSLContext sslContext) {
         this(sslContext, getDefaultHostnameVerifier());
@@ -221,6 +232,32 @@ public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactor
         this(socketfactory, null, null, hostnameVerifier);
     }
 
+    /**
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final SSLSessionCache sessionCache) {
+        this(sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifier, sessionCache, null);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final SSLSessionCache sessionCache,
+            final ExecutorService handshakeExecutor) {
+        this(Args.notNull(sslContext, "SSL context").getSocketFactory(),
+                supportedProtocols, supportedCipherSuites, hostnameVerifier, sessionCache, handshakeExecutor);
+    }
+
     /**
      * @since 4.4
      */
@@ -229,10 +266,57 @@ public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactor
             final String[] supportedProtocols,
             final String[] supportedCipherSuites,
             final HostnameVerifier hostnameVerifier) {
+        this(socketfactory, supportedProtocols, supportedCipherSuites, hostnameVerifier, null);
+    }
+
+    /**
+     * @param sessionCache cache tracking TLS sessions per connection route. May be {@code null}.
+     *
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final javax.net.ssl.SSLSocketFactory socketfactory,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final SSLSessionCache sessionCache) {
+        this(socketfactory, supportedProtocols, supportedCipherSuites, hostnameVerifier, sessionCache, null);
+    }
+
+    /**
+     * @param sessionCache cache tracking TLS sessions per connection route. May be {@code null}.
+     * @param handshakeExecutor executor used to perform TLS handshakes whenever
+     *   {@link org.apache.http.client.config.RequestConfig#getHandshakeTimeout()
+     *   handshake timeout} is set. The handshake
+     *   is aborted once the timeout expires regardless of whether or not the peer keeps
+     *   sending data. May be {@code null}, in which case the handshake is performed on
+     *   the calling thread and the handshake timeout applies as a socket timeout only.
+     *
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final javax.net.ssl.SSLSocketFactory socketfactory,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final SSLSessionCache sessionCache,
+            final ExecutorService handshakeExecutor) {
         this.socketfactory = Args.notNull(socketfactory, "SSL socket factory");
         this.supportedProtocols = supportedProtocols;
         this.supportedCipherSuites = supportedCipherSuites;
         this.hostnameVerifier = hostnameVerifier != null ? hostnameVerifier : getDefaultHostnameVerifier();
+        this.sessionCache = sessionCache;
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    /**
+     * Returns the cache tracking TLS sessions per connection route or {@code null}
+     * if not configured.
+     *
+     * @since 5.0
+     */
+    public SSLSessionCache getSessionCache() {
+        return this.sessionCache;
     }
 
     /**
@@ -284,8 +368,10 @@ public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactor
         if (sock instanceof SSLSocket) {
             final SSLSocket sslsock = (SSLSocket) sock;
             this.log.debug("Starting handshake");
-            sslsock.startHandshake();
+            final long handshakeStart = System.currentTimeMillis();
+            startHandshake(sslsock, context);
             verifyHostname(sslsock, host.getHostName());
+            sessionEstablished(sslsock, host.getHostName(), remoteAddress.getPort(), handshakeStart, context);
             return sock;
         } else {
             return createLayeredSocket(sock, host.getHostName(), remoteAddress.getPort(), context);
@@ -329,11 +415,132 @@ public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactor
 
         prepareSocket(sslsock);
         this.log.debug("Starting handshake");
-        sslsock.startHandshake();
+        final long handshakeStart = System.currentTimeMillis();
+        startHandshake(sslsock, context);
         verifyHostname(sslsock, target);
+        sessionEstablished(sslsock, target, port, handshakeStart, context);
         return sslsock;
     }
 
+    /**
+     * Connects to the given host and performs a TLS handshake in order to populate
+     * the TLS session cache, so that connections subsequently created by this factory
+     * can resume the session instead of performing a full handshake. The connection
+     * is closed once the handshake is complete.
+     *
+     * @param host the target host.
+     * @param remoteAddress the remote address of the target host.
+     * @param connectTimeout the connect timeout in milliseconds.
+     * @param context the actual HTTP context. May contain the connection route
+     *   the session is to be associated with.
+     *
+     * @since 5.0
+     */
+    public void primeSession(
+            final HttpHost host,
+            final InetSocketAddress remoteAddress,
+            final int connectTimeout,
+            final HttpContext context) throws IOException {
+        final Socket sock = connectSocket(connectTimeout, null, host, remoteAddress, null, context);
+        sock.close();
+    }
+
+    private void startHandshake(final SSLSocket sslsock, final HttpContext context) throws IOException {
+        final int handshakeTimeout = context != null ?
+                HttpClientContext.adapt(context).getRequestConfig().getHandshakeTimeout() : -1;
+        if (handshakeTimeout < 0) {
+            sslsock.startHandshake();
+            return;
+        }
+        final int soTimeout = sslsock.getSoTimeout();
+        sslsock.setSoTimeout(handshakeTimeout);
+        if (this.handshakeExecutor != null && handshakeTimeout > 0) {
+            final Future<Void> future = this.handshakeExecutor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws IOException {
+                    sslsock.startHandshake();
+                    return null;
+                }
+
+            });
+            try {
+                future.get(handshakeTimeout, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException ex) {
+                future.cancel(true);
+                closeQuietly(sslsock);
+                throw handshakeTimeout(handshakeTimeout, ex);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                closeQuietly(sslsock);
+                throw new InterruptedIOException("TLS handshake interrupted");
+            } catch (final ExecutionException ex) {
+                closeQuietly(sslsock);
+                final Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw handshakeFailure(handshakeTimeout, (IOException) cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new IOException(cause);
+                }
+            }
+        } else {
+            try {
+                sslsock.startHandshake();
+            } catch (final IOException ex) {
+                closeQuietly(sslsock);
+                throw handshakeFailure(handshakeTimeout, ex);
+            }
+        }
+        sslsock.setSoTimeout(soTimeout);
+    }
+
+    private static SocketTimeoutException handshakeTimeout(final int handshakeTimeout, final Exception cause) {
+        final SocketTimeoutException ex = new SocketTimeoutException(
+                "TLS handshake timed out after " + handshakeTimeout + " ms");
+        ex.initCause(cause);
+        return ex;
+    }
+
+    /**
+     * JSSE providers may report read timeouts during the handshake as
+     * {@link javax.net.ssl.SSLException}s caused by a {@link SocketTimeoutException}.
+     */
+    private static IOException handshakeFailure(final int handshakeTimeout, final IOException ex) {
+        if (ex instanceof SocketTimeoutException || ex.getCause() instanceof SocketTimeoutException) {
+            return handshakeTimeout(handshakeTimeout, ex);
+        }
+        return ex;
+    }
+
+    private static void closeQuietly(final Socket sock) {
+        try {
+            sock.close();
+        } catch (final IOException ignore) {
+        }
+    }
+
+    private void sessionEstablished(
+            final SSLSocket sslsock,
+            final String target,
+            final int port,
+            final long handshakeStart,
+            final HttpContext context) {
+        if (this.sessionCache == null) {
+            return;
+        }
+        final Object route = context != null ? context.getAttribute(HttpClientContext.HTTP_ROUTE) : null;
+        final boolean resumed = this.sessionCache.sessionEstablished(
+                route != null ? route : new HttpHost(target, port, "https"), sslsock.getSession(), handshakeStart);
+        if (this.log.isDebugEnabled()) {
+            this.log.debug(resumed ? "TLS session resumed" : "New TLS session negotiated");
+        }
+    }
+
     private void verifyHostname(final SSLSocket sslsock, final String hostname) throws IOException {
         try {
             SSLSession session = sslsock.getSession();
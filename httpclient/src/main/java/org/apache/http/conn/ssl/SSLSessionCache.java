@@ -0,0 +1,192 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.conn.ssl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Keeps track of TLS sessions established by {@link SSLConnectionSocketFactory}
+ * per connection route.
+ * <p>
+ * Session resumption itself is performed by the JSSE provider, which keeps
+ * sessions in the client {@link javax.net.ssl.SSLSessionContext} of the SSL
+ * context the socket factory was created with. This class records the last
+ * session negotiated for each route, counts resumed and full handshakes and
+ * allows sessions of a particular route to be invalidated, which forces
+ * a full handshake for the next connection to that route.
+ * </p>
+ * <p>
+ * A handshake is considered resumed if the session it yields has been created
+ * before the handshake started. Session identifiers cannot be relied upon for
+ * this purpose, as TLS 1.3 resumption yields sessions with new identifiers, but
+ * the JSSE provider of the JDK retains the creation time of the resumed session.
+ * Resumption of any earlier session to the route is recognized, not only of
+ * the last one.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class SSLSessionCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final Map<Object, SSLSession> map;
+    private final AtomicLong fullHandshakes;
+    private final AtomicLong resumedHandshakes;
+
+    /**
+     * Creates a cache tracking sessions of at most {@code maxEntries} routes.
+     * Least recently used routes are discarded first.
+     */
+    public SSLSessionCache(final int maxEntries) {
+        super();
+        Args.positive(maxEntries, "Max entries");
+        this.map = new LinkedHashMap<Object, SSLSession>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, SSLSession> eldest) {
+                return size() > maxEntries;
+            }
+
+        };
+        this.fullHandshakes = new AtomicLong(0);
+        this.resumedHandshakes = new AtomicLong(0);
+    }
+
+    public SSLSessionCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Records the session established for the given route.
+     *
+     * @param route the connection route, usually an instance of
+     *   {@link org.apache.http.conn.routing.HttpRoute} or {@link org.apache.http.HttpHost}.
+     * @param session the session negotiated by the handshake.
+     * @param handshakeStart the time the handshake started at in milliseconds
+     *   since the epoch, as returned by {@link System#currentTimeMillis()}.
+     * @return {@code true} if the session has been resumed, {@code false} if
+     *   it is the result of a full handshake.
+     */
+    public boolean sessionEstablished(final Object route, final SSLSession session, final long handshakeStart) {
+        Args.notNull(route, "Route");
+        Args.notNull(session, "SSL session");
+        synchronized (this.map) {
+            this.map.put(route, session);
+        }
+        final boolean resumed = session.getCreationTime() < handshakeStart;
+        if (resumed) {
+            this.resumedHandshakes.incrementAndGet();
+        } else {
+            this.fullHandshakes.incrementAndGet();
+        }
+        return resumed;
+    }
+
+    /**
+     * Returns the last valid session established for the given route or
+     * {@code null} if not available.
+     */
+    public SSLSession getSession(final Object route) {
+        Args.notNull(route, "Route");
+        synchronized (this.map) {
+            final SSLSession session = this.map.get(route);
+            if (session != null && !session.isValid()) {
+                this.map.remove(route);
+                return null;
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Invalidates the last session established for the given route, which
+     * prevents it from being resumed by subsequent connections.
+     */
+    public void invalidate(final Object route) {
+        Args.notNull(route, "Route");
+        final SSLSession session;
+        synchronized (this.map) {
+            session = this.map.remove(route);
+        }
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates all sessions tracked by this cache.
+     */
+    public void clear() {
+        final SSLSession[] sessions;
+        synchronized (this.map) {
+            sessions = this.map.values().toArray(new SSLSession[this.map.size()]);
+            this.map.clear();
+        }
+        for (final SSLSession session: sessions) {
+            session.invalidate();
+        }
+    }
+
+    public int size() {
+        synchronized (this.map) {
+            return this.map.size();
+        }
+    }
+
+    /**
+     * Returns the number of handshakes that negotiated a new session.
+     */
+    public long getFullHandshakeCount() {
+        return this.fullHandshakes.get();
+    }
+
+    /**
+     * Returns the number of handshakes that resumed a previous session.
+     */
+    public long getResumedHandshakeCount() {
+        return this.resumedHandshakes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[routes: " + size() +
+                "; full handshakes: " + getFullHandshakeCount() +
+                "; resumed handshakes: " + getResumedHandshakeCount() + "]";
+    }
+
+}
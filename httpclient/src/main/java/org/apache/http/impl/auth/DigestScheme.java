@@ -57,6 +57,7 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.auth.CredentialsProvider;
 import org.apache.http.auth.MalformedChallengeException;
 import org.apache.http.auth.util.ByteArrayBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.message.BasicHeaderValueFormatter;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.HttpContext;
@@ -75,6 +76,11 @@ import org.apache.http.util.CharsetUtils;
  * Authentication header, the charset of the username must be compatible
  * with the HTTP element charset used by the connection.
  * </p>
+ * <p>
+ * If the execution context contains a {@link DigestSessionCache} the nonce
+ * and the nonce count are shared with all other instances authenticating
+ * against the same host and realm.
+ * </p>
  *
  * @since 4.0
  */
@@ -101,6 +107,7 @@ public class DigestScheme implements AuthScheme, Serializable {
 
     private final Map<String, String> paramMap;
     private boolean complete;
+    private transient boolean challenged;
     private transient ByteArrayBuilder buffer;
 
     private String lastNonce;
@@ -156,6 +163,7 @@ public class DigestScheme implements AuthScheme, Serializable {
             throw new MalformedChallengeException("Missing digest auth parameters");
         }
         this.complete = true;
+        this.challenged = true;
     }
 
     @Override
@@ -207,7 +215,14 @@ public class DigestScheme implements AuthScheme, Serializable {
         if (this.paramMap.get("nonce") == null) {
             throw new AuthenticationException("missing nonce");
         }
-        return createDigestResponse(request);
+        DigestSessionCache.Session session = null;
+        if (host != null && context != null) {
+            final Object sessionCache = context.getAttribute(HttpClientContext.DIGEST_SESSION_CACHE);
+            if (sessionCache instanceof DigestSessionCache) {
+                session = ((DigestSessionCache) sessionCache).getSession(host, this.paramMap.get("realm"));
+            }
+        }
+        return createDigestResponse(request, session);
     }
 
     private static MessageDigest createMessageDigest(
@@ -221,12 +236,14 @@ public class DigestScheme implements AuthScheme, Serializable {
         }
     }
 
-    private String createDigestResponse(final HttpRequest request) throws AuthenticationException {
+    private String createDigestResponse(
+            final HttpRequest request,
+            final DigestSessionCache.Session session) throws AuthenticationException {
 
         final String uri = request.getRequestLine().getUri();
         final String method = request.getRequestLine().getMethod();
         final String realm = this.paramMap.get("realm");
-        final String nonce = this.paramMap.get("nonce");
+        String nonce = this.paramMap.get("nonce");
         final String opaque = this.paramMap.get("opaque");
         String algorithm = this.paramMap.get("algorithm");
         // If an algorithm is not specified, default to MD5.
@@ -274,7 +291,17 @@ public class DigestScheme implements AuthScheme, Serializable {
             throw new AuthenticationException("Unsuppported digest algorithm: " + digAlg);
         }
 
-        if (nonce.equals(this.lastNonce)) {
+        if (session != null) {
+            // A freshly processed challenge carries the most recent server nonce,
+            // whereas a cached scheme may still hold a nonce the server has since rotated
+            final DigestSessionCache.Nonce current = this.challenged ? session.rotate(nonce) : session.current(nonce);
+            this.challenged = false;
+            nonce = current.getValue();
+            nounceCount = current.nextCount();
+            cnonce = current.getCnonce();
+            lastNonce = nonce;
+            this.paramMap.put("nonce", nonce);
+        } else if (nonce.equals(this.lastNonce)) {
             nounceCount++;
         } else {
             nounceCount = 1;
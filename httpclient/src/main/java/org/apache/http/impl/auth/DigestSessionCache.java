@@ -0,0 +1,191 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.auth;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpHost;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.util.Args;
+
+/**
+ * Cache of digest authentication sessions shared by all {@link DigestScheme} instances
+ * of the same client. A session tracks the most recent server nonce issued for
+ * a particular host and realm and hands out monotonically increasing nonce counts
+ * to concurrent requests. This enables {@link DigestScheme} instances restored from
+ * an {@link org.apache.http.client.AuthCache} to pre-emptively authenticate requests
+ * with a valid {@code nc} value without triggering another authentication challenge.
+ * <p>
+ * Instances of this class are thread safe.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class DigestSessionCache {
+
+    private final ConcurrentMap<AuthScope, Session> map;
+
+    public DigestSessionCache() {
+        super();
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the session for the given host and realm, creating a new one if necessary.
+     */
+    public Session getSession(final HttpHost host, final String realm) {
+        Args.notNull(host, "HTTP host");
+        final AuthScope key = new AuthScope(host, realm, "digest");
+        Session session = this.map.get(key);
+        if (session == null) {
+            final Session newSession = new Session();
+            session = this.map.putIfAbsent(key, newSession);
+            if (session == null) {
+                session = newSession;
+            }
+        }
+        return session;
+    }
+
+    public void remove(final HttpHost host, final String realm) {
+        Args.notNull(host, "HTTP host");
+        this.map.remove(new AuthScope(host, realm, "digest"));
+    }
+
+    public void clear() {
+        this.map.clear();
+    }
+
+    @Override
+    public String toString() {
+        return this.map.toString();
+    }
+
+    /**
+     * Nonce issued by the server along with the client nonce and the nonce count
+     * associated with it.
+     */
+    public static final class Nonce {
+
+        private final String value;
+        private final String cnonce;
+        private final AtomicLong count;
+
+        Nonce(final String value, final String cnonce) {
+            this.value = value;
+            this.cnonce = cnonce;
+            this.count = new AtomicLong(0);
+        }
+
+        public String getValue() {
+            return this.value;
+        }
+
+        public String getCnonce() {
+            return this.cnonce;
+        }
+
+        /**
+         * Returns the next nonce count value. Each invocation of this method returns
+         * a distinct, monotonically increasing value.
+         */
+        public long nextCount() {
+            return this.count.incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            return "[nonce=" + this.value + ", nc=" + this.count.get() + "]";
+        }
+
+    }
+
+    /**
+     * Digest authentication session for a particular host and realm.
+     */
+    public static final class Session {
+
+        private final AtomicReference<Nonce> current;
+
+        Session() {
+            this.current = new AtomicReference<>();
+        }
+
+        /**
+         * Returns the current nonce of the session. If the session has no nonce yet
+         * the given nonce becomes current.
+         * <p>
+         * Please note the current nonce takes precedence over the given one, as
+         * the latter may have been cached before the server rotated its nonce.
+         * </p>
+         */
+        public Nonce current(final String nonce) {
+            Args.notNull(nonce, "Nonce");
+            for (;;) {
+                final Nonce existing = this.current.get();
+                if (existing != null) {
+                    return existing;
+                }
+                final Nonce newNonce = new Nonce(nonce, DigestScheme.formatHex(DigestScheme.createCnonce()));
+                if (this.current.compareAndSet(null, newNonce)) {
+                    return newNonce;
+                }
+            }
+        }
+
+        /**
+         * Makes the given nonce freshly issued by the server current, for instance
+         * in response to a {@code stale=true} challenge. The nonce count starts over
+         * if the nonce differs from the current one.
+         */
+        public Nonce rotate(final String nonce) {
+            Args.notNull(nonce, "Nonce");
+            for (;;) {
+                final Nonce existing = this.current.get();
+                if (existing != null && existing.getValue().equals(nonce)) {
+                    return existing;
+                }
+                final Nonce newNonce = new Nonce(nonce, DigestScheme.formatHex(DigestScheme.createCnonce()));
+                if (this.current.compareAndSet(existing, newNonce)) {
+                    return newNonce;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(this.current.get());
+        }
+
+    }
+
+}
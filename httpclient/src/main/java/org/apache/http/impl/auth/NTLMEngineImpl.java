@@ -30,8 +30,11 @@ import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.Key;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
@@ -78,16 +81,19 @@ final class NTLMEngineImpl implements NTLMEngine {
     protected static final int FLAG_REQUEST_56BIT_ENCRYPTION = 0x80000000;      // Must be used in conjunction with SEAL
 
 
-    /** Secure random generator */
-    private static final java.security.SecureRandom RND_GEN;
-    static {
-        java.security.SecureRandom rnd = null;
-        try {
-            rnd = java.security.SecureRandom.getInstance("SHA1PRNG");
-        } catch (final Exception ignore) {
+    /** Secure random generator per thread, so that concurrent handshakes do not contend for it */
+    private static final ThreadLocal<SecureRandom> RND_GEN = new ThreadLocal<SecureRandom>() {
+
+        @Override
+        protected SecureRandom initialValue() {
+            try {
+                return SecureRandom.getInstance("SHA1PRNG");
+            } catch (final Exception ignore) {
+                return null;
+            }
         }
-        RND_GEN = rnd;
-    }
+
+    };
 
     /** The signature string as bytes in the default encoding */
     private static final byte[] SIGNATURE;
@@ -101,6 +107,21 @@ final class NTLMEngineImpl implements NTLMEngine {
 
     private static final Type1Message TYPE_1_MESSAGE = new Type1Message();
 
+    private final PasswordHashCache passwordHashCache;
+
+    /**
+     * @param passwordHashCache cache of password hashes to be shared by all
+     *   handshakes performed by this engine; may be {@code null}.
+     */
+    NTLMEngineImpl(final PasswordHashCache passwordHashCache) {
+        super();
+        this.passwordHashCache = passwordHashCache;
+    }
+
+    NTLMEngineImpl() {
+        this(null);
+    }
+
     /**
      * Returns the response for the given message.
      *
@@ -172,8 +193,16 @@ final class NTLMEngineImpl implements NTLMEngine {
     static String getType3Message(final String user, final char[] password, final String host, final String domain,
             final byte[] nonce, final int type2Flags, final String target, final byte[] targetInformation)
             throws NTLMEngineException {
+        return getType3Message(user, password, host, domain, nonce, type2Flags, target,
+                targetInformation, null);
+    }
+
+    static String getType3Message(final String user, final char[] password, final String host, final String domain,
+            final byte[] nonce, final int type2Flags, final String target, final byte[] targetInformation,
+            final PasswordHashCache passwordHashCache)
+            throws NTLMEngineException {
         return new Type3Message(domain, host, user, password, nonce, type2Flags, target,
-                targetInformation).getResponse();
+                targetInformation, passwordHashCache).getResponse();
     }
 
     private static int readULong(final byte[] src, final int index) throws NTLMEngineException {
@@ -205,28 +234,192 @@ final class NTLMEngineImpl implements NTLMEngine {
 
     /** Calculate a challenge block */
     private static byte[] makeRandomChallenge() throws NTLMEngineException {
-        if (RND_GEN == null) {
+        final SecureRandom rnd = RND_GEN.get();
+        if (rnd == null) {
             throw new NTLMEngineException("Random generator not available");
         }
         final byte[] rval = new byte[8];
-        synchronized (RND_GEN) {
-            RND_GEN.nextBytes(rval);
-        }
+        rnd.nextBytes(rval);
         return rval;
     }
 
     /** Calculate a 16-byte secondary key */
     private static byte[] makeSecondaryKey() throws NTLMEngineException {
-        if (RND_GEN == null) {
+        final SecureRandom rnd = RND_GEN.get();
+        if (rnd == null) {
             throw new NTLMEngineException("Random generator not available");
         }
         final byte[] rval = new byte[16];
-        synchronized (RND_GEN) {
-            RND_GEN.nextBytes(rval);
-        }
+        rnd.nextBytes(rval);
         return rval;
     }
 
+    /**
+     * Bounded cache of password hashes derived for recently used credentials.
+     * Entries are keyed by a salted SHA-256 digest of the credentials and
+     * hold derived hashes only, never the password itself. The salt is
+     * specific to each instance of the cache.
+     */
+    static final class PasswordHashCache {
+
+        static final int DEFAULT_MAX_ENTRIES = 64;
+
+        private final byte[] salt;
+        private final Map<PasswordHashes, PasswordHashes> map;
+
+        PasswordHashCache(final int maxEntries) {
+            super();
+            this.salt = new byte[16];
+            new SecureRandom().nextBytes(this.salt);
+            this.map = new LinkedHashMap<PasswordHashes, PasswordHashes>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<PasswordHashes, PasswordHashes> eldest) {
+                    return size() > maxEntries;
+                }
+
+            };
+        }
+
+        PasswordHashCache() {
+            this(DEFAULT_MAX_ENTRIES);
+        }
+
+        /**
+         * Returns the password hashes of the given credentials, re-using those
+         * derived for a preceding handshake if still cached.
+         */
+        PasswordHashes get(final String domain, final String user, final char[] password)
+                throws NTLMEngineException {
+            final PasswordHashes key = new PasswordHashes(digest(domain, user, password));
+            synchronized (this.map) {
+                final PasswordHashes cached = this.map.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                this.map.put(key, key);
+            }
+            return key;
+        }
+
+        int size() {
+            synchronized (this.map) {
+                return this.map.size();
+            }
+        }
+
+        private byte[] digest(final String domain, final String user, final char[] password)
+                throws NTLMEngineException {
+            final MessageDigest sha256;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (final Exception ex) {
+                throw new NTLMEngineException("SHA-256 digest not available", ex);
+            }
+            sha256.update(this.salt);
+            if (domain != null) {
+                sha256.update(domain.getBytes(Consts.UTF_8));
+            }
+            sha256.update((byte) 0);
+            if (user != null) {
+                sha256.update(user.getBytes(Consts.UTF_8));
+            }
+            sha256.update((byte) 0);
+            if (password != null) {
+                final byte[] b = new byte[password.length * 2];
+                for (int i = 0; i < password.length; i++) {
+                    b[i * 2] = (byte) (password[i] >> 8);
+                    b[i * 2 + 1] = (byte) password[i];
+                }
+                sha256.update(b);
+                Arrays.fill(b, (byte) 0);
+            }
+            return sha256.digest();
+        }
+
+    }
+
+    /**
+     * Password hashes derived from a set of credentials. The hashes depend on the
+     * credentials only, so they can be re-used across handshakes. Each hash is
+     * calculated lazily from the password of the handshake that needs it first;
+     * concurrent threads may occasionally calculate the same hash twice, which
+     * is harmless.
+     */
+    static final class PasswordHashes {
+
+        private final byte[] digest;
+        private final int hash;
+
+        private volatile byte[] lmHash;
+        private volatile byte[] ntlmHash;
+        private volatile byte[] lmv2Hash;
+        private volatile byte[] ntlmv2Hash;
+
+        PasswordHashes(final byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        byte[] getLMHash(final char[] password) throws NTLMEngineException {
+            byte[] result = lmHash;
+            if (result == null) {
+                result = lmHash(password);
+                lmHash = result;
+            }
+            return result;
+        }
+
+        byte[] getNTLMHash(final char[] password) throws NTLMEngineException {
+            byte[] result = ntlmHash;
+            if (result == null) {
+                result = ntlmHash(password);
+                ntlmHash = result;
+            }
+            return result;
+        }
+
+        byte[] getLMv2Hash(final String domain, final String user, final char[] password)
+                throws NTLMEngineException {
+            byte[] result = lmv2Hash;
+            if (result == null) {
+                result = lmv2Hash(domain, user, getNTLMHash(password));
+                lmv2Hash = result;
+            }
+            return result;
+        }
+
+        byte[] getNTLMv2Hash(final String domain, final String user, final char[] password)
+                throws NTLMEngineException {
+            byte[] result = ntlmv2Hash;
+            if (result == null) {
+                result = ntlmv2Hash(domain, user, getNTLMHash(password));
+                ntlmv2Hash = result;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PasswordHashes) {
+                final PasswordHashes that = (PasswordHashes) obj;
+                return this.hash == that.hash && Arrays.equals(this.digest, that.digest);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
     protected static class CipherGen {
 
         protected final String domain;
@@ -242,6 +435,9 @@ final class NTLMEngineImpl implements NTLMEngine {
         protected byte[] secondaryKey;
         protected byte[] timestamp;
 
+        // Password hashes shared with other handshakes using the same credentials, if any
+        private PasswordHashes passwordHashes;
+
         // Stuff we always generate
         protected byte[] lmHash = null;
         protected byte[] lmResponse = null;
@@ -281,6 +477,7 @@ final class NTLMEngineImpl implements NTLMEngine {
             this(domain, user, password, challenge, target, targetInformation, null, null, null, null);
         }
 
+
         /** Calculate and return client challenge */
         public byte[] getClientChallenge()
             throws NTLMEngineException {
@@ -312,7 +509,8 @@ final class NTLMEngineImpl implements NTLMEngine {
         public byte[] getLMHash()
             throws NTLMEngineException {
             if (lmHash == null) {
-                lmHash = lmHash(password);
+                lmHash = passwordHashes != null ? passwordHashes.getLMHash(password)
+                        : lmHash(password);
             }
             return lmHash;
         }
@@ -330,7 +528,8 @@ final class NTLMEngineImpl implements NTLMEngine {
         public byte[] getNTLMHash()
             throws NTLMEngineException {
             if (ntlmHash == null) {
-                ntlmHash = ntlmHash(password);
+                ntlmHash = passwordHashes != null ? passwordHashes.getNTLMHash(password)
+                        : ntlmHash(password);
             }
             return ntlmHash;
         }
@@ -348,7 +547,8 @@ final class NTLMEngineImpl implements NTLMEngine {
         public byte[] getLMv2Hash()
             throws NTLMEngineException {
             if (lmv2Hash == null) {
-                lmv2Hash = lmv2Hash(domain, user, getNTLMHash());
+                lmv2Hash = passwordHashes != null ? passwordHashes.getLMv2Hash(domain, user, password)
+                        : lmv2Hash(domain, user, getNTLMHash());
             }
             return lmv2Hash;
         }
@@ -357,7 +557,8 @@ final class NTLMEngineImpl implements NTLMEngine {
         public byte[] getNTLMv2Hash()
             throws NTLMEngineException {
             if (ntlmv2Hash == null) {
-                ntlmv2Hash = ntlmv2Hash(domain, user, getNTLMHash());
+                ntlmv2Hash = passwordHashes != null ? passwordHashes.getNTLMv2Hash(domain, user, password)
+                        : ntlmv2Hash(domain, user, getNTLMHash());
             }
             return ntlmv2Hash;
         }
@@ -1150,6 +1351,13 @@ final class NTLMEngineImpl implements NTLMEngine {
         Type3Message(final String domain, final String host, final String user, final char[] password, final byte[] nonce,
                 final int type2Flags, final String target, final byte[] targetInformation)
                 throws NTLMEngineException {
+            this(domain, host, user, password, nonce, type2Flags, target, targetInformation, null);
+        }
+
+        Type3Message(final String domain, final String host, final String user, final char[] password, final byte[] nonce,
+                final int type2Flags, final String target, final byte[] targetInformation,
+                final PasswordHashCache passwordHashCache)
+                throws NTLMEngineException {
             // Save the flags
             this.type2Flags = type2Flags;
 
@@ -1160,6 +1368,9 @@ final class NTLMEngineImpl implements NTLMEngine {
 
             // Create a cipher generator class.  Use domain BEFORE it gets modified!
             final CipherGen gen = new CipherGen(unqualifiedDomain, user, password, nonce, target, targetInformation);
+            if (passwordHashCache != null) {
+                gen.passwordHashes = passwordHashCache.get(unqualifiedDomain, user, password);
+            }
 
             // Use the new code to calculate the responses, including v2 if that
             // seems warranted.
@@ -1628,7 +1839,8 @@ final class NTLMEngineImpl implements NTLMEngine {
                 t2m.getChallenge(),
                 t2m.getFlags(),
                 t2m.getTarget(),
-                t2m.getTargetInfo());
+                t2m.getTargetInfo(),
+                this.passwordHashCache);
     }
 
 }
@@ -27,7 +27,7 @@
 
 package org.apache.http.impl.auth;
 
-import org.apache.http.annotation.Immutable;
+import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.auth.AuthScheme;
 import org.apache.http.auth.AuthSchemeProvider;
 import org.apache.http.protocol.HttpContext;
@@ -36,15 +36,26 @@ import org.apache.http.protocol.HttpContext;
  * {@link AuthSchemeProvider} implementation that creates and initializes
  * {@link NTLMScheme} instances configured to use the default {@link NTLMEngine}
  * implementation.
+ * <p>
+ * Schemes created by the same factory share password hashes derived for
+ * recently used credentials.
+ * </p>
  *
  * @since 4.1
  */
-@Immutable
+@ThreadSafe
 public class NTLMSchemeFactory implements AuthSchemeProvider {
 
+    private final NTLMEngine engine;
+
+    public NTLMSchemeFactory() {
+        super();
+        this.engine = new NTLMEngineImpl(new NTLMEngineImpl.PasswordHashCache());
+    }
+
     @Override
     public AuthScheme create(final HttpContext context) {
-        return new NTLMScheme();
+        return new NTLMScheme(this.engine);
     }
 
 }
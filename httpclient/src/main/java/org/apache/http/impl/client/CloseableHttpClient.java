@@ -29,7 +29,13 @@ package org.apache.http.impl.client;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.URI;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,7 +48,9 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.utils.URIUtils;
+import org.apache.http.client.utils.RequestTarget;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.Args;
 import org.apache.http.util.EntityUtils;
@@ -87,12 +95,12 @@ public abstract class CloseableHttpClient implements HttpClient, Closeable {
         // Otherwise, the null target is detected in the director.
         HttpHost target = null;
 
-        final URI requestURI = request.getURI();
-        if (requestURI.isAbsolute()) {
-            target = URIUtils.extractHost(requestURI);
+        final RequestTarget requestTarget = RequestTarget.get(request);
+        if (requestTarget != null && requestTarget.isAbsolute()) {
+            target = requestTarget.getHost();
             if (target == null) {
                 throw new ClientProtocolException("URI does not specify a valid host name: "
-                        + requestURI);
+                        + requestTarget.getURI());
             }
         }
         return target;
@@ -239,4 +247,116 @@ public abstract class CloseableHttpClient implements HttpClient, Closeable {
         }
     }
 
+    /**
+     * Executes a request asynchronously using the given executor and processes
+     * the response using the given response handler. Resources associated with the
+     * response are released automatically as with
+     * {@link #execute(HttpUriRequest, ResponseHandler, HttpContext)}.
+     * <p>
+     * Cancelling the returned future aborts the request, which unblocks the thread
+     * executing it, be it waiting for a connection from the pool, connecting or
+     * receiving the response.
+     * </p>
+     *
+     * @param request   the request to execute
+     * @param context   the context to use for the execution, or
+     *                  {@code null} to use the default context
+     * @param responseHandler the response handler
+     * @param callback  optional callback to be notified of request completion
+     * @param executor  the executor to execute the request with
+     *
+     * @return  the future result of the response handler.
+     *
+     * @since 5.0
+     */
+    public <T> Future<T> executeAsync(
+            final HttpUriRequest request,
+            final HttpContext context,
+            final ResponseHandler<? extends T> responseHandler,
+            final FutureCallback<T> callback,
+            final Executor executor) {
+        Args.notNull(request, "HTTP request");
+        Args.notNull(responseHandler, "Response handler");
+        Args.notNull(executor, "Executor");
+        final BasicFuture<T> future = new BasicFuture<T>(callback) {
+
+            @Override
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                final boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    request.abort();
+                }
+                return cancelled;
+            }
+
+        };
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        return;
+                    }
+                    try {
+                        future.completed(execute(request, responseHandler, context));
+                    } catch (final Exception ex) {
+                        future.failed(ex);
+                    }
+                }
+
+            });
+        } catch (final RejectedExecutionException ex) {
+            future.failed(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Executes a request asynchronously using a shared pool of daemon threads,
+     * which grows on demand and discards threads that have been idle for a minute.
+     *
+     * @see #executeAsync(HttpUriRequest, HttpContext, ResponseHandler, FutureCallback, Executor)
+     *
+     * @since 5.0
+     */
+    public <T> Future<T> executeAsync(
+            final HttpUriRequest request,
+            final HttpContext context,
+            final ResponseHandler<? extends T> responseHandler,
+            final FutureCallback<T> callback) {
+        return executeAsync(request, context, responseHandler, callback, AsyncExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Executes a request asynchronously using the default context and a shared
+     * pool of daemon threads.
+     *
+     * @see #executeAsync(HttpUriRequest, HttpContext, ResponseHandler, FutureCallback, Executor)
+     *
+     * @since 5.0
+     */
+    public <T> Future<T> executeAsync(
+            final HttpUriRequest request,
+            final ResponseHandler<? extends T> responseHandler) {
+        return executeAsync(request, null, responseHandler, null);
+    }
+
+    private static class AsyncExecutorHolder {
+
+        private static final AtomicLong COUNTER = new AtomicLong();
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "httpclient-async-" + COUNTER.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+
+        });
+
+    }
+
 }
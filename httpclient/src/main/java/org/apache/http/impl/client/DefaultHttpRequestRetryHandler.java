@@ -170,6 +170,17 @@ public class DefaultHttpRequestRetryHandler implements HttpRequestRetryHandler {
         return retryCount;
     }
 
+    /**
+     * Determines whether the given request is considered idempotent and
+     * can therefore be executed more than once.
+     *
+     * @since 5.0
+     */
+    public boolean isIdempotent(final HttpRequest request) {
+        Args.notNull(request, "HTTP request");
+        return handleAsIdempotent(request);
+    }
+
     /**
      * @since 4.2
      */
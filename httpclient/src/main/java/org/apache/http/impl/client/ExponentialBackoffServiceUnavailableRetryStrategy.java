@@ -0,0 +1,186 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * {@link ServiceUnavailableRetryStrategy} that retries {@code 503} (Service Unavailable)
+ * responses with exponentially growing intervals.
+ * <p>
+ * The interval honours the {@code Retry-After} header of the response if present,
+ * though it is never allowed to exceed the maximum interval. Otherwise the interval
+ * is chosen at random between zero and the base interval doubled with each subsequent
+ * retry (full jitter), which prevents retries of many clients from arriving at
+ * the overloaded server all at once.
+ * </p>
+ * <p>
+ * Retries are further limited by a per-route retry budget. Every request to a route
+ * earns the route a fraction of a retry as defined by the budget ratio, and every retry
+ * spends a whole one. The budget of a route never exceeds the given maximum, which
+ * is also the number of retries initially available for a route. With the default
+ * ratio of {@code 0.1} retries may not exceed about ten percent of all requests
+ * in the long run, which prevents retries from amplifying the load on a server
+ * that is already unable to cope with it.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class ExponentialBackoffServiceUnavailableRetryStrategy implements ServiceUnavailableRetryStrategy {
+
+    private static final String EXECUTION_COUNT = "http.service-unavailable.retry-count";
+
+    private final int maxRetries;
+    private final long baseInterval;
+    private final long maxInterval;
+    private final double budgetRatio;
+    private final double maxBudget;
+    private final ConcurrentMap<Object, Budget> budgets;
+
+    /**
+     * @param maxRetries maximum number of retries of a request.
+     * @param baseInterval interval in milliseconds the first retry is delayed by at most.
+     * @param maxInterval maximum retry interval in milliseconds.
+     * @param budgetRatio number of retries earned by a route with every request.
+     * @param maxBudget maximum number of retries a route can save up.
+     */
+    public ExponentialBackoffServiceUnavailableRetryStrategy(
+            final int maxRetries,
+            final long baseInterval,
+            final long maxInterval,
+            final double budgetRatio,
+            final int maxBudget) {
+        super();
+        Args.positive(maxRetries, "Max retries");
+        Args.positive(baseInterval, "Base retry interval");
+        Args.check(maxInterval >= baseInterval, "Max retry interval may not be less than base interval");
+        Args.check(budgetRatio > 0.0, "Retry budget ratio must be positive");
+        Args.positive(maxBudget, "Max retry budget");
+        this.maxRetries = maxRetries;
+        this.baseInterval = baseInterval;
+        this.maxInterval = maxInterval;
+        this.budgetRatio = budgetRatio;
+        this.maxBudget = maxBudget;
+        this.budgets = new ConcurrentHashMap<>();
+    }
+
+    public ExponentialBackoffServiceUnavailableRetryStrategy() {
+        this(3, 1000, 30000, 0.1, 10);
+    }
+
+    private Budget getBudget(final Object route) {
+        Budget budget = this.budgets.get(route);
+        if (budget == null) {
+            final Budget newBudget = new Budget(this.maxBudget);
+            budget = this.budgets.putIfAbsent(route, newBudget);
+            if (budget == null) {
+                budget = newBudget;
+            }
+        }
+        return budget;
+    }
+
+    @Override
+    public boolean retryRequest(final HttpResponse response, final int executionCount, final HttpContext context) {
+        final Object route = context != null ? context.getAttribute(HttpClientContext.HTTP_ROUTE) : null;
+        final Budget budget = route != null ? getBudget(route) : null;
+        if (budget != null && executionCount == 1) {
+            budget.deposit(this.budgetRatio, this.maxBudget);
+        }
+        if (executionCount > this.maxRetries
+                || response.getStatusLine().getStatusCode() != HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            return false;
+        }
+        if (budget != null && !budget.withdraw()) {
+            return false;
+        }
+        if (context != null) {
+            context.setAttribute(EXECUTION_COUNT, Integer.valueOf(executionCount));
+        }
+        return true;
+    }
+
+    @Override
+    public long getRetryInterval(final HttpResponse response, final HttpContext context) {
+        final Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header != null) {
+            final String value = header.getValue();
+            try {
+                return Math.min(Math.max(Long.parseLong(value) * 1000, 0), this.maxInterval);
+            } catch (final NumberFormatException ignore) {
+                final Date date = DateUtils.parseDate(value);
+                if (date != null) {
+                    final long n = date.getTime() - System.currentTimeMillis();
+                    return Math.min(n > 0 ? n : 0, this.maxInterval);
+                }
+            }
+        }
+        final Object count = context != null ? context.getAttribute(EXECUTION_COUNT) : null;
+        final int executionCount = count instanceof Integer ? ((Integer) count).intValue() : 1;
+        final long ceiling = executionCount < 32 ?
+                Math.min(this.baseInterval << (executionCount - 1), this.maxInterval) : this.maxInterval;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    static final class Budget {
+
+        private double balance;
+
+        Budget(final double balance) {
+            this.balance = balance;
+        }
+
+        synchronized void deposit(final double amount, final double max) {
+            this.balance = Math.min(this.balance + amount, max);
+        }
+
+        synchronized boolean withdraw() {
+            if (this.balance >= 1.0) {
+                this.balance -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -26,10 +26,26 @@
  */
 package org.apache.http.impl.client;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.http.annotation.Immutable;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.util.LangUtils;
+
 /**
  * Collection of different counters used to gather metrics for {@link FutureRequestExecutionService}.
+ * <p>
+ * Besides counters and average durations, latency distributions of the time requests
+ * spend waiting for an executor thread, the time it takes to lease a connection and the
+ * time it takes to execute requests are maintained in total and per route and response
+ * status class. These can be periodically collected and reset.
+ * </p>
  */
 public final class FutureRequestExecutionMetrics {
 
@@ -39,6 +55,8 @@ public final class FutureRequestExecutionMetrics {
     private final DurationCounter failedConnections = new DurationCounter();
     private final DurationCounter requests = new DurationCounter();
     private final DurationCounter tasks = new DurationCounter();
+    private final Latencies latencies = new Latencies(null, null);
+    private final ConcurrentMap<Key, Latencies> routeLatencies = new ConcurrentHashMap<>();
 
     FutureRequestExecutionMetrics() {
     }
@@ -107,6 +125,79 @@ public final class FutureRequestExecutionMetrics {
         return tasks.averageDuration();
     }
 
+    void recordLatencies(
+            final HttpRoute route,
+            final String statusClass,
+            final long queueTime,
+            final long leaseTime,
+            final long executionTime) {
+        this.latencies.record(queueTime, leaseTime, executionTime);
+        final Key key = new Key(route, statusClass);
+        Latencies entry = this.routeLatencies.get(key);
+        if (entry == null) {
+            final Latencies newEntry = new Latencies(route, statusClass);
+            entry = this.routeLatencies.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        entry.record(queueTime, leaseTime, executionTime);
+    }
+
+    /**
+     * Returns latency distributions of all requests.
+     *
+     * @param reset whether or not to reset the distributions once collected.
+     *
+     * @since 5.0
+     */
+    public LatencySnapshot getLatencies(final boolean reset) {
+        return this.latencies.snapshot(reset);
+    }
+
+    /**
+     * Returns latency distributions of all requests.
+     *
+     * @since 5.0
+     */
+    public LatencySnapshot getLatencies() {
+        return getLatencies(false);
+    }
+
+    /**
+     * Returns latency distributions per route and response status class.
+     *
+     * @param reset whether or not to reset the distributions once collected.
+     *
+     * @since 5.0
+     */
+    public List<LatencySnapshot> getRouteLatencies(final boolean reset) {
+        final List<LatencySnapshot> snapshots = new ArrayList<>(this.routeLatencies.size());
+        for (final Map.Entry<Key, Latencies> entry: this.routeLatencies.entrySet()) {
+            snapshots.add(entry.getValue().snapshot(reset));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Returns latency distributions per route and response status class.
+     *
+     * @since 5.0
+     */
+    public List<LatencySnapshot> getRouteLatencies() {
+        return getRouteLatencies(false);
+    }
+
+    /**
+     * Resets all latency distributions.
+     *
+     * @since 5.0
+     */
+    public void resetLatencies() {
+        this.latencies.snapshot(true);
+        this.routeLatencies.clear();
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -116,6 +207,7 @@ public final class FutureRequestExecutionMetrics {
                 .append(", failedConnections=").append(failedConnections)
                 .append(", requests=").append(requests)
                 .append(", tasks=").append(tasks)
+                .append(", latencies=").append(latencies.snapshot(false))
                 .append("]");
         return builder.toString();
     }
@@ -153,4 +245,148 @@ public final class FutureRequestExecutionMetrics {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Snapshot of latency distributions of requests executed over a particular
+     * route and resulting in a particular response status class.
+     *
+     * @since 5.0
+     */
+    @Immutable
+    public static final class LatencySnapshot {
+
+        private final HttpRoute route;
+        private final String statusClass;
+        private final LatencyHistogram.Snapshot queueTime;
+        private final LatencyHistogram.Snapshot leaseTime;
+        private final LatencyHistogram.Snapshot executionTime;
+
+        LatencySnapshot(
+                final HttpRoute route,
+                final String statusClass,
+                final LatencyHistogram.Snapshot queueTime,
+                final LatencyHistogram.Snapshot leaseTime,
+                final LatencyHistogram.Snapshot executionTime) {
+            this.route = route;
+            this.statusClass = statusClass;
+            this.queueTime = queueTime;
+            this.leaseTime = leaseTime;
+            this.executionTime = executionTime;
+        }
+
+        /**
+         * Returns the route or {@code null} for all routes or if requests
+         * failed before a route could be determined.
+         */
+        public HttpRoute getRoute() {
+            return this.route;
+        }
+
+        /**
+         * Returns the response status class such as {@code 2xx}, {@code failed}
+         * for requests that failed with an exception or {@code null} for all
+         * requests.
+         */
+        public String getStatusClass() {
+            return this.statusClass;
+        }
+
+        /**
+         * Returns the distribution of time requests waited for an executor thread.
+         */
+        public LatencyHistogram.Snapshot getQueueTime() {
+            return this.queueTime;
+        }
+
+        /**
+         * Returns the distribution of time it took to lease a connection.
+         */
+        public LatencyHistogram.Snapshot getLeaseTime() {
+            return this.leaseTime;
+        }
+
+        /**
+         * Returns the distribution of time it took to execute requests, including
+         * connection lease and response processing.
+         */
+        public LatencyHistogram.Snapshot getExecutionTime() {
+            return this.executionTime;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("[route=").append(this.route)
+                    .append(", statusClass=").append(this.statusClass)
+                    .append(", queueTime=").append(this.queueTime)
+                    .append(", leaseTime=").append(this.leaseTime)
+                    .append(", executionTime=").append(this.executionTime)
+                    .append("]");
+            return builder.toString();
+        }
+
+    }
+
+    static class Latencies {
+
+        private final HttpRoute route;
+        private final String statusClass;
+        private final LatencyHistogram queueTime = new LatencyHistogram();
+        private final LatencyHistogram leaseTime = new LatencyHistogram();
+        private final LatencyHistogram executionTime = new LatencyHistogram();
+
+        Latencies(final HttpRoute route, final String statusClass) {
+            this.route = route;
+            this.statusClass = statusClass;
+        }
+
+        void record(final long queue, final long lease, final long execution) {
+            queueTime.record(queue, TimeUnit.NANOSECONDS);
+            leaseTime.record(lease, TimeUnit.NANOSECONDS);
+            executionTime.record(execution, TimeUnit.NANOSECONDS);
+        }
+
+        LatencySnapshot snapshot(final boolean reset) {
+            if (reset) {
+                return new LatencySnapshot(route, statusClass,
+                        queueTime.snapshotAndReset(), leaseTime.snapshotAndReset(), executionTime.snapshotAndReset());
+            }
+            return new LatencySnapshot(route, statusClass,
+                    queueTime.snapshot(), leaseTime.snapshot(), executionTime.snapshot());
+        }
+
+    }
+
+    static final class Key {
+
+        private final HttpRoute route;
+        private final String statusClass;
+
+        Key(final HttpRoute route, final String statusClass) {
+            this.route = route;
+            this.statusClass = statusClass;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                final Key that = (Key) obj;
+                return LangUtils.equals(this.route, that.route)
+                        && LangUtils.equals(this.statusClass, that.statusClass);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = LangUtils.HASH_SEED;
+            hash = LangUtils.hashCode(hash, this.route);
+            hash = LangUtils.hashCode(hash, this.statusClass);
+            return hash;
+        }
+
+    }
+
+}
@@ -28,7 +28,12 @@ package org.apache.http.impl.client;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.http.annotation.ThreadSafe;
@@ -36,7 +41,9 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
 
 /**
  * HttpAsyncClientWithFuture wraps calls to execute with a {@link HttpRequestFutureTask}
@@ -47,6 +54,7 @@ public class FutureRequestExecutionService implements Closeable {
 
     private final HttpClient httpclient;
     private final ExecutorService executorService;
+    private final ScheduledExecutorService scheduledExecutorService;
     private final FutureRequestExecutionMetrics metrics = new FutureRequestExecutionMetrics();
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -66,8 +74,36 @@ public class FutureRequestExecutionService implements Closeable {
     public FutureRequestExecutionService(
             final HttpClient httpclient,
             final ExecutorService executorService) {
+        this(httpclient, executorService, null);
+    }
+
+    /**
+     * Create a new FutureRequestExecutionService that does not block executor threads
+     * while waiting to retry requests.
+     * <p>
+     * Requests whose re-execution has been deferred by the request execution chain
+     * (see {@link org.apache.http.client.protocol.HttpClientContext#RETRY_DEFERRAL})
+     * are handed to the scheduled executor service and re-submitted to the executor
+     * service once the retry delay expires, which leaves the executor thread free
+     * to execute other requests in the meantime.
+     * </p>
+     *
+     * @param httpclient
+     *            see {@link #FutureRequestExecutionService(HttpClient, ExecutorService)}
+     * @param executorService
+     *            see {@link #FutureRequestExecutionService(HttpClient, ExecutorService)}
+     * @param scheduledExecutorService
+     *            scheduled executor service used to delay retries. May be {@code null}.
+     *
+     * @since 5.0
+     */
+    public FutureRequestExecutionService(
+            final HttpClient httpclient,
+            final ExecutorService executorService,
+            final ScheduledExecutorService scheduledExecutorService) {
         this.httpclient = httpclient;
         this.executorService = executorService;
+        this.scheduledExecutorService = scheduledExecutorService;
     }
 
     /**
@@ -113,15 +149,93 @@ public class FutureRequestExecutionService implements Closeable {
             throw new IllegalStateException("Close has been called on this httpclient instance.");
         }
         metrics.getScheduledConnections().incrementAndGet();
+        // Always use a context in order to collect latency metrics
+        final HttpContext localContext = context != null ? context : new BasicHttpContext();
         final HttpRequestTaskCallable<T> callable = new HttpRequestTaskCallable<>(
-                httpclient, request, context, responseHandler, callback, metrics);
+                httpclient, request, localContext, responseHandler, callback, metrics,
+                scheduledExecutorService != null);
         final HttpRequestFutureTask<T> httpRequestFutureTask = new HttpRequestFutureTask<>(
-                request, callable);
+                request, callable, executorService, scheduledExecutorService);
         executorService.execute(httpRequestFutureTask);
 
         return httpRequestFutureTask;
     }
 
+    /**
+     * Schedules a batch of independent requests for execution.
+     * <p>
+     * Requests are grouped by target host and at most {@code maxPerRoute} requests
+     * to the same host are executed concurrently. The remaining ones are held back
+     * in the batch until a request to the same host completes, instead of piling up
+     * on the connection pool and failing with connection request timeouts.
+     * The value should therefore match the per route connection limit of the client.
+     * </p>
+     * <p>
+     * The returned future completes with the results of all requests in iteration
+     * order of the given collection. It fails as soon as any of the requests fails or
+     * the deadline expires, in which case requests still in progress are cancelled.
+     * If this service has been created with a scheduled executor service the deadline
+     * is enforced actively. Otherwise it is enforced when requests are started and by
+     * the returned future, which does not block past the deadline; the callback is then
+     * notified of the expiry once the future is queried or another request completes.
+     * </p>
+     *
+     * @param requests requests to execute; each is executed with its own context.
+     * @param responseHandler handler that will process the responses.
+     * @param maxPerRoute maximum number of concurrent requests per target host.
+     * @param timeout time to complete the batch in.
+     * @param tunit time unit of the timeout.
+     * @param callback optional callback to be notified of batch completion.
+     * @return future of the batch results.
+     *
+     * @since 5.0
+     */
+    public <T> Future<List<T>> executeBatch(
+            final Collection<? extends HttpUriRequest> requests,
+            final ResponseHandler<T> responseHandler,
+            final int maxPerRoute,
+            final long timeout, final TimeUnit tunit,
+            final FutureCallback<List<T>> callback) {
+        Args.notNull(requests, "Requests");
+        Args.notNull(responseHandler, "Response handler");
+        Args.positive(maxPerRoute, "Max per route");
+        Args.positive(timeout, "Timeout");
+        Args.notNull(tunit, "Time unit");
+        if (closed.get()) {
+            throw new IllegalStateException("Close has been called on this httpclient instance.");
+        }
+        final long timeoutMs = tunit.toMillis(timeout);
+        final HttpRequestBatch<T> batch = new HttpRequestBatch<>(this, requests, responseHandler,
+                maxPerRoute, System.currentTimeMillis() + timeoutMs, callback);
+        if (scheduledExecutorService != null) {
+            batch.setTimer(scheduledExecutorService.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    batch.expire();
+                }
+
+            }, timeoutMs, TimeUnit.MILLISECONDS));
+        }
+        batch.start();
+        return batch.getFuture();
+    }
+
+    /**
+     * Schedules a batch of independent requests for execution.
+     *
+     * @see #executeBatch(Collection, ResponseHandler, int, long, TimeUnit, FutureCallback)
+     *
+     * @since 5.0
+     */
+    public <T> Future<List<T>> executeBatch(
+            final Collection<? extends HttpUriRequest> requests,
+            final ResponseHandler<T> responseHandler,
+            final int maxPerRoute,
+            final long timeout, final TimeUnit tunit) {
+        return executeBatch(requests, responseHandler, maxPerRoute, timeout, tunit, null);
+    }
+
     /**
      * @return metrics gathered for this instance.
      * @see FutureRequestExecutionMetrics
@@ -134,6 +248,9 @@ public class FutureRequestExecutionService implements Closeable {
     public void close() throws IOException {
         closed.set(true);
         executorService.shutdownNow();
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+        }
         if (httpclient instanceof Closeable) {
             ((Closeable) httpclient).close();
         }
@@ -0,0 +1,221 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.LatencyAwareBackoffManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.util.Args;
+
+/**
+ * <p>The {@code GradientBackoffManager} dynamically limits the number of
+ * connections allowed to a given route based on the round trip time
+ * of message exchanges, in a way similar to TCP Vegas congestion control.</p>
+ *
+ * <p>For each route the manager keeps track of the long-term average round
+ * trip time. As long as the round trip time of individual exchanges stays
+ * within the configured tolerance of the long-term average, the backend is
+ * assumed to be able to handle more load and the limit is raised by roughly
+ * the square root of the current limit. Once the round trip time inflates
+ * beyond the tolerance, requests are assumed to be queuing up at the backend
+ * and the limit is lowered in proportion to the inflation, though never by
+ * more than half at a time. All adjustments are smoothed in order to avoid
+ * oscillation caused by individual outliers.</p>
+ *
+ * <p>Backoff signals reported by the
+ * {@link org.apache.http.client.ConnectionBackoffStrategy} lower the limit by
+ * the configured backoff factor.</p>
+ *
+ * <p>Limits are tracked independently for each route, so adjustments for one
+ * route never contend with those for another one.</p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class GradientBackoffManager implements LatencyAwareBackoffManager {
+
+    private final ConnPoolControl<HttpRoute> connPerRoute;
+    private final ConcurrentMap<HttpRoute, RouteLimit> limits;
+    private volatile double rttTolerance = 1.5;
+    private volatile double smoothing = 0.2;
+    private volatile double backoffFactor = 0.9;
+    private volatile int longWindow = 600;
+    private volatile int cap = 20;
+
+    /**
+     * Creates a {@code GradientBackoffManager} to manage
+     * per-host connection pool sizes represented by the
+     * given {@link ConnPoolControl}.
+     * @param connPerRoute per-host routing maximums to
+     *   be managed
+     */
+    public GradientBackoffManager(final ConnPoolControl<HttpRoute> connPerRoute) {
+        super();
+        this.connPerRoute = Args.notNull(connPerRoute, "Connection pool control");
+        this.limits = new ConcurrentHashMap<>();
+    }
+
+    private RouteLimit getLimit(final HttpRoute route) {
+        RouteLimit limit = this.limits.get(route);
+        if (limit == null) {
+            final RouteLimit newLimit = new RouteLimit(this.connPerRoute.getMaxPerRoute(route));
+            limit = this.limits.putIfAbsent(route, newLimit);
+            if (limit == null) {
+                limit = newLimit;
+            }
+        }
+        return limit;
+    }
+
+    private void applyLimit(final HttpRoute route, final int max) {
+        if (this.connPerRoute.getMaxPerRoute(route) != max) {
+            this.connPerRoute.setMaxPerRoute(route, max);
+        }
+    }
+
+    @Override
+    public void backOff(final HttpRoute route) {
+        final RouteLimit limit = getLimit(route);
+        final int max;
+        synchronized (limit) {
+            limit.value = Math.max(1.0, limit.value * this.backoffFactor);
+            max = (int) limit.value;
+        }
+        applyLimit(route, max);
+    }
+
+    /**
+     * Has no effect as the round trip time of the exchange is unknown.
+     */
+    @Override
+    public void probe(final HttpRoute route) {
+    }
+
+    @Override
+    public void probe(final HttpRoute route, final long rtt, final TimeUnit tunit) {
+        Args.notNull(tunit, "Time unit");
+        final double sample = Math.max(1L, tunit.toNanos(rtt));
+        final RouteLimit limit = getLimit(route);
+        final int max;
+        synchronized (limit) {
+            final double longRtt = limit.longRtt > 0.0 ? limit.longRtt : sample;
+            final double gradient = Math.max(0.5, Math.min(1.0, this.rttTolerance * longRtt / sample));
+            if (limit.samples < this.longWindow) {
+                limit.samples++;
+            }
+            final double factor = 2.0 / (limit.samples + 1);
+            limit.longRtt = longRtt * (1.0 - factor) + sample * factor;
+            // Let the long-term average catch up quickly once latency improves
+            // substantially, for instance after a backend recovered from an overload
+            if (limit.longRtt > sample * 2.0) {
+                limit.longRtt *= 0.95;
+            }
+            final double target;
+            if (gradient < 1.0) {
+                target = limit.value * gradient;
+            } else {
+                target = limit.value + Math.sqrt(limit.value);
+            }
+            final double value = limit.value * (1.0 - this.smoothing) + target * this.smoothing;
+            limit.value = Math.max(1.0, Math.min(this.cap, value));
+            max = (int) limit.value;
+        }
+        applyLimit(route, max);
+    }
+
+    /**
+     * Sets the factor to use when backing off; the new
+     * per-host limit will be roughly the current limit times
+     * this factor. Limits are never decreased below 1, however.
+     * Defaults to 0.9.
+     * @param d must be between 0.0 and 1.0, exclusive.
+     */
+    public void setBackoffFactor(final double d) {
+        Args.check(d > 0.0 && d < 1.0, "Backoff factor must be 0.0 < f < 1.0");
+        this.backoffFactor = d;
+    }
+
+    /**
+     * Sets the ratio of the round trip time of an individual exchange
+     * to the long-term average that is still considered normal.
+     * Defaults to 1.5.
+     * @param d must be greater or equal to 1.0
+     */
+    public void setRttTolerance(final double d) {
+        Args.check(d >= 1.0, "RTT tolerance must be >= 1.0");
+        this.rttTolerance = d;
+    }
+
+    /**
+     * Sets the weight of the adjustment computed for an individual
+     * exchange. Lower values make limits more stable at the expense
+     * of slower reaction times. Defaults to 0.2.
+     * @param d must be between 0.0 exclusive and 1.0 inclusive.
+     */
+    public void setSmoothing(final double d) {
+        Args.check(d > 0.0 && d <= 1.0, "Smoothing must be 0.0 < f <= 1.0");
+        this.smoothing = d;
+    }
+
+    /**
+     * Sets the number of exchanges the long-term average round
+     * trip time is computed over. Defaults to 600.
+     * @param n must be positive
+     */
+    public void setLongWindow(final int n) {
+        Args.positive(n, "Long window");
+        this.longWindow = n;
+    }
+
+    /**
+     * Sets the absolute maximum per-host connection pool size to
+     * grow up to; defaults to 20.
+     * @param cap must be &gt;= 1
+     */
+    public void setPerHostConnectionCap(final int cap) {
+        Args.positive(cap, "Per host connection cap");
+        this.cap = cap;
+    }
+
+    static final class RouteLimit {
+
+        double value;
+        double longRtt;
+        int samples;
+
+        RouteLimit(final int initial) {
+            this.value = Math.max(1, initial);
+        }
+
+    }
+
+}
@@ -36,6 +36,8 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
@@ -59,6 +61,7 @@ import org.apache.http.client.RedirectStrategy;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.client.UserTokenHandler;
 import org.apache.http.client.config.AuthSchemes;
+import org.apache.http.client.config.CircuitBreakerConfig;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.InputStreamFactory;
 import org.apache.http.client.protocol.RequestAcceptEncoding;
@@ -82,6 +85,7 @@ import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLSessionCache;
 import org.apache.http.conn.util.PublicSuffixMatcher;
 import org.apache.http.conn.util.PublicSuffixMatcherLoader;
 import org.apache.http.cookie.CookieSpecProvider;
@@ -89,16 +93,20 @@ import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.impl.NoConnectionReuseStrategy;
 import org.apache.http.impl.auth.BasicSchemeFactory;
 import org.apache.http.impl.auth.DigestSchemeFactory;
+import org.apache.http.impl.auth.DigestSessionCache;
 import org.apache.http.impl.auth.KerberosSchemeFactory;
 import org.apache.http.impl.auth.NTLMSchemeFactory;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
+import org.apache.http.impl.conn.ConnectionEvictionScheduler;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.http.impl.conn.DefaultRoutePlanner;
 import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.impl.execchain.BackoffStrategyExec;
+import org.apache.http.impl.execchain.CircuitBreakerExec;
 import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.impl.execchain.HedgingExec;
 import org.apache.http.impl.execchain.MainClientExec;
 import org.apache.http.impl.execchain.ProtocolExec;
 import org.apache.http.impl.execchain.RedirectExec;
@@ -159,6 +167,8 @@ public class HttpClientBuilder {
     private HostnameVerifier hostnameVerifier;
     private LayeredConnectionSocketFactory sslSocketFactory;
     private SSLContext sslContext;
+    private SSLSessionCache sslSessionCache;
+    private ExecutorService sslHandshakeExecutor;
     private HttpClientConnectionManager connManager;
     private boolean connManagerShared;
     private SchemePortResolver schemePortResolver;
@@ -185,6 +195,7 @@ public class HttpClientBuilder {
     private Map<String, InputStreamFactory> contentDecoderMap;
     private CookieStore cookieStore;
     private CredentialsProvider credentialsProvider;
+    private DigestSessionCache digestSessionCache;
     private String userAgent;
     private HttpHost proxy;
     private Collection<? extends Header> defaultHeaders;
@@ -195,14 +206,18 @@ public class HttpClientBuilder {
     private boolean evictIdleConnections;
     private long maxIdleTime;
     private TimeUnit maxIdleTimeUnit;
+    private ConnectionEvictionScheduler connectionEvictionScheduler;
 
     private boolean systemProperties;
     private boolean redirectHandlingDisabled;
     private boolean automaticRetriesDisabled;
+    private ScheduledExecutorService hedgingExecutor;
+    private CircuitBreakerConfig circuitBreakerConfig;
     private boolean contentCompressionDisabled;
     private boolean cookieManagementDisabled;
     private boolean authCachingDisabled;
     private boolean connectionStateDisabled;
+    private boolean contextRecycling;
 
     private int maxConnTotal = 0;
     private int maxConnPerRoute = 0;
@@ -272,6 +287,37 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Assigns {@link SSLSessionCache} instance used to track TLS sessions per route.
+     * <p>
+     * Please note this value can be overridden by the {@link #setConnectionManager(
+     *   org.apache.http.conn.HttpClientConnectionManager)} and the {@link #setSSLSocketFactory(
+     *   org.apache.http.conn.socket.LayeredConnectionSocketFactory)} methods.
+     * </p>
+     *
+     *   @since 5.0
+     */
+    public final HttpClientBuilder setSSLSessionCache(final SSLSessionCache sslSessionCache) {
+        this.sslSessionCache = sslSessionCache;
+        return this;
+    }
+
+    /**
+     * Assigns {@link ExecutorService} used to perform TLS handshakes bounded by
+     * {@link RequestConfig#getHandshakeTimeout()}.
+     * <p>
+     * Please note this value can be overridden by the {@link #setConnectionManager(
+     *   org.apache.http.conn.HttpClientConnectionManager)} and the {@link #setSSLSocketFactory(
+     *   org.apache.http.conn.socket.LayeredConnectionSocketFactory)} methods.
+     * </p>
+     *
+     *   @since 5.0
+     */
+    public final HttpClientBuilder setSSLHandshakeExecutor(final ExecutorService sslHandshakeExecutor) {
+        this.sslHandshakeExecutor = sslHandshakeExecutor;
+        return this;
+    }
+
     /**
      * Assigns {@link LayeredConnectionSocketFactory} instance.
      * <p>
@@ -598,6 +644,31 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Enables hedging of slow idempotent requests by assigning the
+     * {@link ScheduledExecutorService} used to execute duplicate requests.
+     *
+     * @see HedgingExec
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setHedgingExecutor(final ScheduledExecutorService hedgingExecutor) {
+        this.hedgingExecutor = hedgingExecutor;
+        return this;
+    }
+
+    /**
+     * Enables per-route circuit breakers by assigning their {@link CircuitBreakerConfig}.
+     *
+     * @see CircuitBreakerExec
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setCircuitBreakerConfig(final CircuitBreakerConfig circuitBreakerConfig) {
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        return this;
+    }
+
     /**
      * Assigns default proxy value.
      * <p>
@@ -683,6 +754,19 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Assigns default {@link DigestSessionCache} instance which will be used
+     * for request execution if not explicitly set in the client execution
+     * context.
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setDefaultDigestSessionCache(
+            final DigestSessionCache digestSessionCache) {
+        this.digestSessionCache = digestSessionCache;
+        return this;
+    }
+
     /**
      * Assigns default {@link org.apache.http.auth.AuthScheme} registry which will
      * be used for request execution if not explicitly set in the client execution
@@ -738,6 +822,26 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Makes this instance of HttpClient re-use execution contexts of requests
+     * executed without an explicit context. Contexts are backed by
+     * a non-thread-safe attribute map and are pooled per thread once request
+     * execution has been completed, which saves the allocation of
+     * a concurrent attribute map per request.
+     * <p>
+     * Please note this mode must not be used with custom protocol interceptors
+     * or exec chain elements that keep a reference to the execution context
+     * beyond request execution, unless they call
+     * {@link PooledHttpContext#retain(org.apache.http.protocol.HttpContext)}.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder useContextRecycling() {
+        this.contextRecycling = true;
+        return this;
+    }
+
     /**
      * Makes this instance of HttpClient proactively evict expired connections from the
      * connection pool using a background thread.
@@ -791,6 +895,25 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Assigns a shared {@link ConnectionEvictionScheduler} to be used to evict
+     * expired and idle connections instead of a dedicated background thread per
+     * instance of HttpClient. This has effect only in combination with
+     * {@link #evictExpiredConnections()} or {@link #evictIdleConnections(long, TimeUnit)}
+     * and with a {@link PoolingHttpClientConnectionManager}.
+     * <p>
+     * The scheduler is not shut down when HttpClient is closed, as it may be
+     * shared by several instances.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setConnectionEvictionScheduler(
+            final ConnectionEvictionScheduler connectionEvictionScheduler) {
+        this.connectionEvictionScheduler = connectionEvictionScheduler;
+        return this;
+    }
+
     /**
      * Produces an instance of {@link ClientExecChain} to be used as a main exec.
      * <p>
@@ -883,16 +1006,19 @@ public class HttpClientBuilder {
                 }
                 if (sslContext != null) {
                     sslSocketFactoryCopy = new SSLConnectionSocketFactory(
-                            sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifierCopy);
+                            sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifierCopy,
+                            sslSessionCache, sslHandshakeExecutor);
                 } else {
                     if (systemProperties) {
                         sslSocketFactoryCopy = new SSLConnectionSocketFactory(
                                 (SSLSocketFactory) SSLSocketFactory.getDefault(),
-                                supportedProtocols, supportedCipherSuites, hostnameVerifierCopy);
+                                supportedProtocols, supportedCipherSuites, hostnameVerifierCopy,
+                                sslSessionCache, sslHandshakeExecutor);
                     } else {
                         sslSocketFactoryCopy = new SSLConnectionSocketFactory(
                                 SSLContexts.createDefault(),
-                                hostnameVerifierCopy);
+                                null, null, hostnameVerifierCopy,
+                                sslSessionCache, sslHandshakeExecutor);
                     }
                 }
             }
@@ -1053,6 +1179,11 @@ public class HttpClientBuilder {
 
         execChain = decorateProtocolExec(execChain);
 
+        // Optionally, add circuit breaker executor
+        if (circuitBreakerConfig != null) {
+            execChain = new CircuitBreakerExec(execChain, circuitBreakerConfig);
+        }
+
         // Add request retry executor, if not disabled
         if (!automaticRetriesDisabled) {
             HttpRequestRetryHandler retryHandlerCopy = this.retryHandler;
@@ -1062,6 +1193,14 @@ public class HttpClientBuilder {
             execChain = new RetryExec(execChain, retryHandlerCopy);
         }
 
+        // Optionally, add request hedging executor
+        if (hedgingExecutor != null) {
+            final DefaultHttpRequestRetryHandler idempotencyRules = this.retryHandler instanceof DefaultHttpRequestRetryHandler ?
+                    (DefaultHttpRequestRetryHandler) this.retryHandler : DefaultHttpRequestRetryHandler.INSTANCE;
+            execChain = new HedgingExec(execChain, hedgingExecutor, idempotencyRules,
+                    HedgingExec.DEFAULT_PERCENTILE, HedgingExec.DEFAULT_MAX_HEDGE_RATIO);
+        }
+
         HttpRoutePlanner routePlannerCopy = this.routePlanner;
         if (routePlannerCopy == null) {
             SchemePortResolver schemePortResolverCopy = this.schemePortResolver;
@@ -1125,6 +1264,11 @@ public class HttpClientBuilder {
             }
         }
 
+        DigestSessionCache defaultDigestSessionCache = this.digestSessionCache;
+        if (defaultDigestSessionCache == null) {
+            defaultDigestSessionCache = new DigestSessionCache();
+        }
+
         List<Closeable> closeablesCopy = closeables != null ? new ArrayList<>(closeables) : null;
         if (!this.connManagerShared) {
             if (closeablesCopy == null) {
@@ -1132,7 +1276,12 @@ public class HttpClientBuilder {
             }
             final HttpClientConnectionManager cm = connManagerCopy;
 
-            if (evictExpiredConnections || evictIdleConnections) {
+            if ((evictExpiredConnections || evictIdleConnections)
+                    && connectionEvictionScheduler != null && cm instanceof PoolingHttpClientConnectionManager) {
+                ((PoolingHttpClientConnectionManager) cm).setEvictionScheduler(connectionEvictionScheduler,
+                        evictIdleConnections ? maxIdleTime : 0,
+                        maxIdleTimeUnit != null ? maxIdleTimeUnit : TimeUnit.SECONDS);
+            } else if (evictExpiredConnections || evictIdleConnections) {
                 final IdleConnectionEvictor connectionEvictor = new IdleConnectionEvictor(cm,
                         maxIdleTime > 0 ? maxIdleTime : 10, maxIdleTimeUnit != null ? maxIdleTimeUnit : TimeUnit.SECONDS);
                 closeablesCopy.add(new Closeable() {
@@ -1163,8 +1312,11 @@ public class HttpClientBuilder {
                 authSchemeRegistryCopy,
                 defaultCookieStore,
                 defaultCredentialsProvider,
+                defaultDigestSessionCache,
                 defaultRequestConfig != null ? defaultRequestConfig : RequestConfig.DEFAULT,
-                closeablesCopy);
+                closeablesCopy,
+                contextRecycling ? new HttpContextPool() : null,
+                httpprocessorCopy);
     }
 
 }
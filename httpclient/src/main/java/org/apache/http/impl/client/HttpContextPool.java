@@ -0,0 +1,84 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.ArrayDeque;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Per-thread pool of {@link PooledHttpContext}s.
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+final class HttpContextPool {
+
+    static final int DEFAULT_MAX_PER_THREAD = 4;
+
+    private final int maxPerThread;
+    private final ThreadLocal<ArrayDeque<PooledHttpContext>> pools;
+
+    HttpContextPool(final int maxPerThread) {
+        super();
+        this.maxPerThread = Args.positive(maxPerThread, "Max per thread");
+        this.pools = new ThreadLocal<ArrayDeque<PooledHttpContext>>() {
+
+            @Override
+            protected ArrayDeque<PooledHttpContext> initialValue() {
+                return new ArrayDeque<>(maxPerThread);
+            }
+
+        };
+    }
+
+    HttpContextPool() {
+        this(DEFAULT_MAX_PER_THREAD);
+    }
+
+    PooledHttpContext lease() {
+        final PooledHttpContext context = this.pools.get().pollFirst();
+        return context != null ? context : new PooledHttpContext();
+    }
+
+    /**
+     * Returns the given context to the pool of the current thread unless
+     * it has been retained.
+     */
+    void release(final PooledHttpContext context) {
+        if (context.isRetained()) {
+            return;
+        }
+        context.reset();
+        final ArrayDeque<PooledHttpContext> pool = this.pools.get();
+        if (pool.size() < this.maxPerThread) {
+            pool.addFirst(context);
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Batch of requests executed by {@link FutureRequestExecutionService}. Requests
+ * are grouped by target host and no more than the given number of requests per
+ * host is in flight at any time, so that requests wait in the batch rather than
+ * for a connection from the pool.
+ * <p>
+ * Without a timer the deadline is enforced by the future of the batch: waiting
+ * for it never blocks past the deadline and expires the batch once it has passed.
+ * </p>
+ */
+@ThreadSafe
+class HttpRequestBatch<T> {
+
+    private final FutureRequestExecutionService executionService;
+    private final ResponseHandler<T> responseHandler;
+    private final int maxPerRoute;
+    private final long deadline;
+    private final Map<HttpHost, Queue<Integer>> pending;
+    private final List<HttpUriRequest> requests;
+    private final HttpHost[] targets;
+    private final Object[] results;
+    private final List<HttpRequestFutureTask<T>> tasks;
+    private final BasicFuture<List<T>> future;
+
+    private volatile Future<?> timer;
+    private int remaining;
+    private boolean done;
+
+    HttpRequestBatch(
+            final FutureRequestExecutionService executionService,
+            final Collection<? extends HttpUriRequest> requests,
+            final ResponseHandler<T> responseHandler,
+            final int maxPerRoute,
+            final long deadline,
+            final FutureCallback<List<T>> callback) {
+        super();
+        this.executionService = executionService;
+        this.responseHandler = responseHandler;
+        this.maxPerRoute = maxPerRoute;
+        this.deadline = deadline;
+        this.requests = new ArrayList<>(requests);
+        this.results = new Object[this.requests.size()];
+        this.tasks = new ArrayList<>(this.requests.size());
+        this.targets = new HttpHost[this.requests.size()];
+        this.pending = new LinkedHashMap<>();
+        for (int i = 0; i < this.requests.size(); i++) {
+            final HttpHost target = URIUtils.extractHost(this.requests.get(i).getURI());
+            this.targets[i] = target;
+            Queue<Integer> queue = this.pending.get(target);
+            if (queue == null) {
+                queue = new LinkedList<>();
+                this.pending.put(target, queue);
+            }
+            queue.add(Integer.valueOf(i));
+        }
+        this.remaining = this.requests.size();
+        this.future = new BasicFuture<>(new FutureCallback<List<T>>() {
+
+            @Override
+            public void completed(final List<T> result) {
+                cancelTimer();
+                if (callback != null) {
+                    callback.completed(result);
+                }
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                cancelTasks();
+                if (callback != null) {
+                    callback.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                cancelTasks();
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+
+        });
+    }
+
+    void setTimer(final Future<?> timer) {
+        this.timer = timer;
+        if (this.future.isDone()) {
+            cancelTimer();
+        }
+    }
+
+    private void cancelTimer() {
+        final Future<?> currentTimer = this.timer;
+        if (currentTimer != null) {
+            currentTimer.cancel(false);
+        }
+    }
+
+    Future<List<T>> getFuture() {
+        return new BatchFuture();
+    }
+
+    void start() {
+        if (this.requests.isEmpty()) {
+            this.future.completed(new ArrayList<T>(0));
+            return;
+        }
+        final List<Integer> initial = new ArrayList<>();
+        synchronized (this) {
+            for (final Queue<Integer> queue: this.pending.values()) {
+                for (int i = 0; i < this.maxPerRoute && !queue.isEmpty(); i++) {
+                    initial.add(queue.remove());
+                }
+            }
+        }
+        for (final Integer index: initial) {
+            submit(index.intValue());
+        }
+    }
+
+    void expire() {
+        fail(new TimeoutException("Batch deadline expired"));
+    }
+
+    private boolean expireIfPastDeadline() {
+        if (System.currentTimeMillis() >= this.deadline) {
+            expire();
+            return true;
+        }
+        return false;
+    }
+
+    private void submit(final int index) {
+        if (expireIfPastDeadline()) {
+            return;
+        }
+        final HttpUriRequest request = this.requests.get(index);
+        final HttpRequestFutureTask<T> task;
+        try {
+            task = this.executionService.execute(request, HttpClientContext.create(), this.responseHandler,
+                    new FutureCallback<T>() {
+
+                        @Override
+                        public void completed(final T result) {
+                            onCompleted(index, result);
+                        }
+
+                        @Override
+                        public void failed(final Exception ex) {
+                            fail(ex);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                        }
+
+                    });
+        } catch (final RuntimeException ex) {
+            fail(ex);
+            return;
+        }
+        final boolean cancel;
+        synchronized (this) {
+            this.tasks.add(task);
+            cancel = this.done;
+        }
+        if (cancel) {
+            task.cancel(true);
+        }
+    }
+
+    private void onCompleted(final int index, final T result) {
+        final Integer next;
+        final boolean complete;
+        synchronized (this) {
+            if (this.done) {
+                return;
+            }
+            this.results[index] = result;
+            this.remaining--;
+            complete = this.remaining == 0;
+            if (complete) {
+                this.done = true;
+            }
+            next = this.pending.get(this.targets[index]).poll();
+        }
+        if (complete) {
+            @SuppressWarnings("unchecked")
+            final List<T> list = (List<T>) Arrays.asList(this.results);
+            this.future.completed(list);
+        } else if (next != null) {
+            submit(next.intValue());
+        }
+    }
+
+    private void fail(final Exception ex) {
+        synchronized (this) {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+        }
+        this.future.failed(ex);
+    }
+
+    private void cancelTasks() {
+        cancelTimer();
+        final List<HttpRequestFutureTask<T>> copy;
+        synchronized (this) {
+            this.done = true;
+            copy = new ArrayList<>(this.tasks);
+        }
+        for (final HttpRequestFutureTask<T> task: copy) {
+            task.cancel(true);
+        }
+    }
+
+    class BatchFuture implements Future<List<T>> {
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            return future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            if (!future.isDone()) {
+                expireIfPastDeadline();
+            }
+            return future.isDone();
+        }
+
+        @Override
+        public List<T> get() throws InterruptedException, ExecutionException {
+            while (!future.isDone()) {
+                final long remainingMs = deadline - System.currentTimeMillis();
+                if (remainingMs <= 0) {
+                    expire();
+                    break;
+                }
+                try {
+                    return future.get(remainingMs, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException ignore) {
+                }
+            }
+            return future.get();
+        }
+
+        @Override
+        public List<T> get(
+                final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException,
+                TimeoutException {
+            final long timeoutMs = unit.toMillis(timeout);
+            final long remainingMs = deadline - System.currentTimeMillis();
+            if (remainingMs > timeoutMs) {
+                return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            if (remainingMs > 0) {
+                try {
+                    return future.get(remainingMs, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException ignore) {
+                }
+            }
+            expire();
+            return future.get();
+        }
+
+    }
+
+}
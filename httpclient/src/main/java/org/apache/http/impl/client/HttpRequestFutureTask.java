@@ -26,8 +26,15 @@
  */
 package org.apache.http.impl.client;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.client.RetryDeferredException;
 import org.apache.http.client.methods.HttpUriRequest;
 
 /**
@@ -40,13 +47,88 @@ public class HttpRequestFutureTask<V> extends FutureTask<V> {
 
     private final HttpUriRequest request;
     private final HttpRequestTaskCallable<V> callable;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile FutureTask<V> execution;
 
     public HttpRequestFutureTask(
             final HttpUriRequest request,
             final HttpRequestTaskCallable<V> httpCallable) {
+        this(request, httpCallable, null, null);
+    }
+
+    HttpRequestFutureTask(
+            final HttpUriRequest request,
+            final HttpRequestTaskCallable<V> httpCallable,
+            final Executor executor,
+            final ScheduledExecutorService scheduler) {
         super(httpCallable);
         this.request = request;
         this.callable = httpCallable;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Executes the request. If re-execution of the request has been deferred
+     * the task is re-submitted to the executor once the retry delay expires
+     * instead of completing. Each execution runs as a {@link FutureTask} of
+     * its own, so that {@link #cancel(boolean)} can interrupt it.
+     */
+    @Override
+    public void run() {
+        if (this.executor == null || this.scheduler == null) {
+            super.run();
+            return;
+        }
+        if (isDone()) {
+            return;
+        }
+        final FutureTask<V> execution = new FutureTask<>(this.callable);
+        this.execution = execution;
+        if (isCancelled()) {
+            return;
+        }
+        execution.run();
+        this.execution = null;
+        try {
+            set(execution.get());
+        } catch (final CancellationException ex) {
+            // cancelled along with this task
+        } catch (final InterruptedException ex) {
+            // cannot happen as the execution has completed
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RetryDeferredException) {
+                defer((RetryDeferredException) cause);
+            } else {
+                setException(cause);
+            }
+        }
+    }
+
+    private void defer(final RetryDeferredException ex) {
+        if (isDone()) {
+            return;
+        }
+        try {
+            this.scheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        executor.execute(HttpRequestFutureTask.this);
+                    } catch (final RejectedExecutionException ex2) {
+                        setException(ex2);
+                    }
+                }
+
+            }, ex.getDelay(), TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException ex2) {
+            setException(ex);
+        }
     }
 
     /*
@@ -59,7 +141,12 @@ public class HttpRequestFutureTask<V> extends FutureTask<V> {
         if (mayInterruptIfRunning) {
             request.abort();
         }
-        return super.cancel(mayInterruptIfRunning);
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        final FutureTask<V> currentExecution = this.execution;
+        if (currentExecution != null) {
+            currentExecution.cancel(mayInterruptIfRunning);
+        }
+        return cancelled;
     }
 
     /**
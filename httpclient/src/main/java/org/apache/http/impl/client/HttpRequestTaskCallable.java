@@ -27,12 +27,17 @@
 package org.apache.http.impl.client;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.RetryDeferredException;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.protocol.HttpContext;
 
 class HttpRequestTaskCallable<V> implements Callable<V> {
@@ -44,12 +49,15 @@ class HttpRequestTaskCallable<V> implements Callable<V> {
     private final long scheduled = System.currentTimeMillis();
     private long started = -1;
     private long ended = -1;
+    private volatile boolean deferred;
+    private volatile long queued = System.nanoTime();
 
     private final HttpContext context;
     private final ResponseHandler<V> responseHandler;
     private final FutureCallback<V> callback;
 
     private final FutureRequestExecutionMetrics metrics;
+    private final boolean retryDeferral;
 
     HttpRequestTaskCallable(
             final HttpClient httpClient,
@@ -58,12 +66,24 @@ class HttpRequestTaskCallable<V> implements Callable<V> {
             final ResponseHandler<V> responseHandler,
             final FutureCallback<V> callback,
             final FutureRequestExecutionMetrics metrics) {
+        this(httpClient, request, context, responseHandler, callback, metrics, false);
+    }
+
+    HttpRequestTaskCallable(
+            final HttpClient httpClient,
+            final HttpUriRequest request,
+            final HttpContext context,
+            final ResponseHandler<V> responseHandler,
+            final FutureCallback<V> callback,
+            final FutureRequestExecutionMetrics metrics,
+            final boolean retryDeferral) {
         this.httpclient = httpClient;
         this.responseHandler = responseHandler;
         this.request = request;
         this.context = context;
         this.callback = callback;
         this.metrics = metrics;
+        this.retryDeferral = retryDeferral;
     }
 
     public long getScheduled() {
@@ -83,27 +103,45 @@ class HttpRequestTaskCallable<V> implements Callable<V> {
         if (!cancelled.get()) {
             try {
                 metrics.getActiveConnections().incrementAndGet();
-                started = System.currentTimeMillis();
+                // A deferred request keeps the start time of its first attempt
+                if (started < 0) {
+                    started = System.currentTimeMillis();
+                }
+                deferred = false;
+                final long startedNanos = System.nanoTime();
                 try {
                     metrics.getScheduledConnections().decrementAndGet();
-                    final V result = httpclient.execute(request, responseHandler, context);
+                    if (context != null) {
+                        context.removeAttribute(HttpClientContext.CONNECTION_LEASE_DURATION);
+                    }
+                    final V result = executeRequest();
                     ended = System.currentTimeMillis();
                     metrics.getSuccessfulConnections().increment(started);
+                    recordLatencies(startedNanos, false);
                     if (callback != null) {
                         callback.completed(result);
                     }
                     return result;
+                } catch (final RetryDeferredException e) {
+                    deferred = true;
+                    metrics.getScheduledConnections().incrementAndGet();
+                    queued = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(e.getDelay());
+                    throw e;
                 } catch (final Exception e) {
                     metrics.getFailedConnections().increment(started);
                     ended = System.currentTimeMillis();
+                    recordLatencies(startedNanos, true);
                     if (callback != null) {
                         callback.failed(e);
                     }
                     throw e;
                 }
             } finally {
-                metrics.getRequests().increment(started);
-                metrics.getTasks().increment(started);
+                // Count a deferred request once, when its last attempt completes
+                if (!deferred) {
+                    metrics.getRequests().increment(started);
+                    metrics.getTasks().increment(started);
+                }
                 metrics.getActiveConnections().decrementAndGet();
             }
         } else {
@@ -111,8 +149,44 @@ class HttpRequestTaskCallable<V> implements Callable<V> {
         }
     }
 
+    private V executeRequest() throws Exception {
+        if (!retryDeferral) {
+            return httpclient.execute(request, responseHandler, context);
+        }
+        // Deferral applies to this submission only, so the flag is kept in
+        // the caller's context no longer than the execution itself
+        context.setAttribute(HttpClientContext.RETRY_DEFERRAL, Boolean.TRUE);
+        try {
+            return httpclient.execute(request, responseHandler, context);
+        } finally {
+            context.removeAttribute(HttpClientContext.RETRY_DEFERRAL);
+        }
+    }
+
+    private void recordLatencies(final long startedNanos, final boolean failed) {
+        final long now = System.nanoTime();
+        HttpRoute route = null;
+        String statusClass = failed ? "failed" : null;
+        long leaseTime = -1;
+        if (context != null) {
+            final HttpClientContext clientContext = HttpClientContext.adapt(context);
+            route = clientContext.getAttribute(HttpClientContext.HTTP_ROUTE, HttpRoute.class);
+            leaseTime = clientContext.getConnectionLeaseDuration();
+            if (!failed) {
+                final HttpResponse response = clientContext.getResponse();
+                if (response != null) {
+                    statusClass = (response.getStatusLine().getStatusCode() / 100) + "xx";
+                }
+            }
+        }
+        metrics.recordLatencies(route, statusClass, Math.max(0, startedNanos - queued), leaseTime, now - startedNanos);
+    }
+
     public void cancel() {
         cancelled.set(true);
+        if (deferred && context != null) {
+            context.removeAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT);
+        }
         if (callback != null) {
             callback.cancelled();
         }
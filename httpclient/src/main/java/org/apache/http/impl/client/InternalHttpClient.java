@@ -52,9 +52,11 @@ import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.routing.HttpRoutePlanner;
 import org.apache.http.cookie.CookieSpecProvider;
+import org.apache.http.impl.auth.DigestSessionCache;
 import org.apache.http.impl.execchain.ClientExecChain;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
 import org.apache.http.util.Args;
 
 /**
@@ -74,10 +76,13 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
     private final Lookup<AuthSchemeProvider> authSchemeRegistry;
     private final CookieStore cookieStore;
     private final CredentialsProvider credentialsProvider;
+    private final DigestSessionCache digestSessionCache;
     private final RequestConfig defaultConfig;
     private final List<Closeable> closeables;
+    private final HttpContextPool contextPool;
+    private final HttpProcessor httpProcessor;
 
-    public InternalHttpClient(
+    InternalHttpClient(
             final ClientExecChain execChain,
             final HttpClientConnectionManager connManager,
             final HttpRoutePlanner routePlanner,
@@ -85,8 +90,11 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
             final Lookup<AuthSchemeProvider> authSchemeRegistry,
             final CookieStore cookieStore,
             final CredentialsProvider credentialsProvider,
+            final DigestSessionCache digestSessionCache,
             final RequestConfig defaultConfig,
-            final List<Closeable> closeables) {
+            final List<Closeable> closeables,
+            final HttpContextPool contextPool,
+            final HttpProcessor httpProcessor) {
         super();
         Args.notNull(execChain, "HTTP client exec chain");
         Args.notNull(connManager, "HTTP connection manager");
@@ -98,8 +106,58 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
         this.authSchemeRegistry = authSchemeRegistry;
         this.cookieStore = cookieStore;
         this.credentialsProvider = credentialsProvider;
+        this.digestSessionCache = digestSessionCache;
         this.defaultConfig = defaultConfig;
         this.closeables = closeables;
+        this.contextPool = contextPool;
+        this.httpProcessor = httpProcessor;
+    }
+
+    public InternalHttpClient(
+            final ClientExecChain execChain,
+            final HttpClientConnectionManager connManager,
+            final HttpRoutePlanner routePlanner,
+            final Lookup<CookieSpecProvider> cookieSpecRegistry,
+            final Lookup<AuthSchemeProvider> authSchemeRegistry,
+            final CookieStore cookieStore,
+            final CredentialsProvider credentialsProvider,
+            final DigestSessionCache digestSessionCache,
+            final RequestConfig defaultConfig,
+            final List<Closeable> closeables,
+            final HttpContextPool contextPool) {
+        this(execChain, connManager, routePlanner, cookieSpecRegistry, authSchemeRegistry,
+                cookieStore, credentialsProvider, digestSessionCache, defaultConfig, closeables,
+                contextPool, null);
+    }
+
+    public InternalHttpClient(
+            final ClientExecChain execChain,
+            final HttpClientConnectionManager connManager,
+            final HttpRoutePlanner routePlanner,
+            final Lookup<CookieSpecProvider> cookieSpecRegistry,
+            final Lookup<AuthSchemeProvider> authSchemeRegistry,
+            final CookieStore cookieStore,
+            final CredentialsProvider credentialsProvider,
+            final DigestSessionCache digestSessionCache,
+            final RequestConfig defaultConfig,
+            final List<Closeable> closeables) {
+        this(execChain, connManager, routePlanner, cookieSpecRegistry, authSchemeRegistry,
+                cookieStore, credentialsProvider, digestSessionCache, defaultConfig, closeables, null, null);
+    }
+
+    /**
+     * Returns the route planner of this client.
+     */
+    HttpRoutePlanner getRoutePlanner() {
+        return this.routePlanner;
+    }
+
+    /**
+     * Returns the protocol processor of the exec chain of this client
+     * or {@code null} if not known.
+     */
+    HttpProcessor getHttpProcessor() {
+        return this.httpProcessor;
     }
 
     private HttpRoute determineRoute(
@@ -109,7 +167,7 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
         return this.routePlanner.determineRoute(target, request, context);
     }
 
-    private void setupContext(final HttpClientContext context) {
+    void setupContext(final HttpClientContext context) {
         if (context.getAttribute(HttpClientContext.AUTHSCHEME_REGISTRY) == null) {
             context.setAttribute(HttpClientContext.AUTHSCHEME_REGISTRY, this.authSchemeRegistry);
         }
@@ -122,6 +180,9 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
         if (context.getAttribute(HttpClientContext.CREDS_PROVIDER) == null) {
             context.setAttribute(HttpClientContext.CREDS_PROVIDER, this.credentialsProvider);
         }
+        if (context.getAttribute(HttpClientContext.DIGEST_SESSION_CACHE) == null) {
+            context.setAttribute(HttpClientContext.DIGEST_SESSION_CACHE, this.digestSessionCache);
+        }
         if (context.getAttribute(HttpClientContext.REQUEST_CONFIG) == null) {
             context.setAttribute(HttpClientContext.REQUEST_CONFIG, this.defaultConfig);
         }
@@ -137,10 +198,14 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
         if (request instanceof HttpExecutionAware) {
             execAware = (HttpExecutionAware) request;
         }
+        // The pooled context is not visible to the caller and not used
+        // by the response once the exec chain has returned
+        final PooledHttpContext pooledContext = context == null && this.contextPool != null ?
+                this.contextPool.lease() : null;
         try {
             final HttpRequestWrapper wrapper = HttpRequestWrapper.wrap(request, target);
-            final HttpClientContext localcontext = HttpClientContext.adapt(
-                    context != null ? context : new BasicHttpContext());
+            final HttpClientContext localcontext = pooledContext != null ? pooledContext :
+                    HttpClientContext.adapt(context != null ? context : new BasicHttpContext());
             RequestConfig config = null;
             if (request instanceof Configurable) {
                 config = ((Configurable) request).getConfig();
@@ -153,6 +218,10 @@ class InternalHttpClient extends CloseableHttpClient implements Configurable {
             return this.execChain.execute(route, wrapper, localcontext, execAware);
         } catch (final HttpException httpException) {
             throw new ClientProtocolException(httpException);
+        } finally {
+            if (pooledContext != null) {
+                this.contextPool.release(pooledContext);
+            }
         }
     }
 
@@ -0,0 +1,234 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Lock-free histogram of latencies with microsecond resolution.
+ * <p>
+ * Latencies are counted in log-linear buckets: each power of two is divided
+ * into 16 buckets of equal width, which bounds the relative error of reported
+ * percentiles to about 6%. Recording a value amounts to a couple of atomic
+ * increments and never blocks.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        super();
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong(0);
+        this.sum = new AtomicLong(0);
+        this.max = new AtomicLong(0);
+    }
+
+    static int bucketOf(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    /**
+     * Records the given latency. Negative values are ignored.
+     */
+    public void record(final long latency, final TimeUnit tunit) {
+        Args.notNull(tunit, "Time unit");
+        if (latency < 0) {
+            return;
+        }
+        final long micros = tunit.toMicros(latency);
+        this.counts.incrementAndGet(bucketOf(micros));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(micros);
+        for (;;) {
+            final long current = this.max.get();
+            if (micros <= current || this.max.compareAndSet(current, micros)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns a snapshot of the latencies recorded so far.
+     */
+    public Snapshot snapshot() {
+        final long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = this.counts.get(i);
+        }
+        return new Snapshot(buckets, this.sum.get(), this.max.get());
+    }
+
+    /**
+     * Returns a snapshot of the latencies recorded so far and resets the histogram.
+     * Latencies recorded concurrently are included either in the snapshot or
+     * in the histogram after the reset.
+     */
+    public Snapshot snapshotAndReset() {
+        final long[] buckets = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = this.counts.getAndSet(i, 0);
+            n += buckets[i];
+        }
+        this.count.addAndGet(-n);
+        return new Snapshot(buckets, this.sum.getAndSet(0), this.max.getAndSet(0));
+    }
+
+    public void reset() {
+        snapshotAndReset();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * Immutable snapshot of a {@link LatencyHistogram}. All latencies are
+     * expressed in microseconds.
+     */
+    @Immutable
+    public static final class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(final long[] buckets, final long sum, final long max) {
+            super();
+            this.buckets = buckets;
+            long n = 0;
+            for (final long bucket: buckets) {
+                n += bucket;
+            }
+            this.count = n;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        public long getMean() {
+            return this.count > 0 ? this.sum / this.count : 0;
+        }
+
+        /**
+         * Returns the latency at the given quantile, e.g. {@code 0.99} for
+         * the 99th percentile, or {@code 0} if no latencies have been recorded.
+         */
+        public long getPercentile(final double quantile) {
+            Args.check(quantile >= 0 && quantile <= 1, "Quantile must be in range [0, 1]");
+            if (this.count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        public long getP50() {
+            return getPercentile(0.5);
+        }
+
+        public long getP90() {
+            return getPercentile(0.9);
+        }
+
+        public long getP99() {
+            return getPercentile(0.99);
+        }
+
+        public long getP999() {
+            return getPercentile(0.999);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("[count=").append(this.count)
+                    .append(", mean=").append(getMean())
+                    .append(", p50=").append(getP50())
+                    .append(", p90=").append(getP90())
+                    .append(", p99=").append(getP99())
+                    .append(", p999=").append(getP999())
+                    .append(", max=").append(this.max)
+                    .append("]");
+            return builder.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpResponse;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.AdaptiveConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * Keep-alive strategy that learns the idle timeout enforced by servers that
+ * do not advertise it with the {@code Keep-Alive} header.
+ * <p>
+ * The strategy keeps track of the time each connection has last been used.
+ * Whenever a reused connection turns out to have been closed or reset by the server,
+ * the time the connection has been idle for is taken as an upper bound of the server
+ * idle timeout for the route. Connections to the route are subsequently kept alive
+ * for a fraction of the learned timeout, which makes them expire slightly before
+ * the server would close them. Successful reuse of a connection that has been idle
+ * for longer than the learned timeout raises the latter.
+ * </p>
+ * <p>
+ * Since connections are normally released before they get idle for as long as the
+ * learned timeout, an estimate lowered by a premature reset, for instance one caused
+ * by a server restart, would otherwise never recover. Therefore, after a number of
+ * reuses without a reset, one connection is kept alive for twice the learned timeout
+ * as a probe. If it is reused successfully after having been idle for longer than
+ * the estimate, the estimate grows accordingly; if it is reset, the estimate stays
+ * as it is and probing starts over.
+ * </p>
+ * <p>
+ * The {@code Keep-Alive} header, if present in the response, always takes
+ * precedence. Please note that idle time is measured from the time the head of
+ * the previous response was received and thus includes the time it took to
+ * consume its body.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class LearningConnectionKeepAliveStrategy implements AdaptiveConnectionKeepAliveStrategy {
+
+    public static final double DEFAULT_SAFETY_FACTOR = 0.9;
+    public static final int DEFAULT_PROBE_INTERVAL = 32;
+
+    private static final int PROBE_FACTOR = 2;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final ConnectionKeepAliveStrategy headerStrategy;
+    private final long defaultKeepAlive;
+    private final double safetyFactor;
+    private final int probeInterval;
+    private final Map<Socket, Long> lastUsed;
+    private final ConcurrentMap<HttpRoute, IdleTimeout> idleTimeouts;
+
+    /**
+     * @param headerStrategy strategy to be consulted first, usually one parsing
+     *   the {@code Keep-Alive} header.
+     * @param defaultKeepAlive keep-alive duration in milliseconds for routes whose
+     *   idle timeout is unknown; a non-positive value means indefinitely.
+     * @param safetyFactor fraction of the learned idle timeout connections are
+     *   kept alive for.
+     * @param probeInterval number of reuses without a reset after which a connection
+     *   is kept alive beyond the learned idle timeout in order to probe for a longer one.
+     */
+    public LearningConnectionKeepAliveStrategy(
+            final ConnectionKeepAliveStrategy headerStrategy,
+            final long defaultKeepAlive,
+            final double safetyFactor,
+            final int probeInterval) {
+        super();
+        this.headerStrategy = Args.notNull(headerStrategy, "Keep-alive strategy");
+        Args.check(safetyFactor > 0 && safetyFactor <= 1, "Safety factor must be in range (0, 1]");
+        Args.positive(probeInterval, "Probe interval");
+        this.defaultKeepAlive = defaultKeepAlive;
+        this.safetyFactor = safetyFactor;
+        this.probeInterval = probeInterval;
+        this.lastUsed = Collections.synchronizedMap(new WeakHashMap<Socket, Long>());
+        this.idleTimeouts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param headerStrategy strategy to be consulted first, usually one parsing
+     *   the {@code Keep-Alive} header.
+     * @param defaultKeepAlive keep-alive duration in milliseconds for routes whose
+     *   idle timeout is unknown; a non-positive value means indefinitely.
+     * @param safetyFactor fraction of the learned idle timeout connections are
+     *   kept alive for.
+     */
+    public LearningConnectionKeepAliveStrategy(
+            final ConnectionKeepAliveStrategy headerStrategy,
+            final long defaultKeepAlive,
+            final double safetyFactor) {
+        this(headerStrategy, defaultKeepAlive, safetyFactor, DEFAULT_PROBE_INTERVAL);
+    }
+
+    public LearningConnectionKeepAliveStrategy() {
+        this(DefaultConnectionKeepAliveStrategy.INSTANCE, -1, DEFAULT_SAFETY_FACTOR);
+    }
+
+    @Override
+    public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        Args.notNull(response, "HTTP response");
+        final HttpClientContext clientContext = HttpClientContext.adapt(context);
+        final HttpRoute route = clientContext.getAttribute(HttpClientContext.HTTP_ROUTE, HttpRoute.class);
+        final Socket socket = getSocket(clientContext.getConnection());
+        if (socket != null) {
+            final long now = System.currentTimeMillis();
+            final Long previous = this.lastUsed.put(socket, Long.valueOf(now));
+            if (previous != null && route != null) {
+                getIdleTimeout0(route).reused(now - previous.longValue());
+            }
+        }
+        final long duration = this.headerStrategy.getKeepAliveDuration(response, context);
+        if (duration > 0) {
+            return duration;
+        }
+        if (route != null) {
+            final IdleTimeout idleTimeout = this.idleTimeouts.get(route);
+            if (idleTimeout != null) {
+                final long keepAlive = idleTimeout.getKeepAlive(this.safetyFactor, this.probeInterval);
+                if (keepAlive >= 0) {
+                    return keepAlive;
+                }
+            }
+        }
+        return this.defaultKeepAlive;
+    }
+
+    @Override
+    public void connectionReset(final HttpClientConnection conn, final HttpRoute route, final HttpContext context) {
+        Args.notNull(route, "HTTP route");
+        final Socket socket = getSocket(conn);
+        if (socket == null) {
+            return;
+        }
+        final Long previous = this.lastUsed.remove(socket);
+        if (previous == null) {
+            // Fresh connection; nothing to learn from
+            return;
+        }
+        final long idle = System.currentTimeMillis() - previous.longValue();
+        final long timeout = getIdleTimeout0(route).reset(idle);
+        if (this.log.isDebugEnabled()) {
+            this.log.debug("Connection to " + route + " reset after being idle for " + idle
+                    + " ms; idle timeout estimated at " + timeout + " ms");
+        }
+    }
+
+    /**
+     * Returns the idle timeout in milliseconds learned for the given route
+     * or {@code -1} if not known.
+     */
+    public long getIdleTimeout(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        final IdleTimeout idleTimeout = this.idleTimeouts.get(route);
+        return idleTimeout != null ? idleTimeout.get() : -1;
+    }
+
+    /**
+     * Returns the number of resets observed on reused connections of the given route.
+     */
+    public long getResetCount(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        final IdleTimeout idleTimeout = this.idleTimeouts.get(route);
+        return idleTimeout != null ? idleTimeout.getResetCount() : 0;
+    }
+
+    /**
+     * Forgets the idle timeout learned for the given route.
+     */
+    public void reset(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        this.idleTimeouts.remove(route);
+    }
+
+    private IdleTimeout getIdleTimeout0(final HttpRoute route) {
+        IdleTimeout idleTimeout = this.idleTimeouts.get(route);
+        if (idleTimeout == null) {
+            final IdleTimeout newIdleTimeout = new IdleTimeout();
+            idleTimeout = this.idleTimeouts.putIfAbsent(route, newIdleTimeout);
+            if (idleTimeout == null) {
+                idleTimeout = newIdleTimeout;
+            }
+        }
+        return idleTimeout;
+    }
+
+    private static Socket getSocket(final HttpConnection conn) {
+        if (conn instanceof ManagedHttpClientConnection) {
+            try {
+                return ((ManagedHttpClientConnection) conn).getSocket();
+            } catch (final IllegalStateException ex) {
+                // Connection already released
+                return null;
+            }
+        }
+        return null;
+    }
+
+    static class IdleTimeout {
+
+        private long timeout = -1;
+        private long resets;
+        private int cleanReuses;
+
+        synchronized long get() {
+            return this.timeout;
+        }
+
+        synchronized long getResetCount() {
+            return this.resets;
+        }
+
+        /**
+         * Returns the keep-alive duration for a connection or {@code -1} if
+         * the idle timeout is not known. Once enough connections have been reused
+         * without a reset, a single connection is granted a probing duration
+         * beyond the learned timeout.
+         */
+        synchronized long getKeepAlive(final double safetyFactor, final int probeInterval) {
+            if (this.timeout < 0) {
+                return -1;
+            }
+            if (this.cleanReuses >= probeInterval) {
+                this.cleanReuses = 0;
+                return Math.max(1, this.timeout * PROBE_FACTOR);
+            }
+            return Math.max(1, (long) (this.timeout * safetyFactor));
+        }
+
+        synchronized void reused(final long idle) {
+            if (this.timeout >= 0 && idle > this.timeout) {
+                this.timeout = idle;
+            }
+            this.cleanReuses++;
+        }
+
+        synchronized long reset(final long idle) {
+            this.resets++;
+            this.cleanReuses = 0;
+            this.timeout = this.timeout >= 0 ? Math.min(this.timeout, idle) : idle;
+            return this.timeout;
+        }
+
+    }
+
+}
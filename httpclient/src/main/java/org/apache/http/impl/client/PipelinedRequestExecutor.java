@@ -0,0 +1,445 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolException;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestClientConnControl;
+import org.apache.http.client.utils.RequestTarget;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.http.protocol.RequestUserAgent;
+import org.apache.http.util.Args;
+import org.apache.http.util.VersionInfo;
+
+/**
+ * Executes sequences of requests to the same target using HTTP/1.1 pipelining.
+ * Consecutive idempotent requests are written onto a single persistent connection
+ * leased from the connection manager without waiting for responses, which are then
+ * read back in the order the requests were sent. This enables a high rate of small
+ * requests to the same host over a single socket.
+ * <p>
+ * Non-idempotent requests, requests to be executed via a proxy and requests whose
+ * responses could not be read because the server closed the connection are executed
+ * one at a time using the fallback client. Response content is buffered in memory,
+ * as the connection must be read up to the next response.
+ * </p>
+ * <p>
+ * Pipelined requests are not passed through the execution chain of the fallback
+ * client. Requests whose pipelined responses call for redirect handling or
+ * authentication (status codes 301, 302, 303 and 307 if redirects are enabled,
+ * 401 and 407 if authentication is enabled) are therefore re-executed
+ * using the fallback client, so that their responses do not depend on whether
+ * the requests have been pipelined. Such requests are sent to the server twice.
+ * </p>
+ * <p>
+ * Unless given explicitly, pipelined requests are processed by the protocol processor
+ * and routed by the route planner of the fallback client, if it has been created by
+ * {@link HttpClientBuilder}, so that cookies, default headers, content compression and
+ * authentication caching apply as they do to requests executed by the client. The
+ * execution context is populated with the client defaults such as the cookie store
+ * and the request configuration. Only a minimal processor setting the required
+ * request headers is applied if the fallback client is of another kind.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class PipelinedRequestExecutor {
+
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HttpClientConnectionManager connManager;
+    private final CloseableHttpClient fallbackClient;
+    private final HttpRoutePlanner routePlanner;
+    private final HttpProcessor httpProcessor;
+    private final ConnectionReuseStrategy reuseStrategy;
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+    private final DefaultHttpRequestRetryHandler idempotencyRules;
+    private final int maxDepth;
+
+    /**
+     * @param connManager connection manager to lease pipelined connections from.
+     * @param fallbackClient client executing requests that cannot be pipelined.
+     * @param routePlanner route planner.
+     * @param httpProcessor protocol processor applied to pipelined requests.
+     * @param reuseStrategy connection reuse strategy.
+     * @param keepAliveStrategy connection keep-alive strategy.
+     * @param idempotencyRules rules deciding which requests can be pipelined.
+     * @param maxDepth maximum number of requests written onto a connection
+     *   before reading responses.
+     */
+    public PipelinedRequestExecutor(
+            final HttpClientConnectionManager connManager,
+            final CloseableHttpClient fallbackClient,
+            final HttpRoutePlanner routePlanner,
+            final HttpProcessor httpProcessor,
+            final ConnectionReuseStrategy reuseStrategy,
+            final ConnectionKeepAliveStrategy keepAliveStrategy,
+            final DefaultHttpRequestRetryHandler idempotencyRules,
+            final int maxDepth) {
+        super();
+        this.connManager = Args.notNull(connManager, "Client connection manager");
+        this.fallbackClient = Args.notNull(fallbackClient, "Fallback client");
+        this.routePlanner = Args.notNull(routePlanner, "Route planner");
+        this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
+        this.reuseStrategy = Args.notNull(reuseStrategy, "Connection reuse strategy");
+        this.keepAliveStrategy = Args.notNull(keepAliveStrategy, "Connection keep alive strategy");
+        this.idempotencyRules = Args.notNull(idempotencyRules, "Idempotency rules");
+        this.maxDepth = Args.positive(maxDepth, "Max depth");
+    }
+
+    public PipelinedRequestExecutor(
+            final HttpClientConnectionManager connManager,
+            final CloseableHttpClient fallbackClient,
+            final int maxDepth) {
+        this(connManager, fallbackClient,
+                defaultRoutePlanner(fallbackClient),
+                defaultHttpProcessor(fallbackClient),
+                DefaultConnectionReuseStrategy.INSTANCE,
+                DefaultConnectionKeepAliveStrategy.INSTANCE,
+                new DefaultHttpRequestRetryHandler(),
+                maxDepth);
+    }
+
+    public PipelinedRequestExecutor(
+            final HttpClientConnectionManager connManager,
+            final CloseableHttpClient fallbackClient) {
+        this(connManager, fallbackClient, DEFAULT_MAX_DEPTH);
+    }
+
+    private static HttpRoutePlanner defaultRoutePlanner(final CloseableHttpClient client) {
+        if (client instanceof InternalHttpClient) {
+            return ((InternalHttpClient) client).getRoutePlanner();
+        }
+        return new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE);
+    }
+
+    private static HttpProcessor defaultHttpProcessor(final CloseableHttpClient client) {
+        if (client instanceof InternalHttpClient) {
+            final HttpProcessor httpProcessor = ((InternalHttpClient) client).getHttpProcessor();
+            if (httpProcessor != null) {
+                return httpProcessor;
+            }
+        }
+        return new ImmutableHttpProcessor(
+                new RequestContent(),
+                new RequestTargetHost(),
+                new RequestClientConnControl(),
+                new RequestUserAgent(VersionInfo.getUserAgent(
+                        "Apache-HttpClient", "org.apache.http.client", PipelinedRequestExecutor.class)));
+    }
+
+    /**
+     * Executes the given requests and returns their responses in the same order.
+     * Response content is fully buffered. Redirects are followed and authentication
+     * challenges answered as if the requests were executed by the fallback client.
+     */
+    public List<HttpResponse> execute(
+            final HttpHost target,
+            final List<? extends HttpRequest> requests,
+            final HttpContext context) throws IOException {
+        Args.notNull(target, "Target host");
+        Args.notNull(requests, "HTTP requests");
+        final HttpClientContext clientContext = HttpClientContext.adapt(
+                context != null ? context : new HttpClientContext());
+        if (this.fallbackClient instanceof InternalHttpClient) {
+            ((InternalHttpClient) this.fallbackClient).setupContext(clientContext);
+        }
+        final HttpResponse[] responses = new HttpResponse[requests.size()];
+        int i = 0;
+        while (i < requests.size()) {
+            final HttpRequest request = requests.get(i);
+            if (!canPipeline(request)) {
+                responses[i] = executeFallback(target, request, clientContext);
+                i++;
+                continue;
+            }
+            final List<HttpRequest> batch = new ArrayList<>(this.maxDepth);
+            while (i + batch.size() < requests.size() && batch.size() < this.maxDepth
+                    && canPipeline(requests.get(i + batch.size()))) {
+                batch.add(requests.get(i + batch.size()));
+            }
+            final HttpResponse[] pipelined = new HttpResponse[batch.size()];
+            final int completed = executePipelined(target, batch, clientContext, pipelined);
+            System.arraycopy(pipelined, 0, responses, i, completed);
+            for (int n = 0; n < completed; n++) {
+                if (needsExecChain(pipelined[n], clientContext.getRequestConfig())) {
+                    responses[i + n] = executeFallback(target, batch.get(n), clientContext);
+                }
+            }
+            for (int n = completed; n < batch.size(); n++) {
+                responses[i + n] = executeFallback(target, batch.get(n), clientContext);
+            }
+            i += batch.size();
+        }
+        final List<HttpResponse> result = new ArrayList<>(responses.length);
+        for (final HttpResponse response: responses) {
+            result.add(response);
+        }
+        return result;
+    }
+
+    public List<HttpResponse> execute(
+            final HttpHost target,
+            final List<? extends HttpRequest> requests) throws IOException {
+        return execute(target, requests, null);
+    }
+
+    private boolean canPipeline(final HttpRequest request) {
+        if (request instanceof HttpEntityEnclosingRequest
+                && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+            return false;
+        }
+        return this.idempotencyRules.isIdempotent(request);
+    }
+
+    /**
+     * Determines whether the response to a pipelined request is subject to
+     * redirect handling or authentication by the execution chain.
+     */
+    private static boolean needsExecChain(final HttpResponse response, final RequestConfig config) {
+        switch (response.getStatusLine().getStatusCode()) {
+            case HttpStatus.SC_MOVED_PERMANENTLY:
+            case HttpStatus.SC_MOVED_TEMPORARILY:
+            case HttpStatus.SC_SEE_OTHER:
+            case HttpStatus.SC_TEMPORARY_REDIRECT:
+                return config.isRedirectsEnabled();
+            case HttpStatus.SC_UNAUTHORIZED:
+            case HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED:
+                return config.isAuthenticationEnabled();
+            default:
+                return false;
+        }
+    }
+
+    private HttpResponse executeFallback(
+            final HttpHost target,
+            final HttpRequest request,
+            final HttpClientContext context) throws IOException {
+        try (CloseableHttpResponse response = this.fallbackClient.execute(target, request, context)) {
+            final HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Writes the given requests onto a single connection and reads their
+     * responses.
+     *
+     * @return number of requests whose responses have been received.
+     */
+    private int executePipelined(
+            final HttpHost target,
+            final List<HttpRequest> batch,
+            final HttpClientContext context,
+            final HttpResponse[] responses) throws IOException {
+        final HttpRoute route;
+        try {
+            route = this.routePlanner.determineRoute(target, batch.get(0), context);
+        } catch (final HttpException ex) {
+            throw new ClientProtocolException(ex);
+        }
+        if (route.getProxyHost() != null) {
+            return 0;
+        }
+        final RequestConfig config = context.getRequestConfig();
+        final HttpClientConnection conn = leaseConnection(route, config);
+        int completed = 0;
+        boolean sent = false;
+        boolean reusable = false;
+        long keepAlive = -1;
+        try {
+            if (!conn.isOpen()) {
+                final int timeout = config.getConnectTimeout();
+                this.connManager.connect(conn, route, timeout > 0 ? timeout : 0, context);
+                this.connManager.routeComplete(conn, route, context);
+            }
+            final int timeout = config.getSocketTimeout();
+            if (timeout >= 0) {
+                conn.setSocketTimeout(timeout);
+            }
+            context.setAttribute(HttpCoreContext.HTTP_CONNECTION, conn);
+            context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+            context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, target);
+
+            final HttpRequestWrapper[] wrappers = new HttpRequestWrapper[batch.size()];
+            // Cookie origin and spec of each request, as all requests are processed
+            // before the first response
+            final Object[] cookieState = new Object[batch.size() * 2];
+            for (int n = 0; n < batch.size(); n++) {
+                final HttpRequestWrapper wrapper = HttpRequestWrapper.wrap(batch.get(n), target);
+                rewriteRequestURI(wrapper);
+                context.setAttribute(HttpCoreContext.HTTP_REQUEST, wrapper);
+                this.httpProcessor.process(wrapper, context);
+                conn.sendRequestHeader(wrapper);
+                wrappers[n] = wrapper;
+                cookieState[n * 2] = context.getAttribute(HttpClientContext.COOKIE_ORIGIN);
+                cookieState[n * 2 + 1] = context.getAttribute(HttpClientContext.COOKIE_SPEC);
+            }
+            conn.flush();
+            sent = true;
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("Pipelined " + batch.size() + " requests to " + route);
+            }
+
+            reusable = true;
+            while (completed < batch.size() && reusable) {
+                final HttpRequestWrapper wrapper = wrappers[completed];
+                HttpResponse response;
+                do {
+                    response = conn.receiveResponseHeader();
+                } while (response.getStatusLine().getStatusCode() < HttpStatus.SC_OK);
+                if (canResponseHaveBody(wrapper, response)) {
+                    conn.receiveResponseEntity(response);
+                    final HttpEntity entity = response.getEntity();
+                    if (entity != null) {
+                        response.setEntity(new BufferedHttpEntity(entity));
+                    }
+                }
+                context.setAttribute(HttpCoreContext.HTTP_REQUEST, wrapper);
+                context.setAttribute(HttpCoreContext.HTTP_RESPONSE, response);
+                context.setAttribute(HttpClientContext.COOKIE_ORIGIN, cookieState[completed * 2]);
+                context.setAttribute(HttpClientContext.COOKIE_SPEC, cookieState[completed * 2 + 1]);
+                this.httpProcessor.process(response, context);
+                responses[completed++] = response;
+                reusable = this.reuseStrategy.keepAlive(response, context);
+                if (reusable) {
+                    keepAlive = this.keepAliveStrategy.getKeepAliveDuration(response, context);
+                }
+            }
+            if (completed < batch.size() && this.log.isDebugEnabled()) {
+                this.log.debug("Connection to " + route + " closed by server; "
+                        + (batch.size() - completed) + " requests to be re-executed");
+            }
+        } catch (final HttpException ex) {
+            reusable = false;
+            throw new ClientProtocolException(ex);
+        } catch (final IOException ex) {
+            reusable = false;
+            // Pipelined requests are idempotent and can be re-executed unless
+            // they have not been sent at all or the server is not responding
+            if (!sent || ex instanceof InterruptedIOException) {
+                throw ex;
+            }
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("I/O error executing pipelined requests: " + ex.getMessage());
+            }
+        } finally {
+            if (!reusable) {
+                try {
+                    conn.close();
+                } catch (final IOException ex) {
+                    this.log.debug("I/O error closing connection", ex);
+                }
+            }
+            this.connManager.releaseConnection(conn, null, reusable ? keepAlive : 0, TimeUnit.MILLISECONDS);
+        }
+        return completed;
+    }
+
+    private HttpClientConnection leaseConnection(
+            final HttpRoute route,
+            final RequestConfig config) throws IOException {
+        final ConnectionRequest connRequest = this.connManager.requestConnection(route, null);
+        try {
+            final int timeout = config.getConnectionRequestTimeout();
+            return connRequest.get(timeout > 0 ? timeout : 0, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request aborted");
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            throw new IOException("Request execution failed", cause);
+        }
+    }
+
+    private static void rewriteRequestURI(final HttpRequestWrapper request) throws ProtocolException {
+        try {
+            final RequestTarget requestTarget = request.getRequestTarget();
+            if (requestTarget != null) {
+                request.setURI(requestTarget.toRelativeURI());
+            }
+        } catch (final URISyntaxException ex) {
+            throw new ProtocolException("Invalid URI: " + request.getRequestLine().getUri(), ex);
+        }
+    }
+
+    private static boolean canResponseHaveBody(final HttpRequest request, final HttpResponse response) {
+        if ("HEAD".equalsIgnoreCase(request.getRequestLine().getMethod())) {
+            return false;
+        }
+        final int status = response.getStatusLine().getStatusCode();
+        return status >= HttpStatus.SC_OK
+                && status != HttpStatus.SC_NO_CONTENT
+                && status != HttpStatus.SC_NOT_MODIFIED
+                && status != HttpStatus.SC_RESET_CONTENT;
+    }
+
+}
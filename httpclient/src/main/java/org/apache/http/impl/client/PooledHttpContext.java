@@ -0,0 +1,142 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.auth.AuthExchange;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * Execution context backed by a non-thread-safe attribute map that is
+ * re-used by HttpClient instances configured with
+ * {@link HttpClientBuilder#useContextRecycling()}. Pooled contexts are only
+ * created for requests executed without an explicit context and are
+ * recycled once request execution has been completed.
+ * <p>
+ * Besides the attribute map itself, the map of {@link AuthExchange}s is
+ * recycled along with the exchanges, which are reset to their initial state.
+ * </p>
+ * <p>
+ * Components that keep a reference to the execution context beyond request
+ * execution, for instance in order to continue processing on another thread,
+ * must call {@link #retain(HttpContext)} to prevent the context from being
+ * recycled. Components that merely hand the context to other threads during
+ * request execution, such as {@link org.apache.http.impl.execchain.HedgingExec},
+ * must stop those threads from accessing it before they return. As the auth
+ * exchanges are recycled, this includes the auth exchanges obtained from it.
+ * </p>
+ *
+ * @since 5.0
+ */
+@NotThreadSafe
+public final class PooledHttpContext extends HttpClientContext {
+
+    private static final int MAX_AUTH_EXCHANGES = 4;
+
+    private final AttributeMap attributes;
+    private boolean retained;
+
+    PooledHttpContext() {
+        this(new AttributeMap());
+    }
+
+    private PooledHttpContext(final AttributeMap attributes) {
+        super(attributes);
+        this.attributes = attributes;
+    }
+
+    /**
+     * Prevents the given context from being recycled if it is a pooled one.
+     */
+    public static void retain(final HttpContext context) {
+        if (context instanceof PooledHttpContext) {
+            ((PooledHttpContext) context).retained = true;
+        }
+    }
+
+    boolean isRetained() {
+        return this.retained;
+    }
+
+    void reset() {
+        final Object authExchanges = this.attributes.map.get(AUTH_EXCHANGE_MAP);
+        this.attributes.map.clear();
+        if (authExchanges instanceof Map<?, ?>
+                && ((Map<?, ?>) authExchanges).size() <= MAX_AUTH_EXCHANGES) {
+            for (final Object authExchange: ((Map<?, ?>) authExchanges).values()) {
+                if (!(authExchange instanceof AuthExchange)) {
+                    return;
+                }
+                ((AuthExchange) authExchange).reset();
+            }
+            this.attributes.map.put(AUTH_EXCHANGE_MAP, authExchanges);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.attributes.map.toString();
+    }
+
+    static final class AttributeMap implements HttpContext {
+
+        private final Map<String, Object> map;
+
+        AttributeMap() {
+            this.map = new HashMap<>();
+        }
+
+        @Override
+        public Object getAttribute(final String id) {
+            Args.notNull(id, "Id");
+            return this.map.get(id);
+        }
+
+        @Override
+        public void setAttribute(final String id, final Object obj) {
+            Args.notNull(id, "Id");
+            if (obj != null) {
+                this.map.put(id, obj);
+            } else {
+                this.map.remove(id);
+            }
+        }
+
+        @Override
+        public Object removeAttribute(final String id) {
+            Args.notNull(id, "Id");
+            return this.map.remove(id);
+        }
+
+    }
+
+}
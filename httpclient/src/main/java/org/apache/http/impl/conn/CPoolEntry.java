@@ -29,6 +29,7 @@ package org.apache.http.impl.conn;
 import java.io.IOException;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.http.HttpClientConnection;
@@ -43,8 +44,14 @@ import org.apache.http.pool.PoolEntry;
 @ThreadSafe
 class CPoolEntry extends PoolEntry<HttpRoute, ManagedHttpClientConnection> {
 
+    private static final long LEASED = -1;
+    private static final long EVICTED = -2;
+
     private final Log log;
+    private final AtomicLong evictionStamp;
     private volatile boolean routeComplete;
+    private volatile ConnectionEvictionScheduler.Node evictionNode;
+    private long releaseCount;
 
     public CPoolEntry(
             final Log log,
@@ -54,6 +61,7 @@ class CPoolEntry extends PoolEntry<HttpRoute, ManagedHttpClientConnection> {
             final long timeToLive, final TimeUnit tunit) {
         super(id, route, conn, timeToLive, tunit);
         this.log = log;
+        this.evictionStamp = new AtomicLong(LEASED);
     }
 
     public void markRouteComplete() {
@@ -64,6 +72,50 @@ class CPoolEntry extends PoolEntry<HttpRoute, ManagedHttpClientConnection> {
         return this.routeComplete;
     }
 
+    /**
+     * Marks the entry as about to be returned to the pool and returns a stamp
+     * identifying this particular release.
+     */
+    long markAvailable() {
+        final long stamp = ++this.releaseCount;
+        this.evictionStamp.set(stamp);
+        return stamp;
+    }
+
+    /**
+     * Marks the entry as leased, cancelling its pending eviction if any.
+     *
+     * @return {@code false} if the entry has already been evicted.
+     */
+    boolean markLeased() {
+        final ConnectionEvictionScheduler.Node node = this.evictionNode;
+        if (node != null) {
+            this.evictionNode = null;
+            node.cancel();
+        }
+        for (;;) {
+            final long stamp = this.evictionStamp.get();
+            if (stamp == EVICTED) {
+                return false;
+            }
+            if (stamp == LEASED || this.evictionStamp.compareAndSet(stamp, LEASED)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marks the entry as evicted provided it has not been leased since
+     * the release identified by the given stamp.
+     */
+    boolean markEvicted(final long stamp) {
+        return this.evictionStamp.compareAndSet(stamp, EVICTED);
+    }
+
+    void setEvictionNode(final ConnectionEvictionScheduler.Node node) {
+        this.evictionNode = node;
+    }
+
     public void closeConnection() throws IOException {
         final HttpClientConnection conn = getConnection();
         conn.close();
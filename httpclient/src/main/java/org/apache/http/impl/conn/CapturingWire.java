@@ -0,0 +1,163 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.http.Consts;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.util.Args;
+
+/**
+ * {@link Wire} that hands bytes over to a {@link WireCapture} instead of
+ * logging them synchronously. Internal class.
+ *
+ * @since 5.0
+ */
+@NotThreadSafe
+class CapturingWire extends Wire {
+
+    private static final String OUTPUT = ">> ";
+    private static final String INPUT = "<< ";
+    private static final byte[] TRUNCATED = "[truncated]".getBytes(Consts.ASCII);
+
+    private final WireCapture capture;
+    private final String id;
+    private final HttpRoute route;
+
+    private boolean sampled;
+    private int inputCount;
+    private int outputCount;
+
+    CapturingWire(final Log log, final String id, final WireCapture capture, final HttpRoute route) {
+        super(log, id);
+        this.capture = capture;
+        this.id = id;
+        this.route = route;
+    }
+
+    /**
+     * Decides whether the message exchange about to start is to be captured.
+     */
+    void startExchange() {
+        this.sampled = this.capture.sample(this.route);
+        this.inputCount = 0;
+        this.outputCount = 0;
+    }
+
+    @Override
+    public boolean enabled() {
+        return this.sampled && this.capture.isEnabled();
+    }
+
+    private void capture(final boolean input, final byte[] b, final int off, final int len) {
+        if (!enabled() || len == 0) {
+            return;
+        }
+        final int limit = this.capture.getTruncationLimit();
+        int n = len;
+        if (limit >= 0) {
+            final int count = input ? this.inputCount : this.outputCount;
+            if (count > limit) {
+                return;
+            }
+            final int remaining = limit - count;
+            if (n > remaining) {
+                n = remaining;
+            }
+            if (input) {
+                this.inputCount += n;
+            } else {
+                this.outputCount += n;
+            }
+        }
+        final String header = input ? INPUT : OUTPUT;
+        if (n > 0) {
+            this.capture.capture(this.id, header, b, off, n);
+        }
+        if (n < len) {
+            this.capture.capture(this.id, header, TRUNCATED, 0, TRUNCATED.length);
+            // No more bytes of this message are to be captured
+            if (input) {
+                this.inputCount = limit + 1;
+            } else {
+                this.outputCount = limit + 1;
+            }
+        }
+    }
+
+    @Override
+    public void output(final byte[] b, final int off, final int len) throws IOException {
+        Args.notNull(b, "Output");
+        capture(false, b, off, len);
+    }
+
+    @Override
+    public void input(final byte[] b, final int off, final int len) throws IOException {
+        Args.notNull(b, "Input");
+        capture(true, b, off, len);
+    }
+
+    @Override
+    public void output(final byte[] b) throws IOException {
+        Args.notNull(b, "Output");
+        capture(false, b, 0, b.length);
+    }
+
+    @Override
+    public void input(final byte[] b) throws IOException {
+        Args.notNull(b, "Input");
+        capture(true, b, 0, b.length);
+    }
+
+    @Override
+    public void output(final InputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output");
+        output(toByteArray(outstream));
+    }
+
+    @Override
+    public void input(final InputStream instream) throws IOException {
+        Args.notNull(instream, "Input");
+        input(toByteArray(instream));
+    }
+
+    private static byte[] toByteArray(final InputStream instream) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[1024];
+        int l;
+        while ((l = instream.read(tmp)) != -1) {
+            buffer.write(tmp, 0, l);
+        }
+        return buffer.toByteArray();
+    }
+
+}
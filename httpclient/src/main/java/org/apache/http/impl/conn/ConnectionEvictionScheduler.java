@@ -0,0 +1,297 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Background eviction scheduler that can be shared by any number of
+ * {@link PoolingHttpClientConnectionManager}s. Unlike
+ * {@link org.apache.http.impl.client.IdleConnectionEvictor}, which periodically
+ * scans the entire pool of a single connection manager, this class keeps
+ * a hashed timing wheel of idle deadlines. Connections are registered with
+ * the wheel when released back to the pool and are closed once their idle
+ * deadline or expiry time is reached, unless leased again in the meantime.
+ * The cost of each tick is therefore proportional to the number of
+ * connections actually due rather than the size of the pools.
+ * <p>
+ * Evicted connections are closed in place and discarded by the pool the next
+ * time it comes across them.
+ * </p>
+ *
+ * @see PoolingHttpClientConnectionManager#setEvictionScheduler(ConnectionEvictionScheduler, long, TimeUnit)
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public final class ConnectionEvictionScheduler {
+
+    public static final long DEFAULT_TICK_DURATION = 1000;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMs;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Node> pending;
+    private final Queue<Node> cancelled;
+    private final AtomicInteger scheduled;
+    private final Thread thread;
+
+    private volatile long startTime;
+    private volatile Exception exception;
+
+    /**
+     * @param threadFactory factory for the eviction thread; may be {@code null}.
+     * @param tickDuration granularity of the timing wheel.
+     * @param tunit time unit of the tick duration.
+     * @param wheelSize number of wheel buckets, rounded up to a power of two.
+     */
+    public ConnectionEvictionScheduler(
+            final ThreadFactory threadFactory,
+            final long tickDuration, final TimeUnit tunit,
+            final int wheelSize) {
+        super();
+        Args.positive(tickDuration, "Tick duration");
+        Args.notNull(tunit, "Time unit");
+        Args.positive(wheelSize, "Wheel size");
+        this.tickMs = Math.max(1, tunit.toMillis(tickDuration));
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicInteger(0);
+        this.thread = (threadFactory != null ? threadFactory : new DefaultThreadFactory()).newThread(
+                new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    runWheel();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (final Exception ex) {
+                    exception = ex;
+                }
+            }
+
+        });
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public ConnectionEvictionScheduler(final long tickDuration, final TimeUnit tunit) {
+        this(null, tickDuration, tunit, DEFAULT_WHEEL_SIZE);
+    }
+
+    public ConnectionEvictionScheduler() {
+        this(null, DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public void start() {
+        this.thread.start();
+    }
+
+    public void shutdown() {
+        this.thread.interrupt();
+    }
+
+    public boolean isRunning() {
+        return this.thread.isAlive();
+    }
+
+    public void awaitTermination(final long time, final TimeUnit tunit) throws InterruptedException {
+        this.thread.join((tunit != null ? tunit : TimeUnit.MILLISECONDS).toMillis(time));
+    }
+
+    /**
+     * Returns the number of connections currently awaiting eviction.
+     */
+    public int getScheduledCount() {
+        return this.scheduled.get();
+    }
+
+    /**
+     * Registers the pool entry released with the given stamp for eviction at
+     * the given deadline.
+     */
+    Node schedule(final CPoolEntry entry, final long stamp, final long deadline) {
+        final Node node = new Node(this, entry, stamp, deadline);
+        this.scheduled.incrementAndGet();
+        this.pending.add(node);
+        return node;
+    }
+
+    private void runWheel() throws InterruptedException {
+        this.startTime = System.currentTimeMillis();
+        long tick = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            final long tickDeadline = this.startTime + (tick + 1) * this.tickMs;
+            long now = System.currentTimeMillis();
+            while (now < tickDeadline) {
+                Thread.sleep(tickDeadline - now);
+                now = System.currentTimeMillis();
+            }
+            removeCancelled();
+            transferPending(tick);
+            expire(this.wheel[(int) (tick & this.mask)]);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Node node;
+        while ((node = this.cancelled.poll()) != null) {
+            if (node.bucket != null) {
+                node.bucket.remove(node);
+                this.scheduled.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferPending(final long tick) {
+        Node node;
+        while ((node = this.pending.poll()) != null) {
+            if (node.cancelled) {
+                this.scheduled.decrementAndGet();
+                continue;
+            }
+            final long due = Math.max(tick, (node.deadline - this.startTime) / this.tickMs);
+            node.remainingRounds = (due - tick) / this.wheel.length;
+            final Bucket bucket = this.wheel[(int) (due & this.mask)];
+            bucket.add(node);
+        }
+    }
+
+    private void expire(final Bucket bucket) {
+        Node node = bucket.head;
+        while (node != null) {
+            final Node next = node.next;
+            if (node.remainingRounds <= 0) {
+                bucket.remove(node);
+                if (!node.cancelled && node.entry.markEvicted(node.stamp)) {
+                    node.entry.close();
+                }
+                this.scheduled.decrementAndGet();
+            } else {
+                node.remainingRounds--;
+            }
+            node = next;
+        }
+    }
+
+    static final class Node {
+
+        private final ConnectionEvictionScheduler scheduler;
+        final CPoolEntry entry;
+        final long stamp;
+        final long deadline;
+
+        private volatile boolean cancelled;
+
+        // Accessed by the wheel thread only
+        private long remainingRounds;
+        private Bucket bucket;
+        private Node prev;
+        private Node next;
+
+        Node(final ConnectionEvictionScheduler scheduler,
+             final CPoolEntry entry, final long stamp, final long deadline) {
+            this.scheduler = scheduler;
+            this.entry = entry;
+            this.stamp = stamp;
+            this.deadline = deadline;
+        }
+
+        void cancel() {
+            if (!this.cancelled) {
+                this.cancelled = true;
+                this.scheduler.cancelled.add(this);
+            }
+        }
+
+    }
+
+    static final class Bucket {
+
+        private Node head;
+        private Node tail;
+
+        void add(final Node node) {
+            node.bucket = this;
+            node.prev = this.tail;
+            node.next = null;
+            if (this.tail != null) {
+                this.tail.next = node;
+            } else {
+                this.head = node;
+            }
+            this.tail = node;
+        }
+
+        void remove(final Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                this.head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                this.tail = node.prev;
+            }
+            node.bucket = null;
+            node.prev = null;
+            node.next = null;
+        }
+
+    }
+
+    static class DefaultThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, "Connection eviction scheduler");
+            t.setDaemon(true);
+            return t;
+        }
+
+    }
+
+}
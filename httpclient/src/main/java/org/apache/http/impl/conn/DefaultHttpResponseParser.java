@@ -39,7 +39,6 @@ import org.apache.http.ProtocolException;
 import org.apache.http.StatusLine;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.config.MessageConstraints;
-import org.apache.http.impl.DefaultHttpResponseFactory;
 import org.apache.http.impl.io.AbstractMessageParser;
 import org.apache.http.io.SessionInputBuffer;
 import org.apache.http.message.LineParser;
@@ -65,9 +64,9 @@ public class DefaultHttpResponseParser extends AbstractMessageParser<HttpRespons
      *
      * @param buffer the session input buffer.
      * @param lineParser the line parser. If {@code null}
-     *   {@link org.apache.http.message.BasicLineParser#INSTANCE} will be used.
+     *   {@link InterningLineParser#INSTANCE} will be used.
      * @param responseFactory HTTP response factory. If {@code null}
-     *   {@link DefaultHttpResponseFactory#INSTANCE} will be used.
+     *   {@link IndexedHttpResponseFactory#INSTANCE} will be used.
      * @param constraints the message constraints. If {@code null}
      *   {@link MessageConstraints#DEFAULT} will be used.
      *
@@ -78,9 +77,9 @@ public class DefaultHttpResponseParser extends AbstractMessageParser<HttpRespons
             final LineParser lineParser,
             final HttpResponseFactory responseFactory,
             final MessageConstraints constraints) {
-        super(buffer, lineParser, constraints);
+        super(buffer, lineParser != null ? lineParser : InterningLineParser.INSTANCE, constraints);
         this.responseFactory = responseFactory != null ? responseFactory :
-                DefaultHttpResponseFactory.INSTANCE;
+                IndexedHttpResponseFactory.INSTANCE;
         this.lineBuf = new CharArrayBuffer(128);
     }
 
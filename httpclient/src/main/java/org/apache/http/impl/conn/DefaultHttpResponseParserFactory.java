@@ -31,11 +31,9 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpResponseFactory;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.config.MessageConstraints;
-import org.apache.http.impl.DefaultHttpResponseFactory;
 import org.apache.http.io.HttpMessageParser;
 import org.apache.http.io.HttpMessageParserFactory;
 import org.apache.http.io.SessionInputBuffer;
-import org.apache.http.message.BasicLineParser;
 import org.apache.http.message.LineParser;
 
 /**
@@ -55,9 +53,9 @@ public class DefaultHttpResponseParserFactory implements HttpMessageParserFactor
             final LineParser lineParser,
             final HttpResponseFactory responseFactory) {
         super();
-        this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
+        this.lineParser = lineParser != null ? lineParser : InterningLineParser.INSTANCE;
         this.responseFactory = responseFactory != null ? responseFactory
-                : DefaultHttpResponseFactory.INSTANCE;
+                : IndexedHttpResponseFactory.INSTANCE;
     }
 
     public DefaultHttpResponseParserFactory(
@@ -27,8 +27,12 @@
 
 package org.apache.http.impl.conn;
 
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
@@ -38,15 +42,20 @@ import java.util.concurrent.ConcurrentHashMap;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.config.MessageConstraints;
 import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.ContentLengthStrategy;
 import org.apache.http.impl.DefaultBHttpClientConnection;
 import org.apache.http.io.HttpMessageParserFactory;
 import org.apache.http.io.HttpMessageWriterFactory;
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.io.SessionOutputBuffer;
 import org.apache.http.protocol.HttpContext;
 
 /**
@@ -57,11 +66,16 @@ import org.apache.http.protocol.HttpContext;
 public class DefaultManagedHttpClientConnection extends DefaultBHttpClientConnection
                                  implements ManagedHttpClientConnection, HttpContext {
 
-    private final String id;
     private final Map<String, Object> attributes;
 
+    private volatile String id;
     private volatile boolean shutdown;
 
+    private SessionBufferPool bufferPool;
+    private SessionBufferPool.Key bufferPoolKey;
+    private volatile boolean dirty;
+    private volatile int generation;
+
     public DefaultManagedHttpClientConnection(
             final String id,
             final int buffersize,
@@ -97,6 +111,67 @@ public class DefaultManagedHttpClientConnection extends DefaultBHttpClientConnec
         super.shutdown();
     }
 
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } catch (final IOException | RuntimeException ex) {
+            this.dirty = true;
+            throw ex;
+        }
+    }
+
+    @Override
+    public HttpResponse receiveResponseHeader() throws HttpException, IOException {
+        try {
+            return super.receiveResponseHeader();
+        } catch (final HttpException | IOException | RuntimeException ex) {
+            // The response parser may be left in an inconsistent state
+            this.dirty = true;
+            throw ex;
+        }
+    }
+
+    @Override
+    protected InputStream createInputStream(final long len, final SessionInputBuffer inbuffer) {
+        final InputStream instream = super.createInputStream(len, inbuffer);
+        return this.bufferPool != null ? new GuardedInputStream(instream, this, this.generation) : instream;
+    }
+
+    @Override
+    protected OutputStream createOutputStream(final long len, final SessionOutputBuffer outbuffer) {
+        final OutputStream outstream = super.createOutputStream(len, outbuffer);
+        return this.bufferPool != null ? new GuardedOutputStream(outstream, this, this.generation) : outstream;
+    }
+
+    void setBufferPool(final SessionBufferPool bufferPool, final SessionBufferPool.Key key) {
+        this.bufferPool = bufferPool;
+        this.bufferPoolKey = key;
+    }
+
+    /**
+     * Returns this connection to the buffer pool it was created with, provided
+     * it has been gracefully closed. Must be called only once the connection
+     * is no longer referenced by the connection manager.
+     */
+    boolean recycle() {
+        if (this.bufferPool == null || this.shutdown || this.dirty || isOpen()) {
+            return false;
+        }
+        return this.bufferPool.release(this, this.bufferPoolKey);
+    }
+
+    /**
+     * Prepares a pooled connection to be bound to a new socket. Content streams
+     * created before are invalidated.
+     */
+    void reset(final String id, final HttpRoute route) {
+        this.id = id;
+        this.attributes.clear();
+        getMetrics().reset();
+        this.generation++;
+    }
+
     @Override
     public Object getAttribute(final String id) {
         return this.attributes.get(id);
@@ -137,4 +212,97 @@ public class DefaultManagedHttpClientConnection extends DefaultBHttpClientConnec
         }
     }
 
+    static class GuardedInputStream extends FilterInputStream {
+
+        private final DefaultManagedHttpClientConnection conn;
+        private final int generation;
+
+        GuardedInputStream(final InputStream in, final DefaultManagedHttpClientConnection conn, final int generation) {
+            super(in);
+            this.conn = conn;
+            this.generation = generation;
+        }
+
+        private void ensureValid() throws IOException {
+            if (this.conn.generation != this.generation) {
+                throw new ConnectionClosedException("Connection is closed");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureValid();
+            return this.in.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            ensureValid();
+            return this.in.read(b, off, len);
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            ensureValid();
+            return this.in.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.conn.generation == this.generation ? this.in.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.conn.generation == this.generation) {
+                this.in.close();
+            }
+        }
+
+    }
+
+    static class GuardedOutputStream extends FilterOutputStream {
+
+        private final DefaultManagedHttpClientConnection conn;
+        private final int generation;
+
+        GuardedOutputStream(final OutputStream out, final DefaultManagedHttpClientConnection conn, final int generation) {
+            super(out);
+            this.conn = conn;
+            this.generation = generation;
+        }
+
+        private void ensureValid() throws IOException {
+            if (this.conn.generation != this.generation) {
+                throw new ConnectionClosedException("Connection is closed");
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            ensureValid();
+            this.out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            ensureValid();
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureValid();
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.conn.generation == this.generation) {
+                this.out.close();
+            }
+        }
+
+    }
+
 }
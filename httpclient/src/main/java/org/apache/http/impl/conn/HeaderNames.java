@@ -0,0 +1,147 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.Locale;
+
+/**
+ * Table of well-known HTTP header names used to intern names of parsed
+ * headers to canonical instances.
+ *
+ * @since 5.0
+ */
+final class HeaderNames {
+
+    private static final String[] COMMON = {
+        "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Accept-Ranges",
+        "Access-Control-Allow-Credentials", "Access-Control-Allow-Headers",
+        "Access-Control-Allow-Methods", "Access-Control-Allow-Origin",
+        "Access-Control-Expose-Headers", "Access-Control-Max-Age",
+        "Age", "Allow", "Alt-Svc", "Authorization", "Cache-Control", "Connection",
+        "Content-Disposition", "Content-Encoding", "Content-Language", "Content-Length",
+        "Content-Location", "Content-MD5", "Content-Range", "Content-Security-Policy",
+        "Content-Type", "Cookie", "Date", "ETag", "Expect", "Expires", "From", "Host",
+        "If-Match", "If-Modified-Since", "If-None-Match", "If-Range", "If-Unmodified-Since",
+        "Keep-Alive", "Last-Modified", "Link", "Location", "Max-Forwards", "Pragma",
+        "Proxy-Authenticate", "Proxy-Authorization", "Proxy-Connection", "Range", "Referer",
+        "Retry-After", "Server", "Set-Cookie", "Set-Cookie2", "Strict-Transport-Security",
+        "TE", "Trailer", "Transfer-Encoding", "Upgrade", "User-Agent", "Vary", "Via",
+        "Warning", "WWW-Authenticate", "X-Content-Type-Options", "X-Frame-Options",
+        "X-Powered-By", "X-Request-Id", "X-XSS-Protection"
+    };
+
+    // Open addressing table of canonical and lower case names
+    private static final String[] TABLE;
+    private static final int[] HASHES;
+    private static final int MASK;
+
+    static {
+        int size = 1;
+        while (size < COMMON.length * 8) {
+            size <<= 1;
+        }
+        TABLE = new String[size];
+        HASHES = new int[size];
+        MASK = size - 1;
+        for (final String name: COMMON) {
+            add(name);
+            add(name.toLowerCase(Locale.ROOT).intern());
+        }
+    }
+
+    private static void add(final String name) {
+        final int hash = hash(name);
+        int i = spread(hash) & MASK;
+        while (TABLE[i] != null) {
+            i = (i + 1) & MASK;
+        }
+        TABLE[i] = name;
+        HASHES[i] = hash;
+    }
+
+    private HeaderNames() {
+    }
+
+    /**
+     * Returns case insensitive hash code of the given char sequence region.
+     * Names equal ignoring case have the same hash code.
+     */
+    static int hash(final CharSequence s, final int start, final int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(s.charAt(i));
+        }
+        return h;
+    }
+
+    static int hash(final String s) {
+        return hash(s, 0, s.length());
+    }
+
+    static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char fold(final char ch) {
+        if (ch < 128) {
+            return ch >= 'A' && ch <= 'Z' ? (char) (ch + 32) : ch;
+        }
+        // Consistent with String#equalsIgnoreCase
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    /**
+     * Returns the canonical instance of the name contained in the given
+     * char sequence region, if it is a well-known header name spelled either
+     * in canonical or lower case, or {@code null} otherwise.
+     *
+     * @param hash case insensitive hash of the region as returned by
+     *   {@link #hash(CharSequence, int, int)}.
+     */
+    static String intern(final CharSequence s, final int start, final int end, final int hash) {
+        final int len = end - start;
+        for (int i = spread(hash) & MASK; TABLE[i] != null; i = (i + 1) & MASK) {
+            if (HASHES[i] == hash && matches(TABLE[i], s, start, len)) {
+                return TABLE[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(final String name, final CharSequence s, final int start, final int len) {
+        if (name.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (name.charAt(i) != s.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
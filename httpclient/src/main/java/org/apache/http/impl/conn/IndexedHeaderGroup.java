@@ -0,0 +1,283 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.message.HeaderGroup;
+
+/**
+ * {@link HeaderGroup} that indexes headers by name, which makes look-ups
+ * by name constant time operations instead of case insensitive scans over
+ * all headers of the group. The index is built on the first look-up and
+ * discarded whenever headers are removed or replaced.
+ * <p>
+ * This class is optimized for groups that are populated once and queried
+ * many times, such as headers of received response messages.
+ * </p>
+ *
+ * @since 5.0
+ */
+@NotThreadSafe
+public class IndexedHeaderGroup extends HeaderGroup {
+
+    private static final long serialVersionUID = 5519418640424693474L;
+
+    private static final Header[] EMPTY = new Header[0];
+
+    private transient Entry[] index;
+
+    public IndexedHeaderGroup() {
+        super();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.index = null;
+    }
+
+    @Override
+    public void addHeader(final Header header) {
+        super.addHeader(header);
+        if (header != null && this.index != null) {
+            add(this.index, header);
+        }
+    }
+
+    @Override
+    public void removeHeader(final Header header) {
+        super.removeHeader(header);
+        this.index = null;
+    }
+
+    @Override
+    public void updateHeader(final Header header) {
+        super.updateHeader(header);
+        this.index = null;
+    }
+
+    @Override
+    public void setHeaders(final Header[] headers) {
+        super.setHeaders(headers);
+        this.index = null;
+    }
+
+    @Override
+    public Header[] getHeaders(final String name) {
+        final Entry entry = lookup(name);
+        return entry != null ? Arrays.copyOf(entry.headers, entry.count) : EMPTY;
+    }
+
+    @Override
+    public Header getFirstHeader(final String name) {
+        final Entry entry = lookup(name);
+        return entry != null ? entry.headers[0] : null;
+    }
+
+    @Override
+    public Header getLastHeader(final String name) {
+        final Entry entry = lookup(name);
+        return entry != null ? entry.headers[entry.count - 1] : null;
+    }
+
+    @Override
+    public boolean containsHeader(final String name) {
+        return lookup(name) != null;
+    }
+
+    @Override
+    public HeaderIterator iterator() {
+        return new InvalidatingIterator(super.iterator());
+    }
+
+    @Override
+    public HeaderIterator iterator(final String name) {
+        final Entry entry = lookup(name);
+        return new EntryIterator(entry != null ? entry.headers : EMPTY, entry != null ? entry.count : 0);
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final IndexedHeaderGroup clone = (IndexedHeaderGroup) super.clone();
+        clone.index = null;
+        return clone;
+    }
+
+    private static int hash(final Header header) {
+        if (header instanceof LazyHeader) {
+            return ((LazyHeader) header).getNameHash();
+        }
+        return HeaderNames.hash(header.getName());
+    }
+
+    private static void add(final Entry[] table, final Header header) {
+        final String name = header.getName();
+        final int hash = hash(header);
+        final int i = HeaderNames.spread(hash) & (table.length - 1);
+        Entry entry = table[i];
+        while (entry != null && !(entry.hash == hash && entry.name.equalsIgnoreCase(name))) {
+            entry = entry.next;
+        }
+        if (entry == null) {
+            entry = new Entry(name, hash, table[i]);
+            table[i] = entry;
+        }
+        entry.add(header);
+    }
+
+    private Entry lookup(final String name) {
+        if (name == null) {
+            return null;
+        }
+        Entry[] table = this.index;
+        if (table == null) {
+            final Header[] headers = getAllHeaders();
+            int size = 8;
+            while (size < headers.length * 2) {
+                size <<= 1;
+            }
+            table = new Entry[size];
+            for (final Header header: headers) {
+                add(table, header);
+            }
+            this.index = table;
+        }
+        final int hash = HeaderNames.hash(name);
+        Entry entry = table[HeaderNames.spread(hash) & (table.length - 1)];
+        while (entry != null) {
+            if (entry.hash == hash && (entry.name == name || entry.name.equalsIgnoreCase(name))) {
+                return entry;
+            }
+            entry = entry.next;
+        }
+        return null;
+    }
+
+    static final class Entry {
+
+        final String name;
+        final int hash;
+        final Entry next;
+
+        Header[] headers;
+        int count;
+
+        Entry(final String name, final int hash, final Entry next) {
+            this.name = name;
+            this.hash = hash;
+            this.next = next;
+            this.headers = new Header[2];
+        }
+
+        void add(final Header header) {
+            if (this.count == this.headers.length) {
+                this.headers = Arrays.copyOf(this.headers, this.count * 2);
+            }
+            this.headers[this.count++] = header;
+        }
+
+    }
+
+    class InvalidatingIterator implements HeaderIterator {
+
+        private final HeaderIterator iterator;
+
+        InvalidatingIterator(final HeaderIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public Header nextHeader() {
+            return this.iterator.nextHeader();
+        }
+
+        @Override
+        public Object next() {
+            return this.iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            this.iterator.remove();
+            index = null;
+        }
+
+    }
+
+    class EntryIterator implements HeaderIterator {
+
+        private final Header[] headers;
+        private final int count;
+        private int pos;
+        private Header last;
+
+        EntryIterator(final Header[] headers, final int count) {
+            this.headers = headers;
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pos < this.count;
+        }
+
+        @Override
+        public Header nextHeader() {
+            if (this.pos >= this.count) {
+                throw new NoSuchElementException("Iteration already finished.");
+            }
+            this.last = this.headers[this.pos++];
+            return this.last;
+        }
+
+        @Override
+        public Object next() {
+            return nextHeader();
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException("No header to remove");
+            }
+            removeHeader(this.last);
+            this.last = null;
+        }
+
+    }
+
+}
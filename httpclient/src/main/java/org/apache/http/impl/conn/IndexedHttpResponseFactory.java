@@ -0,0 +1,89 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.Locale;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.ReasonPhraseCatalog;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * Response factory creating messages whose headers are kept in an
+ * {@link IndexedHeaderGroup}.
+ *
+ * @since 5.0
+ */
+@Immutable
+public class IndexedHttpResponseFactory extends DefaultHttpResponseFactory {
+
+    public static final IndexedHttpResponseFactory INSTANCE = new IndexedHttpResponseFactory();
+
+    public IndexedHttpResponseFactory(final ReasonPhraseCatalog catalog) {
+        super(catalog);
+    }
+
+    public IndexedHttpResponseFactory() {
+        this(EnglishReasonPhraseCatalog.INSTANCE);
+    }
+
+    @Override
+    public HttpResponse newHttpResponse(
+            final ProtocolVersion ver, final int status, final HttpContext context) {
+        Args.notNull(ver, "HTTP version");
+        final Locale loc = determineLocale(context);
+        final String reason = this.reasonCatalog.getReason(status, loc);
+        final StatusLine statusline = new BasicStatusLine(ver, status, reason);
+        return new IndexedHttpResponse(statusline, this.reasonCatalog, loc);
+    }
+
+    @Override
+    public HttpResponse newHttpResponse(
+            final StatusLine statusline, final HttpContext context) {
+        Args.notNull(statusline, "Status line");
+        return new IndexedHttpResponse(statusline, this.reasonCatalog, determineLocale(context));
+    }
+
+    static class IndexedHttpResponse extends BasicHttpResponse {
+
+        IndexedHttpResponse(
+                final StatusLine statusline, final ReasonPhraseCatalog catalog, final Locale locale) {
+            super(statusline, catalog, locale);
+            this.headergroup = new IndexedHeaderGroup();
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.io.Serializable;
+
+import org.apache.http.FormattedHeader;
+import org.apache.http.HeaderElement;
+import org.apache.http.ParseException;
+import org.apache.http.message.BasicHeaderValueParser;
+import org.apache.http.message.ParserCursor;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Header backed by the raw header line similar to
+ * {@link org.apache.http.message.BufferedHeader}. Well-known header names are
+ * interned to canonical instances without allocating a new string. The value
+ * and value elements are only extracted on first access and then cached.
+ *
+ * @since 5.0
+ */
+final class LazyHeader implements FormattedHeader, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -4367440416473187459L;
+
+    private final String name;
+    private final int nameHash;
+    private final CharArrayBuffer buffer;
+    private final int valuePos;
+
+    private volatile String value;
+    private transient volatile HeaderElement[] elements;
+
+    LazyHeader(final CharArrayBuffer buffer) throws ParseException {
+        super();
+        final int colon = buffer.indexOf(':');
+        if (colon == -1) {
+            throw new ParseException("Invalid header: " + buffer.toString());
+        }
+        int start = 0;
+        int end = colon;
+        while (start < end && HTTP.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        while (end > start && HTTP.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new ParseException("Invalid header: " + buffer.toString());
+        }
+        final int hash = HeaderNames.hash(buffer, start, end);
+        final String canonical = HeaderNames.intern(buffer, start, end, hash);
+        this.name = canonical != null ? canonical : buffer.substring(start, end);
+        this.nameHash = hash;
+        this.buffer = buffer;
+        this.valuePos = colon + 1;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns case insensitive hash code of the header name.
+     */
+    int getNameHash() {
+        return this.nameHash;
+    }
+
+    @Override
+    public String getValue() {
+        String s = this.value;
+        if (s == null) {
+            s = this.buffer.substringTrimmed(this.valuePos, this.buffer.length());
+            this.value = s;
+        }
+        return s;
+    }
+
+    @Override
+    public HeaderElement[] getElements() throws ParseException {
+        HeaderElement[] a = this.elements;
+        if (a == null) {
+            final ParserCursor cursor = new ParserCursor(0, this.buffer.length());
+            cursor.updatePos(this.valuePos);
+            a = BasicHeaderValueParser.INSTANCE.parseElements(this.buffer, cursor);
+            this.elements = a;
+        }
+        return a.length > 0 ? a.clone() : a;
+    }
+
+    @Override
+    public int getValuePos() {
+        return this.valuePos;
+    }
+
+    @Override
+    public CharArrayBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    @Override
+    public String toString() {
+        return this.buffer.toString();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return super.clone();
+    }
+
+}
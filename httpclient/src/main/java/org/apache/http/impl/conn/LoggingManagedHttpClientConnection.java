@@ -29,10 +29,12 @@ package org.apache.http.impl.conn;
 
 import org.apache.commons.logging.Log;
 import org.apache.http.Header;
+import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.config.MessageConstraints;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.ContentLengthStrategy;
 import org.apache.http.io.HttpMessageParserFactory;
 import org.apache.http.io.HttpMessageWriterFactory;
@@ -49,13 +51,18 @@ class LoggingManagedHttpClientConnection extends DefaultManagedHttpClientConnect
 
     private final Log log;
     private final Log headerlog;
-    private final Wire wire;
+    private final Log wirelog;
+    private final WireCapture wireCapture;
+    private Wire wire;
+    private CapturingWire capturingWire;
 
     public LoggingManagedHttpClientConnection(
             final String id,
             final Log log,
             final Log headerlog,
             final Log wirelog,
+            final WireCapture wireCapture,
+            final HttpRoute route,
             final int buffersize,
             final int fragmentSizeHint,
             final CharsetDecoder chardecoder,
@@ -70,7 +77,44 @@ class LoggingManagedHttpClientConnection extends DefaultManagedHttpClientConnect
                 requestWriterFactory, responseParserFactory);
         this.log = log;
         this.headerlog = headerlog;
-        this.wire = new Wire(wirelog, id);
+        this.wirelog = wirelog;
+        this.wireCapture = wireCapture;
+        initWire(id, route);
+    }
+
+    public LoggingManagedHttpClientConnection(
+            final String id,
+            final Log log,
+            final Log headerlog,
+            final Log wirelog,
+            final int buffersize,
+            final int fragmentSizeHint,
+            final CharsetDecoder chardecoder,
+            final CharsetEncoder charencoder,
+            final MessageConstraints constraints,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy,
+            final HttpMessageWriterFactory<HttpRequest> requestWriterFactory,
+            final HttpMessageParserFactory<HttpResponse> responseParserFactory) {
+        this(id, log, headerlog, wirelog, null, null, buffersize, fragmentSizeHint, chardecoder, charencoder,
+                constraints, incomingContentStrategy, outgoingContentStrategy,
+                requestWriterFactory, responseParserFactory);
+    }
+
+    private void initWire(final String id, final HttpRoute route) {
+        if (this.wireCapture != null) {
+            this.capturingWire = new CapturingWire(this.wirelog, id, this.wireCapture, route);
+            this.wire = this.capturingWire;
+        } else {
+            this.capturingWire = null;
+            this.wire = new Wire(this.wirelog, id);
+        }
+    }
+
+    @Override
+    void reset(final String id, final HttpRoute route) {
+        super.reset(id, route);
+        initWire(id, route);
     }
 
     @Override
@@ -103,7 +147,8 @@ class LoggingManagedHttpClientConnection extends DefaultManagedHttpClientConnect
     @Override
     protected InputStream getSocketInputStream(final Socket socket) throws IOException {
         InputStream in = super.getSocketInputStream(socket);
-        if (this.wire.enabled()) {
+        // Captured connections are always wrapped as capturing can be enabled at runtime
+        if (this.capturingWire != null || this.wire.enabled()) {
             in = new LoggingInputStream(in, this.wire);
         }
         return in;
@@ -112,12 +157,20 @@ class LoggingManagedHttpClientConnection extends DefaultManagedHttpClientConnect
     @Override
     protected OutputStream getSocketOutputStream(final Socket socket) throws IOException {
         OutputStream out = super.getSocketOutputStream(socket);
-        if (this.wire.enabled()) {
+        if (this.capturingWire != null || this.wire.enabled()) {
             out = new LoggingOutputStream(out, this.wire);
         }
         return out;
     }
 
+    @Override
+    public void sendRequestHeader(final HttpRequest request) throws HttpException, IOException {
+        if (this.capturingWire != null) {
+            this.capturingWire.startExchange();
+        }
+        super.sendRequestHeader(request);
+    }
+
     @Override
     protected void onResponseReceived(final HttpResponse response) {
         if (response != null && this.headerlog.isDebugEnabled()) {
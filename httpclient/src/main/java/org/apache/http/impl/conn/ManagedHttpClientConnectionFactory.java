@@ -69,15 +69,24 @@ public class ManagedHttpClientConnectionFactory
     private final HttpMessageParserFactory<HttpResponse> responseParserFactory;
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
+    private final WireCapture wireCapture;
+    private final SessionBufferPool bufferPool;
 
     /**
-     * @since 4.4
+     * @param wireCapture asynchronous wire capture; if {@code null} the wire log
+     *   is written synchronously by I/O threads.
+     * @param bufferPool pool of session buffers to be re-used by new connections;
+     *   if {@code null} every connection allocates its own buffers.
+     *
+     * @since 5.0
      */
     public ManagedHttpClientConnectionFactory(
             final HttpMessageWriterFactory<HttpRequest> requestWriterFactory,
             final HttpMessageParserFactory<HttpResponse> responseParserFactory,
             final ContentLengthStrategy incomingContentStrategy,
-            final ContentLengthStrategy outgoingContentStrategy) {
+            final ContentLengthStrategy outgoingContentStrategy,
+            final WireCapture wireCapture,
+            final SessionBufferPool bufferPool) {
         super();
         this.requestWriterFactory = requestWriterFactory != null ? requestWriterFactory :
                 DefaultHttpRequestWriterFactory.INSTANCE;
@@ -87,6 +96,56 @@ public class ManagedHttpClientConnectionFactory
                 LaxContentLengthStrategy.INSTANCE;
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 StrictContentLengthStrategy.INSTANCE;
+        this.wireCapture = wireCapture;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * @param wireCapture asynchronous wire capture; if {@code null} the wire log
+     *   is written synchronously by I/O threads.
+     *
+     * @since 5.0
+     */
+    public ManagedHttpClientConnectionFactory(
+            final HttpMessageWriterFactory<HttpRequest> requestWriterFactory,
+            final HttpMessageParserFactory<HttpResponse> responseParserFactory,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy,
+            final WireCapture wireCapture) {
+        this(requestWriterFactory, responseParserFactory, incomingContentStrategy, outgoingContentStrategy,
+                wireCapture, null);
+    }
+
+    /**
+     * @since 4.4
+     */
+    public ManagedHttpClientConnectionFactory(
+            final HttpMessageWriterFactory<HttpRequest> requestWriterFactory,
+            final HttpMessageParserFactory<HttpResponse> responseParserFactory,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy) {
+        this(requestWriterFactory, responseParserFactory, incomingContentStrategy, outgoingContentStrategy, null);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public ManagedHttpClientConnectionFactory(final WireCapture wireCapture) {
+        this(null, null, null, null, wireCapture, null);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public ManagedHttpClientConnectionFactory(final SessionBufferPool bufferPool) {
+        this(null, null, null, null, null, bufferPool);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public SessionBufferPool getBufferPool() {
+        return this.bufferPool;
     }
 
     public ManagedHttpClientConnectionFactory(
@@ -107,6 +166,18 @@ public class ManagedHttpClientConnectionFactory
     @Override
     public ManagedHttpClientConnection create(final HttpRoute route, final ConnectionConfig config) {
         final ConnectionConfig cconfig = config != null ? config : ConnectionConfig.DEFAULT;
+        final String id = "http-outgoing-" + Long.toString(COUNTER.getAndIncrement());
+        final SessionBufferPool.Key bufferPoolKey;
+        if (this.bufferPool != null) {
+            bufferPoolKey = new SessionBufferPool.Key(this, cconfig);
+            final DefaultManagedHttpClientConnection conn = this.bufferPool.lease(bufferPoolKey);
+            if (conn != null) {
+                conn.reset(id, route);
+                return conn;
+            }
+        } else {
+            bufferPoolKey = null;
+        }
         CharsetDecoder chardecoder = null;
         CharsetEncoder charencoder = null;
         final Charset charset = cconfig.getCharset();
@@ -122,12 +193,13 @@ public class ManagedHttpClientConnectionFactory
             charencoder.onMalformedInput(malformedInputAction);
             charencoder.onUnmappableCharacter(unmappableInputAction);
         }
-        final String id = "http-outgoing-" + Long.toString(COUNTER.getAndIncrement());
-        return new LoggingManagedHttpClientConnection(
+        final LoggingManagedHttpClientConnection conn = new LoggingManagedHttpClientConnection(
                 id,
                 log,
                 headerlog,
                 wirelog,
+                wireCapture,
+                route,
                 cconfig.getBufferSize(),
                 cconfig.getFragmentSizeHint(),
                 chardecoder,
@@ -137,6 +209,10 @@ public class ManagedHttpClientConnectionFactory
                 outgoingContentStrategy,
                 requestWriterFactory,
                 responseParserFactory);
+        if (this.bufferPool != null) {
+            conn.setBufferPool(this.bufferPool, bufferPoolKey);
+        }
+        return conn;
     }
 
 }
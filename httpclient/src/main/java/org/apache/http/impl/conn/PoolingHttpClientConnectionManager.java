@@ -108,6 +108,9 @@ public class PoolingHttpClientConnectionManager
     private final HttpClientConnectionOperator connectionOperator;
     private final AtomicBoolean isShutDown;
 
+    private volatile ConnectionEvictionScheduler evictionScheduler;
+    private volatile long maxIdleTimeMs;
+
     private static Registry<ConnectionSocketFactory> getDefaultRegistry() {
         return RegistryBuilder.<ConnectionSocketFactory>create()
                 .register("http", PlainConnectionSocketFactory.getSocketFactory())
@@ -276,12 +279,21 @@ public class PoolingHttpClientConnectionManager
             final Future<CPoolEntry> future,
             final long timeout,
             final TimeUnit tunit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
-        final CPoolEntry entry;
+        CPoolEntry entry;
         try {
             entry = future.get(timeout, tunit);
             if (entry == null || future.isCancelled()) {
                 throw new InterruptedException();
             }
+            while (!entry.markLeased()) {
+                // Evicted by the scheduler while being handed out
+                this.pool.release(entry, false);
+                final Future<CPoolEntry> next = this.pool.lease(entry.getRoute(), entry.getState(), null);
+                entry = next.get(timeout, tunit);
+                if (entry == null || next.isCancelled()) {
+                    throw new InterruptedException();
+                }
+            }
             Asserts.check(entry.getConnection() != null, "Pool entry with no connection");
             if (this.log.isDebugEnabled()) {
                 this.log.debug("Connection leased: " + format(entry) + formatStats(entry.getRoute()));
@@ -320,14 +332,38 @@ public class PoolingHttpClientConnectionManager
                     }
                 }
             } finally {
-                this.pool.release(entry, conn.isOpen() && entry.isRouteComplete());
+                final boolean reusable = conn.isOpen() && entry.isRouteComplete();
+                if (reusable) {
+                    scheduleEviction(entry);
+                }
+                this.pool.release(entry, reusable);
                 if (this.log.isDebugEnabled()) {
                     this.log.debug("Connection released: " + format(entry) + formatStats(entry.getRoute()));
                 }
+                // The entry has been discarded by the pool; its session buffers may be re-used
+                if (!reusable && conn instanceof DefaultManagedHttpClientConnection) {
+                    ((DefaultManagedHttpClientConnection) conn).recycle();
+                }
             }
         }
     }
 
+    private void scheduleEviction(final CPoolEntry entry) {
+        final long stamp = entry.markAvailable();
+        final ConnectionEvictionScheduler scheduler = this.evictionScheduler;
+        if (scheduler == null) {
+            return;
+        }
+        long deadline = entry.getExpiry();
+        final long maxIdle = this.maxIdleTimeMs;
+        if (maxIdle > 0) {
+            deadline = Math.min(deadline, entry.getUpdated() + maxIdle);
+        }
+        if (deadline != Long.MAX_VALUE) {
+            entry.setEvictionNode(scheduler.schedule(entry, stamp, deadline));
+        }
+    }
+
     @Override
     public void connect(
             final HttpClientConnection managedConn,
@@ -414,6 +450,28 @@ public class PoolingHttpClientConnectionManager
         this.pool.closeExpired();
     }
 
+    /**
+     * Registers connections released back to the pool with the given scheduler,
+     * which closes them once they have been idle for longer than the given
+     * period or have expired, whichever comes first. The scheduler may be shared
+     * by several connection managers and must be started and shut down
+     * by the caller.
+     *
+     * @param scheduler the eviction scheduler or {@code null} to stop scheduling
+     *   evictions of released connections.
+     * @param maxIdleTime maximum idle time; a non-positive value means idle
+     *   connections are evicted only once expired.
+     * @param tunit time unit of the maximum idle time.
+     *
+     * @since 5.0
+     */
+    public void setEvictionScheduler(
+            final ConnectionEvictionScheduler scheduler,
+            final long maxIdleTime, final TimeUnit tunit) {
+        this.maxIdleTimeMs = tunit != null ? tunit.toMillis(maxIdleTime) : maxIdleTime;
+        this.evictionScheduler = scheduler;
+    }
+
     @Override
     public int getMaxTotal() {
         return this.pool.getMaxTotal();
@@ -0,0 +1,285 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.util.Args;
+import org.apache.http.util.LangUtils;
+
+/**
+ * Pool of session I/O buffers shared by the connections created by
+ * a {@link ManagedHttpClientConnectionFactory}.
+ * <p>
+ * Session input and output buffers, along with charset decoders and encoders,
+ * message parsers and writers, are allocated by the connection base class when
+ * a connection object is created and cannot be replaced afterwards. The pool
+ * therefore keeps connection objects that have been gracefully closed and
+ * discarded by {@link PoolingHttpClientConnectionManager} and re-binds them
+ * to new sockets instead of allocating fresh buffers for every new connection.
+ * Only connections created with the same buffer configuration are re-used.
+ * </p>
+ * <p>
+ * Connections that have been shut down or closed while a message was being
+ * parsed are never pooled. Content streams of responses received over
+ * a pooled connection are invalidated once the connection gets re-used.
+ * </p>
+ *
+ * @see ManagedHttpClientConnectionFactory#ManagedHttpClientConnectionFactory(SessionBufferPool)
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class SessionBufferPool {
+
+    public static final int DEFAULT_MAX_IDLE = 64;
+
+    private final Map<Key, Deque<DefaultManagedHttpClientConnection>> map;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong recycled;
+    private final AtomicLong discarded;
+
+    private int maxIdle;
+    private int idle;
+
+    /**
+     * @param maxIdle maximum number of buffer sets kept by the pool.
+     */
+    public SessionBufferPool(final int maxIdle) {
+        super();
+        this.maxIdle = Args.notNegative(maxIdle, "Max idle");
+        this.map = new HashMap<>();
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.recycled = new AtomicLong(0);
+        this.discarded = new AtomicLong(0);
+    }
+
+    public SessionBufferPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Returns a pooled connection created with the given key or {@code null}
+     * if none is available.
+     */
+    DefaultManagedHttpClientConnection lease(final Key key) {
+        final DefaultManagedHttpClientConnection conn;
+        synchronized (this.map) {
+            final Deque<DefaultManagedHttpClientConnection> deque = this.map.get(key);
+            conn = deque != null ? deque.pollFirst() : null;
+            if (conn != null) {
+                this.idle--;
+            }
+        }
+        if (conn != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+        return conn;
+    }
+
+    /**
+     * Returns the connection to the pool.
+     *
+     * @return {@code true} if the connection has been pooled, {@code false}
+     *   if the pool is full.
+     */
+    boolean release(final DefaultManagedHttpClientConnection conn, final Key key) {
+        synchronized (this.map) {
+            if (this.idle < this.maxIdle) {
+                Deque<DefaultManagedHttpClientConnection> deque = this.map.get(key);
+                if (deque == null) {
+                    deque = new ArrayDeque<>();
+                    this.map.put(key, deque);
+                }
+                deque.addFirst(conn);
+                this.idle++;
+                this.recycled.incrementAndGet();
+                return true;
+            }
+        }
+        this.discarded.incrementAndGet();
+        return false;
+    }
+
+    public int getMaxIdle() {
+        synchronized (this.map) {
+            return this.maxIdle;
+        }
+    }
+
+    /**
+     * Sets the maximum number of buffer sets kept by the pool. Excess
+     * buffer sets are discarded.
+     */
+    public void setMaxIdle(final int maxIdle) {
+        Args.notNegative(maxIdle, "Max idle");
+        synchronized (this.map) {
+            this.maxIdle = maxIdle;
+            for (final Deque<DefaultManagedHttpClientConnection> deque: this.map.values()) {
+                while (this.idle > maxIdle && deque.pollLast() != null) {
+                    this.idle--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buffer sets currently kept by the pool.
+     */
+    public int getIdleCount() {
+        synchronized (this.map) {
+            return this.idle;
+        }
+    }
+
+    /**
+     * Returns the number of new connections that re-used pooled buffers.
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the number of new connections that had to allocate buffers.
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the number of buffer sets returned to the pool.
+     */
+    public long getRecycledCount() {
+        return this.recycled.get();
+    }
+
+    /**
+     * Returns the number of buffer sets discarded because the pool was full.
+     */
+    public long getDiscardedCount() {
+        return this.discarded.get();
+    }
+
+    /**
+     * Discards all pooled buffer sets.
+     */
+    public void clear() {
+        synchronized (this.map) {
+            this.map.clear();
+            this.idle = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[idle: " + getIdleCount() +
+                "; max idle: " + getMaxIdle() +
+                "; hits: " + getHitCount() +
+                "; misses: " + getMissCount() +
+                "; recycled: " + getRecycledCount() +
+                "; discarded: " + getDiscardedCount() + "]";
+    }
+
+    /**
+     * Identifies connections with interchangeable buffers: connections created
+     * by the same factory with the same buffer and charset configuration.
+     */
+    static final class Key {
+
+        private final Object factory;
+        private final int bufferSize;
+        private final int fragmentSizeHint;
+        private final Charset charset;
+        private final CodingErrorAction malformedInputAction;
+        private final CodingErrorAction unmappableInputAction;
+        private final int maxLineLength;
+        private final int maxHeaderCount;
+        private final int hash;
+
+        Key(final Object factory, final ConnectionConfig config) {
+            final MessageConstraints constraints = config.getMessageConstraints() != null ?
+                    config.getMessageConstraints() : MessageConstraints.DEFAULT;
+            this.factory = factory;
+            this.bufferSize = config.getBufferSize();
+            this.fragmentSizeHint = config.getFragmentSizeHint();
+            this.charset = config.getCharset();
+            this.malformedInputAction = config.getMalformedInputAction();
+            this.unmappableInputAction = config.getUnmappableInputAction();
+            this.maxLineLength = constraints.getMaxLineLength();
+            this.maxHeaderCount = constraints.getMaxHeaderCount();
+            int h = LangUtils.HASH_SEED;
+            h = LangUtils.hashCode(h, this.factory);
+            h = LangUtils.hashCode(h, this.bufferSize);
+            h = LangUtils.hashCode(h, this.fragmentSizeHint);
+            h = LangUtils.hashCode(h, this.charset);
+            h = LangUtils.hashCode(h, this.malformedInputAction);
+            h = LangUtils.hashCode(h, this.unmappableInputAction);
+            h = LangUtils.hashCode(h, this.maxLineLength);
+            h = LangUtils.hashCode(h, this.maxHeaderCount);
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                final Key that = (Key) obj;
+                return this.factory == that.factory
+                        && this.bufferSize == that.bufferSize
+                        && this.fragmentSizeHint == that.fragmentSizeHint
+                        && LangUtils.equals(this.charset, that.charset)
+                        && LangUtils.equals(this.malformedInputAction, that.malformedInputAction)
+                        && LangUtils.equals(this.unmappableInputAction, that.unmappableInputAction)
+                        && this.maxLineLength == that.maxLineLength
+                        && this.maxHeaderCount == that.maxHeaderCount;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+}
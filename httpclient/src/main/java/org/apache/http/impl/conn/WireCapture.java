@@ -0,0 +1,346 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.util.Args;
+
+/**
+ * Asynchronous alternative to the synchronous wire log of
+ * {@link ManagedHttpClientConnectionFactory}. Connections created by a factory
+ * configured with a wire capture copy the raw bytes sent and received into
+ * a bounded lock-free ring buffer. The bytes are formatted and written to the
+ * wire log by a background thread, so that I/O threads never block on logging.
+ * Records are dropped, rather than blocking the I/O thread, if the ring buffer
+ * is full.
+ * <p>
+ * Message exchanges are sampled: whether the bytes of a request and its response
+ * are captured is decided when the request is submitted, based on the sampling
+ * rate configured for its route or the default one. The number of bytes captured
+ * per message can be limited, the remainder of the message being truncated.
+ * Capturing can be enabled and disabled at runtime.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public final class WireCapture {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_FLUSH_INTERVAL = 10;
+
+    private final Log log;
+    private final int mask;
+    private final Record[] records;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail;
+    private final AtomicLong dropped;
+    private final ConcurrentMap<HttpRoute, Double> routeSamplingRates;
+    private final long flushIntervalMs;
+    private final Thread thread;
+
+    // Accessed by the logging thread only
+    private long head;
+
+    private volatile boolean enabled;
+    private volatile double samplingRate;
+    private volatile int truncationLimit;
+
+    /**
+     * @param log the wire log; if {@code null} {@code org.apache.http.wire} is used.
+     * @param threadFactory factory for the logging thread; may be {@code null}.
+     * @param capacity capacity of the ring buffer in records, rounded up to
+     *   a power of two.
+     * @param flushInterval maximum delay before captured records are logged.
+     * @param tunit time unit of the flush interval.
+     */
+    public WireCapture(
+            final Log log,
+            final ThreadFactory threadFactory,
+            final int capacity,
+            final long flushInterval, final TimeUnit tunit) {
+        super();
+        Args.positive(capacity, "Capacity");
+        Args.positive(flushInterval, "Flush interval");
+        Args.notNull(tunit, "Time unit");
+        this.log = log != null ? log : LogFactory.getLog("org.apache.http.wire");
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.records = new Record[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.tail = new AtomicLong(0);
+        this.dropped = new AtomicLong(0);
+        this.routeSamplingRates = new ConcurrentHashMap<>();
+        this.flushIntervalMs = Math.max(1, tunit.toMillis(flushInterval));
+        this.thread = (threadFactory != null ? threadFactory : new DefaultThreadFactory()).newThread(
+                new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        if (drain() == 0) {
+                            Thread.sleep(flushIntervalMs);
+                        }
+                    }
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    drain();
+                }
+            }
+
+        });
+        this.enabled = true;
+        this.samplingRate = 1.0;
+        this.truncationLimit = -1;
+    }
+
+    public WireCapture() {
+        this(null, null, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public void start() {
+        this.thread.start();
+    }
+
+    public void shutdown() {
+        this.thread.interrupt();
+    }
+
+    public boolean isRunning() {
+        return this.thread.isAlive();
+    }
+
+    public void awaitTermination(final long time, final TimeUnit tunit) throws InterruptedException {
+        this.thread.join((tunit != null ? tunit : TimeUnit.MILLISECONDS).toMillis(time));
+    }
+
+    /**
+     * Returns {@code true} if capturing is enabled and the wire log accepts
+     * debug messages.
+     */
+    public boolean isEnabled() {
+        return this.enabled && this.log.isDebugEnabled();
+    }
+
+    /**
+     * Enables or disables capturing. Exchanges already in progress are not affected.
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSamplingRate() {
+        return this.samplingRate;
+    }
+
+    /**
+     * Sets the fraction of message exchanges to be captured on routes without
+     * a sampling rate of their own.
+     *
+     * @param samplingRate a value between {@code 0.0} (none) and {@code 1.0} (all).
+     */
+    public void setSamplingRate(final double samplingRate) {
+        Args.check(samplingRate >= 0.0 && samplingRate <= 1.0, "Sampling rate must be between 0 and 1");
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Sets the fraction of message exchanges to be captured on the given route.
+     *
+     * @param route the route.
+     * @param samplingRate a value between {@code 0.0} (none) and {@code 1.0} (all)
+     *   or a negative value to fall back to the default sampling rate.
+     */
+    public void setSamplingRate(final HttpRoute route, final double samplingRate) {
+        Args.notNull(route, "Route");
+        Args.check(samplingRate <= 1.0, "Sampling rate must not exceed 1");
+        if (samplingRate < 0.0) {
+            this.routeSamplingRates.remove(route);
+        } else {
+            this.routeSamplingRates.put(route, Double.valueOf(samplingRate));
+        }
+    }
+
+    public int getTruncationLimit() {
+        return this.truncationLimit;
+    }
+
+    /**
+     * Sets the maximum number of bytes captured per message, including its head.
+     *
+     * @param truncationLimit the limit or a negative value for no limit.
+     */
+    public void setTruncationLimit(final int truncationLimit) {
+        this.truncationLimit = truncationLimit;
+    }
+
+    /**
+     * Returns the number of records discarded because the ring buffer was full.
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Decides whether the next message exchange on the given route is to be captured.
+     */
+    boolean sample(final HttpRoute route) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final Double routeRate = route != null ? this.routeSamplingRates.get(route) : null;
+        final double rate = routeRate != null ? routeRate.doubleValue() : this.samplingRate;
+        if (rate >= 1.0) {
+            return true;
+        }
+        return rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Copies the given bytes into the ring buffer.
+     *
+     * @return {@code false} if the record has been dropped.
+     */
+    boolean capture(final String id, final String header, final byte[] b, final int off, final int len) {
+        final byte[] data = new byte[len];
+        System.arraycopy(b, off, data, 0, len);
+        final Record record = new Record(id, header, data);
+        long pos = this.tail.get();
+        for (;;) {
+            final int idx = (int) (pos & this.mask);
+            final long diff = this.sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (this.tail.compareAndSet(pos, pos + 1)) {
+                    this.records[idx] = record;
+                    this.sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+                pos = this.tail.get();
+            } else if (diff < 0) {
+                this.dropped.incrementAndGet();
+                return false;
+            } else {
+                pos = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Logs all records currently in the ring buffer.
+     *
+     * @return the number of records logged.
+     */
+    int drain() {
+        int count = 0;
+        final StringBuilder buffer = new StringBuilder();
+        for (;;) {
+            final int idx = (int) (this.head & this.mask);
+            if (this.sequences.get(idx) != this.head + 1) {
+                return count;
+            }
+            final Record record = this.records[idx];
+            this.records[idx] = null;
+            this.sequences.lazySet(idx, this.head + this.records.length);
+            this.head++;
+            count++;
+            format(record, buffer);
+        }
+    }
+
+    private void format(final Record record, final StringBuilder buffer) {
+        buffer.setLength(0);
+        final byte[] data = record.data;
+        for (int i = 0; i < data.length; i++) {
+            final int ch = data[i] & 0xff;
+            if (ch == 13) {
+                buffer.append("[\\r]");
+            } else if (ch == 10) {
+                buffer.append("[\\n]");
+                log(record, buffer);
+                buffer.setLength(0);
+            } else if ((ch < 32) || (ch > 127)) {
+                buffer.append("[0x");
+                buffer.append(Integer.toHexString(ch));
+                buffer.append("]");
+            } else {
+                buffer.append((char) ch);
+            }
+        }
+        if (buffer.length() > 0) {
+            log(record, buffer);
+        }
+    }
+
+    private void log(final Record record, final CharSequence line) {
+        this.log.debug(record.id + " " + record.header + "\"" + line + "\"");
+    }
+
+    static final class Record {
+
+        final String id;
+        final String header;
+        final byte[] data;
+
+        Record(final String id, final String header, final byte[] data) {
+            this.id = id;
+            this.header = header;
+            this.data = data;
+        }
+
+    }
+
+    static class DefaultThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, "Wire capture");
+            t.setDaemon(true);
+            return t;
+        }
+
+    }
+
+}
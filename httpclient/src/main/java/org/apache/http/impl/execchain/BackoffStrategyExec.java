@@ -29,11 +29,14 @@ package org.apache.http.impl.execchain;
 
 import java.io.IOException;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpException;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.client.BackoffManager;
+import org.apache.http.client.CircuitBreakerOpenException;
 import org.apache.http.client.ConnectionBackoffStrategy;
+import org.apache.http.client.LatencyAwareBackoffManager;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
@@ -73,6 +76,7 @@ public class BackoffStrategyExec implements ClientExecChain {
         Args.notNull(route, "HTTP route");
         Args.notNull(request, "HTTP request");
         Args.notNull(context, "HTTP context");
+        context.removeAttribute(HttpClientContext.EXCHANGE_DURATION);
         CloseableHttpResponse out = null;
         try {
             out = this.requestExecutor.execute(route, request, context, execAware);
@@ -80,7 +84,10 @@ public class BackoffStrategyExec implements ClientExecChain {
             if (out != null) {
                 out.close();
             }
-            if (this.connectionBackoffStrategy.shouldBackoff(ex)) {
+            // Requests rejected by an open circuit breaker never reached the
+            // server, so they say nothing about the capacity of the route
+            if (!(ex instanceof CircuitBreakerOpenException)
+                    && this.connectionBackoffStrategy.shouldBackoff(ex)) {
                 this.backoffManager.backOff(route);
             }
             if (ex instanceof RuntimeException) {
@@ -97,7 +104,12 @@ public class BackoffStrategyExec implements ClientExecChain {
         if (this.connectionBackoffStrategy.shouldBackoff(out)) {
             this.backoffManager.backOff(route);
         } else {
-            this.backoffManager.probe(route);
+            final long rtt = context.getExchangeDuration();
+            if (rtt >= 0 && this.backoffManager instanceof LatencyAwareBackoffManager) {
+                ((LatencyAwareBackoffManager) this.backoffManager).probe(route, rtt, TimeUnit.NANOSECONDS);
+            } else {
+                this.backoffManager.probe(route);
+            }
         }
         return out;
     }
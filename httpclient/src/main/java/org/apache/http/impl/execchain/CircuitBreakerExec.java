@@ -0,0 +1,297 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.execchain;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpException;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.CircuitBreakerOpenException;
+import org.apache.http.client.config.CircuitBreakerConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.util.Args;
+
+/**
+ * Request executor in the request execution chain that is responsible
+ * for protecting routes that keep failing from further requests.
+ * <p>
+ * The executor maintains a circuit breaker per route, which keeps track of
+ * the outcome of the most recent requests. Once the rate of failed or slow
+ * requests reaches the configured threshold, the circuit opens and further
+ * requests to the route are rejected with {@link CircuitBreakerOpenException}
+ * without any attempt to lease or open a connection. After the configured
+ * wait duration the circuit becomes half-open and lets a limited number of
+ * probe requests through. Depending on their outcome the circuit either
+ * closes or opens again.
+ * </p>
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class CircuitBreakerExec implements ClientExecChain {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final ClientExecChain requestExecutor;
+    private final CircuitBreakerConfig config;
+    private final ConcurrentMap<HttpRoute, CircuitBreaker> breakers;
+
+    public CircuitBreakerExec(
+            final ClientExecChain requestExecutor,
+            final CircuitBreakerConfig config) {
+        super();
+        Args.notNull(requestExecutor, "HTTP request executor");
+        Args.notNull(config, "Circuit breaker config");
+        Args.check(config.getFailureRateThreshold() > 0 && config.getFailureRateThreshold() <= 100,
+                "Failure rate threshold must be 0 < t <= 100");
+        Args.check(config.getSlowCallRateThreshold() > 0 && config.getSlowCallRateThreshold() <= 100,
+                "Slow call rate threshold must be 0 < t <= 100");
+        Args.positive(config.getSlowCallDurationThreshold(), "Slow call duration threshold");
+        Args.positive(config.getSlidingWindowSize(), "Sliding window size");
+        Args.positive(config.getMinimumNumberOfCalls(), "Minimum number of calls");
+        Args.notNegative(config.getWaitDurationInOpenState(), "Wait duration in open state");
+        Args.positive(config.getPermittedNumberOfCallsInHalfOpenState(), "Permitted number of calls in half-open state");
+        this.requestExecutor = requestExecutor;
+        this.config = config;
+        this.breakers = new ConcurrentHashMap<>();
+    }
+
+    public CircuitBreakerExec(final ClientExecChain requestExecutor) {
+        this(requestExecutor, CircuitBreakerConfig.DEFAULT);
+    }
+
+    private CircuitBreaker getCircuitBreaker(final HttpRoute route) {
+        CircuitBreaker breaker = this.breakers.get(route);
+        if (breaker == null) {
+            final CircuitBreaker newBreaker = new CircuitBreaker(route);
+            breaker = this.breakers.putIfAbsent(route, newBreaker);
+            if (breaker == null) {
+                breaker = newBreaker;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Returns the current state of the circuit breaker of the given route.
+     */
+    public State getState(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        final CircuitBreaker breaker = this.breakers.get(route);
+        return breaker != null ? breaker.getState(System.currentTimeMillis()) : State.CLOSED;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context,
+            final HttpExecutionAware execAware) throws IOException, HttpException {
+        Args.notNull(route, "HTTP route");
+        Args.notNull(request, "HTTP request");
+        Args.notNull(context, "HTTP context");
+        final CircuitBreaker breaker = getCircuitBreaker(route);
+        final long start = System.currentTimeMillis();
+        final long generation = breaker.tryAcquire(start);
+        if (generation < 0) {
+            throw new CircuitBreakerOpenException(route);
+        }
+        boolean recorded = false;
+        try {
+            final CloseableHttpResponse response = this.requestExecutor.execute(route, request, context, execAware);
+            final long now = System.currentTimeMillis();
+            breaker.onResult(generation,
+                    response.getStatusLine().getStatusCode() >= 500,
+                    now - start >= this.config.getSlowCallDurationThreshold(),
+                    now);
+            recorded = true;
+            return response;
+        } catch (final IOException | HttpException ex) {
+            if (execAware == null || !execAware.isAborted()) {
+                final long now = System.currentTimeMillis();
+                breaker.onResult(generation,
+                        true,
+                        now - start >= this.config.getSlowCallDurationThreshold(),
+                        now);
+                recorded = true;
+            }
+            throw ex;
+        } finally {
+            if (!recorded) {
+                breaker.onIgnored(generation);
+            }
+        }
+    }
+
+    class CircuitBreaker {
+
+        private final HttpRoute route;
+        private final boolean[] failed;
+        private final boolean[] slow;
+
+        // All guarded by this
+        private State state;
+        private long generation;
+        private int count;
+        private int pos;
+        private int failures;
+        private int slowCalls;
+        private long openedAt;
+        private int probesIssued;
+        private int probesCompleted;
+        private int probeFailures;
+        private int probeSlowCalls;
+
+        CircuitBreaker(final HttpRoute route) {
+            this.route = route;
+            this.failed = new boolean[config.getSlidingWindowSize()];
+            this.slow = new boolean[config.getSlidingWindowSize()];
+            this.state = State.CLOSED;
+        }
+
+        synchronized State getState(final long now) {
+            if (this.state == State.OPEN && now - this.openedAt >= config.getWaitDurationInOpenState()) {
+                return State.HALF_OPEN;
+            }
+            return this.state;
+        }
+
+        /**
+         * @return generation of the circuit state the call has been admitted in
+         *   or {@code -1} if the call is rejected.
+         */
+        synchronized long tryAcquire(final long now) {
+            if (this.state == State.OPEN) {
+                if (now - this.openedAt < config.getWaitDurationInOpenState()) {
+                    return -1;
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (this.state == State.HALF_OPEN) {
+                if (this.probesIssued >= config.getPermittedNumberOfCallsInHalfOpenState()) {
+                    return -1;
+                }
+                this.probesIssued++;
+            }
+            return this.generation;
+        }
+
+        synchronized void onResult(final long callGeneration, final boolean failure, final boolean slowCall, final long now) {
+            if (callGeneration != this.generation) {
+                return;
+            }
+            if (this.state == State.CLOSED) {
+                if (this.count == this.failed.length) {
+                    if (this.failed[this.pos]) {
+                        this.failures--;
+                    }
+                    if (this.slow[this.pos]) {
+                        this.slowCalls--;
+                    }
+                } else {
+                    this.count++;
+                }
+                this.failed[this.pos] = failure;
+                this.slow[this.pos] = slowCall;
+                if (failure) {
+                    this.failures++;
+                }
+                if (slowCall) {
+                    this.slowCalls++;
+                }
+                this.pos = (this.pos + 1) % this.failed.length;
+                if (this.count >= config.getMinimumNumberOfCalls()
+                        && exceedsThresholds(this.failures, this.slowCalls, this.count)) {
+                    open(now);
+                }
+            } else if (this.state == State.HALF_OPEN) {
+                this.probesCompleted++;
+                if (failure) {
+                    this.probeFailures++;
+                }
+                if (slowCall) {
+                    this.probeSlowCalls++;
+                }
+                final int permitted = config.getPermittedNumberOfCallsInHalfOpenState();
+                if (exceedsThresholds(this.probeFailures, this.probeSlowCalls, permitted)) {
+                    open(now);
+                } else if (this.probesCompleted >= permitted) {
+                    transition(State.CLOSED);
+                }
+            }
+        }
+
+        synchronized void onIgnored(final long callGeneration) {
+            if (callGeneration == this.generation && this.state == State.HALF_OPEN) {
+                this.probesIssued--;
+            }
+        }
+
+        private boolean exceedsThresholds(final int failures, final int slowCalls, final int total) {
+            return failures * 100.0f / total >= config.getFailureRateThreshold()
+                    || slowCalls * 100.0f / total >= config.getSlowCallRateThreshold();
+        }
+
+        private void open(final long now) {
+            this.openedAt = now;
+            transition(State.OPEN);
+        }
+
+        private void transition(final State newState) {
+            if (log.isDebugEnabled()) {
+                log.debug("Circuit breaker for route " + this.route + ": " + this.state + " -> " + newState);
+            }
+            this.state = newState;
+            this.generation++;
+            this.count = 0;
+            this.pos = 0;
+            this.failures = 0;
+            this.slowCalls = 0;
+            this.probesIssued = 0;
+            this.probesCompleted = 0;
+            this.probeFailures = 0;
+            this.probeSlowCalls = 0;
+        }
+
+    }
+
+}
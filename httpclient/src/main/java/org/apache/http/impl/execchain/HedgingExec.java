@@ -0,0 +1,602 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.execchain;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.auth.AuthExchange;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * Request executor in the request execution chain that is responsible
+ * for hedging requests that take unusually long to complete.
+ * <p>
+ * The executor keeps track of the time it takes to execute requests for
+ * each route. If an idempotent request without an enclosed entity has not
+ * completed within the configured percentile of recent execution times,
+ * a duplicate of the request is executed using another connection from
+ * the pool. Whichever of the two requests completes first wins, while
+ * the connection of the other one gets aborted. The requests are considered
+ * idempotent as defined by {@link DefaultHttpRequestRetryHandler#isIdempotent(
+ * org.apache.http.HttpRequest)}.
+ * </p>
+ * <p>
+ * The number of hedged requests is limited to the given ratio of all requests
+ * in order to prevent hedging from overloading a server that is already
+ * slow to respond. Requests are not hedged until enough execution times
+ * have been collected for their route.
+ * </p>
+ * <p>
+ * Both requests are executed with their own view of the execution context.
+ * Only the attributes set by the request that wins the race are copied into
+ * the caller's context. As authentication exchanges are mutated while a request
+ * is executed, each request works on its own copy of them: the original request
+ * continues the authentication exchanges of the caller's context, while the
+ * duplicate starts new ones.
+ * </p>
+ * <p>
+ * Duplicate requests are executed by the given scheduled executor service,
+ * which should be sized to accommodate the expected number of concurrently
+ * hedged requests.
+ * </p>
+ *
+ * @since 5.0
+ */
+@ThreadSafe
+public class HedgingExec implements ClientExecChain {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final ClientExecChain requestExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final DefaultHttpRequestRetryHandler retryHandler;
+    private final double percentile;
+    private final double maxHedgeRatio;
+    private final ConcurrentMap<HttpRoute, LatencyWindow> latencies;
+    private final Budget budget;
+
+    /**
+     * @param requestExecutor the next executor in the request execution chain.
+     * @param scheduler scheduled executor service used to execute duplicate requests.
+     * @param retryHandler retry handler defining which requests are idempotent.
+     * @param percentile percentile of recent execution times after which a request
+     *   gets hedged.
+     * @param maxHedgeRatio maximum ratio of hedged requests to all requests.
+     */
+    public HedgingExec(
+            final ClientExecChain requestExecutor,
+            final ScheduledExecutorService scheduler,
+            final DefaultHttpRequestRetryHandler retryHandler,
+            final double percentile,
+            final double maxHedgeRatio) {
+        super();
+        Args.notNull(requestExecutor, "HTTP request executor");
+        Args.notNull(scheduler, "Scheduler");
+        Args.notNull(retryHandler, "HTTP request retry handler");
+        Args.check(percentile > 0.0 && percentile < 1.0, "Percentile must be 0.0 < p < 1.0");
+        Args.check(maxHedgeRatio > 0.0 && maxHedgeRatio <= 1.0, "Max hedge ratio must be 0.0 < r <= 1.0");
+        this.requestExecutor = requestExecutor;
+        this.scheduler = scheduler;
+        this.retryHandler = retryHandler;
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.latencies = new ConcurrentHashMap<>();
+        this.budget = new Budget(10);
+    }
+
+    public HedgingExec(
+            final ClientExecChain requestExecutor,
+            final ScheduledExecutorService scheduler) {
+        this(requestExecutor, scheduler, DefaultHttpRequestRetryHandler.INSTANCE,
+                DEFAULT_PERCENTILE, DEFAULT_MAX_HEDGE_RATIO);
+    }
+
+    private LatencyWindow getLatencyWindow(final HttpRoute route) {
+        LatencyWindow window = this.latencies.get(route);
+        if (window == null) {
+            final LatencyWindow newWindow = new LatencyWindow(WINDOW_SIZE);
+            window = this.latencies.putIfAbsent(route, newWindow);
+            if (window == null) {
+                window = newWindow;
+            }
+        }
+        return window;
+    }
+
+    private boolean isHedgeable(final HttpRequestWrapper request) {
+        if (request instanceof HttpEntityEnclosingRequest
+                && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+            return false;
+        }
+        return this.retryHandler.isIdempotent(request);
+    }
+
+    @Override
+    public CloseableHttpResponse execute(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context,
+            final HttpExecutionAware execAware) throws IOException, HttpException {
+        Args.notNull(route, "HTTP route");
+        Args.notNull(request, "HTTP request");
+        Args.notNull(context, "HTTP context");
+        if (!isHedgeable(request)) {
+            return this.requestExecutor.execute(route, request, context, execAware);
+        }
+        this.budget.deposit(this.maxHedgeRatio);
+        final LatencyWindow window = getLatencyWindow(route);
+        final long delay = window.getPercentile(this.percentile, MIN_SAMPLES);
+        if (delay < 0) {
+            final long start = System.currentTimeMillis();
+            final CloseableHttpResponse response = this.requestExecutor.execute(route, request, context, execAware);
+            window.add(System.currentTimeMillis() - start);
+            return response;
+        }
+
+        final Attempt primary = new Attempt(execAware);
+        final HttpRequestWrapper duplicate = HttpRequestWrapper.wrap(request.getOriginal(), request.getTarget());
+        duplicate.setHeaders(request.getAllHeaders());
+        duplicate.setURI(request.getURI());
+        duplicate.setProtocolVersion(request.getProtocolVersion());
+        // Each attempt gets its own view of the context so that neither of them
+        // mutates the caller's context while the race is undecided
+        final AttemptContext primaryContext = new AttemptContext(context, true);
+        final AttemptContext hedgeContext = new AttemptContext(context, false);
+        final Hedge hedge = new Hedge(route, duplicate,
+                HttpClientContext.adapt(hedgeContext), execAware, primary, window);
+        if (execAware != null) {
+            execAware.setCancellable(new Cancellable() {
+
+                @Override
+                public boolean cancel() {
+                    primary.abort();
+                    hedge.attempt.abort();
+                    return true;
+                }
+
+            });
+        }
+        ScheduledFuture<?> future = null;
+        try {
+            future = this.scheduler.schedule(hedge, delay, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException ex) {
+            this.log.debug("Hedged request rejected by scheduler");
+        }
+
+        final long start = System.currentTimeMillis();
+        CloseableHttpResponse response = null;
+        Exception failure = null;
+        try {
+            response = this.requestExecutor.execute(
+                    route, request, HttpClientContext.adapt(primaryContext), primary);
+        } catch (final IOException | HttpException | RuntimeException ex) {
+            failure = ex;
+        }
+        if (hedge.primaryCompleted(response != null)) {
+            window.add(System.currentTimeMillis() - start);
+            if (future != null) {
+                future.cancel(false);
+            }
+            hedge.attempt.abort();
+            hedgeContext.detach();
+            primaryContext.copyTo(context);
+            return response;
+        }
+        if (response != null) {
+            response.close();
+        }
+        final CloseableHttpResponse hedgeResponse;
+        try {
+            hedgeResponse = hedge.awaitResponse();
+        } finally {
+            hedgeContext.detach();
+        }
+        if (hedgeResponse != null) {
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("Hedged request completed first: " + request.getRequestLine());
+            }
+            hedgeContext.copyTo(context);
+            return hedgeResponse;
+        }
+        primaryContext.copyTo(context);
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof HttpException) {
+            throw (HttpException) failure;
+        } else {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Execution of a duplicate request racing the primary one.
+     */
+    class Hedge implements Runnable {
+
+        private final HttpRoute route;
+        private final HttpRequestWrapper request;
+        private final HttpClientContext context;
+        private final Attempt primary;
+        private final LatencyWindow window;
+
+        final Attempt attempt;
+
+        // All guarded by this
+        private boolean started;
+        private boolean done;
+        private boolean primaryCompleted;
+        private boolean primaryWon;
+        private CloseableHttpResponse response;
+
+        Hedge(
+                final HttpRoute route,
+                final HttpRequestWrapper request,
+                final HttpClientContext context,
+                final HttpExecutionAware execAware,
+                final Attempt primary,
+                final LatencyWindow window) {
+            this.route = route;
+            this.request = request;
+            this.context = context;
+            this.primary = primary;
+            this.window = window;
+            this.attempt = new Attempt(execAware);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.primaryCompleted || this.attempt.isAborted()) {
+                    return;
+                }
+                if (!budget.withdraw()) {
+                    log.debug("Hedged request budget exhausted");
+                    return;
+                }
+                this.started = true;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Hedging request: " + this.request.getRequestLine());
+            }
+            final long start = System.currentTimeMillis();
+            CloseableHttpResponse localResponse = null;
+            try {
+                localResponse = requestExecutor.execute(this.route, this.request, this.context, this.attempt);
+                this.window.add(System.currentTimeMillis() - start);
+            } catch (final Exception ex) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Hedged request failed: " + ex.getMessage());
+                }
+            }
+            final boolean won;
+            synchronized (this) {
+                won = !this.primaryWon && localResponse != null;
+                if (won) {
+                    this.response = localResponse;
+                }
+                this.done = true;
+                notifyAll();
+            }
+            if (won) {
+                this.primary.abort();
+            } else if (localResponse != null) {
+                try {
+                    localResponse.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+
+        /**
+         * Signals completion of the primary request.
+         *
+         * @return {@code true} if the primary request won the race.
+         */
+        synchronized boolean primaryCompleted(final boolean success) {
+            this.primaryCompleted = true;
+            if (this.response == null && success) {
+                this.primaryWon = true;
+            }
+            return this.primaryWon;
+        }
+
+        /**
+         * Waits for the duplicate request if it is in progress.
+         *
+         * @return the response to the duplicate request or {@code null} if
+         *   it has not been executed or failed.
+         */
+        synchronized CloseableHttpResponse awaitResponse() throws IOException {
+            while (this.started && !this.done) {
+                try {
+                    wait();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    this.attempt.abort();
+                    throw new RequestAbortedException("Request aborted", ex);
+                }
+            }
+            return this.response;
+        }
+
+    }
+
+    /**
+     * Execution context of a single attempt racing another one. Attributes set
+     * by the attempt are kept locally until the race is decided and the winner
+     * copies them into the caller's context. Attributes of the caller's context
+     * are read through and retained on first access; once the context has been
+     * detached the caller's context is no longer accessed at all, so that a
+     * losing attempt still winding down cannot observe the caller's context
+     * being modified or recycled.
+     * <p>
+     * Authentication exchanges of the caller's context are not shared but copied
+     * on first access, either including their state or as new exchanges.
+     * </p>
+     */
+    static class AttemptContext implements HttpContext {
+
+        private static final Object REMOVED = new Object();
+
+        private final HttpContext parent;
+        private final boolean authState;
+        // All guarded by this
+        private final Map<String, Object> snapshot;
+        private final Map<String, Object> local;
+        private boolean detached;
+
+        AttemptContext(final HttpContext parent, final boolean authState) {
+            this.parent = parent;
+            this.authState = authState;
+            this.snapshot = new HashMap<>();
+            this.local = new HashMap<>();
+        }
+
+        @Override
+        public synchronized Object getAttribute(final String id) {
+            Args.notNull(id, "Id");
+            final Object value = this.local.get(id);
+            if (value != null) {
+                return value != REMOVED ? value : null;
+            }
+            if (this.snapshot.containsKey(id)) {
+                return this.snapshot.get(id);
+            }
+            if (this.detached) {
+                return null;
+            }
+            final Object parentValue = this.parent.getAttribute(id);
+            if (parentValue instanceof Map<?, ?> && HttpClientContext.AUTH_EXCHANGE_MAP.equals(id)) {
+                final Map<HttpHost, AuthExchange> authExchanges = copyAuthExchanges((Map<?, ?>) parentValue);
+                this.local.put(id, authExchanges);
+                return authExchanges;
+            }
+            this.snapshot.put(id, parentValue);
+            return parentValue;
+        }
+
+        private Map<HttpHost, AuthExchange> copyAuthExchanges(final Map<?, ?> authExchanges) {
+            final Map<HttpHost, AuthExchange> copy = new HashMap<>();
+            for (final Map.Entry<?, ?> entry: authExchanges.entrySet()) {
+                if (entry.getKey() instanceof HttpHost && entry.getValue() instanceof AuthExchange) {
+                    final AuthExchange authExchange = (AuthExchange) entry.getValue();
+                    final AuthExchange authExchangeCopy = new AuthExchange();
+                    if (this.authState) {
+                        if (authExchange.getAuthScheme() != null) {
+                            authExchangeCopy.select(authExchange.getAuthScheme());
+                        }
+                        if (authExchange.getAuthOptions() != null && !authExchange.getAuthOptions().isEmpty()) {
+                            authExchangeCopy.setOptions(new LinkedList<>(authExchange.getAuthOptions()));
+                        }
+                        authExchangeCopy.setState(authExchange.getState());
+                    }
+                    copy.put((HttpHost) entry.getKey(), authExchangeCopy);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public synchronized void setAttribute(final String id, final Object obj) {
+            Args.notNull(id, "Id");
+            this.local.put(id, obj != null ? obj : REMOVED);
+        }
+
+        @Override
+        public synchronized Object removeAttribute(final String id) {
+            final Object value = getAttribute(id);
+            this.local.put(id, REMOVED);
+            return value;
+        }
+
+        /**
+         * Stops reading through to the caller's context.
+         */
+        synchronized void detach() {
+            this.detached = true;
+        }
+
+        /**
+         * Applies the attributes set or removed by the attempt to the given context.
+         */
+        synchronized void copyTo(final HttpContext context) {
+            for (final Map.Entry<String, Object> entry: this.local.entrySet()) {
+                if (entry.getValue() != REMOVED) {
+                    context.setAttribute(entry.getKey(), entry.getValue());
+                } else {
+                    context.removeAttribute(entry.getKey());
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Tracks the abort state and the connection of a single request execution.
+     */
+    static class Attempt implements HttpExecutionAware {
+
+        private final HttpExecutionAware parent;
+        private Cancellable cancellable;
+        private boolean aborted;
+
+        Attempt(final HttpExecutionAware parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public synchronized boolean isAborted() {
+            return this.aborted || (this.parent != null && this.parent.isAborted());
+        }
+
+        @Override
+        public void setCancellable(final Cancellable cancellable) {
+            final boolean abort;
+            synchronized (this) {
+                abort = this.aborted;
+                this.cancellable = abort ? null : cancellable;
+            }
+            if (abort && cancellable != null) {
+                cancellable.cancel();
+            }
+        }
+
+        void abort() {
+            final Cancellable localCancellable;
+            synchronized (this) {
+                this.aborted = true;
+                localCancellable = this.cancellable;
+                this.cancellable = null;
+            }
+            if (localCancellable != null) {
+                localCancellable.cancel();
+            }
+        }
+
+    }
+
+    /**
+     * Recent execution times of requests to a particular route.
+     */
+    static class LatencyWindow {
+
+        private final long[] samples;
+        private int count;
+        private int pos;
+        private int updates;
+        private double cachedPercentile;
+        private long cachedValue;
+
+        LatencyWindow(final int size) {
+            this.samples = new long[size];
+            this.cachedValue = -1;
+        }
+
+        synchronized void add(final long millis) {
+            this.samples[this.pos] = millis;
+            this.pos = (this.pos + 1) % this.samples.length;
+            if (this.count < this.samples.length) {
+                this.count++;
+            }
+            this.updates++;
+        }
+
+        synchronized long getPercentile(final double percentile, final int minSamples) {
+            if (this.count < minSamples) {
+                return -1;
+            }
+            if (this.cachedValue < 0 || this.cachedPercentile != percentile || this.updates >= 16) {
+                final long[] sorted = Arrays.copyOf(this.samples, this.count);
+                Arrays.sort(sorted);
+                final int index = Math.min((int) Math.ceil(percentile * sorted.length), sorted.length) - 1;
+                this.cachedValue = Math.max(1, sorted[Math.max(0, index)]);
+                this.cachedPercentile = percentile;
+                this.updates = 0;
+            }
+            return this.cachedValue;
+        }
+
+    }
+
+    /**
+     * Number of hedged requests that can be made, earned with every request.
+     */
+    static class Budget {
+
+        private final double max;
+        private double balance;
+
+        Budget(final double max) {
+            this.max = max;
+            this.balance = max;
+        }
+
+        synchronized void deposit(final double amount) {
+            this.balance = Math.min(this.balance + amount, this.max);
+        }
+
+        synchronized boolean withdraw() {
+            if (this.balance >= 1.0) {
+                this.balance -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
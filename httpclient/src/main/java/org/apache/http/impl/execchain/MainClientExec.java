@@ -29,6 +29,7 @@ package org.apache.http.impl.execchain;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.net.SocketException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -43,6 +44,7 @@ import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.auth.AuthExchange;
 import org.apache.http.auth.ChallengeType;
@@ -54,6 +56,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.AdaptiveConnectionKeepAliveStrategy;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.HttpClientConnectionManager;
@@ -175,7 +178,10 @@ public class MainClientExec implements ClientExecChain {
         final HttpClientConnection managedConn;
         try {
             final int timeout = config.getConnectionRequestTimeout();
+            final long leaseStart = System.nanoTime();
             managedConn = connRequest.get(timeout > 0 ? timeout : 0, TimeUnit.MILLISECONDS);
+            context.setAttribute(HttpClientContext.CONNECTION_LEASE_DURATION,
+                    Long.valueOf(System.nanoTime() - leaseStart));
         } catch(final InterruptedException interrupted) {
             Thread.currentThread().interrupt();
             throw new RequestAbortedException("Request aborted", interrupted);
@@ -251,7 +257,18 @@ public class MainClientExec implements ClientExecChain {
                             route.getProxyHost(), ChallengeType.PROXY, request, proxyAuthExchange, context);
                 }
 
-                response = requestExecutor.execute(request, managedConn, context);
+                final long exchangeStart = System.nanoTime();
+                try {
+                    response = requestExecutor.execute(request, managedConn, context);
+                } catch (final NoHttpResponseException | SocketException ex) {
+                    if (this.keepAliveStrategy instanceof AdaptiveConnectionKeepAliveStrategy) {
+                        ((AdaptiveConnectionKeepAliveStrategy) this.keepAliveStrategy).connectionReset(
+                                managedConn, route, context);
+                    }
+                    throw ex;
+                }
+                context.setAttribute(HttpClientContext.EXCHANGE_DURATION,
+                        Long.valueOf(System.nanoTime() - exchangeStart));
 
                 // The connection is in or can be brought to a re-usable state.
                 if (reuseStrategy.keepAlive(response, context)) {
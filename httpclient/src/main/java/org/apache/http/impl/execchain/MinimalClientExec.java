@@ -52,7 +52,7 @@ import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.protocol.RequestClientConnControl;
-import org.apache.http.client.utils.URIUtils;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.HttpClientConnectionManager;
@@ -113,15 +113,10 @@ public class MinimalClientExec implements ClientExecChain {
             final HttpRequestWrapper request,
             final HttpRoute route) throws ProtocolException {
         try {
-            URI uri = request.getURI();
-            if (uri != null) {
+            final RequestTarget requestTarget = request.getRequestTarget();
+            if (requestTarget != null) {
                 // Make sure the request URI is relative
-                if (uri.isAbsolute()) {
-                    uri = URIUtils.rewriteURI(uri, null, true);
-                } else {
-                    uri = URIUtils.rewriteURI(uri);
-                }
-                request.setURI(uri);
+                request.setURI(requestTarget.toRelativeURI());
             }
         } catch (final URISyntaxException ex) {
             throw new ProtocolException("Invalid URI: " + request.getRequestLine().getUri(), ex);
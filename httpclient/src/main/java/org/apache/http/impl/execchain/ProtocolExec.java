@@ -47,7 +47,7 @@ import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.client.utils.URIUtils;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.protocol.HttpCoreContext;
 import org.apache.http.protocol.HttpProcessor;
@@ -85,12 +85,12 @@ public class ProtocolExec implements ClientExecChain {
     void rewriteRequestURI(
             final HttpRequestWrapper request,
             final HttpRoute route) throws ProtocolException {
-        final URI uri = request.getURI();
-        if (uri != null) {
+        final RequestTarget requestTarget = request.getRequestTarget();
+        if (requestTarget != null) {
             try {
-                request.setURI(URIUtils.rewriteURIForRoute(uri, route));
+                request.setURI(requestTarget.rewriteForRoute(route));
             } catch (final URISyntaxException ex) {
-                throw new ProtocolException("Invalid URI: " + uri, ex);
+                throw new ProtocolException("Invalid URI: " + requestTarget.getURI(), ex);
             }
         }
     }
@@ -123,13 +123,14 @@ public class ProtocolExec implements ClientExecChain {
 
         }
         request.setURI(uri);
+        final RequestTarget requestTarget = request.getRequestTarget();
 
         // Re-write request URI if needed
         rewriteRequestURI(request, route);
 
         HttpHost target = null;
-        if (uri != null && uri.isAbsolute() && uri.getHost() != null) {
-            target = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+        if (requestTarget != null && requestTarget.isAbsolute() && uri.getHost() != null) {
+            target = requestTarget.getHost();
         }
         if (target == null) {
             target = request.getTarget();
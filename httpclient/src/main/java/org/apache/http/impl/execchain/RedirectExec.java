@@ -48,7 +48,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.client.utils.URIUtils;
+import org.apache.http.client.utils.RequestTarget;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.routing.HttpRoutePlanner;
 import org.apache.http.util.Args;
@@ -130,11 +130,11 @@ public class RedirectExec implements ClientExecChain {
                         RequestEntityProxy.enhance((HttpEntityEnclosingRequest) currentRequest);
                     }
 
-                    final URI uri = currentRequest.getURI();
-                    final HttpHost newTarget = URIUtils.extractHost(uri);
+                    final RequestTarget requestTarget = currentRequest.getRequestTarget();
+                    final HttpHost newTarget = requestTarget != null ? requestTarget.getHost() : null;
                     if (newTarget == null) {
                         throw new ProtocolException("Redirect URI does not specify a valid host name: " +
-                                uri);
+                                currentRequest.getURI());
                     }
 
                     // Reset virtual host and auth states if redirecting to another host
@@ -154,7 +154,7 @@ public class RedirectExec implements ClientExecChain {
 
                     currentRoute = this.routePlanner.determineRoute(newTarget, currentRequest, context);
                     if (this.log.isDebugEnabled()) {
-                        this.log.debug("Redirecting to '" + uri + "' via " + currentRoute);
+                        this.log.debug("Redirecting to '" + requestTarget.getURI() + "' via " + currentRoute);
                     }
                     EntityUtils.consume(response.getEntity());
                     response.close();
@@ -31,10 +31,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.client.entity.ContentTransfer;
+import org.apache.http.client.entity.TransferableEntity;
 import org.apache.http.conn.EofSensorInputStream;
 import org.apache.http.conn.EofSensorWatcher;
 import org.apache.http.entity.HttpEntityWrapper;
@@ -45,7 +49,7 @@ import org.apache.http.entity.HttpEntityWrapper;
  * @since 4.3
  */
 @NotThreadSafe
-class ResponseEntityProxy extends HttpEntityWrapper implements EofSensorWatcher {
+class ResponseEntityProxy extends HttpEntityWrapper implements TransferableEntity, EofSensorWatcher {
 
     private final ConnectionHolder connHolder;
 
@@ -111,6 +115,33 @@ class ResponseEntityProxy extends HttpEntityWrapper implements EofSensorWatcher
         }
     }
 
+    /**
+     * Reads the message body straight into the transfer buffer and writes it
+     * to the channel, releasing the connection upon completion or aborting it
+     * if the transfer fails.
+     */
+    @Override
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        try {
+            final long total;
+            try (InputStream instream = this.wrappedEntity.getContent()) {
+                total = ContentTransfer.copy(instream, channel, this.wrappedEntity.getContentLength());
+            }
+            releaseConnection();
+            return total;
+        } catch (IOException | RuntimeException ex) {
+            abortConnection();
+            throw ex;
+        } finally {
+            cleanup();
+        }
+    }
+
+    @Override
+    public ReadableByteChannel getContentChannel() throws IOException {
+        return ContentTransfer.newChannel(getContent());
+    }
+
     @Override
     public boolean eofDetected(final InputStream wrapped) throws IOException {
         try {
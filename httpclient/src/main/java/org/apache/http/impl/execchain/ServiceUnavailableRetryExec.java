@@ -35,6 +35,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
 import org.apache.http.HttpException;
 import org.apache.http.annotation.Immutable;
+import org.apache.http.client.RetryDeferredException;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpExecutionAware;
@@ -52,6 +53,14 @@ import org.apache.http.util.Args;
  * endpoint is delegated to the next executor in the request execution
  * chain.
  * </p>
+ * <p>
+ * If {@link HttpClientContext#RETRY_DEFERRAL} is set in the execution context
+ * the executor does not block the executing thread while waiting for the retry
+ * interval to expire. Instead it throws {@link RetryDeferredException} and
+ * the caller is expected to re-execute the request with the same context once
+ * the delay expires. The execution count is carried over to the re-execution
+ * in {@link HttpClientContext#DEFERRED_EXECUTION_COUNT}.
+ * </p>
  *
  * @since 4.3
  */
@@ -80,7 +89,10 @@ public class ServiceUnavailableRetryExec implements ClientExecChain {
             final HttpClientContext context,
             final HttpExecutionAware execAware) throws IOException, HttpException {
         final Header[] origheaders = request.getAllHeaders();
-        for (int c = 1;; c++) {
+        final Object deferredCount = context.getAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT);
+        context.removeAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT);
+        final int start = deferredCount instanceof Integer ? ((Integer) deferredCount).intValue() + 1 : 1;
+        for (int c = start;; c++) {
             final CloseableHttpResponse response = this.requestExecutor.execute(
                     route, request, context, execAware);
             try {
@@ -88,6 +100,13 @@ public class ServiceUnavailableRetryExec implements ClientExecChain {
                     response.close();
                     final long nextInterval = this.retryStrategy.getRetryInterval(response, context);
                     if (nextInterval > 0) {
+                        if (Boolean.TRUE.equals(context.getAttribute(HttpClientContext.RETRY_DEFERRAL))) {
+                            if (this.log.isDebugEnabled()) {
+                                this.log.debug("Defer retry by " + ((double) nextInterval / 1000) + " seconds" );
+                            }
+                            context.setAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT, Integer.valueOf(c));
+                            throw new RetryDeferredException(nextInterval);
+                        }
                         try {
                             if (this.log.isDebugEnabled()) {
                                 this.log.debug("Wait for " + ((double) nextInterval / 1000) + " seconds" );
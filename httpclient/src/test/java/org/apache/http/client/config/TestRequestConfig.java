@@ -46,6 +46,7 @@ public class TestRequestConfig {
     public void testDefaults() {
         final RequestConfig config = RequestConfig.DEFAULT;
         Assert.assertEquals(-1, config.getSocketTimeout());
+        Assert.assertEquals(-1, config.getHandshakeTimeout());
         Assert.assertEquals(-1, config.getConnectTimeout());
         Assert.assertEquals(-1, config.getConnectionRequestTimeout());
         Assert.assertEquals(false, config.isExpectContinueEnabled());
@@ -65,6 +66,7 @@ public class TestRequestConfig {
     public void testBuildAndCopy() throws Exception {
         final RequestConfig config0 = RequestConfig.custom()
                 .setSocketTimeout(22)
+                .setHandshakeTimeout(11)
                 .setConnectTimeout(33)
                 .setConnectionRequestTimeout(44)
                 .setExpectContinueEnabled(true)
@@ -82,6 +84,7 @@ public class TestRequestConfig {
                 .build();
         final RequestConfig config = RequestConfig.copy(config0).build();
         Assert.assertEquals(22, config.getSocketTimeout());
+        Assert.assertEquals(11, config.getHandshakeTimeout());
         Assert.assertEquals(33, config.getConnectTimeout());
         Assert.assertEquals(44, config.getConnectionRequestTimeout());
         Assert.assertEquals(true, config.isExpectContinueEnabled());
@@ -0,0 +1,132 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestContentTransfer {
+
+    private static byte[] content(final int len) {
+        final byte[] b = new byte[len];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) i;
+        }
+        return b;
+    }
+
+    @Test
+    public void testTransferStreamedEntity() throws Exception {
+        final byte[] b = content(100000);
+        final InputStream instream = Mockito.spy(new ByteArrayInputStream(b));
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(instream);
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        Assert.assertEquals(b.length, ContentTransfer.transferTo(entity, Channels.newChannel(outstream)));
+        Assert.assertArrayEquals(b, outstream.toByteArray());
+        Mockito.verify(instream).close();
+    }
+
+    private static byte[] read(final ReadableByteChannel channel, final ByteBuffer dst) throws Exception {
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        while (channel.read(dst) != -1) {
+            outstream.write(dst.array(), dst.arrayOffset(), dst.position());
+            dst.clear();
+        }
+        return outstream.toByteArray();
+    }
+
+    @Test
+    public void testContentChannelMatchesStandardChannel() throws Exception {
+        final byte[] b = content(65536 + 100);
+        final ByteBuffer dst = ByteBuffer.allocate(8192);
+        final byte[] direct = read(ContentTransfer.newChannel(new ByteArrayInputStream(b)), dst);
+        final byte[] copied = read(Channels.newChannel(new ByteArrayInputStream(b)), dst);
+        Assert.assertArrayEquals(b, direct);
+        Assert.assertArrayEquals(copied, direct);
+    }
+
+    @Test
+    public void testTransferResponse() throws Exception {
+        final BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        Assert.assertEquals(0, ContentTransfer.transferTo(response, Channels.newChannel(outstream)));
+        response.setEntity(new StringEntity("stuff", Consts.ASCII));
+        Assert.assertEquals(5, ContentTransfer.transferTo(response, Channels.newChannel(outstream)));
+        Assert.assertEquals("stuff", new String(outstream.toByteArray(), Consts.ASCII));
+    }
+
+    @Test
+    public void testReadIntoHeapBuffer() throws Exception {
+        final byte[] b = content(1000);
+        final ReadableByteChannel channel = ContentTransfer.newChannel(new ByteArrayInputStream(b));
+        final ByteBuffer buffer = ByteBuffer.allocate(b.length + 10);
+        buffer.put((byte) 1);
+        final ByteBuffer slice = buffer.slice();
+        while (channel.read(slice) != -1) {
+        }
+        Assert.assertEquals(b.length, slice.position());
+        slice.flip();
+        final byte[] result = new byte[b.length];
+        slice.get(result);
+        Assert.assertArrayEquals(b, result);
+        channel.close();
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testReadIntoDirectBuffer() throws Exception {
+        final byte[] b = content(100000);
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(b));
+        final ReadableByteChannel channel = ContentTransfer.getContentChannel(entity);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                outstream.write(buffer.get());
+            }
+            buffer.clear();
+        }
+        Assert.assertArrayEquals(b, outstream.toByteArray());
+    }
+
+}
@@ -125,4 +125,31 @@ public class TestEntityBuilder {
         Assert.assertEquals("gzip", entity.getContentEncoding().getValue());
     }
 
+    @Test
+    public void testBuildDeflated() throws Exception {
+        final HttpEntity entity = EntityBuilder.create().setText("stuff")
+                .gzipCompress()
+                .deflateCompress()
+                .setCompressionLevel(1)
+                .build();
+        Assert.assertTrue(entity instanceof DeflateCompressingEntity);
+        Assert.assertEquals("deflate", entity.getContentEncoding().getValue());
+    }
+
+    @Test
+    public void testBuildZstdCompressed() throws Exception {
+        final EntityBuilder builder = EntityBuilder.create().setText("stuff").zstdCompress();
+        Assert.assertTrue(builder.isZstdCompress());
+        Assert.assertFalse(builder.isGzipCompress());
+        if (ZstdCompressingEntity.isAvailable()) {
+            Assert.assertEquals("zstd", builder.build().getContentEncoding().getValue());
+        } else {
+            try {
+                builder.build();
+                Assert.fail("IllegalStateException expected");
+            } catch (final IllegalStateException expected) {
+            }
+        }
+    }
+
 }
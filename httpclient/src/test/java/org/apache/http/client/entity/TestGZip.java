@@ -27,14 +27,19 @@
 
 package org.apache.http.client.entity;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.http.Consts;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.util.EntityUtils;
 import org.junit.Assert;
@@ -79,4 +84,55 @@ public class TestGZip {
         }
     }
 
+    @Test
+    public void testCompressionLevelAndStrategy() throws Exception {
+        final DeflaterPool pool = new DeflaterPool(2);
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.append("some kind of text ");
+        }
+        final String s = buffer.toString();
+        for (int level = Deflater.NO_COMPRESSION; level <= Deflater.BEST_COMPRESSION; level++) {
+            final GzipCompressingEntity gzipe = new GzipCompressingEntity(
+                    new StringEntity(s, ContentType.TEXT_PLAIN), level, Deflater.FILTERED, 512, pool);
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            gzipe.writeTo(buf);
+            if (level > Deflater.NO_COMPRESSION) {
+                Assert.assertTrue(buf.size() < s.length() / 10);
+            }
+            final GZIPInputStream instream = new GZIPInputStream(new ByteArrayInputStream(buf.toByteArray()));
+            Assert.assertEquals(s, EntityUtils.toString(new InputStreamEntity(instream), Consts.ASCII));
+            Assert.assertEquals(1, pool.getIdleDeflaterCount());
+        }
+    }
+
+    @Test
+    public void testDeflateCompression() throws Exception {
+        final DeflaterPool pool = new DeflaterPool(2);
+        final DeflateCompressingEntity deflatee = new DeflateCompressingEntity(
+                new StringEntity("some kind of text", ContentType.TEXT_PLAIN),
+                Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY, 512, pool);
+        Assert.assertEquals("deflate", deflatee.getContentEncoding().getValue());
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        deflatee.writeTo(buf);
+        Assert.assertEquals(1, pool.getIdleDeflaterCount());
+        final InflaterInputStream instream = new InflaterInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        Assert.assertEquals("some kind of text", EntityUtils.toString(new InputStreamEntity(instream), Consts.ASCII));
+    }
+
+    @Test
+    public void testCompressionIOExceptionReleasesDeflater() throws Exception {
+        final DeflaterPool pool = new DeflaterPool(2);
+        final HttpEntity in = Mockito.mock(HttpEntity.class);
+        Mockito.doThrow(new IOException("Ooopsie")).when(in).writeTo(Mockito.<OutputStream>any());
+        final GzipCompressingEntity gzipe = new GzipCompressingEntity(
+                in, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, 512, pool);
+        try {
+            gzipe.writeTo(new ByteArrayOutputStream());
+            Assert.fail("IOException expected");
+        } catch (final IOException expected) {
+        }
+        Assert.assertEquals(1, pool.getIdleDeflaterCount());
+    }
+
 }
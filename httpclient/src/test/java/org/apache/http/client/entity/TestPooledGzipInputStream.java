@@ -0,0 +1,133 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.http.Consts;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPooledGzipInputStream {
+
+    private static byte[] gzip(final String s) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final GZIPOutputStream out = new GZIPOutputStream(buf);
+        out.write(s.getBytes(Consts.ASCII));
+        out.close();
+        return buf.toByteArray();
+    }
+
+    private static String readFully(final InputStream instream) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[3];
+        int l;
+        while ((l = instream.read(tmp)) != -1) {
+            buf.write(tmp, 0, l);
+        }
+        return new String(buf.toByteArray(), Consts.ASCII);
+    }
+
+    @Test
+    public void testDecompression() throws Exception {
+        final InflaterPool pool = new InflaterPool(4, 512);
+        final InputStream instream = new PooledGzipInputStream(
+                new ByteArrayInputStream(gzip("some kind of text")), pool);
+        Assert.assertEquals("some kind of text", readFully(instream));
+        Assert.assertEquals(0, pool.getIdleInflaterCount());
+        instream.close();
+        Assert.assertEquals(1, pool.getIdleInflaterCount());
+    }
+
+    @Test
+    public void testInflaterReuse() throws Exception {
+        final InflaterPool pool = new InflaterPool(4, 512);
+        for (int i = 0; i < 10; i++) {
+            final InputStream instream = new PooledGzipInputStream(
+                    new ByteArrayInputStream(gzip("text " + i)), pool);
+            Assert.assertEquals("text " + i, readFully(instream));
+            instream.close();
+            Assert.assertEquals(1, pool.getIdleInflaterCount());
+        }
+    }
+
+    @Test
+    public void testConcatenatedMembers() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write(gzip("some kind "));
+        buf.write(gzip("of text"));
+        final InputStream instream = new PooledGzipInputStream(
+                new ByteArrayInputStream(buf.toByteArray()), new InflaterPool(4, 512));
+        Assert.assertEquals("some kind of text", readFully(instream));
+        instream.close();
+    }
+
+    @Test(expected=ZipException.class)
+    public void testCorruptTrailer() throws Exception {
+        final byte[] data = gzip("some kind of text");
+        data[data.length - 8] ^= 0xff;
+        final InputStream instream = new PooledGzipInputStream(
+                new ByteArrayInputStream(data), new InflaterPool(4, 512));
+        try {
+            readFully(instream);
+        } finally {
+            instream.close();
+        }
+    }
+
+    @Test
+    public void testNotGzipReleasesInflater() throws Exception {
+        final InflaterPool pool = new InflaterPool(4, 512);
+        try {
+            new PooledGzipInputStream(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), pool);
+            Assert.fail("ZipException expected");
+        } catch (final ZipException expected) {
+        }
+        Assert.assertEquals(1, pool.getIdleInflaterCount());
+    }
+
+    @Test
+    public void testPooledDeflate() throws Exception {
+        final InflaterPool pool = new InflaterPool(4, 512);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final DeflaterOutputStream out = new DeflaterOutputStream(buf);
+        out.write("some kind of text".getBytes(Consts.ASCII));
+        out.close();
+        final InputStream instream = new DeflateInputStream(
+                new ByteArrayInputStream(buf.toByteArray()), pool);
+        Assert.assertEquals("some kind of text", readFully(instream));
+        instream.close();
+        Assert.assertEquals(1, pool.getIdleInflaterCount());
+    }
+
+}
@@ -29,6 +29,7 @@ package org.apache.http.client.utils;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -137,4 +138,32 @@ public class TestDateUtils {
         Assert.assertEquals("Fri, 14 Oct 2005 00:00:00 GMT", DateUtils.formatDate(date, DateUtils.PATTERN_RFC1123));
     }
 
+    @Test
+    public void testFastPathConsistentWithDateFormat() throws Exception {
+        final Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Between 1600 and 9999
+            final long time = -11676096000000L + (long) (random.nextDouble() * 264000000000000L);
+            final Date date = new Date(time - time % 1000);
+            final String s = DateUtils.formatDate(date, DateUtils.PATTERN_RFC1123);
+            Assert.assertEquals(s, DateUtils.formatRfc1123(date.getTime()));
+            Assert.assertEquals(date.getTime(), DateUtils.parseRfc1123(s));
+        }
+    }
+
+    @Test
+    public void testFastPathFallback() throws Exception {
+        Assert.assertEquals(Long.MIN_VALUE, DateUtils.parseRfc1123("Fri, 14 Oct 2005 00:00:00 PST"));
+        Assert.assertEquals(Long.MIN_VALUE, DateUtils.parseRfc1123("Fri, 14 Oct 2005 00:00:60 GMT"));
+        Assert.assertEquals(Long.MIN_VALUE, DateUtils.parseRfc1123("Fri, 14 Oct 1005 00:00:00 GMT"));
+        Assert.assertEquals(Long.MIN_VALUE, DateUtils.parseRfc1123("Fri, 14-Oct-05 00:00:00 GMT"));
+        Assert.assertNull(DateUtils.formatRfc1123(-20000000000000L));
+
+        final Date date1 = DateUtils.parseDate("Fri, 14 Oct 2005 00:00:00 PST");
+        Assert.assertNotNull(date1);
+        Assert.assertEquals(DateUtils.parseDate("Fri, 14 Oct 2005 08:00:00 GMT"), date1);
+        final Date date2 = DateUtils.parseDate("fri, 14 oct 2005 00:00:00 GMT");
+        Assert.assertEquals(DateUtils.parseDate("Fri, 14 Oct 2005 00:00:00 GMT"), date2);
+    }
+
 }
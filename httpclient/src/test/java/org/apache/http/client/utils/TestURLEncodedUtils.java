@@ -37,6 +37,7 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.util.CharArrayBuffer;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -392,6 +393,94 @@ public class TestURLEncodedUtils {
         Assert.assertEquals("Name8=xx%2C++yy++%2Czz", URLEncodedUtils.format(params, "US-ASCII"));
     }
 
+    @Test
+    public void testParseWithVisitor() throws Exception {
+        final List<String> result = new ArrayList<>();
+        URLEncodedUtils.parse("a=b&c&d=%C3%A9+f;=g", Consts.UTF_8, new ParameterVisitor() {
+
+            @Override
+            public void visit(final String name, final String value) {
+                result.add(name + ":" + value);
+            }
+
+        }, '&', ';');
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals("a:b", result.get(0));
+        Assert.assertEquals("c:null", result.get(1));
+        Assert.assertEquals("d:\u00e9 f", result.get(2));
+    }
+
+    @Test
+    public void testFormatToAppendable() throws Exception {
+        final List <NameValuePair> params = new ArrayList <NameValuePair>();
+        params.add(new BasicNameValuePair("Name1", "a b"));
+        params.add(new BasicNameValuePair("Name2", null));
+        params.add(new BasicNameValuePair("Name3", "\u00e9&\u20ac"));
+
+        final StringBuilder buf1 = new StringBuilder("?");
+        URLEncodedUtils.format(params, '&', Consts.UTF_8, buf1);
+        Assert.assertEquals("?Name1=a+b&Name2&Name3=%C3%A9%26%E2%82%AC", buf1.toString());
+
+        final CharArrayBuffer buf2 = new CharArrayBuffer(16);
+        URLEncodedUtils.format(params, ';', Consts.ISO_8859_1, buf2);
+        Assert.assertEquals("Name1=a+b;Name2;Name3=%E9%26%3F", buf2.toString());
+        Assert.assertEquals(URLEncodedUtils.format(params, ';', Consts.ISO_8859_1), buf2.toString());
+    }
+
+    @Test
+    public void testFormatToReusedBuffer() throws Exception {
+        final List <NameValuePair> params = new ArrayList <NameValuePair>();
+        for (int i = 0; i < 10; i++) {
+            params.add(new BasicNameValuePair("name" + i, "some value " + i));
+        }
+        final String expected = URLEncodedUtils.format(params, '&', Consts.UTF_8);
+        final CharArrayBuffer buffer = new CharArrayBuffer(16);
+        for (int i = 0; i < 3; i++) {
+            buffer.clear();
+            URLEncodedUtils.format(params, '&', Consts.UTF_8, buffer);
+            Assert.assertEquals(expected, buffer.toString());
+        }
+    }
+
+    @Test
+    public void testParseUnescapedAndEscaped() throws Exception {
+        final StringBuilder plain = new StringBuilder();
+        final StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) {
+                plain.append('&');
+                escaped.append('&');
+            }
+            plain.append("name").append(i).append("=value").append(i);
+            escaped.append("n%61me").append(i).append("=v%61lue").append(i);
+        }
+        final CharArrayBuffer plainBuffer = new CharArrayBuffer(plain.length());
+        plainBuffer.append(plain.toString());
+        final CharArrayBuffer escapedBuffer = new CharArrayBuffer(escaped.length());
+        escapedBuffer.append(escaped.toString());
+        final List<String> plainResult = new ArrayList<>();
+        final List<String> escapedResult = new ArrayList<>();
+        URLEncodedUtils.parse(plainBuffer, Consts.UTF_8, new ParameterVisitor() {
+
+            @Override
+            public void visit(final String name, final String value) {
+                plainResult.add(name + ":" + value);
+            }
+
+        }, '&');
+        URLEncodedUtils.parse(escapedBuffer, Consts.UTF_8, new ParameterVisitor() {
+
+            @Override
+            public void visit(final String name, final String value) {
+                escapedResult.add(name + ":" + value);
+            }
+
+        }, '&');
+        Assert.assertEquals(10, plainResult.size());
+        Assert.assertEquals("name3:value3", plainResult.get(3));
+        Assert.assertEquals(plainResult, escapedResult);
+    }
+
     private List <NameValuePair> parse (final String params) {
         return URLEncodedUtils.parse(params, Consts.UTF_8);
     }
@@ -0,0 +1,133 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.conn.ssl;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLSession;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link CachingHostnameVerifier}.
+ */
+public class TestCachingHostnameVerifier {
+
+    private HostnameVerifier delegate;
+
+    @Before
+    public void setup() {
+        delegate = Mockito.mock(HostnameVerifier.class);
+    }
+
+    private static SSLSession mockSession(final byte[] encoded, final Date notAfter) throws Exception {
+        final X509Certificate cert = Mockito.mock(X509Certificate.class);
+        Mockito.when(cert.getEncoded()).thenReturn(encoded);
+        Mockito.when(cert.getNotAfter()).thenReturn(notAfter);
+        final SSLSession session = Mockito.mock(SSLSession.class);
+        Mockito.when(session.getPeerCertificates()).thenReturn(new Certificate[] { cert });
+        return session;
+    }
+
+    private static Date inOneDay() {
+        return new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Test
+    public void testSuccessfulVerificationCached() throws Exception {
+        final CachingHostnameVerifier verifier = new CachingHostnameVerifier(delegate);
+        final SSLSession session1 = mockSession(new byte[] {1, 2, 3}, inOneDay());
+        final SSLSession session2 = mockSession(new byte[] {1, 2, 3}, inOneDay());
+        Mockito.when(delegate.verify(Mockito.anyString(), Mockito.<SSLSession>any())).thenReturn(Boolean.TRUE);
+
+        Assert.assertTrue(verifier.verify("somehost", session1));
+        Assert.assertTrue(verifier.verify("SomeHost", session2));
+        Mockito.verify(delegate, Mockito.times(1)).verify(Mockito.anyString(), Mockito.<SSLSession>any());
+        Assert.assertEquals(1, verifier.size());
+    }
+
+    @Test
+    public void testDifferentCertificateVerified() throws Exception {
+        final CachingHostnameVerifier verifier = new CachingHostnameVerifier(delegate);
+        final SSLSession session1 = mockSession(new byte[] {1, 2, 3}, inOneDay());
+        final SSLSession session2 = mockSession(new byte[] {4, 5, 6}, inOneDay());
+        Mockito.when(delegate.verify("somehost", session1)).thenReturn(Boolean.TRUE);
+        Mockito.when(delegate.verify("somehost", session2)).thenReturn(Boolean.FALSE);
+
+        Assert.assertTrue(verifier.verify("somehost", session1));
+        Assert.assertFalse(verifier.verify("somehost", session2));
+        Assert.assertFalse(verifier.verify("somehost", session2));
+        Mockito.verify(delegate, Mockito.times(2)).verify("somehost", session2);
+        Assert.assertEquals(1, verifier.size());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        final CachingHostnameVerifier verifier = new CachingHostnameVerifier(delegate);
+        final SSLSession session = mockSession(new byte[] {1, 2, 3}, inOneDay());
+        Mockito.when(delegate.verify("somehost", session)).thenReturn(Boolean.TRUE);
+
+        Assert.assertTrue(verifier.verify("somehost", session));
+        verifier.invalidate("SOMEHOST");
+        Assert.assertEquals(0, verifier.size());
+        Assert.assertTrue(verifier.verify("somehost", session));
+        Mockito.verify(delegate, Mockito.times(2)).verify("somehost", session);
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        final CachingHostnameVerifier verifier = new CachingHostnameVerifier(delegate, 10, 1, TimeUnit.MILLISECONDS);
+        final SSLSession session = mockSession(new byte[] {1, 2, 3}, inOneDay());
+        Mockito.when(delegate.verify("somehost", session)).thenReturn(Boolean.TRUE);
+
+        Assert.assertTrue(verifier.verify("somehost", session));
+        Thread.sleep(20);
+        verifier.closeExpired();
+        Assert.assertEquals(0, verifier.size());
+        Assert.assertTrue(verifier.verify("somehost", session));
+        Mockito.verify(delegate, Mockito.times(2)).verify("somehost", session);
+    }
+
+    @Test
+    public void testExpiredCertificateNotCached() throws Exception {
+        final CachingHostnameVerifier verifier = new CachingHostnameVerifier(delegate);
+        final SSLSession session = mockSession(new byte[] {1, 2, 3}, new Date(System.currentTimeMillis() - 1000));
+        Mockito.when(delegate.verify("somehost", session)).thenReturn(Boolean.TRUE);
+
+        Assert.assertTrue(verifier.verify("somehost", session));
+        Assert.assertEquals(0, verifier.size());
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.conn.ssl;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link SSLSessionCache}.
+ */
+public class TestSSLSessionCache {
+
+    private static SSLSession mockSession(final byte[] id, final long creationTime) {
+        final SSLSession session = Mockito.mock(SSLSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        Mockito.when(session.getCreationTime()).thenReturn(creationTime);
+        Mockito.when(session.isValid()).thenReturn(Boolean.TRUE);
+        return session;
+    }
+
+    private static SSLSession mockSession(final byte[] id) {
+        return mockSession(id, 1000L);
+    }
+
+    @Test
+    public void testResumedHandshakeCounting() throws Exception {
+        final SSLSessionCache cache = new SSLSessionCache();
+        final HttpRoute route1 = new HttpRoute(new HttpHost("somehost", 443, "https"));
+        final HttpRoute route2 = new HttpRoute(new HttpHost("otherhost", 443, "https"));
+
+        final SSLSession session1 = mockSession(new byte[] {1, 2, 3}, 1000L);
+        final SSLSession session2 = mockSession(new byte[] {4, 5, 6}, 1500L);
+        Assert.assertFalse(cache.sessionEstablished(route1, session1, 1000L));
+        Assert.assertFalse(cache.sessionEstablished(route1, session2, 1200L));
+        // resumption of a session other than the last one of the route
+        Assert.assertTrue(cache.sessionEstablished(route1, session1, 2000L));
+        // resumption with a new session identifier as in TLS 1.3
+        Assert.assertTrue(cache.sessionEstablished(route1, mockSession(new byte[] {7, 8, 9}, 1500L), 2000L));
+        Assert.assertFalse(cache.sessionEstablished(route2, mockSession(new byte[] {1, 2, 3}, 3000L), 3000L));
+
+        Assert.assertEquals(3, cache.getFullHandshakeCount());
+        Assert.assertEquals(2, cache.getResumedHandshakeCount());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        final SSLSessionCache cache = new SSLSessionCache();
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 443, "https"));
+        final SSLSession session = mockSession(new byte[] {1, 2, 3});
+        cache.sessionEstablished(route, session, 1000L);
+        Assert.assertSame(session, cache.getSession(route));
+
+        cache.invalidate(route);
+        Mockito.verify(session).invalidate();
+        Assert.assertNull(cache.getSession(route));
+        Assert.assertFalse(cache.sessionEstablished(route, mockSession(new byte[] {1, 2, 3}), 1000L));
+    }
+
+    @Test
+    public void testInvalidSessionDiscarded() throws Exception {
+        final SSLSessionCache cache = new SSLSessionCache();
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 443, "https"));
+        final SSLSession session = mockSession(new byte[] {1, 2, 3});
+        cache.sessionEstablished(route, session, 1000L);
+        Mockito.when(session.isValid()).thenReturn(Boolean.FALSE);
+        Assert.assertNull(cache.getSession(route));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaxEntries() throws Exception {
+        final SSLSessionCache cache = new SSLSessionCache(2);
+        cache.sessionEstablished(new HttpHost("host1", 443, "https"), mockSession(new byte[] {1}), 1000L);
+        cache.sessionEstablished(new HttpHost("host2", 443, "https"), mockSession(new byte[] {2}), 1000L);
+        cache.sessionEstablished(new HttpHost("host3", 443, "https"), mockSession(new byte[] {3}), 1000L);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.getSession(new HttpHost("host1", 443, "https")));
+    }
+
+}
@@ -29,9 +29,13 @@ package org.apache.http.conn.ssl;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
@@ -42,6 +46,8 @@ import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 
 import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.bootstrap.HttpServer;
 import org.apache.http.impl.bootstrap.SSLServerSetupHandler;
 import org.apache.http.impl.bootstrap.ServerBootstrap;
@@ -288,4 +294,85 @@ public class TestSSLSocketFactory {
         final HttpHost target = new HttpHost("localhost", this.server.getLocalPort(), "https");
         socketFactory.connectSocket(0, socket, target, remoteAddress, null, context);
     }
+
+    private static long handshakeWithSilentPeer(
+            final SSLConnectionSocketFactory socketFactory, final int handshakeTimeout) throws Exception {
+        // Accepts TCP connections but never answers the ClientHello
+        try (final ServerSocket serverSocket = new ServerSocket(0)) {
+            final HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                    .setSocketTimeout(30000)
+                    .setHandshakeTimeout(handshakeTimeout)
+                    .build());
+            final Socket socket = new Socket();
+            socket.setSoTimeout(30000);
+            socket.connect(new InetSocketAddress("localhost", serverSocket.getLocalPort()));
+            final long start = System.currentTimeMillis();
+            try {
+                socketFactory.createLayeredSocket(socket, "localhost", serverSocket.getLocalPort(), context);
+                Assert.fail("SocketTimeoutException expected");
+            } catch (final SocketTimeoutException expected) {
+            } finally {
+                socket.close();
+            }
+            return System.currentTimeMillis() - start;
+        }
+    }
+
+    @Test
+    public void testHandshakeTimeout() throws Exception {
+        final SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
+                SSLContexts.createDefault());
+        final long elapsed = handshakeWithSilentPeer(socketFactory, 500);
+        Assert.assertTrue("Handshake took " + elapsed + " ms", elapsed < 10000);
+    }
+
+    @Test
+    public void testHandshakeTimeoutWithExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
+                    SSLContexts.createDefault(), null, null, null, null, executor);
+            final long elapsed = handshakeWithSilentPeer(socketFactory, 500);
+            Assert.assertTrue("Handshake took " + elapsed + " ms", elapsed < 10000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSessionResumptionCounted() throws Exception {
+        this.server = ServerBootstrap.bootstrap()
+                .setServerInfo(LocalServerTestBase.ORIGIN)
+                .setSslContext(SSLTestContexts.createServerSSLContext())
+                .create();
+        this.server.start();
+
+        final SSLSessionCache sessionCache = new SSLSessionCache();
+        // The DSA key of the test keystore cannot be used with TLS 1.3
+        final SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
+                SSLTestContexts.createClientSSLContext(), new String[] {"TLSv1.2"}, null,
+                new TestX509HostnameVerifier(), sessionCache);
+        final InetSocketAddress remoteAddress = new InetSocketAddress("localhost", this.server.getLocalPort());
+        final HttpHost target = new HttpHost("localhost", this.server.getLocalPort(), "https");
+        final HttpContext context = new BasicHttpContext();
+        final Socket socket1 = socketFactory.connectSocket(
+                0, socketFactory.createSocket(context), target, remoteAddress, null, context);
+        final Socket socket2 = socketFactory.connectSocket(
+                0, socketFactory.createSocket(context), target, remoteAddress, null, context);
+        final Socket socket3 = socketFactory.connectSocket(
+                0, socketFactory.createSocket(context), target, remoteAddress, null, context);
+        socket1.close();
+        socket2.close();
+        socket3.close();
+        Assert.assertEquals(1, sessionCache.getFullHandshakeCount());
+        Assert.assertEquals(2, sessionCache.getResumedHandshakeCount());
+
+        sessionCache.invalidate(target);
+        socketFactory.connectSocket(
+                0, socketFactory.createSocket(context), target, remoteAddress, null, context).close();
+        Assert.assertEquals(2, sessionCache.getFullHandshakeCount());
+        Assert.assertEquals(2, sessionCache.getResumedHandshakeCount());
+    }
+
 }
@@ -47,6 +47,7 @@ import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.Credentials;
 import org.apache.http.auth.MalformedChallengeException;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
@@ -728,4 +729,70 @@ public class TestDigestScheme {
         Assert.assertEquals(digestScheme.getCnonce(), authScheme.getCnonce());
     }
 
+    private static DigestScheme copy(final DigestScheme digestScheme) throws Exception {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(digestScheme);
+        out.flush();
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        return (DigestScheme) in.readObject();
+    }
+
+    @Test
+    public void testDigestSessionSharedNonceCount() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/");
+        final HttpHost host = new HttpHost("somehost", 80);
+        final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        credentialsProvider.setCredentials(new AuthScope(host, "realm1", null),
+                new UsernamePasswordCredentials("username","password".toCharArray()));
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.DIGEST_SESSION_CACHE, new DigestSessionCache());
+
+        final String challenge = "Digest realm=\"realm1\", nonce=\"f2a3f18799759d4f1a1c068b92b573cb\", qop=\"auth\"";
+        final DigestScheme authscheme = new DigestScheme();
+        authscheme.processChallenge(parse(challenge), context);
+        Assert.assertTrue(authscheme.isResponseReady(host, credentialsProvider, context));
+        final Map<String, String> table1 = parseAuthResponse(authscheme.generateAuthResponse(host, request, context));
+        Assert.assertEquals("00000001", table1.get("nc"));
+
+        final DigestScheme cached1 = copy(authscheme);
+        final DigestScheme cached2 = copy(authscheme);
+        final Map<String, String> table2 = parseAuthResponse(cached1.generateAuthResponse(host, request, context));
+        final Map<String, String> table3 = parseAuthResponse(cached2.generateAuthResponse(host, request, context));
+        Assert.assertEquals("00000002", table2.get("nc"));
+        Assert.assertEquals("00000003", table3.get("nc"));
+        Assert.assertEquals(table1.get("cnonce"), table2.get("cnonce"));
+        Assert.assertEquals(table1.get("cnonce"), table3.get("cnonce"));
+    }
+
+    @Test
+    public void testDigestSessionStaleNonceRotation() throws Exception {
+        final HttpRequest request = new BasicHttpRequest("GET", "/");
+        final HttpHost host = new HttpHost("somehost", 80);
+        final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        credentialsProvider.setCredentials(new AuthScope(host, "realm1", null),
+                new UsernamePasswordCredentials("username","password".toCharArray()));
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.DIGEST_SESSION_CACHE, new DigestSessionCache());
+
+        final DigestScheme authscheme = new DigestScheme();
+        authscheme.processChallenge(parse(
+                "Digest realm=\"realm1\", nonce=\"nonce1\", qop=\"auth\""), context);
+        Assert.assertTrue(authscheme.isResponseReady(host, credentialsProvider, context));
+        authscheme.generateAuthResponse(host, request, context);
+        final DigestScheme cached = copy(authscheme);
+
+        final DigestScheme stale = copy(authscheme);
+        stale.processChallenge(parse(
+                "Digest realm=\"realm1\", nonce=\"nonce2\", qop=\"auth\", stale=true"), context);
+        Assert.assertFalse(stale.isChallengeComplete());
+        final Map<String, String> table1 = parseAuthResponse(stale.generateAuthResponse(host, request, context));
+        Assert.assertEquals("nonce2", table1.get("nonce"));
+        Assert.assertEquals("00000001", table1.get("nc"));
+
+        final Map<String, String> table2 = parseAuthResponse(cached.generateAuthResponse(host, request, context));
+        Assert.assertEquals("nonce2", table2.get("nonce"));
+        Assert.assertEquals("00000002", table2.get("nc"));
+    }
+
 }
@@ -239,6 +239,66 @@ public class TestNTLMEngineImpl {
                 toBytes("2785f595293f3e2813439d73a223810d")));
     }
 
+    @Test
+    public void testPasswordHashesCached() throws Exception {
+        final NTLMEngineImpl.PasswordHashCache cache = new NTLMEngineImpl.PasswordHashCache(2);
+        final NTLMEngineImpl.PasswordHashes hashes1 = cache.get(
+                "DOMAIN", "user", "SecREt01".toCharArray());
+        final NTLMEngineImpl.PasswordHashes hashes2 = cache.get(
+                "DOMAIN", "user", "SecREt01".toCharArray());
+        final NTLMEngineImpl.PasswordHashes hashes3 = cache.get(
+                "DOMAIN", "user", "SecREt02".toCharArray());
+        Assert.assertSame(hashes1, hashes2);
+        Assert.assertNotSame(hashes1, hashes3);
+        final char[] password = "SecREt01".toCharArray();
+        checkArraysMatch(toBytes("cd06ca7c7e10c99b1d33b7485a2ed808"), hashes1.getNTLMHash(password));
+        checkArraysMatch(toBytes("ff3750bcc2b22412c2265b23734e0dac"), hashes1.getLMHash(password));
+        Assert.assertSame(hashes1.getNTLMHash(password), hashes2.getNTLMHash(password));
+
+        cache.get("DOMAIN", "other", "SecREt01".toCharArray());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotSame(hashes1, cache.get("DOMAIN", "user", "SecREt01".toCharArray()));
+    }
+
+    @Test
+    public void testPasswordHashCacheSalted() throws Exception {
+        final NTLMEngineImpl.PasswordHashes hashes1 = new NTLMEngineImpl.PasswordHashCache().get(
+                "DOMAIN", "user", "SecREt01".toCharArray());
+        final NTLMEngineImpl.PasswordHashes hashes2 = new NTLMEngineImpl.PasswordHashCache().get(
+                "DOMAIN", "user", "SecREt01".toCharArray());
+        Assert.assertFalse(hashes1.equals(hashes2));
+    }
+
+    @Test
+    public void testType3MessageCachedPasswordHashes() throws Exception {
+        final NTLMEngineImpl.PasswordHashCache cache = new NTLMEngineImpl.PasswordHashCache();
+        final NTLMEngineImpl engine = new NTLMEngineImpl(cache);
+        final String challenge = "TlRMTVNTUAACAAAADAAMADgAAAAzgoriASNFZ4mrze8AAAAAAAAAACQAJABEAAAABgBwFwAAAA9TAGUAcgB2AGUAcgACAAwARABvAG0AYQBpAG4AAQAMAFMAZQByAHYAZQByAAAAAAA=";
+        final char[] password = "SecREt01".toCharArray();
+        Assert.assertNotNull(engine.generateType3Msg("user", password, "DOMAIN", "host", challenge));
+        Assert.assertEquals(1, cache.size());
+        final NTLMEngineImpl.PasswordHashes hashes = cache.get("DOMAIN", "user", password);
+        final byte[] ntlmv2Hash = hashes.getNTLMv2Hash("DOMAIN", "user", password);
+
+        Assert.assertNotNull(engine.generateType3Msg("user", password, "DOMAIN", "host", challenge));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertSame(hashes, cache.get("DOMAIN", "user", password));
+        Assert.assertSame(ntlmv2Hash, hashes.getNTLMv2Hash("DOMAIN", "user", password));
+    }
+
+    @Test
+    public void testCachedPasswordHashesMatchUncached() throws Exception {
+        final char[] password = "SecREt01".toCharArray();
+        final NTLMEngineImpl.CipherGen gen = new NTLMEngineImpl.CipherGen(
+                "DOMAIN", "user", password, toBytes("0123456789abcdef"), null, null);
+        final NTLMEngineImpl.PasswordHashes hashes = new NTLMEngineImpl.PasswordHashCache().get(
+                "DOMAIN", "user", password);
+        checkArraysMatch(gen.getLMHash(), hashes.getLMHash(password));
+        checkArraysMatch(gen.getNTLMHash(), hashes.getNTLMHash(password));
+        checkArraysMatch(gen.getLMv2Hash(), hashes.getLMv2Hash("DOMAIN", "user", password));
+        checkArraysMatch(gen.getNTLMv2Hash(), hashes.getNTLMv2Hash("DOMAIN", "user", password));
+    }
+
     /* Byte array check helper */
     static void checkArraysMatch(final byte[] a1, final byte[] a2)
         throws Exception {
@@ -28,6 +28,12 @@ package org.apache.http.impl.client;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -195,4 +201,68 @@ public class TestCloseableHttpClient {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExecuteAsync() throws Exception {
+        final HttpGet httpget = new HttpGet("https://somehost:444/stuff");
+
+        Mockito.when(client.doExecute(
+                new HttpHost("somehost", 444, "https"), httpget, null)).thenReturn(response);
+
+        final ResponseHandler<String> handler = Mockito.mock(ResponseHandler.class);
+        Mockito.when(handler.handleResponse(response)).thenReturn("stuff");
+
+        final Future<String> future = client.executeAsync(httpget, handler);
+        Assert.assertEquals("stuff", future.get(5, TimeUnit.SECONDS));
+        Mockito.verify(response).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExecuteAsyncFailure() throws Exception {
+        final HttpGet httpget = new HttpGet("https://somehost:444/stuff");
+
+        Mockito.when(client.doExecute(
+                new HttpHost("somehost", 444, "https"), httpget, null)).thenThrow(new IOException());
+
+        final ResponseHandler<String> handler = Mockito.mock(ResponseHandler.class);
+        final Future<String> future = client.executeAsync(httpget, null, handler, null, new Executor() {
+
+            @Override
+            public void execute(final Runnable command) {
+                command.run();
+            }
+
+        });
+        try {
+            future.get();
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExecuteAsyncCancelAbortsRequest() throws Exception {
+        final HttpGet httpget = new HttpGet("https://somehost:444/stuff");
+        final ResponseHandler<String> handler = Mockito.mock(ResponseHandler.class);
+        final List<Runnable> commands = new ArrayList<>();
+        final Future<String> future = client.executeAsync(httpget, null, handler, null, new Executor() {
+
+            @Override
+            public void execute(final Runnable command) {
+                commands.add(command);
+            }
+
+        });
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(httpget.isAborted());
+
+        commands.get(0).run();
+        Mockito.verify(client, Mockito.never()).doExecute(
+                Mockito.<HttpHost>any(), Mockito.<HttpRequest>any(), Mockito.<HttpContext>any());
+    }
+
 }
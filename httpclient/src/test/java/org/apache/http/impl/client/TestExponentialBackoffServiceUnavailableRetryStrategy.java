@@ -0,0 +1,124 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.Date;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestExponentialBackoffServiceUnavailableRetryStrategy {
+
+    private ExponentialBackoffServiceUnavailableRetryStrategy impl;
+
+    @Before
+    public void setup() {
+        this.impl = new ExponentialBackoffServiceUnavailableRetryStrategy(3, 1000, 5000, 0.1, 10);
+    }
+
+    @Test
+    public void testBasics() throws Exception {
+        final HttpResponse response1 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Oppsie");
+        Assert.assertTrue(this.impl.retryRequest(response1, 1, null));
+        Assert.assertTrue(this.impl.retryRequest(response1, 2, null));
+        Assert.assertTrue(this.impl.retryRequest(response1, 3, null));
+        Assert.assertFalse(this.impl.retryRequest(response1, 4, null));
+        final HttpResponse response2 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 500, "Big Time Oppsie");
+        Assert.assertFalse(this.impl.retryRequest(response2, 1, null));
+    }
+
+    @Test
+    public void testExponentialIntervalWithJitter() throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Oppsie");
+        final HttpClientContext context = HttpClientContext.create();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(this.impl.retryRequest(response, 2, context));
+            final long interval = this.impl.getRetryInterval(response, context);
+            Assert.assertTrue(interval >= 0 && interval <= 2000);
+        }
+        boolean above4000 = false;
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(this.impl.retryRequest(response, 3, context));
+            final long interval = this.impl.getRetryInterval(response, context);
+            Assert.assertTrue(interval >= 0 && interval <= 4000);
+            above4000 |= interval > 2000;
+        }
+        Assert.assertTrue(above4000);
+    }
+
+    @Test
+    public void testRetryAfterHeaderAsLong() throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Oppsie");
+        response.setHeader(HttpHeaders.RETRY_AFTER, "3");
+        Assert.assertEquals(3000, this.impl.getRetryInterval(response, null));
+        response.setHeader(HttpHeaders.RETRY_AFTER, "321");
+        Assert.assertEquals(5000, this.impl.getRetryInterval(response, null));
+    }
+
+    @Test
+    public void testRetryAfterHeaderAsDate() throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Oppsie");
+        response.setHeader(HttpHeaders.RETRY_AFTER, DateUtils.formatDate(new Date(System.currentTimeMillis() + 100000L)));
+        Assert.assertEquals(5000, this.impl.getRetryInterval(response, null));
+        response.setHeader(HttpHeaders.RETRY_AFTER, DateUtils.formatDate(new Date(System.currentTimeMillis() - 100000L)));
+        Assert.assertEquals(0, this.impl.getRetryInterval(response, null));
+    }
+
+    @Test
+    public void testRetryBudget() throws Exception {
+        this.impl = new ExponentialBackoffServiceUnavailableRetryStrategy(3, 1000, 5000, 0.25, 2);
+        final HttpResponse response1 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Oppsie");
+        final HttpResponse response2 = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(new HttpHost("somehost")));
+        Assert.assertTrue(this.impl.retryRequest(response1, 1, context));
+        Assert.assertTrue(this.impl.retryRequest(response1, 1, context));
+        Assert.assertFalse(this.impl.retryRequest(response1, 1, context));
+        Assert.assertFalse(this.impl.retryRequest(response1, 1, context));
+        Assert.assertTrue(this.impl.retryRequest(response1, 1, context));
+        Assert.assertFalse(this.impl.retryRequest(response1, 2, context));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertFalse(this.impl.retryRequest(response2, 1, context));
+        }
+        Assert.assertTrue(this.impl.retryRequest(response1, 2, context));
+        Assert.assertFalse(this.impl.retryRequest(response1, 2, context));
+
+        final HttpClientContext otherContext = HttpClientContext.create();
+        otherContext.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(new HttpHost("otherhost")));
+        Assert.assertTrue(this.impl.retryRequest(response1, 1, otherContext));
+    }
+
+}
@@ -27,7 +27,9 @@
 package org.apache.http.impl.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
@@ -38,8 +40,10 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
@@ -65,6 +69,9 @@ public class TestFutureRequestExecutionService {
     private FutureRequestExecutionService httpAsyncClientWithFuture;
 
     private final AtomicBoolean blocked = new AtomicBoolean(false);
+    private final AtomicInteger unavailable = new AtomicInteger(0);
+    private final AtomicInteger inflight = new AtomicInteger(0);
+    private final AtomicInteger maxInflight = new AtomicInteger(0);
 
     @Before
     public void before() throws Exception {
@@ -84,6 +91,41 @@ public class TestFutureRequestExecutionService {
                     }
                     response.setStatusCode(200);
                 }
+            }).registerHandler("/unavailable", new HttpRequestHandler() {
+
+                @Override
+                public void handle(
+                        final HttpRequest request, final HttpResponse response,
+                        final HttpContext context) throws HttpException, IOException {
+                    if (unavailable.getAndDecrement() > 0) {
+                        response.setStatusCode(503);
+                        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                    } else {
+                        response.setStatusCode(200);
+                    }
+                }
+            }).registerHandler("/concurrent", new HttpRequestHandler() {
+
+                @Override
+                public void handle(
+                        final HttpRequest request, final HttpResponse response,
+                        final HttpContext context) throws HttpException, IOException {
+                    final int n = inflight.incrementAndGet();
+                    for (;;) {
+                        final int max = maxInflight.get();
+                        if (n <= max || maxInflight.compareAndSet(max, n)) {
+                            break;
+                        }
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (final InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        inflight.decrementAndGet();
+                    }
+                    response.setStatusCode(200);
+                }
             }).create();
 
             this.localServer.start();
@@ -109,6 +151,25 @@ public class TestFutureRequestExecutionService {
         Assert.assertTrue("request should have returned OK", task.get().booleanValue());
     }
 
+    @Test
+    public void shouldRecordLatencies() throws Exception {
+        final HttpRequestFutureTask<Boolean> task = httpAsyncClientWithFuture.execute(
+            new HttpGet(uri), null, new OkidokiHandler());
+        Assert.assertTrue(task.get().booleanValue());
+
+        final FutureRequestExecutionMetrics metrics = httpAsyncClientWithFuture.metrics();
+        Assert.assertEquals(1, metrics.getLatencies().getExecutionTime().getCount());
+        final List<FutureRequestExecutionMetrics.LatencySnapshot> routeLatencies = metrics.getRouteLatencies(true);
+        Assert.assertEquals(1, routeLatencies.size());
+        final FutureRequestExecutionMetrics.LatencySnapshot snapshot = routeLatencies.get(0);
+        Assert.assertEquals("2xx", snapshot.getStatusClass());
+        Assert.assertEquals(this.localServer.getLocalPort(), snapshot.getRoute().getTargetHost().getPort());
+        Assert.assertEquals(1, snapshot.getQueueTime().getCount());
+        Assert.assertEquals(1, snapshot.getLeaseTime().getCount());
+        Assert.assertTrue(snapshot.getExecutionTime().getP99() > 0);
+        Assert.assertEquals(0, metrics.getRouteLatencies().get(0).getExecutionTime().getCount());
+    }
+
     @Test(expected=CancellationException.class)
     public void shouldCancel() throws InterruptedException, ExecutionException {
         final HttpRequestFutureTask<Boolean> task = httpAsyncClientWithFuture.execute(
@@ -160,6 +221,193 @@ public class TestFutureRequestExecutionService {
         }
     }
 
+    @Test
+    public void shouldDeferRetryWithoutBlockingExecutor() throws Exception {
+        final HttpClient httpClient = HttpClientBuilder.create()
+                .setServiceUnavailableRetryStrategy(new ExponentialBackoffServiceUnavailableRetryStrategy())
+                .build();
+        final FutureRequestExecutionService service = new FutureRequestExecutionService(
+                httpClient, Executors.newSingleThreadExecutor(), Executors.newSingleThreadScheduledExecutor());
+        try {
+            unavailable.set(1);
+            final String unavailableUri = "http://localhost:" + this.localServer.getLocalPort() + "/unavailable";
+            final HttpRequestFutureTask<Boolean> task1 = service.execute(
+                    new HttpGet(unavailableUri), null, new OkidokiHandler());
+            final HttpRequestFutureTask<Boolean> task2 = service.execute(
+                    new HttpGet(uri), null, new OkidokiHandler());
+            Assert.assertTrue(task2.get(500, TimeUnit.MILLISECONDS).booleanValue());
+            Assert.assertFalse(task1.isDone());
+            Assert.assertTrue(task1.get(5, TimeUnit.SECONDS).booleanValue());
+            Assert.assertEquals(0, service.metrics().getScheduledConnectionCount());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void shouldNotLeakRetryDeferralIntoCallerContext() throws Exception {
+        final HttpClient httpClient = HttpClientBuilder.create()
+                .setServiceUnavailableRetryStrategy(new ExponentialBackoffServiceUnavailableRetryStrategy())
+                .build();
+        final FutureRequestExecutionService service = new FutureRequestExecutionService(
+                httpClient, Executors.newSingleThreadExecutor(), Executors.newSingleThreadScheduledExecutor());
+        try {
+            unavailable.set(1);
+            final String unavailableUri = "http://localhost:" + this.localServer.getLocalPort() + "/unavailable";
+            final HttpClientContext context = HttpClientContext.create();
+            final HttpRequestFutureTask<Boolean> task = service.execute(
+                    new HttpGet(unavailableUri), context, new OkidokiHandler());
+            Assert.assertTrue(task.get(5, TimeUnit.SECONDS).booleanValue());
+            Assert.assertNull(context.getAttribute(HttpClientContext.RETRY_DEFERRAL));
+            Assert.assertNull(context.getAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT));
+            // the execution state reaches the caller's context
+            Assert.assertEquals(200, context.getResponse().getStatusLine().getStatusCode());
+            Assert.assertNotNull(context.getHttpRoute());
+            // the deferred attempt is not counted as a request of its own
+            Assert.assertEquals(1, service.metrics().getRequestCount());
+            Assert.assertEquals(1, service.metrics().getTaskCount());
+            Assert.assertEquals(1, service.metrics().getSuccessfulConnectionCount());
+            Assert.assertEquals(0, service.metrics().getActiveConnectionCount());
+            Assert.assertEquals(0, service.metrics().getScheduledConnectionCount());
+
+            // the caller's context still executes synchronously without deferral
+            unavailable.set(1);
+            Assert.assertTrue(httpClient.execute(new HttpGet(unavailableUri), new OkidokiHandler(), context));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void shouldClearDeferredStateOnCancel() throws Exception {
+        final HttpClient httpClient = HttpClientBuilder.create()
+                .setServiceUnavailableRetryStrategy(new ExponentialBackoffServiceUnavailableRetryStrategy())
+                .build();
+        final FutureRequestExecutionService service = new FutureRequestExecutionService(
+                httpClient, Executors.newSingleThreadExecutor(), Executors.newSingleThreadScheduledExecutor());
+        try {
+            unavailable.set(1);
+            final String unavailableUri = "http://localhost:" + this.localServer.getLocalPort() + "/unavailable";
+            final HttpClientContext context = HttpClientContext.create();
+            final HttpRequestFutureTask<Boolean> task = service.execute(
+                    new HttpGet(unavailableUri), context, new OkidokiHandler());
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (context.getAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT) == null
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertNotNull(context.getAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT));
+            Assert.assertTrue(task.cancel(true));
+            Assert.assertNull(context.getAttribute(HttpClientContext.DEFERRED_EXECUTION_COUNT));
+            Assert.assertNull(context.getAttribute(HttpClientContext.RETRY_DEFERRAL));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void shouldInterruptRunningTaskOnCancel() throws Exception {
+        final FutureRequestExecutionService service = new FutureRequestExecutionService(
+                HttpClientBuilder.create().build(),
+                Executors.newSingleThreadExecutor(), Executors.newSingleThreadScheduledExecutor());
+        try {
+            final CountDownLatch handling = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            final HttpRequestFutureTask<Boolean> task = service.execute(
+                    new HttpGet(uri), HttpClientContext.create(), new ResponseHandler<Boolean>() {
+
+                        @Override
+                        public Boolean handleResponse(
+                                final HttpResponse response) throws ClientProtocolException, IOException {
+                            handling.countDown();
+                            try {
+                                Thread.sleep(10000);
+                            } catch (final InterruptedException ex) {
+                                interrupted.countDown();
+                            }
+                            return Boolean.TRUE;
+                        }
+
+                    });
+            Assert.assertTrue(handling.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(task.cancel(true));
+            Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void shouldExecuteBatchWithinRouteLimit() throws Exception {
+        final String concurrentUri = "http://localhost:" + this.localServer.getLocalPort() + "/concurrent";
+        final List<HttpGet> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            requests.add(new HttpGet(concurrentUri));
+        }
+        final Future<List<Boolean>> future = httpAsyncClientWithFuture.executeBatch(
+                requests, new OkidokiHandler(), 2, 10, TimeUnit.SECONDS);
+        final List<Boolean> results = future.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(30, results.size());
+        for (final Boolean b: results) {
+            Assert.assertTrue(b.booleanValue());
+        }
+        Assert.assertTrue(maxInflight.get() <= 2);
+    }
+
+    @Test
+    public void shouldFailBatchPastDeadline() throws Exception {
+        final FutureRequestExecutionService service = new FutureRequestExecutionService(
+                HttpClientBuilder.create().build(),
+                Executors.newFixedThreadPool(2), Executors.newSingleThreadScheduledExecutor());
+        try {
+            blocked.set(true);
+            final List<HttpGet> requests = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                requests.add(new HttpGet(uri));
+            }
+            final Future<List<Boolean>> future = service.executeBatch(
+                    requests, new OkidokiHandler(), 2, 100, TimeUnit.MILLISECONDS);
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("ExecutionException expected");
+            } catch (final ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+        } finally {
+            blocked.set(false);
+            service.close();
+        }
+    }
+
+    @Test
+    public void shouldFailBatchPastDeadlineWithoutScheduler() throws Exception {
+        blocked.set(true);
+        final List<HttpGet> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(new HttpGet(uri));
+        }
+        final Future<List<Boolean>> future = httpAsyncClientWithFuture.executeBatch(
+                requests, new OkidokiHandler(), 2, 100, TimeUnit.MILLISECONDS);
+        final long start = System.currentTimeMillis();
+        try {
+            future.get();
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+        } finally {
+            blocked.set(false);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertTrue(future.isDone());
+    }
+
+    @Test
+    public void shouldCompleteEmptyBatch() throws Exception {
+        final Future<List<Boolean>> future = httpAsyncClientWithFuture.executeBatch(
+                new ArrayList<HttpGet>(), new OkidokiHandler(), 2, 1, TimeUnit.SECONDS);
+        Assert.assertTrue(future.get().isEmpty());
+    }
+
     private final class CountingCallback implements FutureCallback<Boolean> {
 
         private final CountDownLatch latch;
@@ -0,0 +1,120 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestGradientBackoffManager {
+
+    private GradientBackoffManager impl;
+    private MockConnPoolControl connPerRoute;
+    private HttpRoute route;
+
+    @Before
+    public void setUp() {
+        connPerRoute = new MockConnPoolControl();
+        route = new HttpRoute(new HttpHost("localhost", 80));
+        impl = new GradientBackoffManager(connPerRoute);
+        impl.setPerHostConnectionCap(10);
+        impl.setSmoothing(1.0);
+    }
+
+    @Test
+    public void growsWhileLatencyIsFlat() {
+        connPerRoute.setMaxPerRoute(route, 4);
+        impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(6, connPerRoute.getMaxPerRoute(route));
+        for (int i = 0; i < 10; i++) {
+            impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertEquals(10, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void growsWithinTolerance() {
+        connPerRoute.setMaxPerRoute(route, 4);
+        impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        impl.probe(route, 140, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(connPerRoute.getMaxPerRoute(route) > 6);
+    }
+
+    @Test
+    public void shrinksAsLatencyInflates() {
+        connPerRoute.setMaxPerRoute(route, 8);
+        impl.setPerHostConnectionCap(8);
+        impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(8, connPerRoute.getMaxPerRoute(route));
+        impl.probe(route, 300, TimeUnit.MILLISECONDS);
+        final int reduced = connPerRoute.getMaxPerRoute(route);
+        Assert.assertTrue(reduced < 8);
+        Assert.assertTrue(reduced >= 4);
+        impl.probe(route, 1000, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(connPerRoute.getMaxPerRoute(route) < reduced);
+    }
+
+    @Test
+    public void doesNotShrinkBelowOneConnection() {
+        connPerRoute.setMaxPerRoute(route, 1);
+        impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        impl.backOff(route);
+        impl.backOff(route);
+        impl.probe(route, 10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void backOffAppliesBackoffFactor() {
+        connPerRoute.setMaxPerRoute(route, 10);
+        impl.setBackoffFactor(0.5);
+        impl.backOff(route);
+        Assert.assertEquals(5, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void probeWithoutLatencyHasNoEffect() {
+        connPerRoute.setMaxPerRoute(route, 4);
+        impl.probe(route);
+        Assert.assertEquals(4, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void routesAreIndependent() {
+        final HttpRoute other = new HttpRoute(new HttpHost("otherhost", 80));
+        connPerRoute.setMaxPerRoute(route, 4);
+        connPerRoute.setMaxPerRoute(other, 4);
+        impl.probe(route, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(6, connPerRoute.getMaxPerRoute(route));
+        Assert.assertEquals(4, connPerRoute.getMaxPerRoute(other));
+    }
+
+}
@@ -28,15 +28,20 @@ package org.apache.http.impl.client;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthExchange;
 import org.apache.http.auth.AuthSchemeProvider;
 import org.apache.http.auth.CredentialsProvider;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
@@ -45,12 +50,18 @@ import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.routing.HttpRoutePlanner;
 import org.apache.http.cookie.CookieSpecProvider;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.auth.DigestSessionCache;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.execchain.ClientExecChain;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  *  Simple tests for {@link InternalHttpClient}.
@@ -65,6 +76,7 @@ public class TestInternalHttpClient {
     private Lookup<AuthSchemeProvider> authSchemeRegistry;
     private CookieStore cookieStore;
     private CredentialsProvider credentialsProvider;
+    private DigestSessionCache digestSessionCache;
     private RequestConfig defaultConfig;
     private Closeable closeable1;
     private Closeable closeable2;
@@ -81,13 +93,14 @@ public class TestInternalHttpClient {
         authSchemeRegistry = Mockito.mock(Lookup.class);
         cookieStore = Mockito.mock(CookieStore.class);
         credentialsProvider = Mockito.mock(CredentialsProvider.class);
+        digestSessionCache = new DigestSessionCache();
         defaultConfig = RequestConfig.custom().build();
         closeable1 = Mockito.mock(Closeable.class);
         closeable2 = Mockito.mock(Closeable.class);
 
         client = new InternalHttpClient(execChain, connManager, routePlanner,
                 cookieSpecRegistry, authSchemeRegistry, cookieStore, credentialsProvider,
-                defaultConfig, Arrays.asList(closeable1, closeable2));
+                digestSessionCache, defaultConfig, Arrays.asList(closeable1, closeable2));
 
     }
 
@@ -184,6 +197,97 @@ public class TestInternalHttpClient {
         Assert.assertSame(localConfig, context.getRequestConfig());
     }
 
+    private InternalHttpClient createRecyclingClient() {
+        return new InternalHttpClient(execChain, connManager, routePlanner,
+                cookieSpecRegistry, authSchemeRegistry, cookieStore, credentialsProvider,
+                digestSessionCache, defaultConfig, null, new HttpContextPool());
+    }
+
+    @Test
+    public void testExecuteRecycledContext() throws Exception {
+        final InternalHttpClient recyclingClient = createRecyclingClient();
+        final ArgumentCaptor<HttpClientContext> argcap = ArgumentCaptor.forClass(HttpClientContext.class);
+        Mockito.when(execChain.execute(
+                Mockito.<HttpRoute>any(),
+                Mockito.<HttpRequestWrapper>any(),
+                argcap.capture(),
+                Mockito.<HttpExecutionAware>any())).thenAnswer(new Answer<CloseableHttpResponse>() {
+
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+                final HttpClientContext context = (HttpClientContext) invocation.getArguments()[2];
+                Assert.assertNull(context.getAttribute("stuff"));
+                Assert.assertSame(cookieStore, context.getCookieStore());
+                context.setAttribute("stuff", "blah");
+                return null;
+            }
+
+        });
+
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+
+        final List<HttpClientContext> contexts = argcap.getAllValues();
+        Assert.assertEquals(2, contexts.size());
+        Assert.assertTrue(contexts.get(0) instanceof PooledHttpContext);
+        Assert.assertSame(contexts.get(0), contexts.get(1));
+
+        final HttpClientContext context = HttpClientContext.create();
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"), context);
+        Assert.assertSame(context, argcap.getValue());
+        Assert.assertEquals("blah", context.getAttribute("stuff"));
+    }
+
+    @Test
+    public void testExecuteRetainedContextNotRecycled() throws Exception {
+        final InternalHttpClient recyclingClient = createRecyclingClient();
+        final ArgumentCaptor<HttpClientContext> argcap = ArgumentCaptor.forClass(HttpClientContext.class);
+        Mockito.when(execChain.execute(
+                Mockito.<HttpRoute>any(),
+                Mockito.<HttpRequestWrapper>any(),
+                argcap.capture(),
+                Mockito.<HttpExecutionAware>any())).thenAnswer(new Answer<CloseableHttpResponse>() {
+
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+                final HttpClientContext context = (HttpClientContext) invocation.getArguments()[2];
+                PooledHttpContext.retain(context);
+                context.setAttribute("stuff", "blah");
+                return null;
+            }
+
+        });
+
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+
+        final List<HttpClientContext> contexts = argcap.getAllValues();
+        Assert.assertEquals(2, contexts.size());
+        Assert.assertNotSame(contexts.get(0), contexts.get(1));
+        Assert.assertEquals("blah", contexts.get(0).getAttribute("stuff"));
+    }
+
+    @Test
+    public void testExecuteExceptionContextRecycled() throws Exception {
+        final InternalHttpClient recyclingClient = createRecyclingClient();
+        final ArgumentCaptor<HttpClientContext> argcap = ArgumentCaptor.forClass(HttpClientContext.class);
+        Mockito.when(execChain.execute(
+                Mockito.<HttpRoute>any(),
+                Mockito.<HttpRequestWrapper>any(),
+                argcap.capture(),
+                Mockito.<HttpExecutionAware>any())).thenThrow(new IOException());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+                Assert.fail("IOException expected");
+            } catch (final IOException expected) {
+            }
+        }
+        final List<HttpClientContext> contexts = argcap.getAllValues();
+        Assert.assertSame(contexts.get(0), contexts.get(1));
+    }
+
     @Test
     public void testClientClose() throws Exception {
         client.close();
@@ -202,4 +306,84 @@ public class TestInternalHttpClient {
         Mockito.verify(closeable2).close();
     }
 
+    @Test
+    public void testRecycledContextAuthExchangesReset() throws Exception {
+        final InternalHttpClient recyclingClient = createRecyclingClient();
+        final HttpHost target = new HttpHost("somehost");
+        final List<AuthExchange> exchanges = new ArrayList<>();
+        Mockito.when(execChain.execute(
+                Mockito.<HttpRoute>any(),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenAnswer(new Answer<CloseableHttpResponse>() {
+
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+                final HttpClientContext context = (HttpClientContext) invocation.getArguments()[2];
+                final AuthExchange authExchange = context.getAuthExchange(target);
+                Assert.assertEquals(AuthExchange.State.UNCHALLENGED, authExchange.getState());
+                Assert.assertNull(authExchange.getAuthScheme());
+                authExchange.setState(AuthExchange.State.SUCCESS);
+                authExchange.select(new BasicScheme());
+                exchanges.add(authExchange);
+                return null;
+            }
+
+        });
+
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+        recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+
+        Assert.assertEquals(2, exchanges.size());
+        Assert.assertSame(exchanges.get(0), exchanges.get(1));
+    }
+
+    /**
+     * Exec chain touching the context the way the main request executor does.
+     */
+    static class ContextUsingExecChain implements ClientExecChain {
+
+        final List<HttpClientContext> contexts = new ArrayList<>();
+        final List<Object> staleRoutes = new ArrayList<>();
+
+        @Override
+        public CloseableHttpResponse execute(
+                final HttpRoute route,
+                final HttpRequestWrapper request,
+                final HttpClientContext context,
+                final HttpExecutionAware execAware) throws IOException, HttpException {
+            this.contexts.add(context);
+            this.staleRoutes.add(context.getAttribute(HttpClientContext.HTTP_ROUTE));
+            context.getAuthExchange(route.getTargetHost());
+            context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+            context.setAttribute(HttpClientContext.HTTP_REQUEST, request);
+            context.setAttribute(HttpClientContext.HTTP_TARGET_HOST, route.getTargetHost());
+            context.setAttribute(HttpClientContext.USER_TOKEN, null);
+            return null;
+        }
+
+    }
+
+    @Test
+    public void testRecycledContextAttributesCleared() throws Exception {
+        final ContextUsingExecChain stubExecChain = new ContextUsingExecChain();
+        final HttpRoutePlanner stubRoutePlanner = new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE);
+        final InternalHttpClient recyclingClient = new InternalHttpClient(stubExecChain, connManager, stubRoutePlanner,
+                cookieSpecRegistry, authSchemeRegistry, cookieStore, credentialsProvider,
+                digestSessionCache, defaultConfig, null, new HttpContextPool());
+        for (int i = 0; i < 3; i++) {
+            recyclingClient.execute(new HttpGet("http://somehost/stuff"));
+        }
+
+        Assert.assertEquals(3, stubExecChain.contexts.size());
+        final HttpClientContext context = stubExecChain.contexts.get(0);
+        Assert.assertTrue(context instanceof PooledHttpContext);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertSame(context, stubExecChain.contexts.get(i));
+            Assert.assertNull(stubExecChain.staleRoutes.get(i));
+        }
+        Assert.assertNull(context.getAttribute(HttpClientContext.HTTP_REQUEST));
+        Assert.assertNull(context.getAttribute(HttpClientContext.HTTP_TARGET_HOST));
+    }
+
 }
@@ -0,0 +1,122 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void testBuckets() {
+        for (long v = 0; v < 100000; v++) {
+            final int bucket = LatencyHistogram.bucketOf(v);
+            final long upper = LatencyHistogram.upperBoundOf(bucket);
+            Assert.assertTrue(upper >= v);
+            Assert.assertTrue(upper - v <= v / 16);
+        }
+        Assert.assertTrue(LatencyHistogram.bucketOf(Long.MAX_VALUE) >= 0);
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        Assert.assertEquals(0, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getP50());
+        Assert.assertEquals(0, snapshot.getP999());
+        Assert.assertEquals(0, snapshot.getMean());
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(1000000, snapshot.getMax());
+        Assert.assertEquals(500500, snapshot.getMean());
+        assertWithin(500000, snapshot.getP50());
+        assertWithin(900000, snapshot.getP90());
+        assertWithin(990000, snapshot.getP99());
+        assertWithin(999000, snapshot.getP999());
+        Assert.assertEquals(1000000, snapshot.getPercentile(1.0));
+    }
+
+    @Test
+    public void testNegativeLatencyIgnored() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1, TimeUnit.NANOSECONDS);
+        Assert.assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void testSnapshotAndReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10, TimeUnit.MICROSECONDS);
+        histogram.record(20, TimeUnit.MICROSECONDS);
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        Assert.assertEquals(2, snapshot.getCount());
+        Assert.assertEquals(20, snapshot.getMax());
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.snapshot().getCount());
+        Assert.assertEquals(0, histogram.snapshot().getMax());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int n = 0; n < 10000; n++) {
+                        histogram.record(n, TimeUnit.MICROSECONDS);
+                    }
+                }
+
+            });
+            threads[i].start();
+        }
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        Assert.assertEquals(40000, histogram.getCount());
+        Assert.assertEquals(40000, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        Assert.assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 16);
+    }
+
+}
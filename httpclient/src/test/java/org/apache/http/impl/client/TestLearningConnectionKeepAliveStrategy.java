@@ -0,0 +1,172 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestLearningConnectionKeepAliveStrategy {
+
+    private HttpRoute route;
+    private ManagedHttpClientConnection conn;
+    private HttpClientContext context;
+    private HttpResponse response;
+    private LearningConnectionKeepAliveStrategy strategy;
+
+    @Before
+    public void setup() {
+        route = new HttpRoute(new HttpHost("somehost", 80));
+        conn = Mockito.mock(ManagedHttpClientConnection.class);
+        Mockito.when(conn.getSocket()).thenReturn(new Socket());
+        context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+        context.setAttribute(HttpClientContext.HTTP_CONNECTION, conn);
+        response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        strategy = new LearningConnectionKeepAliveStrategy();
+    }
+
+    @Test
+    public void testUnknownIdleTimeout() throws Exception {
+        Assert.assertEquals(-1, strategy.getKeepAliveDuration(response, context));
+        Assert.assertEquals(-1, strategy.getIdleTimeout(route));
+    }
+
+    @Test
+    public void testResetOfFreshConnectionIgnored() throws Exception {
+        strategy.connectionReset(conn, route, context);
+        Assert.assertEquals(-1, strategy.getIdleTimeout(route));
+        Assert.assertEquals(0, strategy.getResetCount(route));
+    }
+
+    @Test
+    public void testLearnIdleTimeoutFromReset() throws Exception {
+        strategy.getKeepAliveDuration(response, context);
+        Thread.sleep(100);
+        strategy.connectionReset(conn, route, context);
+
+        final long timeout = strategy.getIdleTimeout(route);
+        Assert.assertTrue(timeout >= 100);
+        Assert.assertTrue(timeout < 10000);
+        Assert.assertEquals(1, strategy.getResetCount(route));
+
+        final long duration = strategy.getKeepAliveDuration(response, context);
+        Assert.assertEquals((long) (timeout * LearningConnectionKeepAliveStrategy.DEFAULT_SAFETY_FACTOR), duration);
+        Assert.assertEquals(-1, strategy.getIdleTimeout(new HttpRoute(new HttpHost("otherhost", 80))));
+    }
+
+    @Test
+    public void testKeepAliveHeaderTakesPrecedence() throws Exception {
+        strategy.getKeepAliveDuration(response, context);
+        strategy.connectionReset(conn, route, context);
+        Assert.assertTrue(strategy.getIdleTimeout(route) >= 0);
+
+        response.addHeader("Keep-Alive", "timeout=30");
+        Assert.assertEquals(30000, strategy.getKeepAliveDuration(response, context));
+    }
+
+    @Test
+    public void testSuccessfulReuseRaisesIdleTimeout() throws Exception {
+        strategy.getKeepAliveDuration(response, context);
+        strategy.connectionReset(conn, route, context);
+        final long timeout = strategy.getIdleTimeout(route);
+
+        strategy.getKeepAliveDuration(response, context);
+        Thread.sleep(timeout + 50);
+        strategy.getKeepAliveDuration(response, context);
+        Assert.assertTrue(strategy.getIdleTimeout(route) > timeout);
+
+        strategy.reset(route);
+        Assert.assertEquals(-1, strategy.getIdleTimeout(route));
+    }
+
+    @Test
+    public void testIdleTimeoutRecoversAfterPrematureReset() throws Exception {
+        strategy = new LearningConnectionKeepAliveStrategy(
+                DefaultConnectionKeepAliveStrategy.INSTANCE, -1,
+                LearningConnectionKeepAliveStrategy.DEFAULT_SAFETY_FACTOR, 4);
+        // A reset shortly after release makes for a low estimate
+        strategy.getKeepAliveDuration(response, context);
+        Thread.sleep(20);
+        strategy.connectionReset(conn, route, context);
+        final long initial = strategy.getIdleTimeout(route);
+        Assert.assertTrue(initial >= 20);
+
+        long timeout = initial;
+        for (int round = 0; round < 3; round++) {
+            // Connections are kept alive below the estimate until enough of them
+            // have been reused cleanly, then one is kept alive beyond it as a probe
+            long probe = -1;
+            for (int i = 0; i < 5 && probe < 0; i++) {
+                final long duration = strategy.getKeepAliveDuration(response, context);
+                if (duration > timeout) {
+                    probe = duration;
+                } else {
+                    Assert.assertTrue(duration < timeout);
+                }
+            }
+            Assert.assertEquals(timeout * 2, probe);
+            Thread.sleep(timeout + timeout / 2);
+            strategy.getKeepAliveDuration(response, context);
+            Assert.assertTrue(strategy.getIdleTimeout(route) > timeout);
+            timeout = strategy.getIdleTimeout(route);
+        }
+        Assert.assertTrue(timeout > initial * 3);
+        Assert.assertEquals(1, strategy.getResetCount(route));
+    }
+
+    @Test
+    public void testResetOfProbeKeepsIdleTimeout() throws Exception {
+        strategy = new LearningConnectionKeepAliveStrategy(
+                DefaultConnectionKeepAliveStrategy.INSTANCE, -1,
+                LearningConnectionKeepAliveStrategy.DEFAULT_SAFETY_FACTOR, 1);
+        strategy.getKeepAliveDuration(response, context);
+        Thread.sleep(20);
+        strategy.connectionReset(conn, route, context);
+        final long timeout = strategy.getIdleTimeout(route);
+
+        strategy.getKeepAliveDuration(response, context);
+        Assert.assertEquals(timeout * 2, strategy.getKeepAliveDuration(response, context));
+        Thread.sleep(timeout + timeout / 2);
+        strategy.connectionReset(conn, route, context);
+        Assert.assertEquals(timeout, strategy.getIdleTimeout(route));
+        Assert.assertEquals(2, strategy.getResetCount(route));
+        Assert.assertTrue(strategy.getKeepAliveDuration(response, context) < timeout);
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.integration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.PipelinedRequestExecutor;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.localserver.LocalServerTestBase;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Pipelined request execution tests.
+ */
+public class TestPipelinedRequestExecution extends LocalServerTestBase {
+
+    private static class UriService implements HttpRequestHandler {
+
+        private final AtomicInteger count = new AtomicInteger(0);
+        private final int closeAfter;
+
+        UriService(final int closeAfter) {
+            super();
+            this.closeAfter = closeAfter;
+        }
+
+        @Override
+        public void handle(
+                final HttpRequest request,
+                final HttpResponse response,
+                final HttpContext context) throws HttpException, IOException {
+            response.setStatusCode(HttpStatus.SC_OK);
+            response.setEntity(new StringEntity(request.getRequestLine().getMethod() + " "
+                    + request.getRequestLine().getUri()));
+            if (this.count.incrementAndGet() == this.closeAfter) {
+                response.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+            }
+        }
+
+    }
+
+    private static void assertResponses(
+            final List<HttpRequest> requests, final List<HttpResponse> responses) throws IOException {
+        Assert.assertEquals(requests.size(), responses.size());
+        for (int i = 0; i < requests.size(); i++) {
+            final HttpRequest request = requests.get(i);
+            final HttpResponse response = responses.get(i);
+            Assert.assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+            if (request instanceof HttpHead) {
+                Assert.assertNull(response.getEntity());
+            } else {
+                Assert.assertEquals(request.getRequestLine().getMethod() + " " + request.getRequestLine().getUri(),
+                        EntityUtils.toString(response.getEntity()));
+            }
+        }
+    }
+
+    @Test
+    public void testPipelinedGets() throws Exception {
+        this.serverBootstrap.registerHandler("*", new UriService(-1));
+        final HttpHost target = start();
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(i % 5 == 4 ? new HttpHead("/" + i) : new HttpGet("/" + i));
+        }
+        final PipelinedRequestExecutor executor = new PipelinedRequestExecutor(this.connManager, this.httpclient);
+        assertResponses(requests, executor.execute(target, requests));
+
+        Assert.assertEquals(1, this.connManager.getTotalStats().getAvailable());
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testClientProtocolProcessingApplied() throws Exception {
+        final List<String> cookieHeaders = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> defaultHeaders = Collections.synchronizedList(new ArrayList<String>());
+        this.serverBootstrap.registerHandler("*", new HttpRequestHandler() {
+
+            @Override
+            public void handle(
+                    final HttpRequest request,
+                    final HttpResponse response,
+                    final HttpContext context) throws HttpException, IOException {
+                final Header cookie = request.getFirstHeader("Cookie");
+                cookieHeaders.add(cookie != null ? cookie.getValue() : null);
+                final Header header = request.getFirstHeader("X-Default");
+                defaultHeaders.add(header != null ? header.getValue() : null);
+                response.setStatusCode(HttpStatus.SC_OK);
+                if (request.getRequestLine().getUri().equals("/login")) {
+                    response.addHeader("Set-Cookie", "session=pipelined; Path=/");
+                }
+                response.setEntity(new StringEntity("stuff"));
+            }
+
+        });
+        final BasicCookieStore cookieStore = new BasicCookieStore();
+        final BasicClientCookie cookie = new BasicClientCookie("name", "value");
+        cookie.setDomain("localhost");
+        cookie.setPath("/");
+        cookieStore.addCookie(cookie);
+        this.clientBuilder
+                .setDefaultCookieStore(cookieStore)
+                .setDefaultHeaders(Collections.<Header>singletonList(new BasicHeader("X-Default", "yes")));
+        final HttpHost target = start();
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        requests.add(new HttpGet("/login"));
+        for (int i = 0; i < 3; i++) {
+            requests.add(new HttpGet("/" + i));
+        }
+        final PipelinedRequestExecutor executor = new PipelinedRequestExecutor(this.connManager, this.httpclient);
+        final List<HttpResponse> responses = executor.execute(target, requests);
+        Assert.assertEquals(4, responses.size());
+        Assert.assertEquals(1, this.connManager.getTotalStats().getAvailable());
+        Assert.assertEquals(Arrays.asList("yes", "yes", "yes", "yes"), defaultHeaders);
+        for (final String cookieHeader: cookieHeaders) {
+            Assert.assertEquals("name=value", cookieHeader);
+        }
+        // Cookies set by pipelined responses end up in the client cookie store
+        boolean found = false;
+        for (final Cookie c: cookieStore.getCookies()) {
+            if (c.getName().equals("session") && c.getValue().equals("pipelined")) {
+                found = true;
+            }
+        }
+        Assert.assertTrue(found);
+
+        cookieHeaders.clear();
+        executor.execute(target, Collections.<HttpRequest>singletonList(new HttpGet("/next")));
+        Assert.assertTrue(cookieHeaders.get(0).contains("session=pipelined"));
+    }
+
+    @Test
+    public void testNonIdempotentRequestsNotPipelined() throws Exception {
+        this.serverBootstrap.registerHandler("*", new UriService(-1));
+        final HttpHost target = start();
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        requests.add(new HttpGet("/a"));
+        requests.add(new HttpGet("/b"));
+        final HttpPost post = new HttpPost("/c");
+        post.setEntity(new StringEntity("stuff"));
+        requests.add(post);
+        requests.add(new HttpGet("/d"));
+        final PipelinedRequestExecutor executor = new PipelinedRequestExecutor(this.connManager, this.httpclient);
+        assertResponses(requests, executor.execute(target, requests));
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testFallbackOnConnectionClose() throws Exception {
+        this.serverBootstrap.registerHandler("*", new UriService(3));
+        final HttpHost target = start();
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(new HttpGet("/" + i));
+        }
+        final PipelinedRequestExecutor executor = new PipelinedRequestExecutor(
+                this.connManager, this.httpclient, 6);
+        assertResponses(requests, executor.execute(target, requests));
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testRedirectsAndChallengesHandled() throws Exception {
+        this.serverBootstrap.registerHandler("*", new HttpRequestHandler() {
+
+            @Override
+            public void handle(
+                    final HttpRequest request,
+                    final HttpResponse response,
+                    final HttpContext context) throws HttpException, IOException {
+                final String uri = request.getRequestLine().getUri();
+                if (uri.equals("/redirect")) {
+                    response.setStatusCode(HttpStatus.SC_MOVED_TEMPORARILY);
+                    response.setHeader("Location", "/target");
+                } else if (uri.equals("/protected") && !request.containsHeader("Authorization")) {
+                    response.setStatusCode(HttpStatus.SC_UNAUTHORIZED);
+                    response.setHeader("WWW-Authenticate", "Basic realm=\"test realm\"");
+                } else {
+                    response.setStatusCode(HttpStatus.SC_OK);
+                    response.setEntity(new StringEntity("GET " + uri));
+                }
+            }
+
+        });
+        final BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
+        credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials("test", "test".toCharArray()));
+        this.clientBuilder.setDefaultCredentialsProvider(credsProvider);
+        final HttpHost target = start();
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        requests.add(new HttpGet("/a"));
+        requests.add(new HttpGet("/redirect"));
+        requests.add(new HttpGet("/protected"));
+        requests.add(new HttpGet("/b"));
+        final PipelinedRequestExecutor executor = new PipelinedRequestExecutor(this.connManager, this.httpclient);
+        final List<HttpResponse> responses = executor.execute(target, requests);
+        Assert.assertEquals(4, responses.size());
+        final String[] expected = {"GET /a", "GET /target", "GET /protected", "GET /b"};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(HttpStatus.SC_OK, responses.get(i).getStatusLine().getStatusCode());
+            Assert.assertEquals(expected[i], EntityUtils.toString(responses.get(i).getEntity()));
+        }
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+}
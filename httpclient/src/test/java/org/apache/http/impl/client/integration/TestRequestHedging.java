@@ -0,0 +1,233 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.integration;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.localserver.LocalServerTestBase;
+import org.apache.http.localserver.RequestBasicAuth;
+import org.apache.http.localserver.ResponseBasicUnauthorized;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.HttpProcessorBuilder;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.protocol.ResponseConnControl;
+import org.apache.http.protocol.ResponseContent;
+import org.apache.http.protocol.ResponseDate;
+import org.apache.http.protocol.ResponseServer;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Request hedging tests.
+ */
+public class TestRequestHedging extends LocalServerTestBase {
+
+    private ScheduledExecutorService hedgingExecutor;
+
+    @After
+    public void shutDownHedgingExecutor() throws Exception {
+        if (this.hedgingExecutor != null) {
+            this.hedgingExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Handler that is slow to respond to the first copy of every 25th request
+     * and quick to respond to its duplicate. If authentication is required it
+     * responds with a challenge to requests without the expected credentials.
+     */
+    static class SlowFirstCopyHandler implements HttpRequestHandler {
+
+        private final boolean authRequired;
+        private final Set<String> seen;
+        private final AtomicInteger arrivals;
+        private final AtomicInteger challenges;
+
+        SlowFirstCopyHandler(final boolean authRequired) {
+            this.authRequired = authRequired;
+            this.seen = Collections.synchronizedSet(new HashSet<String>());
+            this.arrivals = new AtomicInteger(0);
+            this.challenges = new AtomicInteger(0);
+        }
+
+        @Override
+        public void handle(
+                final HttpRequest request,
+                final HttpResponse response,
+                final HttpContext context) throws HttpException, IOException {
+            if (this.authRequired && !"test:test".equals(context.getAttribute("creds"))) {
+                this.challenges.incrementAndGet();
+                response.setStatusCode(HttpStatus.SC_UNAUTHORIZED);
+                return;
+            }
+            this.arrivals.incrementAndGet();
+            final String seq = request.getFirstHeader("X-Seq").getValue();
+            if (this.seen.add(seq) && Integer.parseInt(seq) % 25 == 24) {
+                try {
+                    Thread.sleep(500);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setStatusCode(HttpStatus.SC_OK);
+            response.setHeader("X-Seq", seq);
+            response.setEntity(new StringEntity(seq));
+        }
+
+        int getArrivals() {
+            return this.arrivals.get();
+        }
+
+        int getChallenges() {
+            return this.challenges.get();
+        }
+
+    }
+
+    private void useAuthentication() {
+        final HttpProcessor httpproc = HttpProcessorBuilder.create()
+                .add(new ResponseDate())
+                .add(new ResponseServer(LocalServerTestBase.ORIGIN))
+                .add(new ResponseContent())
+                .add(new ResponseConnControl())
+                .add(new RequestBasicAuth())
+                .add(new ResponseBasicUnauthorized()).build();
+        this.serverBootstrap.setHttpProcessor(httpproc);
+        final BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
+        credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials("test", "test".toCharArray()));
+        this.clientBuilder.setDefaultCredentialsProvider(credsProvider);
+    }
+
+    private AtomicInteger useHedging() {
+        this.hedgingExecutor = Executors.newScheduledThreadPool(2);
+        final AtomicInteger mismatches = new AtomicInteger(0);
+        this.clientBuilder
+                .setHedgingExecutor(this.hedgingExecutor)
+                .addInterceptorLast(new HttpResponseInterceptor() {
+
+                    @Override
+                    public void process(
+                            final HttpResponse response,
+                            final HttpContext context) throws HttpException, IOException {
+                        if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                            return;
+                        }
+                        final HttpRequest request = HttpClientContext.adapt(context).getRequest();
+                        final Header seq = request != null ? request.getFirstHeader("X-Seq") : null;
+                        if (seq == null || !seq.getValue().equals(response.getFirstHeader("X-Seq").getValue())) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+
+                });
+        return mismatches;
+    }
+
+    private void executeSequence(final HttpHost target, final HttpClientContext context, final int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            final HttpGet httpget = new HttpGet("/stuff");
+            httpget.setHeader("X-Seq", Integer.toString(i));
+            try (CloseableHttpResponse response = this.httpclient.execute(target, httpget, context)) {
+                Assert.assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                Assert.assertEquals(Integer.toString(i), EntityUtils.toString(response.getEntity()));
+            }
+        }
+    }
+
+    @Test
+    public void testHedgingWithContextRecycling() throws Exception {
+        final SlowFirstCopyHandler handler = new SlowFirstCopyHandler(false);
+        this.serverBootstrap.registerHandler("*", handler);
+        final AtomicInteger mismatches = useHedging();
+        this.clientBuilder.useContextRecycling();
+        final HttpHost target = start();
+
+        executeSequence(target, null, 60);
+        Assert.assertEquals(0, mismatches.get());
+        // Some requests must have been hedged
+        Assert.assertTrue(handler.getArrivals() > 60);
+    }
+
+    @Test
+    public void testHedgingWithAuthentication() throws Exception {
+        final SlowFirstCopyHandler handler = new SlowFirstCopyHandler(true);
+        this.serverBootstrap.registerHandler("*", handler);
+        useAuthentication();
+        final AtomicInteger mismatches = useHedging();
+        final HttpHost target = start();
+
+        final HttpClientContext context = HttpClientContext.create();
+        executeSequence(target, context, 60);
+        Assert.assertEquals(0, mismatches.get());
+        Assert.assertTrue(handler.getArrivals() > 60);
+        // Only the very first request gets challenged, later ones and their
+        // duplicates are authenticated preemptively
+        Assert.assertEquals(1, handler.getChallenges());
+        Assert.assertTrue(context.getAuthExchange(target).getAuthScheme() instanceof BasicScheme);
+    }
+
+    @Test
+    public void testHedgingWithAuthenticationAndContextRecycling() throws Exception {
+        final SlowFirstCopyHandler handler = new SlowFirstCopyHandler(true);
+        this.serverBootstrap.registerHandler("*", handler);
+        useAuthentication();
+        final AtomicInteger mismatches = useHedging();
+        this.clientBuilder.useContextRecycling();
+        final HttpHost target = start();
+
+        executeSequence(target, null, 60);
+        Assert.assertEquals(0, mismatches.get());
+        Assert.assertTrue(handler.getArrivals() > 60);
+        // Recycled auth exchanges are reset, so every request gets challenged
+        Assert.assertTrue(handler.getChallenges() >= 60);
+    }
+
+}
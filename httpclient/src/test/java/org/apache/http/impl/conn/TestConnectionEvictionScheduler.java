@@ -0,0 +1,200 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Lookup;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.SchemePortResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+@SuppressWarnings({"boxing","resource"}) // test code
+public class TestConnectionEvictionScheduler {
+
+    @Mock
+    private ManagedHttpClientConnection conn;
+    @Mock
+    private Lookup<ConnectionSocketFactory> socketFactoryRegistry;
+    @Mock
+    private SchemePortResolver schemePortResolver;
+    @Mock
+    private DnsResolver dnsResolver;
+    @Mock
+    private Future<CPoolEntry> future;
+    @Mock
+    private CPool pool;
+
+    private HttpRoute route;
+    private ConnectionEvictionScheduler scheduler;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        route = new HttpRoute(new HttpHost("localhost", 80));
+        Mockito.when(conn.isOpen()).thenReturn(Boolean.TRUE);
+        scheduler = new ConnectionEvictionScheduler(10, TimeUnit.MILLISECONDS);
+        scheduler.start();
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private CPoolEntry createEntry() {
+        return new CPoolEntry(LogFactory.getLog(getClass()), "id", route, conn, -1, TimeUnit.MILLISECONDS);
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getScheduledCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, scheduler.getScheduledCount());
+    }
+
+    @Test
+    public void testIdleEntryEvicted() throws Exception {
+        final CPoolEntry entry = createEntry();
+        final long stamp = entry.markAvailable();
+        scheduler.schedule(entry, stamp, System.currentTimeMillis() + 50);
+        Assert.assertEquals(1, scheduler.getScheduledCount());
+        awaitIdle();
+
+        Mockito.verify(conn).close();
+        Assert.assertFalse(entry.markLeased());
+    }
+
+    @Test
+    public void testLeasedEntryNotEvicted() throws Exception {
+        final CPoolEntry entry = createEntry();
+        final long stamp = entry.markAvailable();
+        entry.setEvictionNode(scheduler.schedule(entry, stamp, System.currentTimeMillis() + 50));
+        Assert.assertTrue(entry.markLeased());
+        awaitIdle();
+
+        Mockito.verify(conn, Mockito.never()).close();
+    }
+
+    @Test
+    public void testStaleReleaseNotEvicted() throws Exception {
+        final CPoolEntry entry = createEntry();
+        final long stamp = entry.markAvailable();
+        Assert.assertTrue(entry.markLeased());
+        entry.markAvailable();
+        scheduler.schedule(entry, stamp, System.currentTimeMillis());
+        awaitIdle();
+
+        Mockito.verify(conn, Mockito.never()).close();
+    }
+
+    @Test
+    public void testEntryBeyondWheelRevolution() throws Exception {
+        final ConnectionEvictionScheduler smallWheel = new ConnectionEvictionScheduler(
+                null, 5, TimeUnit.MILLISECONDS, 4);
+        smallWheel.start();
+        try {
+            final CPoolEntry entry = createEntry();
+            final long deadline = System.currentTimeMillis() + 100;
+            smallWheel.schedule(entry, entry.markAvailable(), deadline);
+            Thread.sleep(30);
+            Mockito.verify(conn, Mockito.never()).close();
+
+            final long timeout = System.currentTimeMillis() + 5000;
+            while (smallWheel.getScheduledCount() > 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(5);
+            }
+            Assert.assertTrue(System.currentTimeMillis() >= deadline);
+            Mockito.verify(conn).close();
+        } finally {
+            smallWheel.shutdown();
+        }
+    }
+
+    @Test
+    public void testReleasedConnectionScheduled() throws Exception {
+        final PoolingHttpClientConnectionManager mgr = new PoolingHttpClientConnectionManager(
+                pool, socketFactoryRegistry, schemePortResolver, dnsResolver);
+        mgr.setEvictionScheduler(scheduler, 50, TimeUnit.MILLISECONDS);
+
+        final CPoolEntry entry = createEntry();
+        entry.markRouteComplete();
+        Mockito.when(future.isCancelled()).thenReturn(Boolean.FALSE);
+        Mockito.when(future.get(1, TimeUnit.SECONDS)).thenReturn(entry);
+        Mockito.when(pool.lease(route, null, null)).thenReturn(future);
+
+        final ConnectionRequest connRequest = mgr.requestConnection(route, null);
+        final HttpClientConnection conn1 = connRequest.get(1, TimeUnit.SECONDS);
+        mgr.releaseConnection(conn1, null, 0, TimeUnit.MILLISECONDS);
+        Mockito.verify(pool).release(entry, true);
+        Assert.assertEquals(1, scheduler.getScheduledCount());
+        awaitIdle();
+
+        Mockito.verify(conn).close();
+    }
+
+    @Test
+    public void testEvictedEntryReplacedOnLease() throws Exception {
+        final PoolingHttpClientConnectionManager mgr = new PoolingHttpClientConnectionManager(
+                pool, socketFactoryRegistry, schemePortResolver, dnsResolver);
+
+        final CPoolEntry evicted = createEntry();
+        Assert.assertTrue(evicted.markEvicted(evicted.markAvailable()));
+        final ManagedHttpClientConnection conn2 = Mockito.mock(ManagedHttpClientConnection.class);
+        final CPoolEntry entry = new CPoolEntry(LogFactory.getLog(getClass()), "id2", route, conn2,
+                -1, TimeUnit.MILLISECONDS);
+        @SuppressWarnings("unchecked")
+        final Future<CPoolEntry> future2 = Mockito.mock(Future.class);
+        Mockito.when(future.isCancelled()).thenReturn(Boolean.FALSE);
+        Mockito.when(future.get(1, TimeUnit.SECONDS)).thenReturn(evicted);
+        Mockito.when(future2.isCancelled()).thenReturn(Boolean.FALSE);
+        Mockito.when(future2.get(1, TimeUnit.SECONDS)).thenReturn(entry);
+        Mockito.when(pool.lease(route, null, null)).thenReturn(future).thenReturn(future2);
+
+        final ConnectionRequest connRequest = mgr.requestConnection(route, null);
+        final HttpClientConnection conn1 = connRequest.get(1, TimeUnit.SECONDS);
+        Assert.assertSame(entry, CPoolProxy.getPoolEntry(conn1));
+        Mockito.verify(pool).release(evicted, false);
+    }
+
+}
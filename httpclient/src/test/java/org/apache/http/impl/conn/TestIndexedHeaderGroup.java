@@ -0,0 +1,160 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.ParseException;
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIndexedHeaderGroup {
+
+    private static HttpResponse parse(final String s) throws Exception {
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+        return new DefaultHttpResponseParser(inbuffer).parse();
+    }
+
+    private static CharArrayBuffer buffer(final String s) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        return buffer;
+    }
+
+    @Test
+    public void testParsedHeaderNamesInterned() throws Exception {
+        final HttpResponse response = parse(
+            "HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "content-length: 0\r\n" +
+            "CONTENT-ENCODING: gzip\r\n" +
+            "X-Custom : stuff\r\n" +
+            "\r\n");
+        final Header[] headers = response.getAllHeaders();
+        Assert.assertEquals(4, headers.length);
+        Assert.assertSame("Content-Type", headers[0].getName());
+        Assert.assertSame("content-length", headers[1].getName());
+        Assert.assertEquals("CONTENT-ENCODING", headers[2].getName());
+        Assert.assertEquals("X-Custom", headers[3].getName());
+        Assert.assertEquals("stuff", headers[3].getValue());
+        Assert.assertSame(headers[1], response.getFirstHeader("Content-Length"));
+        Assert.assertSame(headers[2], response.getFirstHeader("content-encoding"));
+        Assert.assertSame(headers[3], response.getFirstHeader("x-custom"));
+        Assert.assertNull(response.getFirstHeader("X-Other"));
+        Assert.assertFalse(response.containsHeader(null));
+    }
+
+    @Test
+    public void testLookupByName() throws Exception {
+        final HttpResponse response = parse(
+            "HTTP/1.1 200 OK\r\n" +
+            "Set-Cookie: a=1\r\n" +
+            "Date: Tue, 10 Mar 2015 10:00:00 GMT\r\n" +
+            "set-cookie: b=2\r\n" +
+            "Set-Cookie: c=3\r\n" +
+            "\r\n");
+        final Header[] cookies = response.getHeaders("SET-COOKIE");
+        Assert.assertEquals(3, cookies.length);
+        Assert.assertEquals("a=1", cookies[0].getValue());
+        Assert.assertEquals("b=2", cookies[1].getValue());
+        Assert.assertEquals("c=3", cookies[2].getValue());
+        Assert.assertEquals("c=3", response.getLastHeader("Set-Cookie").getValue());
+        Assert.assertEquals(0, response.getHeaders("Cookie").length);
+
+        final HeaderIterator it = response.headerIterator("Set-Cookie");
+        Assert.assertEquals("a=1", it.nextHeader().getValue());
+        it.remove();
+        Assert.assertEquals("b=2", it.nextHeader().getValue());
+        Assert.assertEquals("c=3", it.nextHeader().getValue());
+        Assert.assertFalse(it.hasNext());
+        Assert.assertEquals(2, response.getHeaders("Set-Cookie").length);
+        Assert.assertEquals(3, response.getAllHeaders().length);
+    }
+
+    @Test
+    public void testIndexUpdated() throws Exception {
+        final HttpResponse response = parse(
+            "HTTP/1.1 200 OK\r\n" +
+            "Content-Length: 10\r\n" +
+            "Content-Encoding: gzip\r\n" +
+            "\r\n");
+        Assert.assertTrue(response.containsHeader("Content-Length"));
+        response.removeHeaders("Content-Length");
+        Assert.assertFalse(response.containsHeader("Content-Length"));
+        response.addHeader("Content-Length", "20");
+        response.addHeader("content-length", "30");
+        Assert.assertEquals("20", response.getFirstHeader("Content-Length").getValue());
+        Assert.assertEquals("30", response.getLastHeader("Content-Length").getValue());
+        response.setHeader("Content-Encoding", "identity");
+        Assert.assertEquals("identity", response.getFirstHeader("Content-Encoding").getValue());
+        response.setHeaders(new Header[] { new BasicHeader("Vary", "Accept") });
+        Assert.assertNull(response.getFirstHeader("Content-Length"));
+        Assert.assertEquals("Accept", response.getFirstHeader("vary").getValue());
+    }
+
+    @Test
+    public void testIndexSurvivesClone() throws Exception {
+        final IndexedHeaderGroup group = new IndexedHeaderGroup();
+        group.addHeader(new BasicHeader("Host", "somehost"));
+        Assert.assertNotNull(group.getFirstHeader("host"));
+        final IndexedHeaderGroup clone = (IndexedHeaderGroup) group.clone();
+        Assert.assertNotNull(clone.getFirstHeader("HOST"));
+        Assert.assertEquals(1, clone.getHeaders("Host").length);
+    }
+
+    @Test
+    public void testLazyHeaderElements() throws Exception {
+        final LazyHeader header = new LazyHeader(buffer("Cache-Control:  no-cache, max-age=5 "));
+        Assert.assertSame("Cache-Control", header.getName());
+        Assert.assertEquals("no-cache, max-age=5", header.getValue());
+        Assert.assertSame(header.getValue(), header.getValue());
+        final HeaderElement[] elements = header.getElements();
+        Assert.assertEquals(2, elements.length);
+        Assert.assertEquals("no-cache", elements[0].getName());
+        Assert.assertEquals("5", elements[1].getValue());
+        elements[0] = null;
+        Assert.assertNotNull(header.getElements()[0]);
+        Assert.assertEquals("Cache-Control:  no-cache, max-age=5 ", header.toString());
+    }
+
+    @Test(expected=ParseException.class)
+    public void testLazyHeaderNoColon() throws Exception {
+        new LazyHeader(buffer("Cache-Control"));
+    }
+
+    @Test(expected=ParseException.class)
+    public void testLazyHeaderEmptyName() throws Exception {
+        new LazyHeader(buffer("  : stuff"));
+    }
+
+}
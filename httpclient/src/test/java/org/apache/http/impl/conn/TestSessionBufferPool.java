@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.Socket;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Consts;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestSessionBufferPool {
+
+    private HttpRoute route;
+    private SessionBufferPool bufferPool;
+    private ManagedHttpClientConnectionFactory connFactory;
+
+    @Before
+    public void setup() {
+        route = new HttpRoute(new HttpHost("somehost"));
+        bufferPool = new SessionBufferPool(2);
+        connFactory = new ManagedHttpClientConnectionFactory(bufferPool);
+    }
+
+    private static Socket mockSocket(final String content) throws Exception {
+        final Socket socket = Mockito.mock(Socket.class);
+        Mockito.when(socket.getInputStream()).thenReturn(
+                new ByteArrayInputStream(content.getBytes(Consts.ASCII)));
+        Mockito.when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        return socket;
+    }
+
+    private DefaultManagedHttpClientConnection create(final ConnectionConfig config) {
+        return (DefaultManagedHttpClientConnection) connFactory.create(route, config);
+    }
+
+    @Test
+    public void testClosedConnectionReused() throws Exception {
+        final DefaultManagedHttpClientConnection conn = create(null);
+        conn.bind(mockSocket(""));
+        conn.setAttribute("stuff", "blah");
+        final String id = conn.getId();
+        Assert.assertFalse(conn.recycle());
+        conn.close();
+        Assert.assertTrue(conn.recycle());
+        Assert.assertEquals(1, bufferPool.getIdleCount());
+        Assert.assertEquals(1, bufferPool.getRecycledCount());
+
+        final DefaultManagedHttpClientConnection conn2 = create(null);
+        Assert.assertSame(conn, conn2);
+        Assert.assertFalse(id.equals(conn2.getId()));
+        Assert.assertNull(conn2.getAttribute("stuff"));
+        Assert.assertEquals(0, bufferPool.getIdleCount());
+        Assert.assertEquals(1, bufferPool.getHitCount());
+        Assert.assertEquals(1, bufferPool.getMissCount());
+
+        conn2.bind(mockSocket(""));
+        Assert.assertTrue(conn2.isOpen());
+    }
+
+    @Test
+    public void testDifferentConfigNotReused() throws Exception {
+        final DefaultManagedHttpClientConnection conn = create(null);
+        conn.bind(mockSocket(""));
+        conn.close();
+        Assert.assertTrue(conn.recycle());
+        final ManagedHttpClientConnection conn2 = connFactory.create(route,
+                ConnectionConfig.custom().setBufferSize(1024).build());
+        Assert.assertNotSame(conn, conn2);
+        Assert.assertEquals(1, bufferPool.getIdleCount());
+        Assert.assertSame(conn, connFactory.create(route, ConnectionConfig.DEFAULT));
+    }
+
+    @Test
+    public void testShutdownConnectionNotReused() throws Exception {
+        final DefaultManagedHttpClientConnection conn = create(null);
+        conn.bind(mockSocket(""));
+        conn.shutdown();
+        Assert.assertFalse(conn.recycle());
+        Assert.assertEquals(0, bufferPool.getIdleCount());
+    }
+
+    @Test
+    public void testMalformedResponseConnectionNotReused() throws Exception {
+        final DefaultManagedHttpClientConnection conn = create(null);
+        conn.bind(mockSocket("HTTP/1.1 200 OK\r\nBad header\r\n"));
+        try {
+            conn.receiveResponseHeader();
+            Assert.fail("ProtocolException expected");
+        } catch (final Exception expected) {
+        }
+        conn.close();
+        Assert.assertFalse(conn.recycle());
+    }
+
+    @Test
+    public void testStaleContentStreamInvalidated() throws Exception {
+        final DefaultManagedHttpClientConnection conn = create(null);
+        conn.bind(mockSocket("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n0123456789"));
+        final HttpResponse response = conn.receiveResponseHeader();
+        conn.receiveResponseEntity(response);
+        final InputStream instream = response.getEntity().getContent();
+        Assert.assertEquals('0', instream.read());
+        conn.close();
+        Assert.assertTrue(conn.recycle());
+
+        Assert.assertSame(conn, connFactory.create(route, null));
+        conn.bind(mockSocket("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nabcde"));
+        try {
+            instream.read();
+            Assert.fail("ConnectionClosedException expected");
+        } catch (final ConnectionClosedException expected) {
+        }
+        instream.close();
+        final HttpResponse response2 = conn.receiveResponseHeader();
+        Assert.assertEquals(200, response2.getStatusLine().getStatusCode());
+        conn.receiveResponseEntity(response2);
+        final InputStream instream2 = response2.getEntity().getContent();
+        Assert.assertEquals('a', instream2.read());
+    }
+
+    @Test
+    public void testMaxIdle() throws Exception {
+        final DefaultManagedHttpClientConnection[] conns = new DefaultManagedHttpClientConnection[3];
+        for (int i = 0; i < conns.length; i++) {
+            conns[i] = create(null);
+            conns[i].bind(mockSocket(""));
+        }
+        for (final DefaultManagedHttpClientConnection conn: conns) {
+            conn.close();
+        }
+        Assert.assertTrue(conns[0].recycle());
+        Assert.assertTrue(conns[1].recycle());
+        Assert.assertFalse(conns[2].recycle());
+        Assert.assertEquals(2, bufferPool.getIdleCount());
+        Assert.assertEquals(1, bufferPool.getDiscardedCount());
+        bufferPool.setMaxIdle(1);
+        Assert.assertEquals(1, bufferPool.getIdleCount());
+        bufferPool.clear();
+        Assert.assertEquals(0, bufferPool.getIdleCount());
+    }
+
+}
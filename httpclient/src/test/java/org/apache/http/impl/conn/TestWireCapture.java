@@ -0,0 +1,147 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestWireCapture {
+
+    private Log log;
+    private WireCapture capture;
+
+    @Before
+    public void setup() {
+        log = Mockito.mock(Log.class);
+        Mockito.when(log.isDebugEnabled()).thenReturn(Boolean.TRUE);
+        capture = new WireCapture(log, null, 4, 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testCaptureAndFormat() throws Exception {
+        final CapturingWire wire = new CapturingWire(log, "conn-1", capture, null);
+        wire.startExchange();
+        wire.output("GET / HTTP/1.1\r\nHost: \u00e9\r\n".getBytes("ISO-8859-1"));
+        wire.input("end of stream");
+        Mockito.verify(log, Mockito.never()).debug(Mockito.anyObject());
+        Assert.assertEquals(2, capture.drain());
+        Mockito.verify(log).debug("conn-1 >> \"GET / HTTP/1.1[\\r][\\n]\"");
+        Mockito.verify(log).debug("conn-1 >> \"Host: [0xe9][\\r][\\n]\"");
+        Mockito.verify(log).debug("conn-1 << \"end of stream\"");
+    }
+
+    @Test
+    public void testRingBufferFull() throws Exception {
+        final CapturingWire wire = new CapturingWire(log, "conn-1", capture, null);
+        wire.startExchange();
+        for (int i = 0; i < 6; i++) {
+            wire.output(new byte[] {'a'});
+        }
+        Assert.assertEquals(2, capture.getDroppedCount());
+        Assert.assertEquals(4, capture.drain());
+        wire.output(new byte[] {'b'});
+        Assert.assertEquals(1, capture.drain());
+    }
+
+    @Test
+    public void testRouteSampling() throws Exception {
+        final HttpRoute route1 = new HttpRoute(new HttpHost("somehost"));
+        final HttpRoute route2 = new HttpRoute(new HttpHost("otherhost"));
+        capture.setSamplingRate(0.0);
+        capture.setSamplingRate(route1, 1.0);
+        final CapturingWire wire1 = new CapturingWire(log, "conn-1", capture, route1);
+        final CapturingWire wire2 = new CapturingWire(log, "conn-2", capture, route2);
+        wire1.startExchange();
+        wire2.startExchange();
+        Assert.assertTrue(wire1.enabled());
+        Assert.assertFalse(wire2.enabled());
+        wire1.output(new byte[] {'a'});
+        wire2.output(new byte[] {'b'});
+        Assert.assertEquals(1, capture.drain());
+
+        capture.setSamplingRate(route1, -1);
+        wire1.startExchange();
+        Assert.assertFalse(wire1.enabled());
+    }
+
+    @Test
+    public void testRuntimeToggle() throws Exception {
+        final CapturingWire wire = new CapturingWire(log, "conn-1", capture, null);
+        Assert.assertFalse(wire.enabled());
+        wire.startExchange();
+        Assert.assertTrue(wire.enabled());
+        capture.setEnabled(false);
+        Assert.assertFalse(wire.enabled());
+        wire.output(new byte[] {'a'});
+        Assert.assertEquals(0, capture.drain());
+        capture.setEnabled(true);
+        wire.startExchange();
+        wire.output(new byte[] {'a'});
+        Assert.assertEquals(1, capture.drain());
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+        capture.setTruncationLimit(5);
+        final CapturingWire wire = new CapturingWire(log, "conn-1", capture, null);
+        wire.startExchange();
+        wire.input("0123".getBytes("US-ASCII"));
+        wire.input("456789".getBytes("US-ASCII"));
+        wire.input("abc".getBytes("US-ASCII"));
+        Assert.assertEquals(3, capture.drain());
+        Mockito.verify(log).debug("conn-1 << \"0123\"");
+        Mockito.verify(log).debug("conn-1 << \"4\"");
+        Mockito.verify(log).debug("conn-1 << \"[truncated]\"");
+
+        wire.startExchange();
+        wire.input("abc".getBytes("US-ASCII"));
+        Assert.assertEquals(1, capture.drain());
+    }
+
+    @Test
+    public void testBackgroundThread() throws Exception {
+        final CapturingWire wire = new CapturingWire(log, "conn-1", capture, null);
+        capture.start();
+        try {
+            wire.startExchange();
+            wire.output(new byte[] {'a'});
+            Mockito.verify(log, Mockito.timeout(5000)).debug("conn-1 >> \"a\"");
+        } finally {
+            capture.shutdown();
+            capture.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        Assert.assertFalse(capture.isRunning());
+    }
+
+}
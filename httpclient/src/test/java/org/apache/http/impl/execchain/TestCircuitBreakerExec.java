@@ -0,0 +1,266 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.execchain;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.BackoffManager;
+import org.apache.http.client.CircuitBreakerOpenException;
+import org.apache.http.client.config.CircuitBreakerConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultBackoffStrategy;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SuppressWarnings({"boxing","static-access"}) // test code
+public class TestCircuitBreakerExec {
+
+    @Mock
+    private ClientExecChain requestExecutor;
+    @Mock
+    private HttpExecutionAware execAware;
+
+    private HttpRoute route;
+    private HttpRoute otherRoute;
+    private CloseableHttpResponse ok;
+    private CloseableHttpResponse unavailable;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        route = new HttpRoute(new HttpHost("somehost", 80));
+        otherRoute = new HttpRoute(new HttpHost("otherhost", 80));
+        ok = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(ok.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        unavailable = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(unavailable.getStatusLine()).thenReturn(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 503, "Unavailable"));
+    }
+
+    private static CircuitBreakerConfig.Builder config() {
+        return CircuitBreakerConfig.custom()
+                .setSlidingWindowSize(10)
+                .setMinimumNumberOfCalls(4)
+                .setFailureRateThreshold(50)
+                .setPermittedNumberOfCallsInHalfOpenState(2);
+    }
+
+    private CloseableHttpResponse execute(final CircuitBreakerExec exec, final HttpRoute route) throws Exception {
+        return exec.execute(route, HttpRequestWrapper.wrap(new HttpGet("/")), HttpClientContext.create(), execAware);
+    }
+
+    private void mockResponse(final HttpRoute route, final CloseableHttpResponse response) throws Exception {
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenReturn(response);
+    }
+
+    private void mockFailure(final HttpRoute route) throws Exception {
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenThrow(new ConnectException("Oppsie"));
+    }
+
+    @Test
+    public void testOpensOnFailureRate() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor,
+                config().setWaitDurationInOpenState(60000).build());
+        mockResponse(route, ok);
+        mockResponse(otherRoute, ok);
+        execute(exec, route);
+        execute(exec, route);
+        execute(exec, route);
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, exec.getState(route));
+        mockResponse(route, unavailable);
+        execute(exec, route);
+        execute(exec, route);
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, exec.getState(route));
+        mockFailure(route);
+        try {
+            execute(exec, route);
+            Assert.fail("ConnectException expected");
+        } catch (final ConnectException expected) {
+            Assert.assertFalse(expected instanceof CircuitBreakerOpenException);
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.OPEN, exec.getState(route));
+        try {
+            execute(exec, route);
+            Assert.fail("CircuitBreakerOpenException expected");
+        } catch (final CircuitBreakerOpenException expected) {
+            Assert.assertEquals(route, expected.getRoute());
+        }
+        Mockito.verify(requestExecutor, Mockito.times(6)).execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any());
+        Assert.assertSame(ok, execute(exec, otherRoute));
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, exec.getState(otherRoute));
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor,
+                config().setWaitDurationInOpenState(60000)
+                        .setSlowCallDurationThreshold(1)
+                        .setSlowCallRateThreshold(50).build());
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenAnswer(new Answer<CloseableHttpResponse>() {
+
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(5);
+                return ok;
+            }
+
+        });
+        for (int i = 0; i < 4; i++) {
+            execute(exec, route);
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.OPEN, exec.getState(route));
+    }
+
+    @Test
+    public void testHalfOpenProbes() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor,
+                config().setWaitDurationInOpenState(0).build());
+        mockFailure(route);
+        for (int i = 0; i < 4; i++) {
+            try {
+                execute(exec, route);
+                Assert.fail("ConnectException expected");
+            } catch (final ConnectException expected) {
+            }
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.HALF_OPEN, exec.getState(route));
+
+        // A failed probe opens the circuit again
+        try {
+            execute(exec, route);
+            Assert.fail("ConnectException expected");
+        } catch (final ConnectException expected) {
+            Assert.assertFalse(expected instanceof CircuitBreakerOpenException);
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.HALF_OPEN, exec.getState(route));
+
+        // Successful probes close it
+        mockResponse(route, ok);
+        execute(exec, route);
+        execute(exec, route);
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, exec.getState(route));
+    }
+
+    @Test
+    public void testHalfOpenLimitsProbes() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor,
+                config().setWaitDurationInOpenState(0).setPermittedNumberOfCallsInHalfOpenState(1).build());
+        final CircuitBreakerExec.CircuitBreaker breaker = exec.new CircuitBreaker(route);
+        for (int i = 0; i < 4; i++) {
+            final long generation = breaker.tryAcquire(0);
+            Assert.assertEquals(0, generation);
+            breaker.onResult(generation, true, false, 0);
+        }
+        final long generation = breaker.tryAcquire(0);
+        Assert.assertTrue(generation > 0);
+        Assert.assertEquals(CircuitBreakerExec.State.HALF_OPEN, breaker.getState(0));
+        Assert.assertEquals(-1, breaker.tryAcquire(0));
+        breaker.onIgnored(generation);
+        Assert.assertEquals(generation, breaker.tryAcquire(0));
+        breaker.onResult(generation, false, false, 0);
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, breaker.getState(0));
+    }
+
+    @Test
+    public void testAbortedRequestNotRecorded() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor, config().build());
+        Mockito.when(execAware.isAborted()).thenReturn(Boolean.TRUE);
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenThrow(new RequestAbortedException("Aborted"));
+        for (int i = 0; i < 10; i++) {
+            try {
+                execute(exec, route);
+                Assert.fail("IOException expected");
+            } catch (final IOException expected) {
+            }
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.CLOSED, exec.getState(route));
+    }
+
+    @Test
+    public void testOpenCircuitDoesNotBackOff() throws Exception {
+        final CircuitBreakerExec exec = new CircuitBreakerExec(requestExecutor,
+                config().setWaitDurationInOpenState(60000).build());
+        final BackoffManager backoffManager = Mockito.mock(BackoffManager.class);
+        final BackoffStrategyExec backoffExec = new BackoffStrategyExec(exec,
+                new DefaultBackoffStrategy(), backoffManager);
+        mockFailure(route);
+        for (int i = 0; i < 4; i++) {
+            try {
+                backoffExec.execute(route, HttpRequestWrapper.wrap(new HttpGet("/")),
+                        HttpClientContext.create(), execAware);
+                Assert.fail("ConnectException expected");
+            } catch (final ConnectException expected) {
+                Assert.assertFalse(expected instanceof CircuitBreakerOpenException);
+            }
+        }
+        Assert.assertEquals(CircuitBreakerExec.State.OPEN, exec.getState(route));
+        Mockito.verify(backoffManager, Mockito.times(4)).backOff(route);
+        try {
+            backoffExec.execute(route, HttpRequestWrapper.wrap(new HttpGet("/")),
+                    HttpClientContext.create(), execAware);
+            Assert.fail("CircuitBreakerOpenException expected");
+        } catch (final CircuitBreakerOpenException expected) {
+        }
+        Mockito.verify(backoffManager, Mockito.times(4)).backOff(route);
+    }
+
+}
@@ -0,0 +1,318 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.execchain;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthExchange;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+@SuppressWarnings({"boxing","static-access"}) // test code
+public class TestHedgingExec {
+
+    @Mock
+    private ClientExecChain requestExecutor;
+    @Mock
+    private HttpExecutionAware execAware;
+
+    private ScheduledExecutorService scheduler;
+    private HedgingExec hedgingExec;
+    private HttpRoute route;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        scheduler = Executors.newScheduledThreadPool(2);
+        hedgingExec = new HedgingExec(requestExecutor, scheduler,
+                DefaultHttpRequestRetryHandler.INSTANCE, 0.5, 1.0);
+        route = new HttpRoute(new HttpHost("localhost", 80));
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        scheduler.shutdownNow();
+    }
+
+    private void warmUp() throws Exception {
+        final CloseableHttpResponse response = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenReturn(response);
+        for (int i = 0; i < 20; i++) {
+            final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpGet("/test"));
+            Assert.assertSame(response, hedgingExec.execute(route, request, HttpClientContext.create(), execAware));
+        }
+        Mockito.reset(requestExecutor);
+    }
+
+    @Test
+    public void testNonIdempotentRequestNotHedged() throws Exception {
+        warmUp();
+        final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpPost("/test"));
+        final HttpClientContext context = HttpClientContext.create();
+        final CloseableHttpResponse response = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(requestExecutor.execute(route, request, context, execAware)).thenReturn(response);
+
+        Assert.assertSame(response, hedgingExec.execute(route, request, context, execAware));
+        Mockito.verify(requestExecutor, Mockito.times(1)).execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any());
+    }
+
+    @Test
+    public void testSlowRequestHedged() throws Exception {
+        warmUp();
+        final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpGet("/test"));
+        final HttpClientContext context = HttpClientContext.create();
+        final CloseableHttpResponse response1 = Mockito.mock(CloseableHttpResponse.class);
+        final CloseableHttpResponse response2 = Mockito.mock(CloseableHttpResponse.class);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger(0);
+        // Mocks serialize concurrent invocations, hence a stub implementation
+        final ClientExecChain slowExecutor = new ClientExecChain() {
+
+            @Override
+            public CloseableHttpResponse execute(
+                    final HttpRoute route,
+                    final HttpRequestWrapper req,
+                    final HttpClientContext clientContext,
+                    final HttpExecutionAware attempt) throws IOException, HttpException {
+                count.incrementAndGet();
+                Assert.assertNotSame(context, clientContext);
+                Assert.assertEquals("caller", clientContext.getAttribute("caller"));
+                if (req != request) {
+                    clientContext.setAttribute("attempt", "hedge");
+                    return response2;
+                }
+                clientContext.setAttribute("attempt", "primary");
+                clientContext.setAttribute("primary", Boolean.TRUE);
+                attempt.setCancellable(new Cancellable() {
+
+                    @Override
+                    public boolean cancel() {
+                        aborted.countDown();
+                        return true;
+                    }
+
+                });
+                try {
+                    if (!aborted.await(5, TimeUnit.SECONDS)) {
+                        return response1;
+                    }
+                } catch (final InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+                throw new RequestAbortedException("Request aborted");
+            }
+
+        };
+        hedgingExec = new HedgingExec(slowExecutor, scheduler,
+                DefaultHttpRequestRetryHandler.INSTANCE, 0.5, 1.0);
+        for (int i = 0; i < 20; i++) {
+            final HttpClientContext warmUpContext = HttpClientContext.create();
+            warmUpContext.setAttribute("caller", "caller");
+            Assert.assertSame(response2, hedgingExec.execute(
+                    route, HttpRequestWrapper.wrap(new HttpGet("/test")), warmUpContext, execAware));
+        }
+
+        context.setAttribute("caller", "caller");
+        Assert.assertSame(response2, hedgingExec.execute(route, request, context, execAware));
+        Assert.assertEquals(0, aborted.getCount());
+        Assert.assertEquals(22, count.get());
+        // only the attributes of the winning attempt end up in the caller's context
+        Assert.assertEquals("hedge", context.getAttribute("attempt"));
+        Assert.assertNull(context.getAttribute("primary"));
+    }
+
+    @Test
+    public void testPrimaryWinsOverStartedHedge() throws Exception {
+        final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpGet("/test"));
+        final HttpClientContext context = HttpClientContext.create();
+        final CloseableHttpResponse response1 = Mockito.mock(CloseableHttpResponse.class);
+        final CloseableHttpResponse response2 = Mockito.mock(CloseableHttpResponse.class);
+        final CountDownLatch hedgeStarted = new CountDownLatch(1);
+        final CountDownLatch hedgeAborted = new CountDownLatch(1);
+        final ClientExecChain slowHedgeExecutor = new ClientExecChain() {
+
+            @Override
+            public CloseableHttpResponse execute(
+                    final HttpRoute route,
+                    final HttpRequestWrapper req,
+                    final HttpClientContext clientContext,
+                    final HttpExecutionAware attempt) throws IOException, HttpException {
+                if (req == request) {
+                    clientContext.setAttribute("attempt", "primary");
+                    try {
+                        hedgeStarted.await(5, TimeUnit.SECONDS);
+                    } catch (final InterruptedException ex) {
+                        throw new InterruptedIOException();
+                    }
+                    return response1;
+                }
+                if (req.getOriginal() != request.getOriginal()) {
+                    return response2;
+                }
+                clientContext.setAttribute("attempt", "hedge");
+                clientContext.setAttribute("hedge", Boolean.TRUE);
+                attempt.setCancellable(new Cancellable() {
+
+                    @Override
+                    public boolean cancel() {
+                        hedgeAborted.countDown();
+                        return true;
+                    }
+
+                });
+                hedgeStarted.countDown();
+                try {
+                    hedgeAborted.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+                throw new RequestAbortedException("Request aborted");
+            }
+
+        };
+        hedgingExec = new HedgingExec(slowHedgeExecutor, scheduler,
+                DefaultHttpRequestRetryHandler.INSTANCE, 0.5, 1.0);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertSame(response2, hedgingExec.execute(
+                    route, HttpRequestWrapper.wrap(new HttpGet("/test")), HttpClientContext.create(), execAware));
+        }
+
+        Assert.assertSame(response1, hedgingExec.execute(route, request, context, execAware));
+        Assert.assertTrue(hedgeAborted.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("primary", context.getAttribute("attempt"));
+        Assert.assertNull(context.getAttribute("hedge"));
+    }
+
+    @Test
+    public void testAttemptContextDetached() throws Exception {
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute("a", "1");
+        context.setAttribute("b", "2");
+        context.setAttribute("c", "3");
+        final HedgingExec.AttemptContext attemptContext = new HedgingExec.AttemptContext(context, true);
+        Assert.assertEquals("1", attemptContext.getAttribute("a"));
+        attemptContext.setAttribute("d", "4");
+        Assert.assertEquals("3", attemptContext.removeAttribute("c"));
+        Assert.assertNull(attemptContext.getAttribute("c"));
+        Assert.assertNull(context.getAttribute("d"));
+        Assert.assertEquals("3", context.getAttribute("c"));
+
+        attemptContext.detach();
+        context.setAttribute("a", "changed");
+        context.setAttribute("b", "changed");
+        Assert.assertEquals("1", attemptContext.getAttribute("a"));
+        Assert.assertNull(attemptContext.getAttribute("b"));
+        Assert.assertEquals("4", attemptContext.getAttribute("d"));
+
+        attemptContext.copyTo(context);
+        Assert.assertEquals("4", context.getAttribute("d"));
+        Assert.assertNull(context.getAttribute("c"));
+        Assert.assertEquals("changed", context.getAttribute("a"));
+    }
+
+    @Test
+    public void testAttemptContextAuthExchangesCopied() throws Exception {
+        final HttpHost target = new HttpHost("somehost", 80);
+        final HttpClientContext context = HttpClientContext.create();
+        final AuthExchange authExchange = context.getAuthExchange(target);
+        authExchange.select(new BasicScheme());
+        authExchange.setState(AuthExchange.State.SUCCESS);
+        final Map<HttpHost, AuthExchange> authExchanges = context.getAuthExchanges();
+
+        final HttpClientContext primaryContext = HttpClientContext.adapt(
+                new HedgingExec.AttemptContext(context, true));
+        final AuthExchange primaryAuthExchange = primaryContext.getAuthExchange(target);
+        Assert.assertNotSame(authExchanges, primaryContext.getAuthExchanges());
+        Assert.assertNotSame(authExchange, primaryAuthExchange);
+        Assert.assertSame(authExchange.getAuthScheme(), primaryAuthExchange.getAuthScheme());
+        Assert.assertEquals(AuthExchange.State.SUCCESS, primaryAuthExchange.getState());
+
+        final HedgingExec.AttemptContext hedgeContext = new HedgingExec.AttemptContext(context, false);
+        final AuthExchange hedgeAuthExchange = HttpClientContext.adapt(hedgeContext).getAuthExchange(target);
+        Assert.assertNotSame(authExchange, hedgeAuthExchange);
+        Assert.assertNull(hedgeAuthExchange.getAuthScheme());
+        Assert.assertEquals(AuthExchange.State.UNCHALLENGED, hedgeAuthExchange.getState());
+
+        hedgeAuthExchange.setState(AuthExchange.State.FAILURE);
+        primaryAuthExchange.reset();
+        Assert.assertEquals(AuthExchange.State.SUCCESS, authExchange.getState());
+
+        // the winner's exchanges replace those of the caller
+        hedgeContext.detach();
+        hedgeContext.copyTo(context);
+        Assert.assertSame(hedgeAuthExchange, context.getAuthExchange(target));
+    }
+
+    @Test
+    public void testPrimaryFailureWithoutHedge() throws Exception {
+        final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpGet("/test"));
+        final HttpClientContext context = HttpClientContext.create();
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenThrow(new RequestAbortedException("Oppsie"));
+        try {
+            hedgingExec.execute(route, request, context, execAware);
+            Assert.fail("RequestAbortedException expected");
+        } catch (final RequestAbortedException expected) {
+        }
+    }
+
+}
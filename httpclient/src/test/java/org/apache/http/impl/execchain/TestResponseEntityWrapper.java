@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketException;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.util.EntityUtils;
@@ -112,6 +113,32 @@ public class TestResponseEntityWrapper {
         Mockito.verify(connHolder).abortConnection();
     }
 
+    @Test
+    public void testReusableEntityTransferTo() throws Exception {
+        final WritableByteChannel channel = Mockito.mock(WritableByteChannel.class);
+        Mockito.when(instream.read(Mockito.any(byte[].class))).thenReturn(-1);
+        Mockito.when(entity.isStreaming()).thenReturn(true);
+        Mockito.when(connHolder.isReusable()).thenReturn(true);
+        Assert.assertEquals(0, wrapper.transferTo(channel));
+        Mockito.verify(instream).close();
+        Mockito.verify(connHolder).releaseConnection();
+    }
+
+    @Test
+    public void testReusableEntityTransferToIOError() throws Exception {
+        final WritableByteChannel channel = Mockito.mock(WritableByteChannel.class);
+        Mockito.when(instream.read(Mockito.any(byte[].class))).thenThrow(new IOException());
+        Mockito.when(entity.isStreaming()).thenReturn(true);
+        Mockito.when(connHolder.isReusable()).thenReturn(true);
+        try {
+            wrapper.transferTo(channel);
+            Assert.fail("IOException expected");
+        } catch (final IOException ex) {
+        }
+        Mockito.verify(connHolder, Mockito.never()).releaseConnection();
+        Mockito.verify(connHolder).abortConnection();
+    }
+
     @Test
     public void testReusableEntityEndOfStream() throws Exception {
         Mockito.when(instream.read()).thenReturn(-1);
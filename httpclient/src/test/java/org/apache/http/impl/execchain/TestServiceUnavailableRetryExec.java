@@ -28,6 +28,7 @@ package org.apache.http.impl.execchain;
 
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.RetryDeferredException;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpExecutionAware;
@@ -36,6 +37,7 @@ import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.protocol.HttpContext;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -94,6 +96,46 @@ public class TestServiceUnavailableRetryExec {
         Mockito.verify(response, Mockito.times(1)).close();
     }
 
+    @Test
+    public void testDeferredRetry() throws Exception {
+        final HttpRoute route = new HttpRoute(target);
+        final HttpRequestWrapper request = HttpRequestWrapper.wrap(new HttpGet("/test"));
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.RETRY_DEFERRAL, Boolean.TRUE);
+
+        final CloseableHttpResponse response = Mockito.mock(CloseableHttpResponse.class);
+        Mockito.when(requestExecutor.execute(
+                Mockito.eq(route),
+                Mockito.<HttpRequestWrapper>any(),
+                Mockito.<HttpClientContext>any(),
+                Mockito.<HttpExecutionAware>any())).thenReturn(response);
+        Mockito.when(retryStrategy.retryRequest(
+                Mockito.<HttpResponse>any(),
+                Mockito.anyInt(),
+                Mockito.<HttpContext>any())).thenReturn(Boolean.TRUE, Boolean.FALSE);
+        Mockito.when(retryStrategy.getRetryInterval(
+                Mockito.<HttpResponse>any(),
+                Mockito.<HttpContext>any())).thenReturn(1000L);
+
+        try {
+            retryExec.execute(route, request, context, execAware);
+            Assert.fail("RetryDeferredException expected");
+        } catch (final RetryDeferredException ex) {
+            Assert.assertEquals(1000L, ex.getDelay());
+        }
+        Mockito.verify(response, Mockito.times(1)).close();
+        Mockito.verify(retryStrategy).retryRequest(response, 1, context);
+
+        final CloseableHttpResponse result = retryExec.execute(route, request, context, execAware);
+        Assert.assertSame(response, result);
+        Mockito.verify(retryStrategy).retryRequest(response, 2, context);
+        Mockito.verify(requestExecutor, Mockito.times(2)).execute(
+                Mockito.eq(route),
+                Mockito.same(request),
+                Mockito.same(context),
+                Mockito.same(execAware));
+    }
+
     @Test(expected = RuntimeException.class)
     public void testStrategyRuntimeException() throws Exception {
         final HttpRoute route = new HttpRoute(target);